@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Linker which submits compiling and linking of many programs up
+ * front and checks their results later, so that drivers can work on
+ * them in parallel without stalling the GL thread.
+ *
+ * <pre style="background: lightgray;">
+ * <span style="color: darkgreen;">// <b>E X A M P L E</b></span>
+ *
+ * <span style="color: darkgreen;">// At level load.</span>
+ * {@link AsyncProgramLinker} linker = new {@link AsyncProgramLinker}();
+ * linker.{@link #add(Program) add}(program1);
+ * linker.{@link #add(Program) add}(program2);
+ *
+ * <span style="color: darkgreen;">// In onDrawFrame().</span>
+ * linker.{@link #poll() poll}();
+ * </pre>
+ *
+ * <p>
+ * If {@link Extension#KHR_parallel_shader_compile} is supported,
+ * {@link #poll()} checks GL_COMPLETION_STATUS_KHR and never blocks.
+ * Otherwise, the status checks are deferred to {@link #poll()}, and
+ * the number of programs checked per call can be limited by {@link
+ * #setMaxChecksPerPoll(int)} to spread possible stalls over frames.
+ * </p>
+ *
+ * <p>
+ * All the methods must be called on the GL thread.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see Program#linkAsync()
+ */
+public class AsyncProgramLinker
+{
+    private final List<Program> pending = new ArrayList<Program>();
+    private ProgramLinkListener listener;
+    private int maxChecksPerPoll = Integer.MAX_VALUE;
+
+
+    /**
+     * Get the listener notified of the results.
+     *
+     * @return
+     *         The listener. May be null.
+     */
+    public ProgramLinkListener getListener()
+    {
+        return listener;
+    }
+
+
+    /**
+     * Set a listener notified of the results.
+     *
+     * @param listener
+     *         A listener. May be null.
+     *
+     * @return
+     *         This AsyncProgramLinker object.
+     */
+    public AsyncProgramLinker setListener(ProgramLinkListener listener)
+    {
+        this.listener = listener;
+
+        return this;
+    }
+
+
+    /**
+     * Get the maximum number of programs whose results are checked
+     * by one {@link #poll()} call when {@link
+     * Extension#KHR_parallel_shader_compile} is not supported.
+     *
+     * @return
+     *         The maximum number of checks per poll.
+     */
+    public int getMaxChecksPerPoll()
+    {
+        return maxChecksPerPoll;
+    }
+
+
+    /**
+     * Set the maximum number of programs whose results are checked
+     * by one {@link #poll()} call when {@link
+     * Extension#KHR_parallel_shader_compile} is not supported.
+     * Unlimited by default.
+     *
+     * @param max
+     *         The maximum number of checks per poll.
+     *
+     * @return
+     *         This AsyncProgramLinker object.
+     *
+     * @throws IllegalArgumentException
+     *         The given value is less than 1.
+     */
+    public AsyncProgramLinker setMaxChecksPerPoll(int max)
+    {
+        if (max < 1)
+        {
+            throw new IllegalArgumentException("max must be greater than 0.");
+        }
+
+        maxChecksPerPoll = max;
+
+        return this;
+    }
+
+
+    /**
+     * Submit linking of a program by {@link Program#linkAsync()}
+     * and add it to the list of pending programs.
+     *
+     * @param program
+     *         A program.
+     *
+     * @return
+     *         This AsyncProgramLinker object.
+     *
+     * @throws IllegalArgumentException
+     *         The given program is null.
+     *
+     * @throws IllegalStateException
+     *         The program has already been deleted, or no source
+     *         is set to an attached shader.
+     */
+    public AsyncProgramLinker add(Program program)
+    {
+        // Check the argument.
+        if (program == null)
+        {
+            throw new IllegalArgumentException("program is null.");
+        }
+
+        program.linkAsync();
+
+        if (pending.contains(program) == false)
+        {
+            pending.add(program);
+        }
+
+        return this;
+    }
+
+
+    /**
+     * Check the pending programs and notify the listener of the
+     * programs whose linking has finished.
+     *
+     * @return
+     *         The number of programs still pending.
+     */
+    public int poll()
+    {
+        boolean parallel = Extension.KHR_parallel_shader_compile.isSupported();
+        int checks = 0;
+
+        for (int i = 0; i < pending.size(); )
+        {
+            if (parallel == false && maxChecksPerPoll <= checks)
+            {
+                break;
+            }
+
+            Program program = pending.get(i);
+
+            if (program.getState() == ProgramState.DELETED ||
+                program.getState() == ProgramState.NEEDS_LINKING)
+            {
+                // Deleted, or shaders were attached or detached
+                // after submission. Call add() again to relink.
+                pending.remove(i);
+                continue;
+            }
+
+            ++checks;
+
+            try
+            {
+                if (program.poll() == false)
+                {
+                    // Still in progress.
+                    ++i;
+                    continue;
+                }
+
+                pending.remove(i);
+
+                if (listener != null)
+                {
+                    listener.onLinked(program);
+                }
+            }
+            catch (GLESException e)
+            {
+                pending.remove(i);
+
+                if (listener != null)
+                {
+                    listener.onLinkFailed(program, e);
+                }
+            }
+        }
+
+        return pending.size();
+    }
+
+
+    /**
+     * Get the number of programs still pending.
+     *
+     * @return
+     *         The number of pending programs.
+     */
+    public int getPendingCount()
+    {
+        return pending.size();
+    }
+
+
+    /**
+     * Forget all the pending programs. Call this method when a new
+     * GL context has been created.
+     */
+    public void clear()
+    {
+        pending.clear();
+    }
+}
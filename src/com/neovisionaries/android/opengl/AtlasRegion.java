@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+/**
+ * An image packed in a {@link TextureAtlas}.
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see TextureAtlas#add(String, java.nio.ByteBuffer, int, int)
+ */
+public class AtlasRegion
+{
+    private final String name;
+    private final int page;
+    private final Texture2D texture;
+    private final int x;
+    private final int y;
+    private final int width;
+    private final int height;
+    private final float u0;
+    private final float v0;
+    private final float u1;
+    private final float v1;
+
+
+    AtlasRegion(String name, int page, Texture2D texture, int x, int y, int width, int height, int pageWidth, int pageHeight)
+    {
+        this.name    = name;
+        this.page    = page;
+        this.texture = texture;
+        this.x       = x;
+        this.y       = y;
+        this.width   = width;
+        this.height  = height;
+        this.u0      = (float)x / pageWidth;
+        this.v0      = (float)y / pageHeight;
+        this.u1      = (float)(x + width)  / pageWidth;
+        this.v1      = (float)(y + height) / pageHeight;
+    }
+
+
+    /**
+     * Get the name of the image.
+     *
+     * @return
+     *         The name given to {@link TextureAtlas#add(String,
+     *         java.nio.ByteBuffer, int, int) TextureAtlas.add()}.
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+
+    /**
+     * Get the index of the page.
+     *
+     * @return
+     *         The index of the page.
+     */
+    public int getPage()
+    {
+        return page;
+    }
+
+
+    /**
+     * Get the texture of the page.
+     *
+     * @return
+     *         The texture.
+     */
+    public Texture2D getTexture()
+    {
+        return texture;
+    }
+
+
+    /**
+     * Get the X position of the image in the page, in pixels.
+     *
+     * @return
+     *         The X position.
+     */
+    public int getX()
+    {
+        return x;
+    }
+
+
+    /**
+     * Get the Y position of the image in the page, in pixels.
+     *
+     * @return
+     *         The Y position.
+     */
+    public int getY()
+    {
+        return y;
+    }
+
+
+    /**
+     * Get the width of the image.
+     *
+     * @return
+     *         The width.
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+
+    /**
+     * Get the height of the image.
+     *
+     * @return
+     *         The height.
+     */
+    public int getHeight()
+    {
+        return height;
+    }
+
+
+    /**
+     * Get the texture coordinate of the left edge.
+     *
+     * @return
+     *         U of the left edge.
+     */
+    public float getU0()
+    {
+        return u0;
+    }
+
+
+    /**
+     * Get the texture coordinate of the first row. The first row
+     * of the image is at the lower V.
+     *
+     * @return
+     *         V of the first row.
+     */
+    public float getV0()
+    {
+        return v0;
+    }
+
+
+    /**
+     * Get the texture coordinate of the right edge.
+     *
+     * @return
+     *         U of the right edge.
+     */
+    public float getU1()
+    {
+        return u1;
+    }
+
+
+    /**
+     * Get the texture coordinate of the last row.
+     *
+     * @return
+     *         V of the last row.
+     */
+    public float getV1()
+    {
+        return v1;
+    }
+}
@@ -56,7 +56,44 @@ public enum AttrDataType
     /**
      * GL_FIXED.
      */
-    FIXED(GLESFactory.getInstance().GL_FIXED())
+    FIXED(GLESFactory.getInstance().GL_FIXED()),
+
+
+    /**
+     * GL_HALF_FLOAT_OES.
+     *
+     * <p>
+     * Available only when {@link Extension#OES_vertex_half_float
+     * OES_vertex_half_float} is supported.
+     * </p>
+     */
+    HALF_FLOAT(GLESFactory.getInstance().GL_HALF_FLOAT_OES()),
+
+
+    /**
+     * GL_INT_10_10_10_2_OES.
+     *
+     * <p>
+     * Available only when {@link Extension#OES_vertex_type_10_10_10_2
+     * OES_vertex_type_10_10_10_2} is supported. The size of the
+     * attribute must be {@link AttrDataSize#THREE THREE} or {@link
+     * AttrDataSize#FOUR FOUR}.
+     * </p>
+     */
+    INT_10_10_10_2(GLESFactory.getInstance().GL_INT_10_10_10_2_OES()),
+
+
+    /**
+     * GL_UNSIGNED_INT_10_10_10_2_OES.
+     *
+     * <p>
+     * Available only when {@link Extension#OES_vertex_type_10_10_10_2
+     * OES_vertex_type_10_10_10_2} is supported. The size of the
+     * attribute must be {@link AttrDataSize#THREE THREE} or {@link
+     * AttrDataSize#FOUR FOUR}.
+     * </p>
+     */
+    UNSIGNED_INT_10_10_10_2(GLESFactory.getInstance().GL_UNSIGNED_INT_10_10_10_2_OES())
     ;
 
 
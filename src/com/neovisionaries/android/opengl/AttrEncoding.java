@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+/**
+ * Compact encodings of vertex attribute data used by {@link
+ * VertexQuantizer}.
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see VertexQuantizer
+ * @see QuantizedArray
+ */
+public enum AttrEncoding
+{
+    /**
+     * 16-bit floating point numbers ({@link AttrDataType#HALF_FLOAT}).
+     * {@link Extension#OES_vertex_half_float OES_vertex_half_float}
+     * is required.
+     */
+    HALF_FLOAT(AttrDataType.HALF_FLOAT, false, true, 16),
+
+
+    /**
+     * Signed 16-bit integers normalized to [-1, 1]
+     * ({@link AttrDataType#SHORT}, normalized).
+     */
+    SNORM16(AttrDataType.SHORT, true, true, 16),
+
+
+    /**
+     * Unsigned 16-bit integers normalized to [0, 1]
+     * ({@link AttrDataType#UNSIGNED_SHORT}, normalized).
+     */
+    UNORM16(AttrDataType.UNSIGNED_SHORT, true, false, 16),
+
+
+    /**
+     * Signed 8-bit integers normalized to [-1, 1]
+     * ({@link AttrDataType#BYTE}, normalized).
+     */
+    SNORM8(AttrDataType.BYTE, true, true, 8),
+
+
+    /**
+     * Unsigned 8-bit integers normalized to [0, 1]
+     * ({@link AttrDataType#UNSIGNED_BYTE}, normalized).
+     */
+    UNORM8(AttrDataType.UNSIGNED_BYTE, true, false, 8),
+
+
+    /**
+     * Signed 10-10-10-2 packed integers normalized to [-1, 1]
+     * ({@link AttrDataType#INT_10_10_10_2}, normalized).
+     * {@link Extension#OES_vertex_type_10_10_10_2
+     * OES_vertex_type_10_10_10_2} is required.
+     */
+    SNORM_10_10_10_2(AttrDataType.INT_10_10_10_2, true, true, 10),
+
+
+    /**
+     * Unsigned 10-10-10-2 packed integers normalized to [0, 1]
+     * ({@link AttrDataType#UNSIGNED_INT_10_10_10_2}, normalized).
+     * {@link Extension#OES_vertex_type_10_10_10_2
+     * OES_vertex_type_10_10_10_2} is required.
+     */
+    UNORM_10_10_10_2(AttrDataType.UNSIGNED_INT_10_10_10_2, true, false, 10)
+    ;
+
+
+    /**
+     * The data type passed to glVertexAttribPointer().
+     */
+    private final AttrDataType dataType;
+
+
+    /**
+     * The value of 'normalized' passed to glVertexAttribPointer().
+     */
+    private final boolean normalized;
+
+
+    /**
+     * True if the encoding can represent negative values.
+     */
+    private final boolean signed;
+
+
+    /**
+     * The number of bits of the first component.
+     */
+    private final int bits;
+
+
+    private AttrEncoding(AttrDataType dataType, boolean normalized, boolean signed, int bits)
+    {
+        this.dataType   = dataType;
+        this.normalized = normalized;
+        this.signed     = signed;
+        this.bits       = bits;
+    }
+
+
+    /**
+     * Get the data type to pass to glVertexAttribPointer().
+     *
+     * @return
+     *         The data type.
+     */
+    public AttrDataType getDataType()
+    {
+        return dataType;
+    }
+
+
+    /**
+     * Get the value of 'normalized' to pass to glVertexAttribPointer().
+     *
+     * @return
+     *         True if the encoded data must be normalized by the GL.
+     */
+    public boolean isNormalized()
+    {
+        return normalized;
+    }
+
+
+    /**
+     * Check if this encoding can represent negative values.
+     *
+     * @return
+     *         True if this encoding is signed.
+     */
+    public boolean isSigned()
+    {
+        return signed;
+    }
+
+
+    /**
+     * Get the number of bits per component. For the packed
+     * 10-10-10-2 encodings, 10 is returned (the fourth component
+     * has only 2 bits).
+     *
+     * @return
+     *         The number of bits per component.
+     */
+    public int getBits()
+    {
+        return bits;
+    }
+
+
+    /**
+     * Check if this encoding packs all the components of a vertex
+     * into one 32-bit integer.
+     *
+     * @return
+     *         True if this encoding is a packed 10-10-10-2 encoding.
+     */
+    public boolean isPacked()
+    {
+        return (this == SNORM_10_10_10_2 || this == UNORM_10_10_10_2);
+    }
+
+
+    /**
+     * Check if this encoding is available on the current device.
+     *
+     * @return
+     *         True if the extension required by this encoding (if any)
+     *         is supported.
+     */
+    public boolean isSupported()
+    {
+        switch (this)
+        {
+            case HALF_FLOAT:
+                return Extension.OES_vertex_half_float.isSupported();
+
+            case SNORM_10_10_10_2:
+            case UNORM_10_10_10_2:
+                return Extension.OES_vertex_type_10_10_10_2.isSupported();
+
+            default:
+                return true;
+        }
+    }
+}
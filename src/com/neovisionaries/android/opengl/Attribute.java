@@ -1157,7 +1157,7 @@ public class Attribute
         if (type == null)
         {
             // Guess the data type.
-            if (values.getDataBufferClass().equals(FloatBuffer.class))
+            if (FloatBuffer.class.isAssignableFrom(values.getDataBufferClass()))
             {
                 type = AttrDataType.FLOAT;
             }
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+/**
+ * Listener notified by {@link ElementDrawer} before each part of
+ * {@link PackedIndices} is drawn.
+ *
+ * <p>
+ * OpenGL ES 2.0 does not have glDrawElementsBaseVertex(), so the
+ * listener has to re-point the attribute arrays so that index 0
+ * refers to the base vertex, for example, by calling {@link
+ * Attribute#setArray(ArrayBuffer, AttrDataSize, AttrDataType, boolean,
+ * int, int) setArray}(buffer, size, type, normalized, stride,
+ * baseVertex * stride).
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see ElementDrawer#setBaseVertexListener(BaseVertexListener)
+ */
+public interface BaseVertexListener
+{
+    /**
+     * Called before a part is drawn.
+     *
+     * @param drawer
+     *         The drawer.
+     *
+     * @param part
+     *         The index of the part.
+     *
+     * @param baseVertex
+     *         The base vertex of the part.
+     */
+    void onBaseVertex(ElementDrawer drawer, int part, int baseVertex);
+}
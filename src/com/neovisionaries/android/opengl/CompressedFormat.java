@@ -0,0 +1,363 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+/**
+ * Compressed texture formats.
+ *
+ * <p>
+ * The constants are declared in the order of preference used by
+ * {@link TextureCompression}: ASTC, S3TC, PVRTC, ATC and ETC1.
+ * ETC1 comes last because it has no alpha channel and the lowest
+ * quality, but it is supported by almost all OpenGL ES 2.0 devices.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glCompressedTexImage2D.xml">glCompressedTexImage2D</a>
+ */
+public enum CompressedFormat
+{
+    /**
+     * GL_COMPRESSED_RGBA_ASTC_4x4_KHR (4x4 blocks of 16 bytes).
+     */
+    ASTC_4x4(GLESFactory.getInstance().GL_COMPRESSED_RGBA_ASTC_4x4_KHR(), Extension.KHR_texture_compression_astc_ldr, 4, 4, 16, 1, 1, true),
+
+
+    /**
+     * GL_COMPRESSED_RGBA_ASTC_5x4_KHR (5x4 blocks of 16 bytes).
+     */
+    ASTC_5x4(GLESFactory.getInstance().GL_COMPRESSED_RGBA_ASTC_5x4_KHR(), Extension.KHR_texture_compression_astc_ldr, 5, 4, 16, 1, 1, true),
+
+
+    /**
+     * GL_COMPRESSED_RGBA_ASTC_5x5_KHR (5x5 blocks of 16 bytes).
+     */
+    ASTC_5x5(GLESFactory.getInstance().GL_COMPRESSED_RGBA_ASTC_5x5_KHR(), Extension.KHR_texture_compression_astc_ldr, 5, 5, 16, 1, 1, true),
+
+
+    /**
+     * GL_COMPRESSED_RGBA_ASTC_6x5_KHR (6x5 blocks of 16 bytes).
+     */
+    ASTC_6x5(GLESFactory.getInstance().GL_COMPRESSED_RGBA_ASTC_6x5_KHR(), Extension.KHR_texture_compression_astc_ldr, 6, 5, 16, 1, 1, true),
+
+
+    /**
+     * GL_COMPRESSED_RGBA_ASTC_6x6_KHR (6x6 blocks of 16 bytes).
+     */
+    ASTC_6x6(GLESFactory.getInstance().GL_COMPRESSED_RGBA_ASTC_6x6_KHR(), Extension.KHR_texture_compression_astc_ldr, 6, 6, 16, 1, 1, true),
+
+
+    /**
+     * GL_COMPRESSED_RGBA_ASTC_8x5_KHR (8x5 blocks of 16 bytes).
+     */
+    ASTC_8x5(GLESFactory.getInstance().GL_COMPRESSED_RGBA_ASTC_8x5_KHR(), Extension.KHR_texture_compression_astc_ldr, 8, 5, 16, 1, 1, true),
+
+
+    /**
+     * GL_COMPRESSED_RGBA_ASTC_8x6_KHR (8x6 blocks of 16 bytes).
+     */
+    ASTC_8x6(GLESFactory.getInstance().GL_COMPRESSED_RGBA_ASTC_8x6_KHR(), Extension.KHR_texture_compression_astc_ldr, 8, 6, 16, 1, 1, true),
+
+
+    /**
+     * GL_COMPRESSED_RGBA_ASTC_8x8_KHR (8x8 blocks of 16 bytes).
+     */
+    ASTC_8x8(GLESFactory.getInstance().GL_COMPRESSED_RGBA_ASTC_8x8_KHR(), Extension.KHR_texture_compression_astc_ldr, 8, 8, 16, 1, 1, true),
+
+
+    /**
+     * GL_COMPRESSED_RGBA_ASTC_10x5_KHR (10x5 blocks of 16 bytes).
+     */
+    ASTC_10x5(GLESFactory.getInstance().GL_COMPRESSED_RGBA_ASTC_10x5_KHR(), Extension.KHR_texture_compression_astc_ldr, 10, 5, 16, 1, 1, true),
+
+
+    /**
+     * GL_COMPRESSED_RGBA_ASTC_10x6_KHR (10x6 blocks of 16 bytes).
+     */
+    ASTC_10x6(GLESFactory.getInstance().GL_COMPRESSED_RGBA_ASTC_10x6_KHR(), Extension.KHR_texture_compression_astc_ldr, 10, 6, 16, 1, 1, true),
+
+
+    /**
+     * GL_COMPRESSED_RGBA_ASTC_10x8_KHR (10x8 blocks of 16 bytes).
+     */
+    ASTC_10x8(GLESFactory.getInstance().GL_COMPRESSED_RGBA_ASTC_10x8_KHR(), Extension.KHR_texture_compression_astc_ldr, 10, 8, 16, 1, 1, true),
+
+
+    /**
+     * GL_COMPRESSED_RGBA_ASTC_10x10_KHR (10x10 blocks of 16 bytes).
+     */
+    ASTC_10x10(GLESFactory.getInstance().GL_COMPRESSED_RGBA_ASTC_10x10_KHR(), Extension.KHR_texture_compression_astc_ldr, 10, 10, 16, 1, 1, true),
+
+
+    /**
+     * GL_COMPRESSED_RGBA_ASTC_12x10_KHR (12x10 blocks of 16 bytes).
+     */
+    ASTC_12x10(GLESFactory.getInstance().GL_COMPRESSED_RGBA_ASTC_12x10_KHR(), Extension.KHR_texture_compression_astc_ldr, 12, 10, 16, 1, 1, true),
+
+
+    /**
+     * GL_COMPRESSED_RGBA_ASTC_12x12_KHR (12x12 blocks of 16 bytes).
+     */
+    ASTC_12x12(GLESFactory.getInstance().GL_COMPRESSED_RGBA_ASTC_12x12_KHR(), Extension.KHR_texture_compression_astc_ldr, 12, 12, 16, 1, 1, true),
+
+
+    /**
+     * GL_COMPRESSED_RGBA_S3TC_DXT5_EXT (4x4 blocks of 16 bytes).
+     */
+    S3TC_RGBA_DXT5(GLESFactory.getInstance().GL_COMPRESSED_RGBA_S3TC_DXT5_EXT(), Extension.EXT_texture_compression_s3tc, 4, 4, 16, 1, 1, true),
+
+
+    /**
+     * GL_COMPRESSED_RGBA_S3TC_DXT3_EXT (4x4 blocks of 16 bytes).
+     */
+    S3TC_RGBA_DXT3(GLESFactory.getInstance().GL_COMPRESSED_RGBA_S3TC_DXT3_EXT(), Extension.EXT_texture_compression_s3tc, 4, 4, 16, 1, 1, true),
+
+
+    /**
+     * GL_COMPRESSED_RGBA_S3TC_DXT1_EXT (4x4 blocks of 8 bytes).
+     */
+    S3TC_RGBA_DXT1(GLESFactory.getInstance().GL_COMPRESSED_RGBA_S3TC_DXT1_EXT(), Extension.EXT_texture_compression_s3tc, 4, 4, 8, 1, 1, true),
+
+
+    /**
+     * GL_COMPRESSED_RGB_S3TC_DXT1_EXT (4x4 blocks of 8 bytes).
+     */
+    S3TC_RGB_DXT1(GLESFactory.getInstance().GL_COMPRESSED_RGB_S3TC_DXT1_EXT(), Extension.EXT_texture_compression_s3tc, 4, 4, 8, 1, 1, false),
+
+
+    /**
+     * GL_COMPRESSED_RGBA_PVRTC_4BPPV1_IMG (4x4 blocks of 8 bytes, 8x8 pixels at least).
+     */
+    PVRTC_RGBA_4BPP(GLESFactory.getInstance().GL_COMPRESSED_RGBA_PVRTC_4BPPV1_IMG(), Extension.IMG_texture_compression_pvrtc, 4, 4, 8, 2, 2, true),
+
+
+    /**
+     * GL_COMPRESSED_RGBA_PVRTC_2BPPV1_IMG (8x4 blocks of 8 bytes, 16x8 pixels at least).
+     */
+    PVRTC_RGBA_2BPP(GLESFactory.getInstance().GL_COMPRESSED_RGBA_PVRTC_2BPPV1_IMG(), Extension.IMG_texture_compression_pvrtc, 8, 4, 8, 2, 2, true),
+
+
+    /**
+     * GL_COMPRESSED_RGB_PVRTC_4BPPV1_IMG (4x4 blocks of 8 bytes, 8x8 pixels at least).
+     */
+    PVRTC_RGB_4BPP(GLESFactory.getInstance().GL_COMPRESSED_RGB_PVRTC_4BPPV1_IMG(), Extension.IMG_texture_compression_pvrtc, 4, 4, 8, 2, 2, false),
+
+
+    /**
+     * GL_COMPRESSED_RGB_PVRTC_2BPPV1_IMG (8x4 blocks of 8 bytes, 16x8 pixels at least).
+     */
+    PVRTC_RGB_2BPP(GLESFactory.getInstance().GL_COMPRESSED_RGB_PVRTC_2BPPV1_IMG(), Extension.IMG_texture_compression_pvrtc, 8, 4, 8, 2, 2, false),
+
+
+    /**
+     * GL_ATC_RGBA_INTERPOLATED_ALPHA_AMD (4x4 blocks of 16 bytes).
+     */
+    ATC_RGBA_INTERPOLATED_ALPHA(GLESFactory.getInstance().GL_ATC_RGBA_INTERPOLATED_ALPHA_AMD(), Extension.AMD_compressed_ATC_texture, 4, 4, 16, 1, 1, true),
+
+
+    /**
+     * GL_ATC_RGBA_EXPLICIT_ALPHA_AMD (4x4 blocks of 16 bytes).
+     */
+    ATC_RGBA_EXPLICIT_ALPHA(GLESFactory.getInstance().GL_ATC_RGBA_EXPLICIT_ALPHA_AMD(), Extension.AMD_compressed_ATC_texture, 4, 4, 16, 1, 1, true),
+
+
+    /**
+     * GL_ATC_RGB_AMD (4x4 blocks of 8 bytes).
+     */
+    ATC_RGB(GLESFactory.getInstance().GL_ATC_RGB_AMD(), Extension.AMD_compressed_ATC_texture, 4, 4, 8, 1, 1, false),
+
+
+    /**
+     * GL_ETC1_RGB8_OES (4x4 blocks of 8 bytes).
+     */
+    ETC1_RGB8(GLESFactory.getInstance().GL_ETC1_RGB8_OES(), Extension.OES_compressed_ETC1_RGB8_texture, 4, 4, 8, 1, 1, false)
+    ;
+
+
+    /**
+     * The internal format given to glCompressedTexImage2D().
+     */
+    private final int internalFormat;
+
+
+    /**
+     * The extension needed for this format.
+     */
+    private final Extension extension;
+
+
+    private final int blockWidth;
+    private final int blockHeight;
+    private final int blockBytes;
+
+
+    /**
+     * The minimum numbers of blocks in each direction. PVRTC needs
+     * at least 2x2 blocks however small the image is.
+     */
+    private final int minBlocksX;
+    private final int minBlocksY;
+
+
+    private final boolean alpha;
+
+
+    private CompressedFormat(
+        int internalFormat, Extension extension, int blockWidth, int blockHeight,
+        int blockBytes, int minBlocksX, int minBlocksY, boolean alpha)
+    {
+        this.internalFormat = internalFormat;
+        this.extension      = extension;
+        this.blockWidth     = blockWidth;
+        this.blockHeight    = blockHeight;
+        this.blockBytes     = blockBytes;
+        this.minBlocksX     = minBlocksX;
+        this.minBlocksY     = minBlocksY;
+        this.alpha          = alpha;
+    }
+
+
+    /**
+     * Get the internal format, e.g. GL_ETC1_RGB8_OES.
+     *
+     * @return
+     *         The internal format.
+     */
+    public int getInternalFormat()
+    {
+        return internalFormat;
+    }
+
+
+    /**
+     * Get the extension needed for this format.
+     *
+     * @return
+     *         The extension.
+     */
+    public Extension getExtension()
+    {
+        return extension;
+    }
+
+
+    /**
+     * Check if this format is supported, that is, if {@link
+     * #getExtension() the extension} is supported.
+     *
+     * @return
+     *         True if this format is supported.
+     */
+    public boolean isSupported()
+    {
+        return extension.isSupported();
+    }
+
+
+    /**
+     * Get the width of a block in pixels.
+     *
+     * @return
+     *         The width of a block.
+     */
+    public int getBlockWidth()
+    {
+        return blockWidth;
+    }
+
+
+    /**
+     * Get the height of a block in pixels.
+     *
+     * @return
+     *         The height of a block.
+     */
+    public int getBlockHeight()
+    {
+        return blockHeight;
+    }
+
+
+    /**
+     * Get the number of bytes of a block.
+     *
+     * @return
+     *         The number of bytes of a block.
+     */
+    public int getBlockBytes()
+    {
+        return blockBytes;
+    }
+
+
+    /**
+     * Check if this format has an alpha channel.
+     *
+     * @return
+     *         True if this format has an alpha channel.
+     */
+    public boolean hasAlpha()
+    {
+        return alpha;
+    }
+
+
+    /**
+     * Get the number of bytes of an image of this format, which is
+     * the value given to glCompressedTexImage2D() as imageSize.
+     *
+     * @param width
+     *         The width of the image.
+     *
+     * @param height
+     *         The height of the image.
+     *
+     * @return
+     *         The number of bytes.
+     */
+    public int getImageSize(int width, int height)
+    {
+        int blocksX = Math.max((width  + blockWidth  - 1) / blockWidth,  minBlocksX);
+        int blocksY = Math.max((height + blockHeight - 1) / blockHeight, minBlocksY);
+
+        return blocksX * blocksY * blockBytes;
+    }
+
+
+    /**
+     * Get the format having the internal format.
+     *
+     * @param internalFormat
+     *         An internal format, e.g. GL_ETC1_RGB8_OES.
+     *
+     * @return
+     *         The format, or null if not found.
+     */
+    public static CompressedFormat getByInternalFormat(int internalFormat)
+    {
+        for (CompressedFormat format : values())
+        {
+            if (format.internalFormat == internalFormat)
+            {
+                return format;
+            }
+        }
+
+        return null;
+    }
+}
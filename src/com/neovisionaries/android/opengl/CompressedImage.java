@@ -0,0 +1,572 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+
+/**
+ * Compressed image in a KTX or PKM container.
+ *
+ * <pre style="background: lightgray;">
+ * <span style="color: darkgreen;">// <b>E X A M P L E</b></span>
+ *
+ * <span style="color: darkgreen;">// Map a KTX file into memory. Nothing is copied to the Java heap.</span>
+ * {@link CompressedImage} image = {@link CompressedImage}.{@link #open(File)
+ * open}(new File(dir, <span style="color: brown;">"stone.ktx"</span>));
+ *
+ * <span style="color: darkgreen;">// Upload all the mipmap levels.</span>
+ * {@link Texture2D} texture = new {@link Texture2D}().{@link
+ * Texture2D#loadCompressedImage(CompressedImage) loadCompressedImage}(image);
+ * </pre>
+ *
+ * <p>
+ * {@link #open(File)} maps the file with {@link FileChannel#map(
+ * java.nio.channels.FileChannel.MapMode, long, long) FileChannel.map},
+ * and {@link #getImage(int, int)} returns slices of the mapped buffer,
+ * so the image data is passed to glCompressedTexImage2D() without
+ * being copied.
+ * </p>
+ *
+ * <p>
+ * KTX files of the formats listed in {@link CompressedFormat}, with
+ * 1 face (2D) or 6 faces (cube map), are supported. Texture arrays
+ * and 3D textures are not. PKM files are supported only for ETC1
+ * (format type 0).
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see <a href="http://www.khronos.org/opengles/sdk/tools/KTX/file_format_spec/">KTX File Format Specification</a>
+ * @see TextureCompression
+ */
+public class CompressedImage
+{
+    /**
+     * The identifier at the beginning of KTX files.
+     */
+    private static final byte[] KTX_IDENTIFIER = {
+        (byte)0xAB, 'K', 'T', 'X', ' ', '1', '1', (byte)0xBB, '\r', '\n', 0x1A, '\n'
+    };
+
+
+    private static final int KTX_HEADER_SIZE = 64;
+    private static final int KTX_ENDIANNESS  = 0x04030201;
+    private static final int PKM_HEADER_SIZE = 16;
+
+
+    /**
+     * The number of bytes needed by {@link #readFormat(File)}.
+     */
+    private static final int HEADER_SIZE = KTX_HEADER_SIZE;
+
+
+    private final CompressedFormat format;
+    private final int width;
+    private final int height;
+    private final int levelCount;
+    private final int faceCount;
+
+
+    /**
+     * Images indexed by level * faceCount + face.
+     */
+    private final ByteBuffer[] images;
+
+
+    private CompressedImage(CompressedFormat format, int width, int height, int levelCount, int faceCount, ByteBuffer[] images)
+    {
+        this.format     = format;
+        this.width      = width;
+        this.height     = height;
+        this.levelCount = levelCount;
+        this.faceCount  = faceCount;
+        this.images     = images;
+    }
+
+
+    /**
+     * Map a KTX or PKM file into memory and parse it.
+     *
+     * @param file
+     *         A KTX or PKM file.
+     *
+     * @return
+     *         A CompressedImage instance.
+     *
+     * @throws IllegalArgumentException
+     *         The file is null.
+     *
+     * @throws IOException
+     *         Failed to read the file, or the file is broken or has
+     *         an unsupported format.
+     */
+    public static CompressedImage open(File file) throws IOException
+    {
+        // Check the argument.
+        if (file == null)
+        {
+            throw new IllegalArgumentException("file is null.");
+        }
+
+        RandomAccessFile raf = null;
+
+        try
+        {
+            raf = new RandomAccessFile(file, "r");
+
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+
+            if (Integer.MAX_VALUE < size)
+            {
+                throw new IOException("Too large: " + file);
+            }
+
+            // The mapping stays valid after the channel is closed.
+            return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+        finally
+        {
+            close(raf);
+        }
+    }
+
+
+    /**
+     * Parse a KTX or PKM image in a buffer, e.g. a direct buffer
+     * filled from an asset. The buffer must stay unchanged while
+     * this image is used because images are slices of it.
+     *
+     * @param buffer
+     *         A buffer holding a KTX or PKM image from its current
+     *         position. The position is not changed.
+     *
+     * @return
+     *         A CompressedImage instance.
+     *
+     * @throws IllegalArgumentException
+     *         The buffer is null.
+     *
+     * @throws IOException
+     *         The image is broken or has an unsupported format.
+     */
+    public static CompressedImage parse(ByteBuffer buffer) throws IOException
+    {
+        // Check the argument.
+        if (buffer == null)
+        {
+            throw new IllegalArgumentException("buffer is null.");
+        }
+
+        ByteBuffer data = buffer.slice();
+
+        if (isKtx(data))
+        {
+            return parseKtx(data);
+        }
+
+        if (isPkm(data))
+        {
+            return parsePkm(data);
+        }
+
+        throw new IOException("Neither KTX nor PKM.");
+    }
+
+
+    /**
+     * Read only the header of a KTX or PKM file to get its format.
+     *
+     * @param file
+     *         A KTX or PKM file.
+     *
+     * @return
+     *         The format of the file.
+     *
+     * @throws IllegalArgumentException
+     *         The file is null.
+     *
+     * @throws IOException
+     *         Failed to read the file, or the file is broken or has
+     *         an unsupported format.
+     */
+    public static CompressedFormat readFormat(File file) throws IOException
+    {
+        // Check the argument.
+        if (file == null)
+        {
+            throw new IllegalArgumentException("file is null.");
+        }
+
+        RandomAccessFile raf = null;
+        byte[] header = new byte[(int)Math.min(HEADER_SIZE, file.length())];
+
+        try
+        {
+            raf = new RandomAccessFile(file, "r");
+            raf.readFully(header);
+        }
+        finally
+        {
+            close(raf);
+        }
+
+        ByteBuffer data = ByteBuffer.wrap(header);
+
+        if (isKtx(data))
+        {
+            checkSize(data, KTX_HEADER_SIZE);
+            setByteOrder(data);
+
+            return getKtxFormat(data);
+        }
+
+        if (isPkm(data))
+        {
+            checkSize(data, PKM_HEADER_SIZE);
+
+            return getPkmFormat(data);
+        }
+
+        throw new IOException("Neither KTX nor PKM: " + file);
+    }
+
+
+    /**
+     * Get the format.
+     *
+     * @return
+     *         The format.
+     */
+    public CompressedFormat getFormat()
+    {
+        return format;
+    }
+
+
+    /**
+     * Get the width of the level 0 image.
+     *
+     * @return
+     *         The width.
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+
+    /**
+     * Get the height of the level 0 image.
+     *
+     * @return
+     *         The height.
+     */
+    public int getHeight()
+    {
+        return height;
+    }
+
+
+    /**
+     * Get the width of the image of a mipmap level.
+     *
+     * @param level
+     *         Mipmap level.
+     *
+     * @return
+     *         The width.
+     */
+    public int getWidth(int level)
+    {
+        return Math.max(1, width >> level);
+    }
+
+
+    /**
+     * Get the height of the image of a mipmap level.
+     *
+     * @param level
+     *         Mipmap level.
+     *
+     * @return
+     *         The height.
+     */
+    public int getHeight(int level)
+    {
+        return Math.max(1, height >> level);
+    }
+
+
+    /**
+     * Get the number of mipmap levels.
+     *
+     * @return
+     *         The number of mipmap levels. 1 or more.
+     */
+    public int getLevelCount()
+    {
+        return levelCount;
+    }
+
+
+    /**
+     * Get the number of faces.
+     *
+     * @return
+     *         1 for a 2D texture, 6 for a cube map.
+     */
+    public int getFaceCount()
+    {
+        return faceCount;
+    }
+
+
+    /**
+     * Get the image data of a level and a face.
+     *
+     * @param level
+     *         Mipmap level.
+     *
+     * @param face
+     *         Face index. The order is that of {@link CubeSide}
+     *         (+X, -X, +Y, -Y, +Z, -Z). 0 for a 2D texture.
+     *
+     * @return
+     *         A read-only buffer whose remaining bytes are the image
+     *         data. It shares the content with the mapped file.
+     *
+     * @throws IndexOutOfBoundsException
+     *         The level or the face is out of range.
+     */
+    public ByteBuffer getImage(int level, int face)
+    {
+        if (level < 0 || levelCount <= level || face < 0 || faceCount <= face)
+        {
+            throw new IndexOutOfBoundsException();
+        }
+
+        return images[level * faceCount + face].asReadOnlyBuffer();
+    }
+
+
+    private static boolean isKtx(ByteBuffer data)
+    {
+        if (data.remaining() < KTX_IDENTIFIER.length)
+        {
+            return false;
+        }
+
+        for (int i = 0; i < KTX_IDENTIFIER.length; ++i)
+        {
+            if (data.get(i) != KTX_IDENTIFIER[i])
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    private static boolean isPkm(ByteBuffer data)
+    {
+        return (6 <= data.remaining()
+            && data.get(0) == 'P' && data.get(1) == 'K' && data.get(2) == 'M' && data.get(3) == ' ');
+    }
+
+
+    private static void setByteOrder(ByteBuffer data) throws IOException
+    {
+        data.order(ByteOrder.LITTLE_ENDIAN);
+
+        int endianness = data.getInt(12);
+
+        if (endianness == KTX_ENDIANNESS)
+        {
+            return;
+        }
+
+        if (endianness == Integer.reverseBytes(KTX_ENDIANNESS))
+        {
+            data.order(ByteOrder.BIG_ENDIAN);
+            return;
+        }
+
+        throw new IOException("Bad endianness.");
+    }
+
+
+    private static CompressedFormat getKtxFormat(ByteBuffer data) throws IOException
+    {
+        // glType must be 0 for compressed textures.
+        if (data.getInt(16) != 0)
+        {
+            throw new IOException("Not compressed.");
+        }
+
+        int internalFormat = data.getInt(28);
+        CompressedFormat format = CompressedFormat.getByInternalFormat(internalFormat);
+
+        if (format == null)
+        {
+            throw new IOException("Unsupported internal format: 0x" + Integer.toHexString(internalFormat));
+        }
+
+        return format;
+    }
+
+
+    private static CompressedImage parseKtx(ByteBuffer data) throws IOException
+    {
+        checkSize(data, KTX_HEADER_SIZE);
+        setByteOrder(data);
+
+        CompressedFormat format = getKtxFormat(data);
+        int width      = data.getInt(36);
+        int height     = data.getInt(40);
+        int depth      = data.getInt(44);
+        int arraySize  = data.getInt(48);
+        int faceCount  = data.getInt(52);
+        int levelCount = Math.max(1, data.getInt(56));
+        int keyValueBytes = data.getInt(60);
+
+        if (width <= 0 || height <= 0 || depth != 0 || arraySize != 0 || (faceCount != 1 && faceCount != 6))
+        {
+            throw new IOException("Unsupported dimensions.");
+        }
+
+        ByteBuffer[] images = new ByteBuffer[levelCount * faceCount];
+        long position = (long)KTX_HEADER_SIZE + (keyValueBytes & 0xFFFFFFFFL);
+
+        for (int level = 0; level < levelCount; ++level)
+        {
+            checkSize(data, position + 4);
+
+            // For non-array cube maps, imageSize is the size of one face.
+            long imageSize = data.getInt((int)position) & 0xFFFFFFFFL;
+            position += 4;
+
+            for (int face = 0; face < faceCount; ++face)
+            {
+                checkSize(data, position + imageSize);
+
+                images[level * faceCount + face] = slice(data, (int)position, (int)imageSize);
+
+                // cubePadding
+                position = align4(position + imageSize);
+            }
+
+            // mipPadding
+            position = align4(position);
+        }
+
+        return new CompressedImage(format, width, height, levelCount, faceCount, images);
+    }
+
+
+    private static CompressedFormat getPkmFormat(ByteBuffer data) throws IOException
+    {
+        // Format type (big endian). 0 = ETC1_RGB_NO_MIPMAPS.
+        int type = ((data.get(6) & 0xFF) << 8) | (data.get(7) & 0xFF);
+
+        if (type != 0)
+        {
+            throw new IOException("Unsupported PKM format type: " + type);
+        }
+
+        return CompressedFormat.ETC1_RGB8;
+    }
+
+
+    private static CompressedImage parsePkm(ByteBuffer data) throws IOException
+    {
+        checkSize(data, PKM_HEADER_SIZE);
+
+        CompressedFormat format = getPkmFormat(data);
+
+        // Big endian unsigned shorts.
+        data.order(ByteOrder.BIG_ENDIAN);
+        int extendedWidth  = data.getShort(8)  & 0xFFFF;
+        int extendedHeight = data.getShort(10) & 0xFFFF;
+        int width          = data.getShort(12) & 0xFFFF;
+        int height         = data.getShort(14) & 0xFFFF;
+
+        if (width <= 0 || height <= 0 || extendedWidth < width || extendedHeight < height)
+        {
+            throw new IOException("Bad dimensions.");
+        }
+
+        int imageSize = format.getImageSize(extendedWidth, extendedHeight);
+
+        checkSize(data, (long)PKM_HEADER_SIZE + imageSize);
+
+        ByteBuffer[] images = { slice(data, PKM_HEADER_SIZE, imageSize) };
+
+        return new CompressedImage(format, width, height, 1, 1, images);
+    }
+
+
+    private static void checkSize(ByteBuffer data, long size) throws IOException
+    {
+        if (data.limit() < size)
+        {
+            throw new IOException("Truncated.");
+        }
+    }
+
+
+    private static ByteBuffer slice(ByteBuffer data, int position, int size)
+    {
+        ByteBuffer duplicate = data.duplicate();
+
+        duplicate.limit(position + size);
+        duplicate.position(position);
+
+        return duplicate.slice();
+    }
+
+
+    private static long align4(long position)
+    {
+        return (position + 3) & ~3L;
+    }
+
+
+    private static void close(RandomAccessFile raf)
+    {
+        if (raf == null)
+        {
+            return;
+        }
+
+        try
+        {
+            raf.close();
+        }
+        catch (IOException e)
+        {
+            // Ignore.
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+/**
+ * Layouts of the six faces of a cube map in a single image.
+ *
+ * <p>
+ * Positions are given in face-sized cells. For the crosses, +Z is
+ * the center, +Y is above it and -Y is below it. The strips hold the
+ * faces in the order of {@link CubeSide} (+X, -X, +Y, -Y, +Z, -Z).
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see CubeMapLoader
+ */
+public enum CubeMapLayout
+{
+    /**
+     * 4 x 3 cells.
+     *
+     * <pre>
+     *      +Y
+     *  -X  +Z  +X  -Z
+     *      -Y
+     * </pre>
+     */
+    HORIZONTAL_CROSS(4, 3, new int[] {
+        // column, row, rotated (180 degrees)
+        2, 1, 0,    // +X
+        0, 1, 0,    // -X
+        1, 0, 0,    // +Y
+        1, 2, 0,    // -Y
+        1, 1, 0,    // +Z
+        3, 1, 0     // -Z
+    }),
+
+
+    /**
+     * 3 x 4 cells. -Z is upside down.
+     *
+     * <pre>
+     *      +Y
+     *  -X  +Z  +X
+     *      -Y
+     *      -Z
+     * </pre>
+     */
+    VERTICAL_CROSS(3, 4, new int[] {
+        2, 1, 0,    // +X
+        0, 1, 0,    // -X
+        1, 0, 0,    // +Y
+        1, 2, 0,    // -Y
+        1, 1, 0,    // +Z
+        1, 3, 1     // -Z
+    }),
+
+
+    /**
+     * 6 x 1 cells: +X, -X, +Y, -Y, +Z, -Z from left to right.
+     */
+    HORIZONTAL_STRIP(6, 1, new int[] {
+        0, 0, 0,
+        1, 0, 0,
+        2, 0, 0,
+        3, 0, 0,
+        4, 0, 0,
+        5, 0, 0
+    }),
+
+
+    /**
+     * 1 x 6 cells: +X, -X, +Y, -Y, +Z, -Z from top to bottom. The
+     * rows of each face are contiguous, so faces are uploaded
+     * without copying.
+     */
+    VERTICAL_STRIP(1, 6, new int[] {
+        0, 0, 0,
+        0, 1, 0,
+        0, 2, 0,
+        0, 3, 0,
+        0, 4, 0,
+        0, 5, 0
+    })
+    ;
+
+
+    private final int columns;
+    private final int rows;
+
+
+    /**
+     * (column, row, rotated) per face in the order of {@link CubeSide}.
+     */
+    private final int[] cells;
+
+
+    private CubeMapLayout(int columns, int rows, int[] cells)
+    {
+        this.columns = columns;
+        this.rows    = rows;
+        this.cells   = cells;
+    }
+
+
+    /**
+     * Get the number of columns of cells.
+     *
+     * @return
+     *         The number of columns.
+     */
+    public int getColumns()
+    {
+        return columns;
+    }
+
+
+    /**
+     * Get the number of rows of cells.
+     *
+     * @return
+     *         The number of rows.
+     */
+    public int getRows()
+    {
+        return rows;
+    }
+
+
+    /**
+     * Get the column of the cell of a face.
+     *
+     * @param side
+     *         A cube side.
+     *
+     * @return
+     *         The column, starting from 0 at the left.
+     */
+    public int getColumn(CubeSide side)
+    {
+        return cells[side.ordinal() * 3];
+    }
+
+
+    /**
+     * Get the row of the cell of a face.
+     *
+     * @param side
+     *         A cube side.
+     *
+     * @return
+     *         The row, starting from 0 at the top.
+     */
+    public int getRow(CubeSide side)
+    {
+        return cells[side.ordinal() * 3 + 1];
+    }
+
+
+    /**
+     * Check if a face is stored rotated by 180 degrees.
+     *
+     * @param side
+     *         A cube side.
+     *
+     * @return
+     *         True if the face must be rotated by 180 degrees.
+     */
+    public boolean isRotated(CubeSide side)
+    {
+        return cells[side.ordinal() * 3 + 2] != 0;
+    }
+
+
+    /**
+     * Get the size of a face in an image of this layout.
+     *
+     * @param width
+     *         The width of the image.
+     *
+     * @param height
+     *         The height of the image.
+     *
+     * @return
+     *         The size of a face, or 0 if the image does not match
+     *         this layout.
+     */
+    public int getFaceSize(int width, int height)
+    {
+        int size = width / columns;
+
+        if (size <= 0 || size * columns != width || size * rows != height)
+        {
+            return 0;
+        }
+
+        return size;
+    }
+
+
+    /**
+     * Detect the layout from the aspect ratio of an image.
+     *
+     * @param width
+     *         The width of the image.
+     *
+     * @param height
+     *         The height of the image.
+     *
+     * @return
+     *         The layout, or null if no layout matches.
+     */
+    public static CubeMapLayout detect(int width, int height)
+    {
+        for (CubeMapLayout layout : values())
+        {
+            if (layout.getFaceSize(width, height) != 0)
+            {
+                return layout;
+            }
+        }
+
+        return null;
+    }
+}
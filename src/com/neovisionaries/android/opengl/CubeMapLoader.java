@@ -0,0 +1,417 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+
+
+/**
+ * Loader which assembles a cube map from a single image in a cross
+ * or strip layout, without splitting it into six bitmaps.
+ *
+ * <pre style="background: lightgray;">
+ * <span style="color: darkgreen;">// <b>E X A M P L E</b></span>
+ *
+ * {@link CubeMapLoader} loader = new {@link CubeMapLoader}()
+ *     .{@link #setExecutor(ExecutorService) setExecutor}(executor)
+ *     .{@link #setMipmapGenerator(MipmapGenerator) setMipmapGenerator}(new {@link MipmapGenerator}());
+ *
+ * <span style="color: darkgreen;">// Pixels of a horizontal cross image, e.g. 4096 x 3072.</span>
+ * loader.{@link #load(TextureCubeMap, ByteBuffer, int, int, PixelFormat, CubeMapLayout)
+ * load}(skybox, pixels, width, height, {@link PixelFormat#RGBA_8888}, {@link CubeMapLayout#HORIZONTAL_CROSS});
+ * </pre>
+ *
+ * <p>
+ * Faces are extracted into direct buffers which are kept and reused
+ * by the next call. If an executor is set, the six faces (and their
+ * mipmaps, if {@link #setMipmapGenerator(MipmapGenerator) a
+ * generator} is set) are processed in parallel; the calling thread
+ * processes one of them and waits for the others. In that case, the
+ * executor of the generator is not used; the mipmaps of each face are
+ * generated serially inside the task of the face, so the generator
+ * may safely share one pool with this loader. If any face fails, the
+ * exception is rethrown on the calling thread.
+ * </p>
+ *
+ * <p>
+ * Faces of {@link CubeMapLayout#VERTICAL_STRIP} are uploaded directly
+ * from the source buffer. Faces of the other layouts must be copied
+ * because OpenGL ES 2.0 cannot upload a sub-rectangle of an image
+ * (it has no GL_UNPACK_ROW_LENGTH).
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see CubeMapLayout
+ */
+public class CubeMapLoader
+{
+    private static final int FACE_COUNT = 6;
+
+
+    private ExecutorService executor;
+    private MipmapGenerator mipmapGenerator;
+
+
+    /**
+     * Pooled direct buffers into which faces are copied, in the
+     * order of {@link CubeSide}.
+     */
+    private final ByteBuffer[] pooledBuffers = new ByteBuffer[FACE_COUNT];
+
+
+    /**
+     * Faces extracted by the last call, in the order of {@link
+     * CubeSide}. These are either pooled buffers or slices of the
+     * source buffer.
+     */
+    private final ByteBuffer[] faceBuffers = new ByteBuffer[FACE_COUNT];
+
+
+    /**
+     * Generated mipmaps of each face. Null elements if no generator
+     * is set.
+     */
+    private final ByteBuffer[][] faceMipmaps = new ByteBuffer[FACE_COUNT][];
+
+
+    /**
+     * Get the executor used for parallel extraction.
+     *
+     * @return
+     *         The executor. May be null.
+     */
+    public ExecutorService getExecutor()
+    {
+        return executor;
+    }
+
+
+    /**
+     * Set an executor used for parallel extraction.
+     *
+     * @param executor
+     *         An executor. null to extract faces on the calling
+     *         thread only.
+     *
+     * @return
+     *         This CubeMapLoader object.
+     */
+    public CubeMapLoader setExecutor(ExecutorService executor)
+    {
+        this.executor = executor;
+
+        return this;
+    }
+
+
+    /**
+     * Get the generator of mipmaps of each face.
+     *
+     * @return
+     *         The mipmap generator. May be null.
+     */
+    public MipmapGenerator getMipmapGenerator()
+    {
+        return mipmapGenerator;
+    }
+
+
+    /**
+     * Set a generator of mipmaps of each face. If set, {@link
+     * #load(TextureCubeMap, ByteBuffer, int, int, PixelFormat,
+     * CubeMapLayout) load()} uploads complete mip chains.
+     *
+     * @param generator
+     *         A mipmap generator. null not to generate mipmaps.
+     *
+     * @return
+     *         This CubeMapLoader object.
+     */
+    public CubeMapLoader setMipmapGenerator(MipmapGenerator generator)
+    {
+        this.mipmapGenerator = generator;
+
+        return this;
+    }
+
+
+    /**
+     * Extract the six faces of an image and load them into a cube
+     * map texture.
+     *
+     * @param texture
+     *         A cube map texture.
+     *
+     * @param pixels
+     *         Pixels of the image from the current position of the
+     *         buffer, with tightly packed rows. The position is not
+     *         changed.
+     *
+     * @param width
+     *         The width of the image.
+     *
+     * @param height
+     *         The height of the image.
+     *
+     * @param format
+     *         The format of the pixels.
+     *
+     * @param layout
+     *         The layout of the faces. If null, the layout is
+     *         detected by {@link CubeMapLayout#detect(int, int)}.
+     *
+     * @return
+     *         The texture.
+     *
+     * @throws IllegalArgumentException
+     *         An argument is null, the image does not match the
+     *         layout, or the buffer is too small.
+     *
+     * @throws IllegalStateException
+     *         The texture has already been deleted.
+     */
+    public TextureCubeMap load(
+        TextureCubeMap texture, ByteBuffer pixels, int width, int height,
+        PixelFormat format, CubeMapLayout layout)
+    {
+        if (texture == null)
+        {
+            throw new IllegalArgumentException("texture is null.");
+        }
+
+        if (layout == null)
+        {
+            layout = CubeMapLayout.detect(width, height);
+        }
+
+        ByteBuffer[] faces = extract(pixels, width, height, format, layout);
+        int size = layout.getFaceSize(width, height);
+        CubeSide[] sides = CubeSide.values();
+
+        for (int i = 0; i < FACE_COUNT; ++i)
+        {
+            texture.loadImage(faces[i], size, size, format, 0, sides[i]);
+
+            ByteBuffer[] levels = faceMipmaps[i];
+
+            if (levels == null)
+            {
+                continue;
+            }
+
+            for (int level = 1; level <= levels.length; ++level)
+            {
+                int s = Math.max(1, size >> level);
+
+                texture.loadImage(levels[level - 1], s, s, format, level, sides[i]);
+            }
+        }
+
+        return texture;
+    }
+
+
+    /**
+     * Extract the six faces of an image. Mipmaps are not generated.
+     * The returned buffers are reused by the next call of this
+     * method or {@link #load(TextureCubeMap, ByteBuffer, int, int,
+     * PixelFormat, CubeMapLayout) load()}.
+     *
+     * @param pixels
+     *         Pixels of the image from the current position of the
+     *         buffer, with tightly packed rows. The position is not
+     *         changed.
+     *
+     * @param width
+     *         The width of the image.
+     *
+     * @param height
+     *         The height of the image.
+     *
+     * @param format
+     *         The format of the pixels.
+     *
+     * @param layout
+     *         The layout of the faces.
+     *
+     * @return
+     *         Six buffers in the order of {@link CubeSide}, each of
+     *         which holds a face with tightly packed rows.
+     *
+     * @throws IllegalArgumentException
+     *         An argument is null, the image does not match the
+     *         layout, or the buffer is too small.
+     */
+    public ByteBuffer[] extract(ByteBuffer pixels, int width, int height, PixelFormat format, CubeMapLayout layout)
+    {
+        // Check the arguments.
+        if (pixels == null || format == null || layout == null)
+        {
+            throw new IllegalArgumentException("pixels, format or layout is null.");
+        }
+
+        final int size = layout.getFaceSize(width, height);
+
+        if (size == 0)
+        {
+            throw new IllegalArgumentException("The image does not match the layout: " + layout);
+        }
+
+        if (pixels.remaining() < format.getImageBytes(width, height))
+        {
+            throw new IllegalArgumentException("pixels is too small.");
+        }
+
+        final ByteBuffer source = pixels.slice();
+        final int imageWidth = width;
+        final PixelFormat pixelFormat = format;
+        final CubeMapLayout cubeLayout = layout;
+        final CubeSide[] sides = CubeSide.values();
+
+        // Forget the faces of the previous call, so that a failure
+        // cannot leave stale data behind.
+        for (int i = 0; i < FACE_COUNT; ++i)
+        {
+            faceBuffers[i] = null;
+            faceMipmaps[i] = null;
+        }
+
+        // One task per face. A failure of any face is rethrown here.
+        ParallelRows.run(executor, FACE_COUNT, FACE_COUNT, new RowRangeTask() {
+            @Override
+            public void run(int first, int last)
+            {
+                for (int i = first; i < last; ++i)
+                {
+                    processFace(source, imageWidth, size, pixelFormat, cubeLayout, sides[i]);
+                }
+            }
+        });
+
+        return faceBuffers.clone();
+    }
+
+
+    /**
+     * Extract a face and generate its mipmaps. Each face has its own
+     * elements in {@link #faceBuffers} and {@link #faceMipmaps}.
+     */
+    private void processFace(ByteBuffer source, int width, int size, PixelFormat format, CubeMapLayout layout, CubeSide side)
+    {
+        int index = side.ordinal();
+        int bytesPerPixel = format.getBytesPerPixel();
+        int rowBytes = size * bytesPerPixel;
+        int offset = (layout.getRow(side) * size * width + layout.getColumn(side) * size) * bytesPerPixel;
+        ByteBuffer face;
+
+        if (layout.getColumns() == 1 && layout.isRotated(side) == false)
+        {
+            // The rows of the face are contiguous. No copy.
+            face = source.duplicate();
+            face.limit(offset + rowBytes * size);
+            face.position(offset);
+            face = face.slice();
+        }
+        else
+        {
+            face = obtainFaceBuffer(index, rowBytes * size);
+
+            if (layout.isRotated(side))
+            {
+                copyRotated(source, offset, width * bytesPerPixel, face, size, bytesPerPixel);
+            }
+            else
+            {
+                copy(source, offset, width * bytesPerPixel, face, size, rowBytes);
+            }
+        }
+
+        faceBuffers[index] = face;
+
+        if (mipmapGenerator != null)
+        {
+            // Faces processed in parallel generate their mipmaps
+            // serially, so that no task waits for tasks queued
+            // behind it in the same pool.
+            ExecutorService generatorExecutor = (executor == null) ? mipmapGenerator.getExecutor() : null;
+
+            faceMipmaps[index] = mipmapGenerator.generate(face, size, size, format, generatorExecutor);
+        }
+    }
+
+
+    private ByteBuffer obtainFaceBuffer(int index, int bytes)
+    {
+        ByteBuffer buffer = pooledBuffers[index];
+
+        if (buffer == null || buffer.capacity() < bytes)
+        {
+            buffer = ByteBuffer.allocateDirect(bytes);
+            pooledBuffers[index] = buffer;
+        }
+
+        buffer.clear();
+        buffer.limit(bytes);
+
+        return buffer;
+    }
+
+
+    private static void copy(ByteBuffer source, int offset, int stride, ByteBuffer face, int size, int rowBytes)
+    {
+        ByteBuffer src = source.duplicate();
+
+        for (int row = 0; row < size; ++row)
+        {
+            int start = offset + row * stride;
+
+            src.limit(start + rowBytes);
+            src.position(start);
+            face.put(src);
+        }
+
+        face.flip();
+    }
+
+
+    /**
+     * Copy a face rotated by 180 degrees, that is, with both the rows
+     * and the pixels in each row in the reverse order.
+     */
+    private static void copyRotated(ByteBuffer source, int offset, int stride, ByteBuffer face, int size, int bytesPerPixel)
+    {
+        int p = 0;
+
+        for (int row = size - 1; 0 <= row; --row)
+        {
+            for (int column = size - 1; 0 <= column; --column)
+            {
+                int start = offset + row * stride + column * bytesPerPixel;
+
+                for (int b = 0; b < bytesPerPixel; ++b)
+                {
+                    face.put(p++, source.get(start + b));
+                }
+            }
+        }
+
+        face.position(0);
+        face.limit(p);
+    }
+}
@@ -0,0 +1,639 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * 2D texture with a CPU-side copy of its pixels, which uploads only
+ * the regions marked dirty.
+ *
+ * <pre style="background: lightgray;">
+ * <span style="color: darkgreen;">// <b>E X A M P L E</b></span>
+ *
+ * {@link DynamicTexture2D} texture = new {@link #DynamicTexture2D(int, int, PixelFormat)
+ * DynamicTexture2D}(512, 512, {@link PixelFormat#RGBA_8888});
+ *
+ * <span style="color: darkgreen;">// Change some pixels.</span>
+ * texture.{@link #setPixels(ByteBuffer, int, int, int, int) setPixels}(patch, 10, 20, 32, 32);
+ *
+ * <span style="color: darkgreen;">// Or write into the buffer directly and mark the region.</span>
+ * texture.{@link #getPixels() getPixels}().put(offset, value);
+ * texture.{@link #markDirty(int, int, int, int) markDirty}(x, y, 1, 1);
+ *
+ * <span style="color: darkgreen;">// Before drawing with the texture.</span>
+ * texture.{@link #flush() flush}();
+ * </pre>
+ *
+ * <p>
+ * {@link #flush()} merges the dirty rectangles when merging costs
+ * less than an extra glTexSubImage2D() call (see {@link
+ * #setMergeOverhead(int)}), and uploads each merged rectangle. Rows
+ * of rectangles narrower than the texture are not contiguous in the
+ * buffer, so they are packed into a staging buffer before upload
+ * (OpenGL ES 2.0 has no GL_UNPACK_ROW_LENGTH). If the merged area
+ * covers most of the texture, the whole image is uploaded at once.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class DynamicTexture2D extends Texture2D
+{
+    /**
+     * The default cost of a glTexSubImage2D() call in pixels.
+     */
+    public static final int DEFAULT_MERGE_OVERHEAD = 1024;
+
+
+    /**
+     * The default maximum number of rectangles uploaded per flush.
+     */
+    public static final int DEFAULT_MAX_RECTANGLES = 8;
+
+
+    private final int width;
+    private final int height;
+    private final PixelFormat format;
+    private final ByteBuffer pixels;
+    private ByteBuffer staging;
+    private int mergeOverhead = DEFAULT_MERGE_OVERHEAD;
+    private int maxRectangles = DEFAULT_MAX_RECTANGLES;
+
+
+    /**
+     * Dirty rectangles. Each rectangle occupies 4 elements:
+     * left, top, right (exclusive) and bottom (exclusive).
+     */
+    private int[] rectangles = new int[4 * 16];
+    private int rectangleCount;
+
+
+    private long lastUploadedBytes;
+    private long totalUploadedBytes;
+    private int lastUploadCount;
+
+
+    /**
+     * A constructor. The storage of the texture is allocated and
+     * the whole image is marked dirty; the CPU-side buffer is
+     * initialized with zeros.
+     *
+     * @param width
+     *         The width of the texture.
+     *
+     * @param height
+     *         The height of the texture.
+     *
+     * @param format
+     *         The pixel format.
+     *
+     * @throws IllegalArgumentException
+     *         The format is null or the size is not positive.
+     *
+     * @throws GLESException
+     *         glGenTextures() failed.
+     */
+    public DynamicTexture2D(int width, int height, PixelFormat format) throws GLESException
+    {
+        super();
+
+        // Check the arguments.
+        if (format == null)
+        {
+            throw new IllegalArgumentException("format is null.");
+        }
+
+        if (width <= 0 || height <= 0)
+        {
+            throw new IllegalArgumentException("Bad size.");
+        }
+
+        this.width  = width;
+        this.height = height;
+        this.format = format;
+        this.pixels = ByteBuffer.allocateDirect((int)format.getImageBytes(width, height));
+
+        allocateImage(width, height, format, 0);
+        markAllDirty();
+    }
+
+
+    /**
+     * Get the width.
+     *
+     * @return
+     *         The width.
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+
+    /**
+     * Get the height.
+     *
+     * @return
+     *         The height.
+     */
+    public int getHeight()
+    {
+        return height;
+    }
+
+
+    /**
+     * Get the pixel format.
+     *
+     * @return
+     *         The pixel format.
+     */
+    public PixelFormat getFormat()
+    {
+        return format;
+    }
+
+
+    /**
+     * Get the CPU-side buffer of the pixels. Rows are tightly packed
+     * from the top (row 0). After changing pixels in the buffer,
+     * call {@link #markDirty(int, int, int, int)}.
+     *
+     * @return
+     *         The buffer.
+     */
+    public ByteBuffer getPixels()
+    {
+        return pixels;
+    }
+
+
+    /**
+     * Get the cost of a glTexSubImage2D() call expressed as a number
+     * of pixels.
+     *
+     * @return
+     *         The merge overhead in pixels.
+     */
+    public int getMergeOverhead()
+    {
+        return mergeOverhead;
+    }
+
+
+    /**
+     * Set the cost of a glTexSubImage2D() call expressed as a number
+     * of pixels. Two rectangles are merged when the bounding box has
+     * no more than this number of pixels in addition to the pixels
+     * of the two. The default value is {@link #DEFAULT_MERGE_OVERHEAD}.
+     *
+     * @param overhead
+     *         The merge overhead in pixels.
+     *
+     * @return
+     *         This DynamicTexture2D object.
+     *
+     * @throws IllegalArgumentException
+     *         The argument is negative.
+     */
+    public DynamicTexture2D setMergeOverhead(int overhead)
+    {
+        if (overhead < 0)
+        {
+            throw new IllegalArgumentException("overhead is negative.");
+        }
+
+        this.mergeOverhead = overhead;
+
+        return this;
+    }
+
+
+    /**
+     * Get the maximum number of rectangles uploaded per {@link #flush()}.
+     *
+     * @return
+     *         The maximum number of rectangles.
+     */
+    public int getMaxRectangles()
+    {
+        return maxRectangles;
+    }
+
+
+    /**
+     * Set the maximum number of rectangles uploaded per {@link #flush()}.
+     * If more rectangles remain after merging, the pairs which waste
+     * the fewest pixels are merged. The default value is {@link
+     * #DEFAULT_MAX_RECTANGLES}.
+     *
+     * @param max
+     *         The maximum number of rectangles.
+     *
+     * @return
+     *         This DynamicTexture2D object.
+     *
+     * @throws IllegalArgumentException
+     *         The argument is less than 1.
+     */
+    public DynamicTexture2D setMaxRectangles(int max)
+    {
+        if (max < 1)
+        {
+            throw new IllegalArgumentException("max must be greater than 0.");
+        }
+
+        this.maxRectangles = max;
+
+        return this;
+    }
+
+
+    /**
+     * Copy pixels into the CPU-side buffer and mark the region dirty.
+     *
+     * @param source
+     *         Pixels from the current position of the buffer, with
+     *         tightly packed rows. The position is not changed.
+     *
+     * @param x
+     *         The left of the region.
+     *
+     * @param y
+     *         The top of the region.
+     *
+     * @param regionWidth
+     *         The width of the region.
+     *
+     * @param regionHeight
+     *         The height of the region.
+     *
+     * @return
+     *         This DynamicTexture2D object.
+     *
+     * @throws IllegalArgumentException
+     *         The source is null, the region is out of the texture,
+     *         or the source is too small.
+     */
+    public DynamicTexture2D setPixels(ByteBuffer source, int x, int y, int regionWidth, int regionHeight)
+    {
+        // Check the arguments.
+        if (source == null)
+        {
+            throw new IllegalArgumentException("source is null.");
+        }
+
+        if (x < 0 || y < 0 || regionWidth < 0 || regionHeight < 0 ||
+            width < x + regionWidth || height < y + regionHeight)
+        {
+            throw new IllegalArgumentException("The region is out of the texture.");
+        }
+
+        int bytesPerPixel = format.getBytesPerPixel();
+        int rowBytes = regionWidth * bytesPerPixel;
+
+        if (source.remaining() < rowBytes * regionHeight)
+        {
+            throw new IllegalArgumentException("source is too small.");
+        }
+
+        ByteBuffer src = source.duplicate();
+        ByteBuffer dst = pixels.duplicate();
+
+        for (int row = 0; row < regionHeight; ++row)
+        {
+            src.limit(source.position() + (row + 1) * rowBytes);
+            src.position(source.position() + row * rowBytes);
+            dst.position(((y + row) * width + x) * bytesPerPixel);
+            dst.put(src);
+        }
+
+        return markDirty(x, y, regionWidth, regionHeight);
+    }
+
+
+    /**
+     * Mark a region dirty. The region is clipped to the texture.
+     *
+     * @param x
+     *         The left of the region.
+     *
+     * @param y
+     *         The top of the region.
+     *
+     * @param regionWidth
+     *         The width of the region.
+     *
+     * @param regionHeight
+     *         The height of the region.
+     *
+     * @return
+     *         This DynamicTexture2D object.
+     */
+    public DynamicTexture2D markDirty(int x, int y, int regionWidth, int regionHeight)
+    {
+        int left   = Math.max(0, x);
+        int top    = Math.max(0, y);
+        int right  = Math.min(width,  x + regionWidth);
+        int bottom = Math.min(height, y + regionHeight);
+
+        if (right <= left || bottom <= top)
+        {
+            return this;
+        }
+
+        // Skip the rectangle if it is already covered.
+        for (int i = 0; i < rectangleCount * 4; i += 4)
+        {
+            if (rectangles[i] <= left && rectangles[i + 1] <= top &&
+                right <= rectangles[i + 2] && bottom <= rectangles[i + 3])
+            {
+                return this;
+            }
+        }
+
+        if (rectangles.length == rectangleCount * 4)
+        {
+            int[] array = new int[rectangles.length * 2];
+            System.arraycopy(rectangles, 0, array, 0, rectangles.length);
+            rectangles = array;
+        }
+
+        int index = rectangleCount * 4;
+        rectangles[index]     = left;
+        rectangles[index + 1] = top;
+        rectangles[index + 2] = right;
+        rectangles[index + 3] = bottom;
+        ++rectangleCount;
+
+        return this;
+    }
+
+
+    /**
+     * Mark the whole image dirty.
+     *
+     * @return
+     *         This DynamicTexture2D object.
+     */
+    public DynamicTexture2D markAllDirty()
+    {
+        rectangleCount = 0;
+
+        return markDirty(0, 0, width, height);
+    }
+
+
+    /**
+     * Check if any region is dirty.
+     *
+     * @return
+     *         True if {@link #flush()} has something to upload.
+     */
+    public boolean isDirty()
+    {
+        return 0 < rectangleCount;
+    }
+
+
+    /**
+     * Get the number of dirty rectangles before merging.
+     *
+     * @return
+     *         The number of dirty rectangles.
+     */
+    public int getDirtyRectangleCount()
+    {
+        return rectangleCount;
+    }
+
+
+    /**
+     * Merge the dirty rectangles and upload them.
+     *
+     * @return
+     *         The number of glTexSubImage2D() calls.
+     *
+     * @throws IllegalStateException
+     *         The texture has already been deleted.
+     */
+    public int flush()
+    {
+        lastUploadedBytes = 0;
+        lastUploadCount   = 0;
+
+        if (rectangleCount == 0)
+        {
+            return 0;
+        }
+
+        merge();
+
+        long area = 0;
+
+        for (int i = 0; i < rectangleCount * 4; i += 4)
+        {
+            area += (long)(rectangles[i + 2] - rectangles[i]) * (rectangles[i + 3] - rectangles[i + 1]);
+        }
+
+        if ((long)width * height <= area + (long)mergeOverhead * (rectangleCount - 1))
+        {
+            // Cheaper to upload the whole image at once.
+            rectangleCount = 0;
+            markDirty(0, 0, width, height);
+        }
+
+        for (int i = 0; i < rectangleCount * 4; i += 4)
+        {
+            upload(rectangles[i], rectangles[i + 1], rectangles[i + 2], rectangles[i + 3]);
+        }
+
+        rectangleCount = 0;
+        totalUploadedBytes += lastUploadedBytes;
+
+        return lastUploadCount;
+    }
+
+
+    /**
+     * Merge pairs of rectangles whose bounding box wastes no more
+     * than {@link #mergeOverhead} pixels, and then the cheapest
+     * pairs until the count is within {@link #maxRectangles}.
+     */
+    private void merge()
+    {
+        while (1 < rectangleCount)
+        {
+            long bestWaste = Long.MAX_VALUE;
+            int best1 = 0;
+            int best2 = 0;
+
+            for (int i = 0; i < rectangleCount * 4; i += 4)
+            {
+                for (int j = i + 4; j < rectangleCount * 4; j += 4)
+                {
+                    long waste = computeWaste(i, j);
+
+                    if (waste < bestWaste)
+                    {
+                        bestWaste = waste;
+                        best1 = i;
+                        best2 = j;
+                    }
+                }
+            }
+
+            if (mergeOverhead < bestWaste && rectangleCount <= maxRectangles)
+            {
+                break;
+            }
+
+            // Merge the second into the first and move the last to the second.
+            rectangles[best1]     = Math.min(rectangles[best1],     rectangles[best2]);
+            rectangles[best1 + 1] = Math.min(rectangles[best1 + 1], rectangles[best2 + 1]);
+            rectangles[best1 + 2] = Math.max(rectangles[best1 + 2], rectangles[best2 + 2]);
+            rectangles[best1 + 3] = Math.max(rectangles[best1 + 3], rectangles[best2 + 3]);
+
+            --rectangleCount;
+            System.arraycopy(rectangles, rectangleCount * 4, rectangles, best2, 4);
+        }
+    }
+
+
+    /**
+     * Get the number of pixels in the bounding box of two rectangles
+     * which are in neither of them. Overlapping pixels count negative.
+     */
+    private long computeWaste(int i, int j)
+    {
+        int[] r = rectangles;
+        long union = (long)(Math.max(r[i + 2], r[j + 2]) - Math.min(r[i], r[j])) *
+                           (Math.max(r[i + 3], r[j + 3]) - Math.min(r[i + 1], r[j + 1]));
+        long area1 = (long)(r[i + 2] - r[i]) * (r[i + 3] - r[i + 1]);
+        long area2 = (long)(r[j + 2] - r[j]) * (r[j + 3] - r[j + 1]);
+
+        return union - area1 - area2;
+    }
+
+
+    private void upload(int left, int top, int right, int bottom)
+    {
+        int w = right - left;
+        int h = bottom - top;
+        int bytesPerPixel = format.getBytesPerPixel();
+        ByteBuffer data;
+
+        if (w == width)
+        {
+            // Full-width rows are contiguous in the buffer.
+            data = pixels.duplicate();
+            data.position(top * width * bytesPerPixel);
+        }
+        else
+        {
+            data = pack(left, top, w, h, bytesPerPixel);
+        }
+
+        loadSubImage(data, left, top, w, h, format, 0);
+
+        lastUploadedBytes += format.getImageBytes(w, h);
+        ++lastUploadCount;
+    }
+
+
+    /**
+     * Copy the rows of a rectangle into the staging buffer.
+     */
+    private ByteBuffer pack(int left, int top, int w, int h, int bytesPerPixel)
+    {
+        int rowBytes = w * bytesPerPixel;
+        int size = rowBytes * h;
+
+        if (staging == null || staging.capacity() < size)
+        {
+            staging = ByteBuffer.allocateDirect(size);
+        }
+
+        staging.clear();
+
+        ByteBuffer src = pixels.duplicate();
+
+        for (int row = 0; row < h; ++row)
+        {
+            int offset = ((top + row) * width + left) * bytesPerPixel;
+
+            src.limit(offset + rowBytes);
+            src.position(offset);
+            staging.put(src);
+        }
+
+        staging.flip();
+
+        return staging;
+    }
+
+
+    /**
+     * Get the number of bytes uploaded by the last {@link #flush()}.
+     *
+     * @return
+     *         The number of bytes.
+     */
+    public long getLastUploadedBytes()
+    {
+        return lastUploadedBytes;
+    }
+
+
+    /**
+     * Get the number of glTexSubImage2D() calls made by the last
+     * {@link #flush()}.
+     *
+     * @return
+     *         The number of calls.
+     */
+    public int getLastUploadCount()
+    {
+        return lastUploadCount;
+    }
+
+
+    /**
+     * Get the ratio of the bytes uploaded by the last {@link #flush()}
+     * to the bytes of a full upload.
+     *
+     * @return
+     *         From 0.0 (nothing uploaded) to 1.0 (full upload).
+     */
+    public float getLastUploadRatio()
+    {
+        return (float)lastUploadedBytes / format.getImageBytes(width, height);
+    }
+
+
+    /**
+     * Get the total number of bytes uploaded by {@link #flush()}.
+     *
+     * @return
+     *         The number of bytes.
+     */
+    public long getTotalUploadedBytes()
+    {
+        return totalUploadedBytes;
+    }
+}
@@ -47,6 +47,7 @@ public class ElementDrawer extends Drawer<ElementDrawer>
     private int count;
     private int offset;
     private int indexType;
+    private BaseVertexListener baseVertexListener;
 
 
     /**
@@ -215,10 +216,9 @@ public class ElementDrawer extends Drawer<ElementDrawer>
      *
      * @return
      *         The indices data. The returned object can be cast to
-     *         either {@link Buffer} or {@link ElementArrayBuffer}.
-     *         If neither {@link #setIndices(Buffer)} nor {@link
-     *         #setIndices(ElementArrayBuffer)} has been called,
-     *         null is returned.
+     *         {@link Buffer}, {@link ElementArrayBuffer} or {@link
+     *         PackedIndices}. If none of the setIndices() methods
+     *         has been called, null is returned.
      */
     public Object getIndices()
     {
@@ -311,6 +311,86 @@ public class ElementDrawer extends Drawer<ElementDrawer>
     }
 
 
+    /**
+     * Set the indices packed by {@link IndexPacker}.
+     *
+     * <p>
+     * All the parts of the packed indices are drawn by {@link #draw()}
+     * in order. The number of indices of each part is used instead
+     * of the value set by {@link #setCount(int)}, and the offset
+     * set by {@link #setOffset(int)} is ignored. If the packed indices
+     * have been {@link PackedIndices#upload(VertexBufferUsage) uploaded},
+     * the element array buffers are used.
+     * </p>
+     *
+     * @param indices
+     *
+     * @return
+     *         This ElementDrawer object.
+     *
+     * @throws IllegalArgumentException
+     * <ul>
+     * <li>The argument is null.
+     * <li>The index type of the given object is {@link
+     *     IndexType#UNSIGNED_INT UNSIGNED_INT} and the extension
+     *     {@link Extension#OES_element_index_uint OES_element_index_uint}
+     *     is not supported.
+     * </ul>
+     *
+     * @see BaseVertexListener
+     */
+    public ElementDrawer setIndices(PackedIndices indices)
+    {
+        if (indices == null)
+        {
+            throw new IllegalArgumentException();
+        }
+
+        if (indices.getIndexType() == IndexType.UNSIGNED_INT &&
+            Extension.OES_element_index_uint.isSupported() == false)
+        {
+            throw new IllegalArgumentException("OES_element_index_uint is not supported.");
+        }
+
+        this.indexType = indices.getIndexType().getType();
+
+        this.indices = indices;
+
+        return this;
+    }
+
+
+    /**
+     * Get the listener notified of the base vertex of each part
+     * of {@link PackedIndices}.
+     *
+     * @return
+     *         The listener. May be null.
+     */
+    public BaseVertexListener getBaseVertexListener()
+    {
+        return baseVertexListener;
+    }
+
+
+    /**
+     * Set a listener notified of the base vertex before each part
+     * of {@link PackedIndices} is drawn.
+     *
+     * @param listener
+     *         A listener. If null is given, no notification is made.
+     *
+     * @return
+     *         This ElementDrawer object.
+     */
+    public ElementDrawer setBaseVertexListener(BaseVertexListener listener)
+    {
+        this.baseVertexListener = listener;
+
+        return this;
+    }
+
+
     /**
      * Get the number of indices used for drawing.
      *
@@ -411,13 +491,19 @@ public class ElementDrawer extends Drawer<ElementDrawer>
      * that the index data can take effect.
      * </p>
      *
+     * <p>
+     * If the index data this instance holds is an instance of {@link
+     * PackedIndices}, each part is drawn in order as described above,
+     * and {@link #setBaseVertexListener(BaseVertexListener) the base
+     * vertex listener} is notified before each part is drawn.
+     * </p>
+     *
      * @return
      *         This ElementDrawer object.
      *
      * @throws IllegalStateException
-     *         Indices are not set. That is, neither {@link
-     *         #setIndices(Buffer)} nor {@link
-     *         #setIndices(ElementArrayBuffer)} has been called.
+     *         Indices are not set. That is, none of the setIndices()
+     *         methods has been called.
      */
     @Override
     public ElementDrawer draw()
@@ -429,16 +515,20 @@ public class ElementDrawer extends Drawer<ElementDrawer>
 
         if (indices instanceof Buffer)
         {
-            return drawInternal((Buffer)indices);
+            return drawInternal((Buffer)indices, getCount());
+        }
+        else if (indices instanceof ElementArrayBuffer)
+        {
+            return drawInternal((ElementArrayBuffer)indices, getCount(), getOffset());
         }
         else
         {
-            return drawInternal((ElementArrayBuffer)indices);
+            return drawInternal((PackedIndices)indices);
         }
     }
 
 
-    private ElementDrawer drawInternal(Buffer indices)
+    private ElementDrawer drawInternal(Buffer indices, int count)
     {
         if (GLESState.getElementArrayBufferBinding() != 0)
         {
@@ -447,20 +537,46 @@ public class ElementDrawer extends Drawer<ElementDrawer>
             ElementArrayBuffer.unbind();
         }
 
-        getGLES().glDrawElements(getMode().getMode(), getCount(), indexType, indices);
+        getGLES().glDrawElements(getMode().getMode(), count, indexType, indices);
 
         return this;
     }
 
 
-    private ElementDrawer drawInternal(ElementArrayBuffer indices)
+    private ElementDrawer drawInternal(ElementArrayBuffer indices, int count, int offset)
     {
         if (indices.isBound() == false)
         {
             indices.bind();
         }
 
-        getGLES().glDrawElements(getMode().getMode(), getCount(), indexType, getOffset());
+        getGLES().glDrawElements(getMode().getMode(), count, indexType, offset);
+
+        return this;
+    }
+
+
+    private ElementDrawer drawInternal(PackedIndices indices)
+    {
+        int parts = indices.getPartCount();
+
+        for (int i = 0; i < parts; ++i)
+        {
+            if (baseVertexListener != null)
+            {
+                // Let the listener re-point the attribute arrays.
+                baseVertexListener.onBaseVertex(this, i, indices.getBaseVertex(i));
+            }
+
+            if (indices.isUploaded())
+            {
+                drawInternal(indices.getBuffer(i), indices.getCount(i), 0);
+            }
+            else
+            {
+                drawInternal(indices.getIndices(i), indices.getCount(i));
+            }
+        }
 
         return this;
     }
@@ -480,15 +596,17 @@ public class ElementDrawer extends Drawer<ElementDrawer>
 
     private static int getIndexType(Class<? extends Buffer> bufferClass)
     {
-        if (bufferClass.equals(ByteBuffer.class))
+        // Note that the actual classes of direct buffers are
+        // subclasses of ByteBuffer, ShortBuffer and IntBuffer.
+        if (ByteBuffer.class.isAssignableFrom(bufferClass))
         {
             return getGLES().GL_UNSIGNED_BYTE();
         }
-        else if (bufferClass.equals(ShortBuffer.class))
+        else if (ShortBuffer.class.isAssignableFrom(bufferClass))
         {
             return getGLES().GL_UNSIGNED_SHORT();
         }
-        else if (bufferClass.equals(IntBuffer.class) &&
+        else if (IntBuffer.class.isAssignableFrom(bufferClass) &&
                   Extension.OES_element_index_uint.isSupported())
         {
             return getGLES().GL_UNSIGNED_INT();
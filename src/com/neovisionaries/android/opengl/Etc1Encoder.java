@@ -0,0 +1,656 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ExecutorService;
+
+
+/**
+ * ETC1 encoder written in pure Java, for textures generated at
+ * runtime (e.g. baked light maps) which cannot be compressed in
+ * advance. ETC1 uses 4 bits per pixel, that is, 1/8 of RGBA8888
+ * and 1/6 of RGB888.
+ *
+ * <pre style="background: lightgray;">
+ * <span style="color: darkgreen;">// <b>E X A M P L E</b></span>
+ *
+ * {@link Etc1Encoder} encoder = new {@link Etc1Encoder}()
+ *     .{@link #setQuality(Etc1Quality) setQuality}({@link Etc1Quality#MEDIUM})
+ *     .{@link #setExecutor(ExecutorService) setExecutor}(executor);
+ *
+ * <span style="color: darkgreen;">// Encode RGBA8888 pixels into a direct buffer.</span>
+ * ByteBuffer etc1 = encoder.{@link #encode(ByteBuffer, int, int, PixelFormat)
+ * encode}(pixels, width, height, {@link PixelFormat#RGBA_8888});
+ *
+ * <span style="color: darkgreen;">// Upload it as it is.</span>
+ * texture.{@link Texture2D#loadCompressedImage(ByteBuffer, int, int, CompressedFormat, int)
+ * loadCompressedImage}(etc1, width, height, {@link CompressedFormat#ETC1_RGB8}, 0);
+ * </pre>
+ *
+ * <p>
+ * If an executor is set, rows of 4x4 blocks are split into {@link
+ * #setTaskCount(int) tasks} and encoded in parallel; the calling
+ * thread encodes one of the tasks and waits for the others. Without
+ * an executor, all the blocks are encoded on the calling thread.
+ * The alpha channel is ignored because ETC1 has none.
+ * </p>
+ *
+ * <p>
+ * An instance can be used by multiple threads concurrently as long
+ * as its settings are not changed.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see CompressedFormat#ETC1_RGB8
+ * @see <a href="http://www.khronos.org/registry/gles/extensions/OES/OES_compressed_ETC1_RGB8_texture.txt">OES_compressed_ETC1_RGB8_texture</a>
+ */
+public class Etc1Encoder
+{
+    /**
+     * Modifier tables. The order of each table is that of pixel
+     * indices: +a, +b, -a, -b.
+     */
+    private static final int[][] MODIFIERS = {
+        {  2,   8,  -2,   -8 },
+        {  5,  17,  -5,  -17 },
+        {  9,  29,  -9,  -29 },
+        { 13,  42, -13,  -42 },
+        { 18,  60, -18,  -60 },
+        { 24,  80, -24,  -80 },
+        { 33, 106, -33, -106 },
+        { 47, 183, -47, -183 }
+    };
+
+
+    private Etc1Quality quality = Etc1Quality.MEDIUM;
+    private ExecutorService executor;
+    private int taskCount = Runtime.getRuntime().availableProcessors();
+
+
+    /**
+     * Get the quality preset.
+     *
+     * @return
+     *         The quality preset.
+     */
+    public Etc1Quality getQuality()
+    {
+        return quality;
+    }
+
+
+    /**
+     * Set the quality preset. The default value is {@link
+     * Etc1Quality#MEDIUM}.
+     *
+     * @param quality
+     *         A quality preset.
+     *
+     * @return
+     *         This Etc1Encoder object.
+     *
+     * @throws IllegalArgumentException
+     *         The argument is null.
+     */
+    public Etc1Encoder setQuality(Etc1Quality quality)
+    {
+        if (quality == null)
+        {
+            throw new IllegalArgumentException("quality is null.");
+        }
+
+        this.quality = quality;
+
+        return this;
+    }
+
+
+    /**
+     * Get the executor used for parallel encoding.
+     *
+     * @return
+     *         The executor. May be null.
+     */
+    public ExecutorService getExecutor()
+    {
+        return executor;
+    }
+
+
+    /**
+     * Set an executor used for parallel encoding.
+     *
+     * @param executor
+     *         An executor. null to encode on the calling thread only.
+     *
+     * @return
+     *         This Etc1Encoder object.
+     */
+    public Etc1Encoder setExecutor(ExecutorService executor)
+    {
+        this.executor = executor;
+
+        return this;
+    }
+
+
+    /**
+     * Get the number of tasks into which an image is split when
+     * an executor is set.
+     *
+     * @return
+     *         The number of tasks.
+     */
+    public int getTaskCount()
+    {
+        return taskCount;
+    }
+
+
+    /**
+     * Set the number of tasks into which an image is split when
+     * an executor is set. The default value is the number of
+     * available processors.
+     *
+     * @param taskCount
+     *         The number of tasks.
+     *
+     * @return
+     *         This Etc1Encoder object.
+     *
+     * @throws IllegalArgumentException
+     *         The argument is less than 1.
+     */
+    public Etc1Encoder setTaskCount(int taskCount)
+    {
+        if (taskCount < 1)
+        {
+            throw new IllegalArgumentException("taskCount must be greater than 0.");
+        }
+
+        this.taskCount = taskCount;
+
+        return this;
+    }
+
+
+    /**
+     * Encode an image into a new direct buffer.
+     *
+     * @param pixels
+     *         Pixels from the current position of the buffer, with
+     *         tightly packed rows. The position is not changed.
+     *
+     * @param width
+     *         The width of the image.
+     *
+     * @param height
+     *         The height of the image.
+     *
+     * @param format
+     *         {@link PixelFormat#RGBA_8888} or {@link PixelFormat#RGB_888}.
+     *
+     * @return
+     *         A direct buffer holding {@link CompressedFormat#getImageSize(int, int)
+     *         ETC1_RGB8.getImageSize}(width, height) bytes, ready to be
+     *         given to glCompressedTexImage2D().
+     *
+     * @throws IllegalArgumentException
+     *         An argument is null or out of range, the format is not
+     *         supported, or the buffer is too small.
+     */
+    public ByteBuffer encode(ByteBuffer pixels, int width, int height, PixelFormat format)
+    {
+        ByteBuffer output = ByteBuffer.allocateDirect(getOutputSize(width, height));
+
+        encode(pixels, width, height, format, output);
+
+        return output;
+    }
+
+
+    /**
+     * Encode an image into the given buffer.
+     *
+     * @param pixels
+     *         Pixels from the current position of the buffer, with
+     *         tightly packed rows. The position is not changed.
+     *
+     * @param width
+     *         The width of the image.
+     *
+     * @param height
+     *         The height of the image.
+     *
+     * @param format
+     *         {@link PixelFormat#RGBA_8888} or {@link PixelFormat#RGB_888}.
+     *
+     * @param output
+     *         A buffer into which blocks are written from its current
+     *         position. The position is not changed.
+     *
+     * @throws IllegalArgumentException
+     *         An argument is null or out of range, the format is not
+     *         supported, or a buffer is too small.
+     */
+    public void encode(ByteBuffer pixels, int width, int height, PixelFormat format, ByteBuffer output)
+    {
+        // Check the arguments.
+        if (pixels == null || format == null || output == null)
+        {
+            throw new IllegalArgumentException("pixels, format or output is null.");
+        }
+
+        if (width <= 0 || height <= 0)
+        {
+            throw new IllegalArgumentException("Bad size.");
+        }
+
+        if (format != PixelFormat.RGBA_8888 && format != PixelFormat.RGB_888)
+        {
+            throw new IllegalArgumentException("Unsupported format: " + format);
+        }
+
+        if (pixels.remaining() < format.getImageBytes(width, height))
+        {
+            throw new IllegalArgumentException("pixels is too small.");
+        }
+
+        if (output.remaining() < getOutputSize(width, height))
+        {
+            throw new IllegalArgumentException("output is too small.");
+        }
+
+        final ByteBuffer src = pixels;
+        final ByteBuffer dst = output;
+        final int bytesPerPixel = format.getBytesPerPixel();
+        final int w = width;
+        final int h = height;
+        final Etc1Quality q = quality;
+
+        ParallelRows.run(executor, taskCount, (height + 3) / 4, new RowRangeTask() {
+            @Override
+            public void run(int first, int last)
+            {
+                encodeRows(src, bytesPerPixel, w, h, dst, first, last, q);
+            }
+        });
+    }
+
+
+    /**
+     * Get the number of bytes of an ETC1 image.
+     *
+     * @param width
+     *         The width of the image.
+     *
+     * @param height
+     *         The height of the image.
+     *
+     * @return
+     *         The number of bytes.
+     */
+    public static int getOutputSize(int width, int height)
+    {
+        return ((width + 3) / 4) * ((height + 3) / 4) * 8;
+    }
+
+
+    /**
+     * Encode rows of blocks [firstRow, lastRow). Only absolute
+     * get/put are used, so tasks can share the buffers.
+     */
+    private static void encodeRows(
+        ByteBuffer pixels, int bytesPerPixel, int width, int height,
+        ByteBuffer output, int firstRow, int lastRow, Etc1Quality quality)
+    {
+        int inputBase  = pixels.position();
+        int outputBase = output.position();
+        int blockColumns = (width + 3) / 4;
+        ByteBuffer out = output.duplicate().order(ByteOrder.BIG_ENDIAN);
+
+        // RGB of the 16 pixels. Pixel p is (x, y) = (p / 4, p % 4).
+        int[] block = new int[48];
+        int[] selectors = new int[16];
+        int[] work      = new int[16];
+        int[] candidate = new int[16];
+        int[] averages  = new int[6];
+
+        for (int by = firstRow; by < lastRow; ++by)
+        {
+            for (int bx = 0; bx < blockColumns; ++bx)
+            {
+                for (int p = 0; p < 16; ++p)
+                {
+                    // Repeat the edge pixels for partial blocks.
+                    int x = Math.min(bx * 4 + p / 4, width  - 1);
+                    int y = Math.min(by * 4 + p % 4, height - 1);
+                    int index = inputBase + (y * width + x) * bytesPerPixel;
+
+                    block[p * 3]     = pixels.get(index)     & 0xFF;
+                    block[p * 3 + 1] = pixels.get(index + 1) & 0xFF;
+                    block[p * 3 + 2] = pixels.get(index + 2) & 0xFF;
+                }
+
+                long bits = encodeBlock(block, quality, selectors, work, candidate, averages);
+
+                out.putLong(outputBase + (by * blockColumns + bx) * 8, bits);
+            }
+        }
+    }
+
+
+    /**
+     * Encode a block.
+     *
+     * @param block
+     *         RGB of the 16 pixels. Pixel p is (x, y) = (p / 4, p % 4).
+     *
+     * @param selectors
+     *         Work area for the best pixel indices.
+     *
+     * @param work
+     *         Work area for pixel indices of the current mode.
+     *
+     * @param candidate
+     *         Work area for pixel indices of a candidate base color.
+     *
+     * @param averages
+     *         Work area for the average colors of the sub-blocks.
+     *
+     * @return
+     *         64 bits of the ETC1 block.
+     */
+    static long encodeBlock(int[] block, Etc1Quality quality, int[] selectors, int[] work, int[] candidate, int[] averages)
+    {
+        long bestError = Long.MAX_VALUE;
+        int  bestHigh  = 0;
+
+        for (int flip = 0; flip < 2; ++flip)
+        {
+            computeAverages(block, flip, averages);
+
+            // Individual mode: two 4-bit base colors. The diff bit is 0.
+            int high = flip;
+            long error = 0;
+
+            for (int sub = 0; sub < 2; ++sub)
+            {
+                long result = searchIndividual(block, flip, sub, averages, quality, work, candidate);
+                int r = (int)(result >> 12) & 0xF;
+                int g = (int)(result >> 8)  & 0xF;
+                int b = (int)(result >> 4)  & 0xF;
+                int table = (int)result & 0x7;
+
+                high |= (r << (28 - sub * 4)) | (g << (20 - sub * 4)) | (b << (12 - sub * 4)) | (table << (5 - sub * 3));
+                error += (result >>> 16);
+            }
+
+            if (error < bestError)
+            {
+                bestError = error;
+                bestHigh  = high;
+                System.arraycopy(work, 0, selectors, 0, 16);
+            }
+
+            if (quality == Etc1Quality.FAST)
+            {
+                continue;
+            }
+
+            // Differential mode: a 5-bit base color and a 3-bit signed delta.
+            int r1 = quantize5(averages[0]), g1 = quantize5(averages[1]), b1 = quantize5(averages[2]);
+            int r2 = quantize5(averages[3]), g2 = quantize5(averages[4]), b2 = quantize5(averages[5]);
+            int dr = r2 - r1, dg = g2 - g1, db = b2 - b1;
+
+            if (dr < -4 || 3 < dr || dg < -4 || 3 < dg || db < -4 || 3 < db)
+            {
+                continue;
+            }
+
+            long result1 = searchTable(block, flip, 0, expand5(r1), expand5(g1), expand5(b1), work);
+            long result2 = searchTable(block, flip, 1, expand5(r2), expand5(g2), expand5(b2), work);
+            error = (result1 >>> 3) + (result2 >>> 3);
+
+            if (error < bestError)
+            {
+                bestError = error;
+                bestHigh  = (r1 << 27) | ((dr & 7) << 24) | (g1 << 19) | ((dg & 7) << 16)
+                          | (b1 << 11) | ((db & 7) << 8) | ((int)(result1 & 7) << 5) | ((int)(result2 & 7) << 2)
+                          | (1 << 1) | flip;
+                System.arraycopy(work, 0, selectors, 0, 16);
+            }
+        }
+
+        // Pixel indices: MSBs in bits 31-16, LSBs in bits 15-0.
+        int low = 0;
+
+        for (int p = 0; p < 16; ++p)
+        {
+            low |= ((selectors[p] >> 1) << (p + 16)) | ((selectors[p] & 1) << p);
+        }
+
+        return ((long)bestHigh << 32) | (low & 0xFFFFFFFFL);
+    }
+
+
+    /**
+     * Compute the average colors of the two sub-blocks into
+     * averages[0..2] and averages[3..5].
+     */
+    private static void computeAverages(int[] block, int flip, int[] averages)
+    {
+        for (int i = 0; i < 6; ++i)
+        {
+            averages[i] = 0;
+        }
+
+        for (int p = 0; p < 16; ++p)
+        {
+            int base = isInSecond(p, flip) ? 3 : 0;
+
+            averages[base]     += block[p * 3];
+            averages[base + 1] += block[p * 3 + 1];
+            averages[base + 2] += block[p * 3 + 2];
+        }
+
+        for (int i = 0; i < 6; ++i)
+        {
+            // 8 pixels per sub-block, rounded.
+            averages[i] = (averages[i] + 4) / 8;
+        }
+    }
+
+
+    /**
+     * Check if a pixel belongs to the second sub-block: the right
+     * half (flip = 0) or the bottom half (flip = 1).
+     */
+    private static boolean isInSecond(int p, int flip)
+    {
+        return (flip == 0) ? (8 <= p) : (2 <= (p & 3));
+    }
+
+
+    /**
+     * Search the base color of a sub-block in the individual mode.
+     *
+     * @return
+     *         error &lt;&lt; 16 | r &lt;&lt; 12 | g &lt;&lt; 8 | b &lt;&lt; 4 | table.
+     */
+    private static long searchIndividual(
+        int[] block, int flip, int sub, int[] averages, Etc1Quality quality, int[] work, int[] candidate)
+    {
+        int r = quantize4(averages[sub * 3]);
+        int g = quantize4(averages[sub * 3 + 1]);
+        int b = quantize4(averages[sub * 3 + 2]);
+        int range = (quality == Etc1Quality.HIGH) ? 1 : 0;
+
+        long best = Long.MAX_VALUE;
+
+        if (range == 0)
+        {
+            // Write the pixel indices directly.
+            candidate = work;
+        }
+
+        for (int rr = Math.max(r - range, 0); rr <= Math.min(r + range, 15); ++rr)
+        {
+            for (int gg = Math.max(g - range, 0); gg <= Math.min(g + range, 15); ++gg)
+            {
+                for (int bb = Math.max(b - range, 0); bb <= Math.min(b + range, 15); ++bb)
+                {
+                    long result = searchTable(block, flip, sub, expand4(rr), expand4(gg), expand4(bb), candidate);
+                    long packed = ((result >>> 3) << 16) | (rr << 12) | (gg << 8) | (bb << 4) | (result & 7);
+
+                    if (packed < best)
+                    {
+                        best = packed;
+
+                        if (candidate != work)
+                        {
+                            copySelectors(candidate, work, flip, sub);
+                        }
+                    }
+                }
+            }
+        }
+
+        return best;
+    }
+
+
+    private static void copySelectors(int[] source, int[] destination, int flip, int sub)
+    {
+        for (int p = 0; p < 16; ++p)
+        {
+            if (isInSecond(p, flip) == (sub == 1))
+            {
+                destination[p] = source[p];
+            }
+        }
+    }
+
+
+    /**
+     * Search the best modifier table for a sub-block with the base
+     * color, and write the pixel indices of the sub-block into
+     * selectors.
+     *
+     * @return
+     *         error &lt;&lt; 3 | table.
+     */
+    private static long searchTable(int[] block, int flip, int sub, int r, int g, int b, int[] selectors)
+    {
+        long best = Long.MAX_VALUE;
+        int bestSelectors = 0;
+
+        for (int table = 0; table < 8; ++table)
+        {
+            int[] modifiers = MODIFIERS[table];
+            long error = 0;
+            int packed = 0;
+
+            for (int p = 0; p < 16; ++p)
+            {
+                if (isInSecond(p, flip) != (sub == 1))
+                {
+                    continue;
+                }
+
+                int pr = block[p * 3], pg = block[p * 3 + 1], pb = block[p * 3 + 2];
+                int minError = Integer.MAX_VALUE;
+                int minIndex = 0;
+
+                for (int i = 0; i < 4; ++i)
+                {
+                    int m = modifiers[i];
+                    int dr = clamp(r + m) - pr;
+                    int dg = clamp(g + m) - pg;
+                    int db = clamp(b + m) - pb;
+                    int e = dr * dr + dg * dg + db * db;
+
+                    if (e < minError)
+                    {
+                        minError = e;
+                        minIndex = i;
+                    }
+                }
+
+                error += minError;
+                packed |= (minIndex << (p * 2));
+
+                if (best >> 3 <= error)
+                {
+                    // Cannot be better.
+                    break;
+                }
+            }
+
+            long result = (error << 3) | table;
+
+            if (result < best)
+            {
+                best = result;
+                bestSelectors = packed;
+            }
+        }
+
+        for (int p = 0; p < 16; ++p)
+        {
+            if (isInSecond(p, flip) == (sub == 1))
+            {
+                selectors[p] = (bestSelectors >>> (p * 2)) & 3;
+            }
+        }
+
+        return best;
+    }
+
+
+    private static int clamp(int value)
+    {
+        return (value < 0) ? 0 : (255 < value) ? 255 : value;
+    }
+
+
+    private static int quantize4(int value)
+    {
+        return (value * 15 + 127) / 255;
+    }
+
+
+    private static int quantize5(int value)
+    {
+        return (value * 31 + 127) / 255;
+    }
+
+
+    private static int expand4(int value)
+    {
+        return (value << 4) | value;
+    }
+
+
+    private static int expand5(int value)
+    {
+        return (value << 3) | (value >> 2);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+/**
+ * Quality/speed presets of {@link Etc1Encoder}.
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see Etc1Encoder#setQuality(Etc1Quality)
+ */
+public enum Etc1Quality
+{
+    /**
+     * Only the individual mode with base colors quantized from the
+     * averages of the sub-blocks. The fastest.
+     */
+    FAST,
+
+
+    /**
+     * Both the individual mode and the differential mode. About
+     * twice as slow as {@link #FAST}, and noticeably better for
+     * smooth gradients.
+     */
+    MEDIUM,
+
+
+    /**
+     * In addition to {@link #MEDIUM}, base colors adjacent to the
+     * quantized averages are tried in the individual mode. About ten
+     * times slower than {@link #MEDIUM}.
+     */
+    HIGH
+}
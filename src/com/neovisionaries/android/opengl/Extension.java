@@ -23,6 +23,83 @@ package com.neovisionaries.android.opengl;
  */
 public enum Extension
 {
+    /**
+     * AMD_compressed_ATC_texture.
+     *
+     * <p>
+     * This extension is needed for {@link CompressedFormat#ATC_RGB}, {@link
+     * CompressedFormat#ATC_RGBA_EXPLICIT_ALPHA} and {@link
+     * CompressedFormat#ATC_RGBA_INTERPOLATED_ALPHA}.
+     * </p>
+     *
+     * @see TextureCompression
+     */
+    AMD_compressed_ATC_texture,
+
+
+    /**
+     * EXT_texture_compression_s3tc.
+     *
+     * <p>
+     * This extension is needed for the S3TC (DXT) formats of {@link
+     * CompressedFormat}.
+     * </p>
+     *
+     * @see TextureCompression
+     */
+    EXT_texture_compression_s3tc,
+
+
+    /**
+     * IMG_texture_compression_pvrtc.
+     *
+     * <p>
+     * This extension is needed for the PVRTC formats of {@link CompressedFormat}.
+     * </p>
+     *
+     * @see TextureCompression
+     */
+    IMG_texture_compression_pvrtc,
+
+
+    /**
+     * KHR_parallel_shader_compile.
+     *
+     * <p>
+     * If this extension is supported, GL_COMPLETION_STATUS_KHR can
+     * be queried to check whether compiling or linking has finished
+     * without blocking. See {@link Program#linkAsync()}.
+     * </p>
+     *
+     * @see AsyncProgramLinker
+     */
+    KHR_parallel_shader_compile,
+
+
+    /**
+     * KHR_texture_compression_astc_ldr.
+     *
+     * <p>
+     * This extension is needed for the ASTC formats of {@link CompressedFormat}.
+     * </p>
+     *
+     * @see TextureCompression
+     */
+    KHR_texture_compression_astc_ldr,
+
+
+    /**
+     * OES_compressed_ETC1_RGB8_texture.
+     *
+     * <p>
+     * This extension is needed for {@link CompressedFormat#ETC1_RGB8}.
+     * </p>
+     *
+     * @see TextureCompression
+     */
+    OES_compressed_ETC1_RGB8_texture,
+
+
     /**
      * OES_element_index_uint.
      *
@@ -35,7 +112,49 @@ public enum Extension
      *
      * @see <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glDrawElements.xml">glDrawElements</a>
      */
-    OES_element_index_uint
+    OES_element_index_uint,
+
+
+    /**
+     * OES_get_program_binary.
+     *
+     * <p>
+     * This extension is needed for {@link Program#getBinary()} and
+     * {@link Program#setBinary(ProgramBinary)}. Note that the default
+     * {@link GLES} implementation supports the entry points only on
+     * Android 4.3 (API Level 18) and newer.
+     * </p>
+     *
+     * @see ProgramBinaryCache
+     */
+    OES_get_program_binary,
+
+
+    /**
+     * OES_vertex_half_float.
+     *
+     * <p>
+     * This extension is needed for {@link AttrDataType#HALF_FLOAT}
+     * to be accepted by glVertexAttribPointer().
+     * </p>
+     *
+     * @see VertexQuantizer
+     */
+    OES_vertex_half_float,
+
+
+    /**
+     * OES_vertex_type_10_10_10_2.
+     *
+     * <p>
+     * This extension is needed for {@link AttrDataType#INT_10_10_10_2}
+     * and {@link AttrDataType#UNSIGNED_INT_10_10_10_2} to be accepted
+     * by glVertexAttribPointer().
+     * </p>
+     *
+     * @see VertexQuantizer
+     */
+    OES_vertex_type_10_10_10_2
     ;
 
 
@@ -52,7 +171,10 @@ public enum Extension
     {
         if (supported == null)
         {
-            boolean found = GLESState.getExtensions().contains(name());
+            // Extension strings reported by GL_EXTENSIONS have
+            // the "GL_" prefix (e.g. "GL_OES_element_index_uint").
+            boolean found = GLESState.getExtensions().contains("GL_" + name())
+                         || GLESState.getExtensions().contains(name());
 
             supported = (found ? Boolean.TRUE : Boolean.FALSE);
         }
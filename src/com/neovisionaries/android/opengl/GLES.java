@@ -64,6 +64,9 @@ public interface GLES
     int GL_ALWAYS();
     int GL_ARRAY_BUFFER();
     int GL_ARRAY_BUFFER_BINDING();
+    int GL_ATC_RGBA_EXPLICIT_ALPHA_AMD();
+    int GL_ATC_RGBA_INTERPOLATED_ALPHA_AMD();
+    int GL_ATC_RGB_AMD();
     int GL_ATTACHED_SHADERS();
     int GL_BACK();
     int GL_BLEND();
@@ -108,6 +111,29 @@ public interface GLES
     int GL_COMBINE_ALPHA();
     int GL_COMBINE_RGB();
     int GL_COMPILE_STATUS();
+    int GL_COMPLETION_STATUS_KHR();
+    int GL_COMPRESSED_RGBA_ASTC_4x4_KHR();
+    int GL_COMPRESSED_RGBA_ASTC_5x4_KHR();
+    int GL_COMPRESSED_RGBA_ASTC_5x5_KHR();
+    int GL_COMPRESSED_RGBA_ASTC_6x5_KHR();
+    int GL_COMPRESSED_RGBA_ASTC_6x6_KHR();
+    int GL_COMPRESSED_RGBA_ASTC_8x5_KHR();
+    int GL_COMPRESSED_RGBA_ASTC_8x6_KHR();
+    int GL_COMPRESSED_RGBA_ASTC_8x8_KHR();
+    int GL_COMPRESSED_RGBA_ASTC_10x5_KHR();
+    int GL_COMPRESSED_RGBA_ASTC_10x6_KHR();
+    int GL_COMPRESSED_RGBA_ASTC_10x8_KHR();
+    int GL_COMPRESSED_RGBA_ASTC_10x10_KHR();
+    int GL_COMPRESSED_RGBA_ASTC_12x10_KHR();
+    int GL_COMPRESSED_RGBA_ASTC_12x12_KHR();
+    int GL_COMPRESSED_RGBA_PVRTC_2BPPV1_IMG();
+    int GL_COMPRESSED_RGBA_PVRTC_4BPPV1_IMG();
+    int GL_COMPRESSED_RGBA_S3TC_DXT1_EXT();
+    int GL_COMPRESSED_RGBA_S3TC_DXT3_EXT();
+    int GL_COMPRESSED_RGBA_S3TC_DXT5_EXT();
+    int GL_COMPRESSED_RGB_PVRTC_2BPPV1_IMG();
+    int GL_COMPRESSED_RGB_PVRTC_4BPPV1_IMG();
+    int GL_COMPRESSED_RGB_S3TC_DXT1_EXT();
     int GL_COMPRESSED_TEXTURE_FORMATS();
     int GL_CONSTANT();
     int GL_CONSTANT_ALPHA();
@@ -144,6 +170,7 @@ public interface GLES
     int GL_ELEMENT_ARRAY_BUFFER();
     int GL_ELEMENT_ARRAY_BUFFER_BINDING();
     int GL_EQUAL();
+    int GL_ETC1_RGB8_OES();
     int GL_EXTENSIONS();
     int GL_FALSE();
     int GL_FASTEST();
@@ -178,6 +205,7 @@ public interface GLES
     int GL_GEQUAL();
     int GL_GREATER();
     int GL_GREEN_BITS();
+    int GL_HALF_FLOAT_OES();
     int GL_HIGH_FLOAT();
     int GL_HIGH_INT();
     int GL_IMPLEMENTATION_COLOR_READ_FORMAT();
@@ -187,6 +215,7 @@ public interface GLES
     int GL_INFO_LOG_LENGTH();
     int GL_INT();
     int GL_INTERPOLATE();
+    int GL_INT_10_10_10_2_OES();
     int GL_INT_VEC2();
     int GL_INT_VEC3();
     int GL_INT_VEC4();
@@ -242,6 +271,7 @@ public interface GLES
     int GL_NOTEQUAL();
     int GL_NO_ERROR();
     int GL_NUM_COMPRESSED_TEXTURE_FORMATS();
+    int GL_NUM_PROGRAM_BINARY_FORMATS_OES();
     int GL_NUM_SHADER_BINARY_FORMATS();
     int GL_ONE();
     int GL_ONE_MINUS_CONSTANT_ALPHA();
@@ -275,6 +305,8 @@ public interface GLES
     int GL_POLYGON_OFFSET_UNITS();
     int GL_PREVIOUS();
     int GL_PRIMARY_COLOR();
+    int GL_PROGRAM_BINARY_FORMATS_OES();
+    int GL_PROGRAM_BINARY_LENGTH_OES();
     int GL_PROJECTION_MATRIX();
     int GL_PROJECTION_MATRIX_FLOAT_AS_INT_BITS_OES();
     int GL_PROJECTION_STACK_DEPTH();
@@ -412,6 +444,7 @@ public interface GLES
     int GL_UNPACK_ALIGNMENT();
     int GL_UNSIGNED_BYTE();
     int GL_UNSIGNED_INT();
+    int GL_UNSIGNED_INT_10_10_10_2_OES();
     int GL_UNSIGNED_SHORT();
     int GL_UNSIGNED_SHORT_4_4_4_4();
     int GL_UNSIGNED_SHORT_5_5_5_1();
@@ -551,6 +584,18 @@ public interface GLES
     void glCompileShader(int shaderId);
 
 
+    /**
+     * <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glCompressedTexImage2D.xml">glCompressedTexImage2D</a>
+     */
+    void glCompressedTexImage2D(int target, int level, int internalFormat, int width, int height, int border, int imageSize, Buffer data);
+
+
+    /**
+     * <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glCompressedTexSubImage2D.xml">glCompressedTexSubImage2D</a>
+     */
+    void glCompressedTexSubImage2D(int target, int level, int xOffset, int yOffset, int width, int height, int format, int imageSize, Buffer data);
+
+
     /**
      * <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glCreateProgram.xml">glCreateProgram</a>
      */
@@ -662,7 +707,7 @@ public interface GLES
     /**
      * <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glGenBuffers.xml">glGenBuffers</a>
      */
-    void glGenBuffers(int vertexBufferType, int[] vertexBufferIds, int offset);
+    void glGenBuffers(int count, int[] vertexBufferIds, int offset);
 
 
     /**
@@ -680,7 +725,19 @@ public interface GLES
     /**
      * <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glGenTextures.xml">glGenTextures</a>
      */
-    void glGenTextures(int textureType, int[] textureIds, int offset);
+    void glGenTextures(int count, int[] textureIds, int offset);
+
+
+    /**
+     * <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glGetActiveAttrib.xml">glGetActiveAttrib</a>
+     */
+    String glGetActiveAttrib(int programId, int index, int[] size, int sizeOffset, int[] type, int typeOffset);
+
+
+    /**
+     * <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glGetActiveUniform.xml">glGetActiveUniform</a>
+     */
+    String glGetActiveUniform(int programId, int index, int[] size, int sizeOffset, int[] type, int typeOffset);
 
 
     /**
@@ -731,6 +788,12 @@ public interface GLES
     void glGetIntegerv(int parameterId, int[] params, int offset);
 
 
+    /**
+     * <a href="http://www.khronos.org/registry/gles/extensions/OES/OES_get_program_binary.txt">glGetProgramBinaryOES</a>
+     */
+    void glGetProgramBinary(int programId, int bufferSize, int[] length, int lengthOffset, int[] binaryFormat, int binaryFormatOffset, Buffer binary);
+
+
     /**
      * <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glGetProgramInfoLog.xml">glGetProgramInfoLog</a>
      */
@@ -803,6 +866,18 @@ public interface GLES
     void glLinkProgram(int programId);
 
 
+    /**
+     * <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glPixelStorei.xml">glPixelStorei</a>
+     */
+    void glPixelStorei(int parameterId, int parameterValue);
+
+
+    /**
+     * <a href="http://www.khronos.org/registry/gles/extensions/OES/OES_get_program_binary.txt">glProgramBinaryOES</a>
+     */
+    void glProgramBinary(int programId, int binaryFormat, Buffer binary, int length);
+
+
     /**
      * <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glReleaseShaderCompiler.xml">glReleaseShaderCompiler</a>
      */
@@ -857,12 +932,24 @@ public interface GLES
     void glStencilOpSeparate(int face, int stencilFail, int depthFail, int pass);
 
 
+    /**
+     * <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glTexImage2D.xml">glTexImage2D</a>
+     */
+    void glTexImage2D(int target, int level, int internalFormat, int width, int height, int border, int format, int type, Buffer pixels);
+
+
     /**
      * <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glTexParameter.xml">glTexParameteri</a>
      */
     void glTexParameteri(int textureType, int parameterId, int parameterValue);
 
 
+    /**
+     * <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glTexSubImage2D.xml">glTexSubImage2D</a>
+     */
+    void glTexSubImage2D(int target, int level, int xOffset, int yOffset, int width, int height, int format, int type, Buffer pixels);
+
+
     /**
      * <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glUniform.xml">glUniform1f</a>
      */
@@ -70,6 +70,15 @@ public final class GLESFactory
         = "com.neovisionaries.android.opengl.impl.GLESImpl20_9";
 
 
+    /**
+     * The class name of the default implementation of
+     * {@link GLES} interface for OpenGL ES 2.0 in
+     * Android 4.3 (API Level 18) and newer.
+     */
+    public static final String GLES_IMPL_GLES20_18
+        = "com.neovisionaries.android.opengl.impl.GLESImpl20_18";
+
+
     /**
      * The class name of the default implementation of
      * {@link GLES} interface for OpenGL ES 1.1.
@@ -160,7 +169,10 @@ public final class GLESFactory
      *     is checked. If it holds a non-null value, the value is
      *     used as a class name of a {@link GLES} implementation.
      * <li>Otherwise, the API Level of the Android platform is checked.
-     *     If the API Level is 9 (Android 2.3) or higher, the value of
+     *     If the API Level is 18 (Android 4.3) or higher, the value of
+     *     {@link #GLES_IMPL_GLES20_18} is used as a class name of a
+     *     {@link GLES} implementation.
+     * <li>Otherwise, if the API Level is 9 (Android 2.3) or higher, the value of
      *     {@link #GLES_IMPL_GLES20_9} is used as a class name of a
      *     {@link GLES} implementation.
      * <li>Otherwise, if the API Level is 8 (Android 2.2), the value of
@@ -298,7 +310,12 @@ public final class GLESFactory
         // itself and GLES10/GLES11 are available since API level 4.
         int level = Build.VERSION.SDK_INT;
 
-        if (9 <= level)
+        if (18 <= level)
+        {
+            // GLES implementation for OpenGL ES 2.0 for Android 4.3 and newer.
+            return GLES_IMPL_GLES20_18;
+        }
+        else if (9 <= level)
         {
             // GLES implementation for OpenGL ES 2.0 for Android 2.3 and newer.
             return GLES_IMPL_GLES20_9;
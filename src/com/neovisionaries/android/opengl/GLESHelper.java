@@ -225,31 +225,31 @@ final class GLESHelper
      */
     private static int getElementSizeInBits(Class<? extends Buffer> bufferClass)
     {
-        if (bufferClass.equals(ByteBuffer.class))
+        if (ByteBuffer.class.isAssignableFrom(bufferClass))
         {
             return Byte.SIZE;
         }
-        else if (bufferClass.equals(CharBuffer.class))
+        else if (CharBuffer.class.isAssignableFrom(bufferClass))
         {
             return Character.SIZE;
         }
-        else if (bufferClass.equals(ShortBuffer.class))
+        else if (ShortBuffer.class.isAssignableFrom(bufferClass))
         {
             return Short.SIZE;
         }
-        else if (bufferClass.equals(IntBuffer.class))
+        else if (IntBuffer.class.isAssignableFrom(bufferClass))
         {
             return Integer.SIZE;
         }
-        else if (bufferClass.equals(LongBuffer.class))
+        else if (LongBuffer.class.isAssignableFrom(bufferClass))
         {
             return Long.SIZE;
         }
-        else if (bufferClass.equals(FloatBuffer.class))
+        else if (FloatBuffer.class.isAssignableFrom(bufferClass))
         {
             return Float.SIZE;
         }
-        else if (bufferClass.equals(DoubleBuffer.class))
+        else if (DoubleBuffer.class.isAssignableFrom(bufferClass))
         {
             return Double.SIZE;
         }
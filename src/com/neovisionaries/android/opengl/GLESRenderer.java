@@ -46,13 +46,22 @@ public abstract class GLESRenderer implements GLSurfaceView.Renderer
 
 
     /**
-     * This method calls {@link #onDrawFrame(GLES)}.
+     * This method calls {@link LeakTracker#drain()}, {@link
+     * NamePool#refill()} and then {@link #onDrawFrame(GLES)}.
      */
     @Override
     public final void onDrawFrame(GL10 gl10)
     {
+        // Delete GL objects leaked or enqueued by deleteLater()
+        // at the frame boundary.
+        LeakTracker.drain();
+
         try
         {
+            // Refill the name pools running low outside of
+            // the code creating GL objects.
+            NamePool.refill();
+
             onDrawFrame(GLESFactory.getInstance());
         }
         catch (GLESException e)
@@ -80,11 +89,20 @@ public abstract class GLESRenderer implements GLSurfaceView.Renderer
 
 
     /**
-     * This method calls {@link #onSurfaceCreated(GLES, EGLConfig)}.
+     * This method calls {@link LeakTracker#onContextCreated()},
+     * {@link NamePool#onContextCreated()}, {@link
+     * TextureUnitManager#onContextCreated()} and then {@link
+     * #onSurfaceCreated(GLES, EGLConfig)}.
      */
     @Override
     public final void onSurfaceCreated(GL10 gl10, EGLConfig config)
     {
+        // GL object IDs of the previous context (if any) are
+        // no longer valid.
+        LeakTracker.onContextCreated();
+        NamePool.onContextCreated();
+        TextureUnitManager.onContextCreated();
+
         try
         {
             onSurfaceCreated(GLESFactory.getInstance(), config);
@@ -269,4 +287,4 @@ public abstract class GLESRenderer implements GLSurfaceView.Renderer
     {
         return false;
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
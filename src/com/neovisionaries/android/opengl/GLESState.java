@@ -222,6 +222,15 @@ public final class GLESState
     }
 
 
+    /**
+     * Get the state value of GL_RENDERER.
+     */
+    public static String getRenderer()
+    {
+        return getGLES().glGetString(getGLES().GL_RENDERER());
+    }
+
+
     /**
      * Get the state value of GL_TEXTURE_BINDING_2D.
      */
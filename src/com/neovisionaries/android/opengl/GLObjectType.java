@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+/**
+ * Types of GL objects, which determine how the objects are deleted.
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see LeakTracker
+ */
+public enum GLObjectType
+{
+    /**
+     * Buffer objects, deleted by glDeleteBuffers().
+     */
+    BUFFER,
+
+
+    /**
+     * Texture objects, deleted by glDeleteTextures().
+     */
+    TEXTURE,
+
+
+    /**
+     * Render buffer objects, deleted by glDeleteRenderbuffers().
+     */
+    RENDERBUFFER,
+
+
+    /**
+     * Shader objects, deleted by glDeleteShader().
+     */
+    SHADER,
+
+
+    /**
+     * Program objects, deleted by glDeleteProgram().
+     */
+    PROGRAM
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.io.IOException;
+import android.graphics.Bitmap;
+
+
+/**
+ * Source of an image decoded by {@link TextureUploader} on a worker
+ * thread.
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see TextureUploader#submit(Texture2D, ImageSource, TextureUploadListener)
+ */
+public interface ImageSource
+{
+    /**
+     * Decode the image, e.g. by BitmapFactory.decodeStream(). Called
+     * on a worker thread. The returned bitmap is recycled by {@link
+     * TextureUploader} after its pixels have been copied.
+     *
+     * @return
+     *         The decoded bitmap.
+     *
+     * @throws IOException
+     *         The image could not be read.
+     */
+    Bitmap decode() throws IOException;
+}
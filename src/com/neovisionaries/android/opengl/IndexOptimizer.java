@@ -0,0 +1,912 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.util.Arrays;
+
+
+/**
+ * Optimizer of triangle list indices.
+ *
+ * <p>
+ * {@link #optimize(int[], int)} performs the following steps.
+ * </p>
+ *
+ * <ol>
+ * <li>Reorders triangles for post-transform vertex cache locality
+ *     (Tom Forsyth's linear-speed vertex cache optimization).</li>
+ * <li>Optionally, if vertex positions are given to {@link
+ *     #optimize(int[], float[], int)}, splits the result into
+ *     clusters at points where the vertex cache is flushed and
+ *     sorts the clusters so that outward-facing ones are drawn
+ *     first, to reduce overdraw.</li>
+ * <li>Optionally, renumbers vertices in the order of their first
+ *     use so that vertex fetch is sequential. {@link
+ *     OptimizedIndices#remap(float[], int)} reorders vertex data
+ *     accordingly.</li>
+ * </ol>
+ *
+ * <p>
+ * All the steps run in time linear to the number of triangles
+ * (except the sort of clusters, whose number is small) and use
+ * primitive arrays only, so the optimizer can be used at load time.
+ * </p>
+ *
+ * <pre style="background: lightgray;">
+ * {@link OptimizedIndices} result = new IndexOptimizer().{@link #optimize(int[], int) optimize}(indices, vertexCount);
+ *
+ * <span style="color: darkgreen;">// Reorder the vertices and upload the data.</span>
+ * vertexBuffer.{@link VertexBuffer#setData(java.nio.Buffer) setData}({@link BufferCreator}.{@link
+ * BufferCreator#createFloatBuffer(float[]) createFloatBuffer}(result.{@link
+ * OptimizedIndices#remap(float[], int) remap}(vertices, 3)));
+ * indexBuffer.{@link VertexBuffer#setData(java.nio.Buffer) setData}({@link BufferCreator}.{@link
+ * BufferCreator#createIntBuffer(int[]) createIntBuffer}(result.{@link OptimizedIndices#getIndices() getIndices}()));
+ * </pre>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see OptimizedIndices
+ * @see ElementArrayBuffer
+ */
+public class IndexOptimizer
+{
+    /**
+     * The default size of the FIFO cache used to compute ACMR and ATVR.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 16;
+
+
+    /**
+     * The default threshold of the overdraw optimization.
+     */
+    public static final float DEFAULT_OVERDRAW_THRESHOLD = 1.05f;
+
+
+    /**
+     * The size of the LRU cache modeled by the vertex cache optimization.
+     */
+    private static final int SCORING_CACHE_SIZE = 32;
+
+
+    private static final float CACHE_DECAY_POWER   = 1.5f;
+    private static final float LAST_TRIANGLE_SCORE = 0.75f;
+    private static final float VALENCE_BOOST_SCALE = 2.0f;
+    private static final float VALENCE_BOOST_POWER = 0.5f;
+    private static final int   MAX_VALENCE         = 32;
+
+
+    /**
+     * Precomputed scores by cache position.
+     */
+    private static final float[] CACHE_SCORES = new float[SCORING_CACHE_SIZE];
+
+
+    /**
+     * Precomputed scores by the number of remaining triangles.
+     */
+    private static final float[] VALENCE_SCORES = new float[MAX_VALENCE + 1];
+
+
+    static
+    {
+        for (int i = 0; i < SCORING_CACHE_SIZE; ++i)
+        {
+            if (i < 3)
+            {
+                // The vertices of the last triangle.
+                CACHE_SCORES[i] = LAST_TRIANGLE_SCORE;
+            }
+            else
+            {
+                float scaler = 1.0f / (SCORING_CACHE_SIZE - 3);
+                float score  = 1.0f - (i - 3) * scaler;
+                CACHE_SCORES[i] = (float)Math.pow(score, CACHE_DECAY_POWER);
+            }
+        }
+
+        VALENCE_SCORES[0] = 0.0f;
+
+        for (int i = 1; i <= MAX_VALENCE; ++i)
+        {
+            VALENCE_SCORES[i] = VALENCE_BOOST_SCALE * (float)Math.pow(i, -VALENCE_BOOST_POWER);
+        }
+    }
+
+
+    /**
+     * The size of the FIFO cache used to compute ACMR and ATVR.
+     */
+    private int cacheSize = DEFAULT_CACHE_SIZE;
+
+
+    /**
+     * True to renumber vertices in the order of their first use.
+     */
+    private boolean vertexFetchOptimized = true;
+
+
+    /**
+     * Threshold of the overdraw optimization.
+     */
+    private float overdrawThreshold = DEFAULT_OVERDRAW_THRESHOLD;
+
+
+    /**
+     * Get the size of the FIFO cache used to compute ACMR and ATVR.
+     *
+     * @return
+     *         The cache size.
+     */
+    public int getCacheSize()
+    {
+        return cacheSize;
+    }
+
+
+    /**
+     * Set the size of the FIFO cache used to compute ACMR and ATVR.
+     * The default value is {@link #DEFAULT_CACHE_SIZE}.
+     *
+     * @param size
+     *         The cache size.
+     *
+     * @return
+     *         This object.
+     *
+     * @throws IllegalArgumentException
+     *         The given size is less than 3.
+     */
+    public IndexOptimizer setCacheSize(int size)
+    {
+        if (size < 3)
+        {
+            throw new IllegalArgumentException("size must be 3 or greater.");
+        }
+
+        this.cacheSize = size;
+
+        return this;
+    }
+
+
+    /**
+     * Check if vertices are renumbered in the order of their first use.
+     *
+     * @return
+     *         True if vertices are renumbered.
+     */
+    public boolean isVertexFetchOptimized()
+    {
+        return vertexFetchOptimized;
+    }
+
+
+    /**
+     * Set whether to renumber vertices in the order of their first use.
+     * The default value is true.
+     *
+     * @param optimized
+     *         True to renumber vertices.
+     *
+     * @return
+     *         This object.
+     */
+    public IndexOptimizer setVertexFetchOptimized(boolean optimized)
+    {
+        this.vertexFetchOptimized = optimized;
+
+        return this;
+    }
+
+
+    /**
+     * Get the threshold of the overdraw optimization.
+     *
+     * @return
+     *         The threshold.
+     */
+    public float getOverdrawThreshold()
+    {
+        return overdrawThreshold;
+    }
+
+
+    /**
+     * Set the threshold of the overdraw optimization. A cluster
+     * is closed at a triangle which misses the cache for all its
+     * vertices, or when the ACMR of the cluster so far is at most
+     * <code>threshold</code> times the ACMR of the whole mesh.
+     * Greater values make smaller clusters, which reduce overdraw
+     * more at the cost of vertex cache efficiency. The default value
+     * is {@link #DEFAULT_OVERDRAW_THRESHOLD}.
+     *
+     * @param threshold
+     *         The threshold.
+     *
+     * @return
+     *         This object.
+     *
+     * @throws IllegalArgumentException
+     *         The given threshold is less than 1.
+     */
+    public IndexOptimizer setOverdrawThreshold(float threshold)
+    {
+        if (threshold < 1.0f)
+        {
+            throw new IllegalArgumentException("threshold must be 1 or greater.");
+        }
+
+        this.overdrawThreshold = threshold;
+
+        return this;
+    }
+
+
+    /**
+     * Optimize triangle list indices for the vertex cache (and
+     * vertex fetch if enabled). The overdraw optimization is not
+     * performed.
+     *
+     * @param indices
+     *         Triangle list indices. The length must be a multiple
+     *         of 3. The array is not modified.
+     *
+     * @param vertexCount
+     *         The number of vertices. All the indices must be less
+     *         than this value.
+     *
+     * @return
+     *         The result of the optimization.
+     *
+     * @throws IllegalArgumentException
+     *         The indices are null, the length is not a multiple of
+     *         3 or an index is out of range.
+     */
+    public OptimizedIndices optimize(int[] indices, int vertexCount)
+    {
+        return optimize(indices, vertexCount, null, 0);
+    }
+
+
+    /**
+     * Optimize triangle list indices for the vertex cache, overdraw
+     * (and vertex fetch if enabled).
+     *
+     * @param indices
+     *         Triangle list indices. The length must be a multiple
+     *         of 3. The array is not modified.
+     *
+     * @param positions
+     *         Vertex positions. The x, y and z of the i-th vertex
+     *         must be at <code>positions[i * stride]</code>,
+     *         <code>positions[i * stride + 1]</code> and
+     *         <code>positions[i * stride + 2]</code>.
+     *
+     * @param stride
+     *         The number of floats per vertex (3 or greater).
+     *
+     * @return
+     *         The result of the optimization.
+     *
+     * @throws IllegalArgumentException
+     *         An argument is null, the length of the indices is not
+     *         a multiple of 3, an index is out of range or the stride
+     *         is less than 3.
+     */
+    public OptimizedIndices optimize(int[] indices, float[] positions, int stride)
+    {
+        if (positions == null)
+        {
+            throw new IllegalArgumentException("positions is null.");
+        }
+
+        if (stride < 3)
+        {
+            throw new IllegalArgumentException("stride must be 3 or greater.");
+        }
+
+        return optimize(indices, positions.length / stride, positions, stride);
+    }
+
+
+    private OptimizedIndices optimize(int[] indices, int vertexCount, float[] positions, int stride)
+    {
+        // Check the arguments.
+        if (indices == null)
+        {
+            throw new IllegalArgumentException("indices is null.");
+        }
+
+        if (indices.length % 3 != 0)
+        {
+            throw new IllegalArgumentException("The number of indices is not a multiple of 3.");
+        }
+
+        for (int i = 0; i < indices.length; ++i)
+        {
+            if (indices[i] < 0 || vertexCount <= indices[i])
+            {
+                throw new IllegalArgumentException("indices[" + i + "] is out of range.");
+            }
+        }
+
+        int[] cacheMisses = new int[1];
+        int[] referenced  = new int[1];
+
+        float acmrBefore = computeAcmr(indices, vertexCount, cacheSize, cacheMisses, referenced);
+        float atvrBefore = ratio(cacheMisses[0], referenced[0]);
+
+        // Vertex cache optimization.
+        int[] result = optimizeVertexCache(indices, vertexCount);
+
+        // Overdraw optimization.
+        if (positions != null)
+        {
+            result = optimizeOverdraw(result, vertexCount, positions, stride);
+        }
+
+        // Vertex fetch optimization.
+        int[] remap = null;
+
+        if (vertexFetchOptimized)
+        {
+            remap = optimizeVertexFetch(result, vertexCount);
+        }
+
+        float acmrAfter = computeAcmr(result, vertexCount, cacheSize, cacheMisses, referenced);
+        float atvrAfter = ratio(cacheMisses[0], referenced[0]);
+
+        return new OptimizedIndices(result, remap, vertexCount, acmrBefore, acmrAfter, atvrBefore, atvrAfter);
+    }
+
+
+    /**
+     * Compute the ACMR (average cache miss ratio, the number of cache
+     * misses per triangle) of triangle list indices using a FIFO cache.
+     *
+     * @param indices
+     *         Triangle list indices.
+     *
+     * @param vertexCount
+     *         The number of vertices.
+     *
+     * @param cacheSize
+     *         The size of the FIFO cache.
+     *
+     * @return
+     *         The ACMR. 0 if there is no triangle.
+     */
+    public static float computeAcmr(int[] indices, int vertexCount, int cacheSize)
+    {
+        return computeAcmr(indices, vertexCount, cacheSize, new int[1], new int[1]);
+    }
+
+
+    /**
+     * Compute the ATVR (average transform to vertex ratio, the number
+     * of cache misses per referenced vertex) of triangle list indices
+     * using a FIFO cache. 1.0 is the optimum.
+     *
+     * @param indices
+     *         Triangle list indices.
+     *
+     * @param vertexCount
+     *         The number of vertices.
+     *
+     * @param cacheSize
+     *         The size of the FIFO cache.
+     *
+     * @return
+     *         The ATVR. 0 if there is no triangle.
+     */
+    public static float computeAtvr(int[] indices, int vertexCount, int cacheSize)
+    {
+        int[] cacheMisses = new int[1];
+        int[] referenced  = new int[1];
+
+        computeAcmr(indices, vertexCount, cacheSize, cacheMisses, referenced);
+
+        return ratio(cacheMisses[0], referenced[0]);
+    }
+
+
+    private static float computeAcmr(int[] indices, int vertexCount, int cacheSize, int[] cacheMisses, int[] referenced)
+    {
+        // The time stamp at which each vertex entered the cache.
+        // A vertex is in the FIFO cache if it entered within the
+        // last 'cacheSize' misses.
+        int[] timestamps = new int[vertexCount];
+        Arrays.fill(timestamps, -cacheSize - 1);
+
+        int misses = 0;
+        int used   = 0;
+
+        for (int i = 0; i < indices.length; ++i)
+        {
+            int vertex = indices[i];
+            int stamp  = timestamps[vertex];
+
+            if (stamp < -cacheSize)
+            {
+                // First use.
+                ++used;
+            }
+
+            if (misses - stamp > cacheSize)
+            {
+                timestamps[vertex] = misses;
+                ++misses;
+            }
+        }
+
+        cacheMisses[0] = misses;
+        referenced[0]  = used;
+
+        return ratio(misses, indices.length / 3);
+    }
+
+
+    private static float ratio(int numerator, int denominator)
+    {
+        return (denominator == 0) ? 0.0f : (float)numerator / denominator;
+    }
+
+
+    private static float vertexScore(int cachePosition, int liveTriangles)
+    {
+        if (liveTriangles == 0)
+        {
+            // No triangle needs this vertex.
+            return -1.0f;
+        }
+
+        float score = (cachePosition < 0) ? 0.0f : CACHE_SCORES[cachePosition];
+
+        return score + VALENCE_SCORES[Math.min(liveTriangles, MAX_VALENCE)];
+    }
+
+
+    /**
+     * Tom Forsyth's linear-speed vertex cache optimization.
+     */
+    private static int[] optimizeVertexCache(int[] indices, int vertexCount)
+    {
+        int triangleCount = indices.length / 3;
+        int[] output      = new int[indices.length];
+
+        if (triangleCount == 0)
+        {
+            return output;
+        }
+
+        // Build the vertex-to-triangle adjacency in the CSR form.
+        int[] liveTriangles = new int[vertexCount];
+
+        for (int i = 0; i < indices.length; ++i)
+        {
+            ++liveTriangles[indices[i]];
+        }
+
+        int[] offsets = new int[vertexCount + 1];
+
+        for (int v = 0; v < vertexCount; ++v)
+        {
+            offsets[v + 1] = offsets[v] + liveTriangles[v];
+        }
+
+        int[] adjacency = new int[indices.length];
+        int[] fill      = new int[vertexCount];
+
+        for (int t = 0; t < triangleCount; ++t)
+        {
+            for (int k = 0; k < 3; ++k)
+            {
+                int v = indices[t * 3 + k];
+                adjacency[offsets[v] + fill[v]++] = t;
+            }
+        }
+
+        // Initial scores.
+        float[] vertexScores = new float[vertexCount];
+
+        for (int v = 0; v < vertexCount; ++v)
+        {
+            vertexScores[v] = vertexScore(-1, liveTriangles[v]);
+        }
+
+        float[] triangleScores = new float[triangleCount];
+
+        for (int t = 0; t < triangleCount; ++t)
+        {
+            triangleScores[t] =
+                vertexScores[indices[t * 3]] +
+                vertexScores[indices[t * 3 + 1]] +
+                vertexScores[indices[t * 3 + 2]];
+        }
+
+        boolean[] emitted      = new boolean[triangleCount];
+        int[] cachePositions   = new int[vertexCount];
+        int[] cache            = new int[SCORING_CACHE_SIZE + 3];
+        int[] newCache         = new int[SCORING_CACHE_SIZE + 3];
+        int cacheCount         = 0;
+        int inputCursor        = 0;
+        int outputCursor       = 0;
+
+        Arrays.fill(cachePositions, -1);
+
+        // Start with the best triangle among all.
+        int current = 0;
+
+        for (int t = 1; t < triangleCount; ++t)
+        {
+            if (triangleScores[current] < triangleScores[t])
+            {
+                current = t;
+            }
+        }
+
+        while (current >= 0)
+        {
+            // Emit the triangle.
+            emitted[current] = true;
+            triangleScores[current] = 0.0f;
+
+            int newCount = 0;
+
+            for (int k = 0; k < 3; ++k)
+            {
+                int v = indices[current * 3 + k];
+                output[outputCursor++] = v;
+                newCache[newCount++] = v;
+
+                // Remove the triangle from the adjacency of the vertex.
+                int begin = offsets[v];
+                int end   = begin + liveTriangles[v];
+
+                for (int a = begin; a < end; ++a)
+                {
+                    if (adjacency[a] == current)
+                    {
+                        adjacency[a] = adjacency[end - 1];
+                        break;
+                    }
+                }
+
+                --liveTriangles[v];
+            }
+
+            // Append the old cache entries except the vertices of
+            // the emitted triangle.
+            for (int i = 0; i < cacheCount; ++i)
+            {
+                int v = cache[i];
+
+                if (v != newCache[0] && v != newCache[1] && v != newCache[2])
+                {
+                    newCache[newCount++] = v;
+                }
+            }
+
+            int[] swap = cache;
+            cache      = newCache;
+            newCache   = swap;
+            cacheCount = Math.min(newCount, SCORING_CACHE_SIZE);
+
+            // Vertices pushed out of the cache.
+            for (int i = cacheCount; i < newCount; ++i)
+            {
+                cachePositions[cache[i]] = -1;
+                updateScores(cache[i], -1, indices, offsets, adjacency, liveTriangles, vertexScores, triangleScores);
+            }
+
+            // Update the scores of the vertices in the cache and find
+            // the best triangle adjacent to them.
+            int best        = -1;
+            float bestScore = -1.0f;
+
+            for (int i = 0; i < cacheCount; ++i)
+            {
+                int v = cache[i];
+                cachePositions[v] = i;
+                updateScores(v, i, indices, offsets, adjacency, liveTriangles, vertexScores, triangleScores);
+
+                int begin = offsets[v];
+                int end   = begin + liveTriangles[v];
+
+                for (int a = begin; a < end; ++a)
+                {
+                    int t = adjacency[a];
+
+                    if (bestScore < triangleScores[t])
+                    {
+                        best      = t;
+                        bestScore = triangleScores[t];
+                    }
+                }
+            }
+
+            // If no triangle is adjacent to the cache, take the next
+            // triangle which has not been emitted yet. The cursor
+            // never goes back, so this is linear in total.
+            if (best < 0)
+            {
+                while (inputCursor < triangleCount && emitted[inputCursor])
+                {
+                    ++inputCursor;
+                }
+
+                if (inputCursor < triangleCount)
+                {
+                    best = inputCursor;
+                }
+            }
+
+            current = best;
+        }
+
+        return output;
+    }
+
+
+    private static void updateScores(
+        int vertex, int cachePosition, int[] indices, int[] offsets, int[] adjacency,
+        int[] liveTriangles, float[] vertexScores, float[] triangleScores)
+    {
+        float score = vertexScore(cachePosition, liveTriangles[vertex]);
+        float delta = score - vertexScores[vertex];
+
+        if (delta == 0.0f)
+        {
+            return;
+        }
+
+        vertexScores[vertex] = score;
+
+        int begin = offsets[vertex];
+        int end   = begin + liveTriangles[vertex];
+
+        for (int a = begin; a < end; ++a)
+        {
+            triangleScores[adjacency[a]] += delta;
+        }
+    }
+
+
+    /**
+     * Split the triangles into clusters and sort the clusters so that
+     * outward-facing ones come first.
+     */
+    private int[] optimizeOverdraw(int[] indices, int vertexCount, float[] positions, int stride)
+    {
+        int triangleCount = indices.length / 3;
+
+        if (triangleCount == 0)
+        {
+            return indices;
+        }
+
+        // Find cluster boundaries by simulating the FIFO cache.
+        float meshAcmr        = computeAcmr(indices, vertexCount, cacheSize);
+        int[] clusterStarts   = new int[triangleCount + 1];
+        int clusterCount      = 0;
+        int[] timestamps      = new int[vertexCount];
+        int misses            = 0;
+        int clusterMisses     = 0;
+        int clusterTriangles  = 0;
+
+        Arrays.fill(timestamps, -cacheSize - 1);
+
+        for (int t = 0; t < triangleCount; ++t)
+        {
+            int triangleMisses = 0;
+
+            for (int k = 0; k < 3; ++k)
+            {
+                int v = indices[t * 3 + k];
+
+                if (misses - timestamps[v] > cacheSize)
+                {
+                    timestamps[v] = misses;
+                    ++misses;
+                    ++triangleMisses;
+                }
+            }
+
+            // A hard boundary is a triangle which misses the cache for
+            // all its vertices. A soft boundary is a cache miss after
+            // which the cluster so far, including the cost of its cold
+            // start, is cache-efficient enough.
+            boolean boundary = (t == 0);
+
+            if (0 < clusterTriangles && 0 < triangleMisses)
+            {
+                boundary = (triangleMisses == 3) ||
+                    ((float)clusterMisses / clusterTriangles <= overdrawThreshold * meshAcmr);
+            }
+
+            if (boundary)
+            {
+                clusterStarts[clusterCount++] = t;
+                clusterMisses    = 0;
+                clusterTriangles = 0;
+
+                // Clusters are reordered later, so a cluster starts
+                // with a cold cache. Flush the cache and count the
+                // misses of the first triangle again.
+                misses += cacheSize + 1;
+                triangleMisses = 0;
+
+                for (int k = 0; k < 3; ++k)
+                {
+                    int v = indices[t * 3 + k];
+
+                    if (misses - timestamps[v] > cacheSize)
+                    {
+                        timestamps[v] = misses;
+                        ++misses;
+                        ++triangleMisses;
+                    }
+                }
+            }
+
+            clusterMisses += triangleMisses;
+            ++clusterTriangles;
+        }
+
+        clusterStarts[clusterCount] = triangleCount;
+
+        if (clusterCount == 1)
+        {
+            return indices;
+        }
+
+        // Mesh centroid.
+        double mx = 0, my = 0, mz = 0;
+
+        for (int i = 0; i < indices.length; ++i)
+        {
+            int p = indices[i] * stride;
+            mx += positions[p];
+            my += positions[p + 1];
+            mz += positions[p + 2];
+        }
+
+        mx /= indices.length;
+        my /= indices.length;
+        mz /= indices.length;
+
+        // Sort key of each cluster: how much the cluster faces
+        // outward, i.e. dot(centroid - meshCentroid, normal).
+        long[] keys = new long[clusterCount];
+
+        for (int c = 0; c < clusterCount; ++c)
+        {
+            double cx = 0, cy = 0, cz = 0;
+            double nx = 0, ny = 0, nz = 0;
+            double totalArea = 0;
+
+            for (int t = clusterStarts[c]; t < clusterStarts[c + 1]; ++t)
+            {
+                int p0 = indices[t * 3]     * stride;
+                int p1 = indices[t * 3 + 1] * stride;
+                int p2 = indices[t * 3 + 2] * stride;
+
+                double ax = positions[p1] - positions[p0], ay = positions[p1 + 1] - positions[p0 + 1], az = positions[p1 + 2] - positions[p0 + 2];
+                double bx = positions[p2] - positions[p0], by = positions[p2 + 1] - positions[p0 + 1], bz = positions[p2 + 2] - positions[p0 + 2];
+
+                // Area-weighted normal (twice the area).
+                double tx = ay * bz - az * by;
+                double ty = az * bx - ax * bz;
+                double tz = ax * by - ay * bx;
+                double area = Math.sqrt(tx * tx + ty * ty + tz * tz);
+
+                nx += tx;
+                ny += ty;
+                nz += tz;
+
+                // Area-weighted centroid.
+                cx += (positions[p0]     + positions[p1]     + positions[p2])     * area;
+                cy += (positions[p0 + 1] + positions[p1 + 1] + positions[p2 + 1]) * area;
+                cz += (positions[p0 + 2] + positions[p1 + 2] + positions[p2 + 2]) * area;
+                totalArea += area;
+            }
+
+            double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            float dot     = 0.0f;
+
+            if (length > 0 && totalArea > 0)
+            {
+                cx = cx / (3 * totalArea) - mx;
+                cy = cy / (3 * totalArea) - my;
+                cz = cz / (3 * totalArea) - mz;
+
+                dot = (float)((cx * nx + cy * ny + cz * nz) / length);
+            }
+
+            // Descending order of 'dot', stable by the cluster index.
+            keys[c] = ((long)sortableKey(-dot) << 32) | c;
+        }
+
+        Arrays.sort(keys);
+
+        int[] output = new int[indices.length];
+        int cursor   = 0;
+
+        for (int i = 0; i < clusterCount; ++i)
+        {
+            int c     = (int)(keys[i] & 0xFFFFFFFFL);
+            int begin = clusterStarts[c] * 3;
+            int end   = clusterStarts[c + 1] * 3;
+
+            System.arraycopy(indices, begin, output, cursor, end - begin);
+            cursor += end - begin;
+        }
+
+        return output;
+    }
+
+
+    /**
+     * Convert a float into a signed int whose order is the same
+     * as the order of the float.
+     */
+    private static int sortableKey(float value)
+    {
+        int bits = Float.floatToIntBits(value);
+
+        // The bits of negative values grow with the magnitude,
+        // so reverse them by flipping all the bits but the sign.
+        return (bits < 0) ? (bits ^ 0x7FFFFFFF) : bits;
+    }
+
+
+    /**
+     * Renumber vertices in the order of their first use. The given
+     * indices are rewritten in place and the table from old vertex
+     * numbers to new ones is returned. Unreferenced vertices are
+     * placed after the referenced ones.
+     */
+    private static int[] optimizeVertexFetch(int[] indices, int vertexCount)
+    {
+        int[] remap = new int[vertexCount];
+        Arrays.fill(remap, -1);
+
+        int next = 0;
+
+        for (int i = 0; i < indices.length; ++i)
+        {
+            int v = indices[i];
+
+            if (remap[v] < 0)
+            {
+                remap[v] = next++;
+            }
+
+            indices[i] = remap[v];
+        }
+
+        for (int v = 0; v < vertexCount; ++v)
+        {
+            if (remap[v] < 0)
+            {
+                remap[v] = next++;
+            }
+        }
+
+        return remap;
+    }
+}
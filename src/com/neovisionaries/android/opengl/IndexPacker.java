@@ -0,0 +1,353 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * Packer to convert <code>int[]</code> indices into the narrowest
+ * index type.
+ *
+ * <p>
+ * If the maximum index exceeds 65535 and 32-bit indices are not
+ * supported (= {@link Extension#OES_element_index_uint
+ * OES_element_index_uint} is not available), the mesh is split
+ * into parts each of which references at most 65536 vertices.
+ * In that case, vertices are renumbered so that the vertices
+ * of each part occupy a contiguous range starting from {@link
+ * PackedIndices#getBaseVertex(int) the base vertex} of the part
+ * (vertices shared by multiple parts are duplicated), and vertex
+ * data must be reordered by {@link PackedIndices#remap(float[], int)}.
+ * {@link ElementDrawer} draws all the parts in order and notifies
+ * {@link ElementDrawer#setBaseVertexListener(BaseVertexListener)
+ * the listener} of the base vertex before each part, so that the
+ * attribute arrays can be re-pointed.
+ * </p>
+ *
+ * <pre style="background: lightgray;">
+ * {@link PackedIndices} packed = new IndexPacker().{@link #pack(int[]) pack}(indices);
+ *
+ * <span style="color: darkgreen;">// Reorder the vertex data if necessary.</span>
+ * if (packed.{@link PackedIndices#isVertexRemapRequired() isVertexRemapRequired}())
+ * {
+ *     vertices = packed.{@link PackedIndices#remap(float[], int) remap}(vertices, 3);
+ * }
+ *
+ * <span style="color: darkgreen;">// Draw.</span>
+ * new {@link ElementDrawer}({@link DrawingMode#TRIANGLES})
+ *     .{@link ElementDrawer#setIndices(PackedIndices) setIndices}(packed)
+ *     .{@link ElementDrawer#setBaseVertexListener(BaseVertexListener) setBaseVertexListener}(listener)
+ *     .{@link ElementDrawer#draw() draw}();
+ * </pre>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see PackedIndices
+ * @see IndexType
+ */
+public class IndexPacker
+{
+    /**
+     * The maximum number of vertices a part can reference
+     * when 32-bit indices are not supported.
+     */
+    private static final int MAX_PART_VERTICES = IndexType.UNSIGNED_SHORT.getMaxIndex() + 1;
+
+
+    /**
+     * True if 32-bit indices are supported.
+     */
+    private final boolean uintSupported;
+
+
+    /**
+     * A constructor which checks whether {@link
+     * Extension#OES_element_index_uint OES_element_index_uint}
+     * is supported. This constructor must be called on a thread
+     * which has a GL context.
+     */
+    public IndexPacker()
+    {
+        this(Extension.OES_element_index_uint.isSupported());
+    }
+
+
+    /**
+     * A constructor with the support status of 32-bit indices.
+     * This constructor can be called on any thread.
+     *
+     * @param uintSupported
+     *         True if {@link Extension#OES_element_index_uint
+     *         OES_element_index_uint} is supported.
+     */
+    public IndexPacker(boolean uintSupported)
+    {
+        this.uintSupported = uintSupported;
+    }
+
+
+    /**
+     * Check if 32-bit indices are supported.
+     *
+     * @return
+     *         True if 32-bit indices are supported.
+     */
+    public boolean isUintSupported()
+    {
+        return uintSupported;
+    }
+
+
+    /**
+     * This method is an alias of {@link #pack(int[], DrawingMode)
+     * pack}(indices, {@link DrawingMode#TRIANGLES}).
+     */
+    public PackedIndices pack(int[] indices)
+    {
+        return pack(indices, DrawingMode.TRIANGLES);
+    }
+
+
+    /**
+     * Pack indices into the narrowest index type.
+     *
+     * @param indices
+     *         Indices. The array is not modified.
+     *
+     * @param mode
+     *         The drawing mode. If the mesh has to be split,
+     *         it must be {@link DrawingMode#TRIANGLES TRIANGLES},
+     *         {@link DrawingMode#LINES LINES} or {@link
+     *         DrawingMode#POINTS POINTS}.
+     *
+     * @return
+     *         Packed indices.
+     *
+     * @throws IllegalArgumentException
+     *         An argument is null, the indices are empty, an index
+     *         is negative, or the
+     *         mesh has to be split but the drawing mode does not
+     *         allow it.
+     */
+    public PackedIndices pack(int[] indices, DrawingMode mode)
+    {
+        // Check the arguments.
+        if (indices == null)
+        {
+            throw new IllegalArgumentException("indices is null.");
+        }
+
+        if (indices.length == 0)
+        {
+            throw new IllegalArgumentException("indices is empty.");
+        }
+
+        if (mode == null)
+        {
+            throw new IllegalArgumentException("mode is null.");
+        }
+
+        int maxIndex = -1;
+
+        for (int i = 0; i < indices.length; ++i)
+        {
+            if (indices[i] < 0)
+            {
+                throw new IllegalArgumentException("indices[" + i + "] is negative.");
+            }
+
+            maxIndex = Math.max(maxIndex, indices[i]);
+        }
+
+        IndexType type = IndexType.getNarrowest(maxIndex);
+
+        if (type != IndexType.UNSIGNED_INT || uintSupported)
+        {
+            // No need to split.
+            return new PackedIndices(
+                type, new Buffer[] { createBuffer(type, indices, 0, indices.length) },
+                new int[] { indices.length }, new int[] { 0 }, null, maxIndex + 1);
+        }
+
+        return split(indices, maxIndex, getPrimitiveSize(mode));
+    }
+
+
+    private static int getPrimitiveSize(DrawingMode mode)
+    {
+        switch (mode)
+        {
+            case POINTS:
+                return 1;
+
+            case LINES:
+                return 2;
+
+            case TRIANGLES:
+                return 3;
+
+            default:
+                throw new IllegalArgumentException(
+                    mode + " cannot be split. Use TRIANGLES, LINES or POINTS.");
+        }
+    }
+
+
+    private static PackedIndices split(int[] indices, int maxIndex, int primitiveSize)
+    {
+        if (indices.length % primitiveSize != 0)
+        {
+            throw new IllegalArgumentException("The number of indices is not a multiple of the primitive size.");
+        }
+
+        // Global vertex number to local vertex number in the current
+        // part. Valid only if owners[v] is the current part.
+        int[] locals = new int[maxIndex + 1];
+        int[] owners = new int[maxIndex + 1];
+        Arrays.fill(owners, -1);
+
+        int[] output         = new int[indices.length];
+        int[] vertexMap      = new int[indices.length];
+        List<Integer> starts = new ArrayList<Integer>();
+        List<Integer> bases  = new ArrayList<Integer>();
+
+        int part      = -1;
+        int partBase  = 0;
+        int partCount = 0;
+
+        for (int i = 0; i < indices.length; i += primitiveSize)
+        {
+            // Count the vertices which are new to the current part.
+            int newVertices = 0;
+
+            for (int k = 0; k < primitiveSize; ++k)
+            {
+                int v = indices[i + k];
+
+                if (owners[v] != part && notIn(indices, i, k, v))
+                {
+                    ++newVertices;
+                }
+            }
+
+            // Start a new part if the primitive does not fit.
+            if (part < 0 || MAX_PART_VERTICES < partCount + newVertices)
+            {
+                ++part;
+                partBase += partCount;
+                partCount = 0;
+
+                starts.add(i);
+                bases.add(partBase);
+            }
+
+            for (int k = 0; k < primitiveSize; ++k)
+            {
+                int v = indices[i + k];
+
+                if (owners[v] != part)
+                {
+                    owners[v] = part;
+                    locals[v] = partCount;
+                    vertexMap[partBase + partCount] = v;
+                    ++partCount;
+                }
+
+                output[i + k] = locals[v];
+            }
+        }
+
+        int vertexCount = partBase + partCount;
+        int parts       = starts.size();
+        Buffer[] buffers = new Buffer[parts];
+        int[] counts     = new int[parts];
+        int[] baseArray  = new int[parts];
+
+        for (int p = 0; p < parts; ++p)
+        {
+            int begin = starts.get(p);
+            int end   = (p + 1 < parts) ? starts.get(p + 1) : indices.length;
+
+            buffers[p]   = createBuffer(IndexType.UNSIGNED_SHORT, output, begin, end - begin);
+            counts[p]    = end - begin;
+            baseArray[p] = bases.get(p);
+        }
+
+        return new PackedIndices(
+            IndexType.UNSIGNED_SHORT, buffers, counts, baseArray,
+            Arrays.copyOf(vertexMap, vertexCount), vertexCount);
+    }
+
+
+    /**
+     * Check if the vertex does not appear before the k-th index
+     * of the primitive starting at i.
+     */
+    private static boolean notIn(int[] indices, int i, int k, int v)
+    {
+        for (int j = 0; j < k; ++j)
+        {
+            if (indices[i + j] == v)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    private static Buffer createBuffer(IndexType type, int[] indices, int offset, int length)
+    {
+        switch (type)
+        {
+            case UNSIGNED_BYTE:
+            {
+                ByteBuffer buffer = BufferCreator.createByteBuffer(length);
+
+                for (int i = 0; i < length; ++i)
+                {
+                    buffer.put(i, (byte)indices[offset + i]);
+                }
+
+                return buffer;
+            }
+
+            case UNSIGNED_SHORT:
+            {
+                ShortBuffer buffer = BufferCreator.createShortBuffer(length);
+
+                for (int i = 0; i < length; ++i)
+                {
+                    buffer.put(i, (short)indices[offset + i]);
+                }
+
+                return buffer;
+            }
+
+            default:
+                return BufferCreator.createIntBuffer(indices, offset, length);
+        }
+    }
+}
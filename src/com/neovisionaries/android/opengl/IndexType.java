@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+/**
+ * Types of indices for glDrawElements().
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see IndexPacker
+ * @see <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glDrawElements.xml">glDrawElements</a>
+ */
+public enum IndexType
+{
+    /**
+     * GL_UNSIGNED_BYTE.
+     */
+    UNSIGNED_BYTE(GLESFactory.getInstance().GL_UNSIGNED_BYTE(), 1, 0xFF),
+
+
+    /**
+     * GL_UNSIGNED_SHORT.
+     */
+    UNSIGNED_SHORT(GLESFactory.getInstance().GL_UNSIGNED_SHORT(), 2, 0xFFFF),
+
+
+    /**
+     * GL_UNSIGNED_INT. {@link Extension#OES_element_index_uint
+     * OES_element_index_uint} is required.
+     */
+    UNSIGNED_INT(GLESFactory.getInstance().GL_UNSIGNED_INT(), 4, Integer.MAX_VALUE)
+    ;
+
+
+    /**
+     * The integer representing this index type.
+     */
+    private final int type;
+
+
+    /**
+     * The size of an index in bytes.
+     */
+    private final int sizeInBytes;
+
+
+    /**
+     * The maximum index this type can hold.
+     */
+    private final int maxIndex;
+
+
+    private IndexType(int type, int sizeInBytes, int maxIndex)
+    {
+        this.type        = type;
+        this.sizeInBytes = sizeInBytes;
+        this.maxIndex    = maxIndex;
+    }
+
+
+    /**
+     * Get the integer representing this index type.
+     *
+     * @return
+     *         The integer representing this index type.
+     */
+    public int getType()
+    {
+        return type;
+    }
+
+
+    /**
+     * Get the size of an index in bytes.
+     *
+     * @return
+     *         The size of an index in bytes.
+     */
+    public int getSizeInBytes()
+    {
+        return sizeInBytes;
+    }
+
+
+    /**
+     * Get the maximum index this type can hold.
+     *
+     * @return
+     *         The maximum index.
+     */
+    public int getMaxIndex()
+    {
+        return maxIndex;
+    }
+
+
+    /**
+     * Get the narrowest index type that can hold the given index.
+     *
+     * @param maxIndex
+     *         The maximum index.
+     *
+     * @return
+     *         The narrowest index type. {@link #UNSIGNED_INT} is
+     *         returned for indices greater than 65535 regardless of
+     *         whether the extension is supported or not.
+     */
+    public static IndexType getNarrowest(int maxIndex)
+    {
+        if (maxIndex <= UNSIGNED_BYTE.maxIndex)
+        {
+            return UNSIGNED_BYTE;
+        }
+        else if (maxIndex <= UNSIGNED_SHORT.maxIndex)
+        {
+            return UNSIGNED_SHORT;
+        }
+        else
+        {
+            return UNSIGNED_INT;
+        }
+    }
+}
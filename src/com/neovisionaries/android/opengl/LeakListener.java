@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+/**
+ * Listener notified by {@link LeakTracker} when a GL object is found
+ * to have become unreachable without being deleted.
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see LeakTracker#setListener(LeakListener)
+ */
+public interface LeakListener
+{
+    /**
+     * Called on the GL thread before the leaked GL object is deleted.
+     *
+     * @param type
+     *         The type of the GL object.
+     *
+     * @param id
+     *         The ID of the GL object.
+     *
+     * @param allocationTrace
+     *         The stack trace of the allocation, or null if
+     *         {@link LeakTracker#setDebug(boolean) the debug mode}
+     *         was disabled when the object was created.
+     */
+    void onLeak(GLObjectType type, int id, Throwable allocationTrace);
+}
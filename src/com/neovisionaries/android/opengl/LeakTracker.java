@@ -0,0 +1,470 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+
+/**
+ * Tracker of GL objects which become unreachable without being
+ * deleted, and queue of GL objects to be deleted on the GL thread.
+ *
+ * <p>
+ * When tracking is {@link #setEnabled(boolean) enabled}, {@link
+ * Texture}, {@link VertexBuffer}, {@link RenderBuffer}, {@link Shader}
+ * and {@link Program} instances created afterwards are tracked by
+ * phantom references. If an instance is garbage-collected without
+ * delete() having been called, its GL object is reported to {@link
+ * #setListener(LeakListener) the listener} and deleted.
+ * </p>
+ *
+ * <p>
+ * GL objects must be deleted on the GL thread. {@link #deleteLater(
+ * GLObjectType, int)} and the deleteLater() methods of resources can
+ * be called on any thread; they only enqueue the IDs into a lock-free
+ * queue.
+ * </p>
+ *
+ * <p>
+ * Both leaked objects and objects enqueued by deleteLater() are
+ * deleted by {@link #drain()}, which {@link GLESRenderer} calls at
+ * the beginning of every frame. Buffers, textures and render buffers
+ * are deleted in batches, e.g. one glDeleteTextures(N, ...) call for
+ * N textures.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see LeakListener
+ */
+public final class LeakTracker
+{
+    private static final int TYPE_COUNT = GLObjectType.values().length;
+
+
+    private static volatile boolean enabled;
+    private static volatile boolean debug;
+    private static volatile LeakListener listener;
+
+
+    /**
+     * The generation of the GL context. IDs of a different
+     * generation are meaningless in the current context.
+     */
+    private static volatile int generation;
+
+
+    /**
+     * The queue to which the phantom references of leaked
+     * resources are enqueued by the garbage collector.
+     */
+    private static final ReferenceQueue<Object> referenceQueue = new ReferenceQueue<Object>();
+
+
+    /**
+     * Phantom references must be reachable until they are enqueued.
+     */
+    private static final Set<TrackedObject> trackedObjects =
+        Collections.newSetFromMap(new ConcurrentHashMap<TrackedObject, Boolean>());
+
+
+    /**
+     * IDs enqueued by deleteLater(). Each entry is encoded by
+     * {@link #encode(GLObjectType, int, int)}.
+     */
+    private static final ConcurrentLinkedQueue<Long> pendingDeletions = new ConcurrentLinkedQueue<Long>();
+
+
+    /**
+     * IDs to delete in the current drain(), per type.
+     * Accessed only on the GL thread.
+     */
+    private static final int[][] batchIds = new int[TYPE_COUNT][16];
+    private static final int[] batchCounts = new int[TYPE_COUNT];
+
+
+    private LeakTracker()
+    {
+    }
+
+
+    /**
+     * Check if leak tracking is enabled.
+     *
+     * @return
+     *         True if leak tracking is enabled.
+     */
+    public static boolean isEnabled()
+    {
+        return enabled;
+    }
+
+
+    /**
+     * Enable or disable leak tracking. Only resources created while
+     * tracking is enabled are tracked. Tracking is disabled by default.
+     *
+     * @param enabled
+     *         True to enable leak tracking.
+     */
+    public static void setEnabled(boolean enabled)
+    {
+        LeakTracker.enabled = enabled;
+    }
+
+
+    /**
+     * Check if the debug mode is enabled.
+     *
+     * @return
+     *         True if the debug mode is enabled.
+     */
+    public static boolean isDebug()
+    {
+        return debug;
+    }
+
+
+    /**
+     * Enable or disable the debug mode. In the debug mode, the stack
+     * trace of the allocation of each tracked resource is captured
+     * and passed to {@link LeakListener#onLeak(GLObjectType, int,
+     * Throwable)}. This is expensive, so it should be used only
+     * for debugging.
+     *
+     * @param debug
+     *         True to enable the debug mode.
+     */
+    public static void setDebug(boolean debug)
+    {
+        LeakTracker.debug = debug;
+    }
+
+
+    /**
+     * Get the listener notified of leaks.
+     *
+     * @return
+     *         The listener. May be null.
+     */
+    public static LeakListener getListener()
+    {
+        return listener;
+    }
+
+
+    /**
+     * Set a listener notified of leaks. If no listener is set,
+     * leaks are printed to the standard error.
+     *
+     * @param listener
+     *         A listener.
+     */
+    public static void setListener(LeakListener listener)
+    {
+        LeakTracker.listener = listener;
+    }
+
+
+    /**
+     * Get the number of resources which are currently tracked,
+     * that is, neither deleted nor found leaked yet.
+     *
+     * @return
+     *         The number of tracked resources.
+     */
+    public static int getTrackedCount()
+    {
+        return trackedObjects.size();
+    }
+
+
+    /**
+     * Enqueue a GL object to be deleted on the GL thread by the next
+     * {@link #drain()}. This method can be called on any thread.
+     *
+     * @param type
+     *         The type of the GL object.
+     *
+     * @param id
+     *         The ID of the GL object.
+     *
+     * @throws IllegalArgumentException
+     *         The type is null.
+     */
+    public static void deleteLater(GLObjectType type, int id)
+    {
+        if (type == null)
+        {
+            throw new IllegalArgumentException("type is null.");
+        }
+
+        pendingDeletions.offer(encode(type, id, generation));
+    }
+
+
+    /**
+     * Delete leaked GL objects and GL objects enqueued by
+     * deleteLater(). This method must be called on the GL thread.
+     * {@link GLESRenderer} calls this method at the beginning of
+     * every frame.
+     */
+    public static void drain()
+    {
+        int currentGeneration = generation;
+        boolean found = false;
+
+        // Textures deleted by Texture.deleteLater() must not keep
+        // occupying their units.
+        TextureUnitManager.drain();
+
+        // Leaked resources.
+        Reference<?> reference;
+
+        while ((reference = referenceQueue.poll()) != null)
+        {
+            TrackedObject object = (TrackedObject)reference;
+
+            if (trackedObjects.remove(object) == false)
+            {
+                // Already untracked.
+                continue;
+            }
+
+            releaseAccounting(object);
+
+            if (object.generation != currentGeneration)
+            {
+                // The GL object belonged to a lost context.
+                continue;
+            }
+
+            reportLeak(object);
+            addToBatch(object.type, object.id);
+            found = true;
+        }
+
+        // Objects enqueued by deleteLater().
+        Long entry;
+
+        while ((entry = pendingDeletions.poll()) != null)
+        {
+            long value = entry.longValue();
+
+            if (decodeGeneration(value) != (currentGeneration & 0xFFFFFF))
+            {
+                continue;
+            }
+
+            addToBatch(GLObjectType.values()[decodeType(value)], (int)value);
+            found = true;
+        }
+
+        if (found)
+        {
+            flushBatches();
+        }
+    }
+
+
+    /**
+     * Notify that a new GL context has been created. Leaked objects
+     * and pending deletions of the old context are discarded because
+     * their IDs are meaningless in the new context. {@link GLESRenderer}
+     * calls this method before onSurfaceCreated(GLES, EGLConfig).
+     */
+    public static void onContextCreated()
+    {
+        ++generation;
+
+        pendingDeletions.clear();
+    }
+
+
+    /**
+     * Start tracking a resource.
+     *
+     * @return
+     *         A tracked object, or null if tracking is disabled.
+     */
+    static TrackedObject track(Object resource, GLObjectType type, int id, ResourceCategory category)
+    {
+        if (enabled == false)
+        {
+            return null;
+        }
+
+        Throwable trace = null;
+
+        if (debug)
+        {
+            trace = new Throwable("Allocation of " + type + " " + id);
+        }
+
+        TrackedObject object = new TrackedObject(
+            resource, referenceQueue, type, id, generation, category, trace);
+
+        trackedObjects.add(object);
+
+        return object;
+    }
+
+
+    /**
+     * Stop tracking a resource because it has been deleted properly.
+     *
+     * @param object
+     *         A tracked object returned from {@link #track(Object,
+     *         GLObjectType, int, ResourceCategory)}. May be null.
+     */
+    static void untrack(TrackedObject object)
+    {
+        if (object == null)
+        {
+            return;
+        }
+
+        trackedObjects.remove(object);
+        object.clear();
+    }
+
+
+    private static void releaseAccounting(TrackedObject object)
+    {
+        if (object.category == null)
+        {
+            return;
+        }
+
+        ResourceRegistry.update(object.category, object.allocatedBytes, 0);
+        ResourceRegistry.unregister(object.category);
+    }
+
+
+    private static void reportLeak(TrackedObject object)
+    {
+        LeakListener l = listener;
+
+        if (l != null)
+        {
+            l.onLeak(object.type, object.id, object.allocationTrace);
+            return;
+        }
+
+        System.err.println("Leaked GL object: " + object.type + " " + object.id);
+
+        if (object.allocationTrace != null)
+        {
+            object.allocationTrace.printStackTrace();
+        }
+    }
+
+
+    private static void addToBatch(GLObjectType type, int id)
+    {
+        int index = type.ordinal();
+        int count = batchCounts[index];
+
+        if (batchIds[index].length == count)
+        {
+            int[] ids = new int[count * 2];
+            System.arraycopy(batchIds[index], 0, ids, 0, count);
+            batchIds[index] = ids;
+        }
+
+        batchIds[index][count] = id;
+        batchCounts[index] = count + 1;
+    }
+
+
+    private static void flushBatches()
+    {
+        GLES gles = GLESFactory.getInstance();
+
+        for (int index = 0; index < TYPE_COUNT; ++index)
+        {
+            int count = batchCounts[index];
+
+            if (count == 0)
+            {
+                continue;
+            }
+
+            int[] ids = batchIds[index];
+
+            switch (GLObjectType.values()[index])
+            {
+                case BUFFER:
+                    gles.glDeleteBuffers(count, ids, 0);
+                    break;
+
+                case TEXTURE:
+                    gles.glDeleteTextures(count, ids, 0);
+                    break;
+
+                case RENDERBUFFER:
+                    gles.glDeleteRenderbuffers(count, ids, 0);
+                    break;
+
+                case SHADER:
+                    // There is no batch version.
+                    for (int i = 0; i < count; ++i)
+                    {
+                        gles.glDeleteShader(ids[i]);
+                    }
+                    break;
+
+                case PROGRAM:
+                    // There is no batch version.
+                    for (int i = 0; i < count; ++i)
+                    {
+                        gles.glDeleteProgram(ids[i]);
+                    }
+                    break;
+            }
+
+            batchCounts[index] = 0;
+        }
+    }
+
+
+    /**
+     * Encode a pending deletion into a long value:
+     * generation (24 bits) | type (8 bits) | id (32 bits).
+     */
+    private static long encode(GLObjectType type, int id, int generation)
+    {
+        return ((long)(generation & 0xFFFFFF) << 40) | ((long)type.ordinal() << 32) | (id & 0xFFFFFFFFL);
+    }
+
+
+    private static int decodeGeneration(long value)
+    {
+        return (int)(value >>> 40) & 0xFFFFFF;
+    }
+
+
+    private static int decodeType(long value)
+    {
+        return (int)(value >>> 32) & 0xFF;
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+/**
+ * Downsampling filters of {@link MipmapGenerator}.
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see MipmapGenerator#setFilter(MipmapFilter)
+ */
+public enum MipmapFilter
+{
+    /**
+     * Box filter, the average of the source pixels covered by each
+     * destination pixel. Odd sizes (NPOT) are handled with fractional
+     * weights. Fast, but slightly blurry and prone to aliasing.
+     */
+    BOX,
+
+
+    /**
+     * Kaiser-windowed sinc filter (2 lobes). Sharper than {@link #BOX}
+     * with less aliasing, at the cost of more taps.
+     */
+    KAISER
+}
@@ -0,0 +1,823 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+
+
+/**
+ * Generator of mipmap chains on the CPU, an alternative to {@link
+ * Texture#generateMipmap()} (glGenerateMipmap()), which is not
+ * available on the OpenGL ES 1.1 path, slow on some drivers, and
+ * gives poor results for NPOT and alpha-tested textures.
+ *
+ * <pre style="background: lightgray;">
+ * <span style="color: darkgreen;">// <b>E X A M P L E</b></span>
+ *
+ * {@link MipmapGenerator} generator = new {@link MipmapGenerator}()
+ *     .{@link #setFilter(MipmapFilter) setFilter}({@link MipmapFilter#KAISER})
+ *     .{@link #setSrgb(boolean) setSrgb}(true)
+ *     .{@link #setAlphaCoverageCutoff(float) setAlphaCoverageCutoff}(0.5f)
+ *     .{@link #setExecutor(ExecutorService) setExecutor}(executor);
+ *
+ * <span style="color: darkgreen;">// Load level 0 and all the generated levels.</span>
+ * generator.{@link #load(Texture2D, ByteBuffer, int, int, PixelFormat)
+ * load}(texture, pixels, width, height, {@link PixelFormat#RGBA_8888});
+ *
+ * <span style="color: darkgreen;">// Or generate levels without GL, e.g. to build asset packs.</span>
+ * ByteBuffer[] levels = generator.{@link #generate(ByteBuffer, int, int, PixelFormat)
+ * generate}(pixels, width, height, {@link PixelFormat#RGBA_8888});
+ * </pre>
+ *
+ * <p>
+ * Each level is generated from the previous one. Colors are
+ * weighted by alpha so that transparent pixels do not darken the
+ * edges. If {@link #setSrgb(boolean) sRGB} is enabled, colors are
+ * averaged in linear space. If {@link #setAlphaCoverageCutoff(float)
+ * an alpha coverage cutoff} is set, alpha of each level is scaled so
+ * that the ratio of pixels passing the alpha test stays the same as
+ * that of level 0, which keeps alpha-tested foliage from thinning out
+ * in the distance.
+ * </p>
+ *
+ * <p>
+ * If an executor is set, rows of each level are split into {@link
+ * #setTaskCount(int) tasks} and filtered in parallel; the calling
+ * thread filters one of the tasks and waits for the others.
+ * </p>
+ *
+ * <p>
+ * Supported formats are those with 8 bits per channel: {@link
+ * PixelFormat#RGBA_8888}, {@link PixelFormat#RGB_888}, {@link
+ * PixelFormat#LUMINANCE_ALPHA}, {@link PixelFormat#LUMINANCE} and
+ * {@link PixelFormat#ALPHA}.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class MipmapGenerator
+{
+    /**
+     * Kaiser window parameter.
+     */
+    private static final double KAISER_BETA = 4.0;
+
+
+    /**
+     * The number of lobes of the Kaiser-windowed sinc.
+     */
+    private static final double KAISER_LOBES = 2.0;
+
+
+    private static final float[] SRGB_TO_LINEAR = new float[256];
+    private static final int LINEAR_TO_SRGB_SIZE = 4096;
+    private static final byte[] LINEAR_TO_SRGB = new byte[LINEAR_TO_SRGB_SIZE];
+
+
+    static
+    {
+        for (int i = 0; i < 256; ++i)
+        {
+            double c = i / 255.0;
+
+            SRGB_TO_LINEAR[i] = (float)((c <= 0.04045) ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4));
+        }
+
+        for (int i = 0; i < LINEAR_TO_SRGB_SIZE; ++i)
+        {
+            double l = (double)i / (LINEAR_TO_SRGB_SIZE - 1);
+            double c = (l <= 0.0031308) ? l * 12.92 : 1.055 * Math.pow(l, 1 / 2.4) - 0.055;
+
+            LINEAR_TO_SRGB[i] = (byte)Math.round(c * 255);
+        }
+    }
+
+
+    private MipmapFilter filter = MipmapFilter.BOX;
+    private boolean srgb;
+    private float alphaCoverageCutoff;
+    private ExecutorService executor;
+    private int taskCount = Runtime.getRuntime().availableProcessors();
+
+
+    /**
+     * Get the downsampling filter.
+     *
+     * @return
+     *         The filter.
+     */
+    public MipmapFilter getFilter()
+    {
+        return filter;
+    }
+
+
+    /**
+     * Set the downsampling filter. The default value is {@link
+     * MipmapFilter#BOX}.
+     *
+     * @param filter
+     *         A filter.
+     *
+     * @return
+     *         This MipmapGenerator object.
+     *
+     * @throws IllegalArgumentException
+     *         The argument is null.
+     */
+    public MipmapGenerator setFilter(MipmapFilter filter)
+    {
+        if (filter == null)
+        {
+            throw new IllegalArgumentException("filter is null.");
+        }
+
+        this.filter = filter;
+
+        return this;
+    }
+
+
+    /**
+     * Check if colors are treated as sRGB.
+     *
+     * @return
+     *         True if colors are averaged in linear space.
+     */
+    public boolean isSrgb()
+    {
+        return srgb;
+    }
+
+
+    /**
+     * Treat colors as sRGB and average them in linear space.
+     * Disabled by default. Alpha is always linear.
+     *
+     * @param srgb
+     *         True to average colors in linear space.
+     *
+     * @return
+     *         This MipmapGenerator object.
+     */
+    public MipmapGenerator setSrgb(boolean srgb)
+    {
+        this.srgb = srgb;
+
+        return this;
+    }
+
+
+    /**
+     * Get the alpha test cutoff used for alpha coverage preservation.
+     *
+     * @return
+     *         The cutoff, or 0 if alpha coverage preservation is disabled.
+     */
+    public float getAlphaCoverageCutoff()
+    {
+        return alphaCoverageCutoff;
+    }
+
+
+    /**
+     * Set the alpha test cutoff (e.g. 0.5 for {@code if (a < 0.5) discard;})
+     * to preserve alpha coverage. 0 (default) disables it.
+     *
+     * @param cutoff
+     *         The cutoff, from 0.0 to 1.0.
+     *
+     * @return
+     *         This MipmapGenerator object.
+     *
+     * @throws IllegalArgumentException
+     *         The cutoff is out of range.
+     */
+    public MipmapGenerator setAlphaCoverageCutoff(float cutoff)
+    {
+        if (cutoff < 0 || 1 < cutoff)
+        {
+            throw new IllegalArgumentException("cutoff is out of range.");
+        }
+
+        this.alphaCoverageCutoff = cutoff;
+
+        return this;
+    }
+
+
+    /**
+     * Get the executor used for parallel filtering.
+     *
+     * @return
+     *         The executor. May be null.
+     */
+    public ExecutorService getExecutor()
+    {
+        return executor;
+    }
+
+
+    /**
+     * Set an executor used for parallel filtering.
+     *
+     * @param executor
+     *         An executor. null to filter on the calling thread only.
+     *
+     * @return
+     *         This MipmapGenerator object.
+     */
+    public MipmapGenerator setExecutor(ExecutorService executor)
+    {
+        this.executor = executor;
+
+        return this;
+    }
+
+
+    /**
+     * Get the number of tasks into which each level is split when
+     * an executor is set.
+     *
+     * @return
+     *         The number of tasks.
+     */
+    public int getTaskCount()
+    {
+        return taskCount;
+    }
+
+
+    /**
+     * Set the number of tasks into which each level is split when
+     * an executor is set. The default value is the number of
+     * available processors.
+     *
+     * @param taskCount
+     *         The number of tasks.
+     *
+     * @return
+     *         This MipmapGenerator object.
+     *
+     * @throws IllegalArgumentException
+     *         The argument is less than 1.
+     */
+    public MipmapGenerator setTaskCount(int taskCount)
+    {
+        if (taskCount < 1)
+        {
+            throw new IllegalArgumentException("taskCount must be greater than 0.");
+        }
+
+        this.taskCount = taskCount;
+
+        return this;
+    }
+
+
+    /**
+     * Get the number of mipmap levels of a complete chain, including
+     * level 0.
+     *
+     * @param width
+     *         The width of level 0.
+     *
+     * @param height
+     *         The height of level 0.
+     *
+     * @return
+     *         The number of levels.
+     */
+    public static int getLevelCount(int width, int height)
+    {
+        int size = Math.max(width, height);
+        int count = 1;
+
+        while (1 < size)
+        {
+            size /= 2;
+            ++count;
+        }
+
+        return count;
+    }
+
+
+    /**
+     * Generate levels 1 and later.
+     *
+     * @param pixels
+     *         Pixels of level 0 from the current position of the
+     *         buffer, with tightly packed rows. The position is not
+     *         changed.
+     *
+     * @param width
+     *         The width of level 0.
+     *
+     * @param height
+     *         The height of level 0.
+     *
+     * @param format
+     *         The format of the pixels.
+     *
+     * @return
+     *         Direct buffers of the generated levels. The element at
+     *         index i is level i + 1 whose size is max(1, width &gt;&gt;
+     *         (i + 1)) x max(1, height &gt;&gt; (i + 1)).
+     *
+     * @throws IllegalArgumentException
+     *         An argument is null or out of range, the format is not
+     *         supported, or the buffer is too small.
+     */
+    public ByteBuffer[] generate(ByteBuffer pixels, int width, int height, PixelFormat format)
+    {
+        return generate(pixels, width, height, format, executor);
+    }
+
+
+    /**
+     * Generate levels 1 and later with the given executor instead of
+     * the one set to this generator. {@link CubeMapLoader} passes
+     * null to generate mipmaps serially inside its own tasks, which
+     * must not wait for tasks queued behind them in the same pool.
+     */
+    ByteBuffer[] generate(ByteBuffer pixels, int width, int height, PixelFormat format, ExecutorService executor)
+    {
+        // Check the arguments.
+        if (pixels == null || format == null)
+        {
+            throw new IllegalArgumentException("pixels or format is null.");
+        }
+
+        if (width <= 0 || height <= 0 || pixels.remaining() < format.getImageBytes(width, height))
+        {
+            throw new IllegalArgumentException("Bad size.");
+        }
+
+        int alphaIndex = getAlphaIndex(format);
+        ByteBuffer[] levels = new ByteBuffer[getLevelCount(width, height) - 1];
+        ByteBuffer source = pixels.slice();
+        float targetCoverage = 0;
+
+        if (0 < alphaCoverageCutoff && 0 <= alphaIndex)
+        {
+            targetCoverage = computeCoverage(source, width * height, format, 1.0f);
+        }
+
+        for (int i = 0; i < levels.length; ++i)
+        {
+            int dstWidth  = Math.max(1, width  / 2);
+            int dstHeight = Math.max(1, height / 2);
+            ByteBuffer destination = ByteBuffer.allocateDirect((int)format.getImageBytes(dstWidth, dstHeight));
+
+            filterLevel(source, width, height, destination, dstWidth, dstHeight, format, executor);
+
+            if (0 < alphaCoverageCutoff && 0 <= alphaIndex)
+            {
+                preserveCoverage(destination, dstWidth * dstHeight, format, targetCoverage);
+            }
+
+            levels[i] = destination;
+            source = destination;
+            width  = dstWidth;
+            height = dstHeight;
+        }
+
+        return levels;
+    }
+
+
+    /**
+     * Load level 0 and the generated levels into a texture.
+     *
+     * @param texture
+     *         A texture.
+     *
+     * @param pixels
+     *         Pixels of level 0 from the current position of the
+     *         buffer, with tightly packed rows. The position is not
+     *         changed.
+     *
+     * @param width
+     *         The width of level 0.
+     *
+     * @param height
+     *         The height of level 0.
+     *
+     * @param format
+     *         The format of the pixels.
+     *
+     * @return
+     *         The texture.
+     *
+     * @throws IllegalArgumentException
+     *         An argument is null or out of range, the format is not
+     *         supported, or the buffer is too small.
+     *
+     * @throws IllegalStateException
+     *         The texture has already been deleted.
+     */
+    public Texture2D load(Texture2D texture, ByteBuffer pixels, int width, int height, PixelFormat format)
+    {
+        if (texture == null)
+        {
+            throw new IllegalArgumentException("texture is null.");
+        }
+
+        ByteBuffer[] levels = generate(pixels, width, height, format);
+
+        texture.loadImage(pixels, width, height, format, 0);
+
+        for (int i = 0; i < levels.length; ++i)
+        {
+            texture.loadImage(levels[i], Math.max(1, width >> (i + 1)), Math.max(1, height >> (i + 1)), format, i + 1);
+        }
+
+        return texture;
+    }
+
+
+    private void filterLevel(
+        final ByteBuffer source, final int srcWidth, final int srcHeight,
+        final ByteBuffer destination, final int dstWidth, final int dstHeight, final PixelFormat format,
+        ExecutorService executor)
+    {
+        final int[]     startsX  = new int[dstWidth];
+        final float[][] weightsX = computeWeights(srcWidth, dstWidth, startsX);
+        final int[]     startsY  = new int[dstHeight];
+        final float[][] weightsY = computeWeights(srcHeight, dstHeight, startsY);
+
+        ParallelRows.run(executor, taskCount, dstHeight, new RowRangeTask() {
+            @Override
+            public void run(int first, int last)
+            {
+                filterRows(source, srcWidth, srcHeight, destination, dstWidth, format,
+                    startsX, weightsX, startsY, weightsY, first, last);
+            }
+        });
+    }
+
+
+    /**
+     * Compute the weights of source pixels for each destination pixel.
+     *
+     * @param starts
+     *         An array into which the index of the first source pixel
+     *         for each destination pixel is written. The index may be
+     *         out of range; it must be clamped.
+     *
+     * @return
+     *         Weights per destination pixel, which sum up to 1.
+     */
+    private float[][] computeWeights(int srcSize, int dstSize, int[] starts)
+    {
+        double scale = (double)srcSize / dstSize;
+        float[][] weights = new float[dstSize][];
+
+        for (int i = 0; i < dstSize; ++i)
+        {
+            double first, last;
+
+            if (filter == MipmapFilter.BOX)
+            {
+                // The source range covered by the destination pixel.
+                first = i * scale;
+                last  = (i + 1) * scale;
+            }
+            else
+            {
+                double center = (i + 0.5) * scale;
+                double radius = KAISER_LOBES * Math.max(scale, 1.0);
+
+                first = center - radius;
+                last  = center + radius;
+            }
+
+            int start = (int)Math.floor(first);
+            int end   = (int)Math.ceil(last);
+            float[] w = new float[end - start];
+            double sum = 0;
+
+            for (int j = start; j < end; ++j)
+            {
+                double value;
+
+                if (filter == MipmapFilter.BOX)
+                {
+                    value = Math.min(last, j + 1) - Math.max(first, j);
+                }
+                else
+                {
+                    // Distance from the center in destination pixels.
+                    double x = ((j + 0.5) - (i + 0.5) * scale) / Math.max(scale, 1.0);
+
+                    value = sinc(x) * kaiser(x / KAISER_LOBES);
+                }
+
+                w[j - start] = (float)value;
+                sum += value;
+            }
+
+            for (int k = 0; k < w.length; ++k)
+            {
+                w[k] /= sum;
+            }
+
+            starts[i]  = start;
+            weights[i] = w;
+        }
+
+        return weights;
+    }
+
+
+    private static double sinc(double x)
+    {
+        if (Math.abs(x) < 1e-6)
+        {
+            return 1.0;
+        }
+
+        double px = Math.PI * x;
+
+        return Math.sin(px) / px;
+    }
+
+
+    private static double kaiser(double t)
+    {
+        if (1.0 <= Math.abs(t))
+        {
+            return 0.0;
+        }
+
+        return besselI0(KAISER_BETA * Math.sqrt(1.0 - t * t)) / besselI0(KAISER_BETA);
+    }
+
+
+    /**
+     * The zeroth order modified Bessel function of the first kind.
+     */
+    private static double besselI0(double x)
+    {
+        double sum  = 1.0;
+        double term = 1.0;
+        double half = x / 2;
+
+        for (int k = 1; k < 32; ++k)
+        {
+            term *= (half / k) * (half / k);
+            sum  += term;
+        }
+
+        return sum;
+    }
+
+
+    /**
+     * Filter destination rows [firstRow, lastRow). Only absolute
+     * get/put are used, so tasks can share the buffers.
+     */
+    private void filterRows(
+        ByteBuffer source, int srcWidth, int srcHeight, ByteBuffer destination, int dstWidth,
+        PixelFormat format, int[] startsX, float[][] weightsX, int[] startsY, float[][] weightsY,
+        int firstRow, int lastRow)
+    {
+        int channels   = format.getBytesPerPixel();
+        int alphaIndex = getAlphaIndex(format);
+        float[] decoded  = new float[srcWidth * channels];
+        float[] filtered = new float[dstWidth * channels];
+        float[] sum      = new float[dstWidth * channels];
+
+        for (int y = firstRow; y < lastRow; ++y)
+        {
+            Arrays.fill(sum, 0);
+
+            float[] wy = weightsY[y];
+
+            for (int k = 0; k < wy.length; ++k)
+            {
+                int sourceY = clamp(startsY[y] + k, srcHeight - 1);
+
+                decodeRow(source, sourceY * srcWidth * channels, srcWidth, channels, alphaIndex, decoded);
+                filterRow(decoded, srcWidth, channels, startsX, weightsX, filtered);
+
+                for (int i = 0; i < sum.length; ++i)
+                {
+                    sum[i] += wy[k] * filtered[i];
+                }
+            }
+
+            encodeRow(sum, dstWidth, channels, alphaIndex, destination, y * dstWidth * channels);
+        }
+    }
+
+
+    /**
+     * Decode a row into floats: colors linear (if sRGB) and
+     * premultiplied by alpha, alpha from 0 to 1.
+     */
+    private void decodeRow(ByteBuffer source, int offset, int width, int channels, int alphaIndex, float[] row)
+    {
+        for (int x = 0; x < width; ++x)
+        {
+            int base = x * channels;
+            float alpha = (alphaIndex < 0) ? 1.0f : (source.get(offset + base + alphaIndex) & 0xFF) / 255.0f;
+
+            for (int c = 0; c < channels; ++c)
+            {
+                int value = source.get(offset + base + c) & 0xFF;
+
+                if (c == alphaIndex)
+                {
+                    row[base + c] = alpha;
+                }
+                else
+                {
+                    row[base + c] = (srgb ? SRGB_TO_LINEAR[value] : value / 255.0f) * alpha;
+                }
+            }
+        }
+    }
+
+
+    private static void filterRow(float[] row, int srcWidth, int channels, int[] starts, float[][] weights, float[] output)
+    {
+        for (int x = 0; x < starts.length; ++x)
+        {
+            float[] w = weights[x];
+
+            for (int c = 0; c < channels; ++c)
+            {
+                float value = 0;
+
+                for (int k = 0; k < w.length; ++k)
+                {
+                    value += w[k] * row[clamp(starts[x] + k, srcWidth - 1) * channels + c];
+                }
+
+                output[x * channels + c] = value;
+            }
+        }
+    }
+
+
+    private void encodeRow(float[] row, int width, int channels, int alphaIndex, ByteBuffer destination, int offset)
+    {
+        for (int x = 0; x < width; ++x)
+        {
+            int base = x * channels;
+            float alpha = (alphaIndex < 0) ? 1.0f : clamp01(row[base + alphaIndex]);
+
+            for (int c = 0; c < channels; ++c)
+            {
+                float value;
+
+                if (c == alphaIndex)
+                {
+                    value = alpha;
+                }
+                else
+                {
+                    // Undo the premultiplication.
+                    value = (0 < alpha) ? clamp01(row[base + c] / alpha) : 0;
+                }
+
+                byte encoded;
+
+                if (srgb && c != alphaIndex)
+                {
+                    encoded = LINEAR_TO_SRGB[(int)(value * (LINEAR_TO_SRGB_SIZE - 1) + 0.5f)];
+                }
+                else
+                {
+                    encoded = (byte)(int)(value * 255 + 0.5f);
+                }
+
+                destination.put(offset + base + c, encoded);
+            }
+        }
+    }
+
+
+    /**
+     * Get the ratio of pixels whose alpha scaled by the scale passes
+     * the alpha test.
+     */
+    private float computeCoverage(ByteBuffer pixels, int count, PixelFormat format, float scale)
+    {
+        int channels   = format.getBytesPerPixel();
+        int alphaIndex = getAlphaIndex(format);
+        float threshold = alphaCoverageCutoff * 255;
+        int passed = 0;
+
+        for (int i = 0; i < count; ++i)
+        {
+            if (threshold < (pixels.get(i * channels + alphaIndex) & 0xFF) * scale)
+            {
+                ++passed;
+            }
+        }
+
+        return (float)passed / count;
+    }
+
+
+    /**
+     * Scale alpha of a level so that its coverage is close to the target.
+     */
+    private void preserveCoverage(ByteBuffer pixels, int count, PixelFormat format, float targetCoverage)
+    {
+        float low  = 0;
+        float high = 4;
+        float scale = 1;
+
+        // Binary search. Coverage increases with the scale.
+        for (int i = 0; i < 16; ++i)
+        {
+            scale = (low + high) / 2;
+
+            if (computeCoverage(pixels, count, format, scale) < targetCoverage)
+            {
+                low = scale;
+            }
+            else
+            {
+                high = scale;
+            }
+        }
+
+        scale = high;
+
+        int channels   = format.getBytesPerPixel();
+        int alphaIndex = getAlphaIndex(format);
+
+        for (int i = 0; i < count; ++i)
+        {
+            int index = i * channels + alphaIndex;
+            int alpha = Math.min(255, Math.round((pixels.get(index) & 0xFF) * scale));
+
+            pixels.put(index, (byte)alpha);
+        }
+    }
+
+
+    /**
+     * Get the index of the alpha channel in a pixel.
+     *
+     * @return
+     *         The index, or -1 if the format has no alpha channel.
+     *
+     * @throws IllegalArgumentException
+     *         The format is not supported.
+     */
+    private static int getAlphaIndex(PixelFormat format)
+    {
+        switch (format)
+        {
+            case RGBA_8888:
+                return 3;
+
+            case LUMINANCE_ALPHA:
+                return 1;
+
+            case ALPHA:
+                return 0;
+
+            case RGB_888:
+            case LUMINANCE:
+                return -1;
+
+            default:
+                throw new IllegalArgumentException("Unsupported format: " + format);
+        }
+    }
+
+
+    private static int clamp(int value, int max)
+    {
+        return (value < 0) ? 0 : (max < value) ? max : value;
+    }
+
+
+    private static float clamp01(float value)
+    {
+        return (value < 0) ? 0 : (1 < value) ? 1 : value;
+    }
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+/**
+ * Pools of pre-generated names (IDs) of buffer objects, texture
+ * objects and render buffer objects.
+ *
+ * <p>
+ * The constructors of {@link VertexBuffer}, {@link Texture} and
+ * {@link RenderBuffer} obtain their names from this pool. When a
+ * pool is empty, names are generated in a batch (e.g. one
+ * glGenTextures(64, ...) call instead of 64 glGenTextures(1, ...)
+ * calls). {@link GLESRenderer} calls {@link #refill()} at the
+ * beginning of every frame so that pools running low are refilled
+ * outside of loading code.
+ * </p>
+ *
+ * <p>
+ * If {@link #setRecycling(boolean) recycling} is enabled, delete()
+ * of buffers and render buffers releases the storage only and returns
+ * the names to the pool. Texture names are never recycled because
+ * a texture object keeps its target (2D or cube map) and parameters.
+ * </p>
+ *
+ * <p>
+ * The pools belong to the current GL context. They are cleared when
+ * a new context is created ({@link GLESRenderer} calls {@link
+ * #onContextCreated()}). All the methods must be called on the GL
+ * thread.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public final class NamePool
+{
+    /**
+     * The default number of names generated at a time.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+
+    private static final int TYPE_COUNT = GLObjectType.values().length;
+
+
+    /**
+     * Names available per type. Only BUFFER, TEXTURE and
+     * RENDERBUFFER are used.
+     */
+    private static final int[][] names = new int[TYPE_COUNT][];
+    private static final int[] counts = new int[TYPE_COUNT];
+
+
+    private static int batchSize = DEFAULT_BATCH_SIZE;
+    private static boolean recycling;
+
+
+    private NamePool()
+    {
+    }
+
+
+    /**
+     * Get the number of names generated at a time.
+     *
+     * @return
+     *         The batch size.
+     */
+    public static int getBatchSize()
+    {
+        return batchSize;
+    }
+
+
+    /**
+     * Set the number of names generated at a time. The default value
+     * is {@link #DEFAULT_BATCH_SIZE}. 1 effectively disables pooling.
+     *
+     * @param size
+     *         The batch size.
+     *
+     * @throws IllegalArgumentException
+     *         The given size is less than 1.
+     */
+    public static void setBatchSize(int size)
+    {
+        if (size < 1)
+        {
+            throw new IllegalArgumentException("size must be greater than 0.");
+        }
+
+        batchSize = size;
+    }
+
+
+    /**
+     * Check if names of deleted buffers and render buffers are recycled.
+     *
+     * @return
+     *         True if recycling is enabled.
+     */
+    public static boolean isRecycling()
+    {
+        return recycling;
+    }
+
+
+    /**
+     * Enable or disable recycling of names of deleted buffers and
+     * render buffers. Disabled by default.
+     *
+     * @param recycling
+     *         True to enable recycling.
+     */
+    public static void setRecycling(boolean recycling)
+    {
+        NamePool.recycling = recycling;
+    }
+
+
+    /**
+     * Get the number of names available in the pool of the type.
+     *
+     * @param type
+     *         {@link GLObjectType#BUFFER BUFFER}, {@link GLObjectType#TEXTURE
+     *         TEXTURE} or {@link GLObjectType#RENDERBUFFER RENDERBUFFER}.
+     *
+     * @return
+     *         The number of available names.
+     */
+    public static int getAvailable(GLObjectType type)
+    {
+        return counts[type.ordinal()];
+    }
+
+
+    /**
+     * Refill the pools which have less than a quarter of the batch
+     * size. {@link GLESRenderer} calls this method at the beginning
+     * of every frame.
+     *
+     * @throws GLESException
+     *         glGen*() failed.
+     */
+    public static void refill() throws GLESException
+    {
+        int threshold = batchSize / 4;
+
+        refill(GLObjectType.BUFFER,       threshold);
+        refill(GLObjectType.TEXTURE,      threshold);
+        refill(GLObjectType.RENDERBUFFER, threshold);
+    }
+
+
+    private static void refill(GLObjectType type, int threshold) throws GLESException
+    {
+        // Refill only pools which have been used.
+        if (names[type.ordinal()] != null && counts[type.ordinal()] < threshold)
+        {
+            generate(type);
+        }
+    }
+
+
+    /**
+     * Delete all the names in the pools. This can be used to give
+     * the names back to the driver after loading, for example.
+     */
+    public static void trim()
+    {
+        GLES gles = GLESFactory.getInstance();
+
+        for (GLObjectType type : new GLObjectType[] { GLObjectType.BUFFER, GLObjectType.TEXTURE, GLObjectType.RENDERBUFFER })
+        {
+            int index = type.ordinal();
+            int count = counts[index];
+
+            if (count == 0)
+            {
+                continue;
+            }
+
+            delete(gles, type, count, names[index]);
+
+            counts[index] = 0;
+        }
+    }
+
+
+    /**
+     * Discard all the names in the pools without deleting them,
+     * because they belonged to a context which has been lost.
+     * {@link GLESRenderer} calls this method before
+     * onSurfaceCreated(GLES, EGLConfig).
+     */
+    public static void onContextCreated()
+    {
+        for (int i = 0; i < TYPE_COUNT; ++i)
+        {
+            names[i]  = null;
+            counts[i] = 0;
+        }
+    }
+
+
+    /**
+     * Obtain a name from the pool of the type.
+     *
+     * @throws GLESException
+     *         glGen*() failed.
+     */
+    static int obtain(GLObjectType type) throws GLESException
+    {
+        int index = type.ordinal();
+
+        if (counts[index] == 0)
+        {
+            generate(type);
+        }
+
+        return names[index][--counts[index]];
+    }
+
+
+    /**
+     * Release a name of a deleted object. If recycling is enabled
+     * and the object is a buffer or a render buffer, its storage is
+     * released and the name is returned to the pool. Otherwise, the
+     * object is deleted.
+     */
+    static void release(GLObjectType type, int id)
+    {
+        GLES gles = GLESFactory.getInstance();
+        int index = type.ordinal();
+
+        if (recycling && type != GLObjectType.TEXTURE && names[index] != null && counts[index] < names[index].length)
+        {
+            if (type == GLObjectType.BUFFER)
+            {
+                // Release the storage.
+                int target = gles.GL_ARRAY_BUFFER();
+                int binding = GLESState.getArrayBufferBinding();
+                gles.glBindBuffer(target, id);
+                gles.glBufferData(target, 0, null, gles.GL_STATIC_DRAW());
+                gles.glBindBuffer(target, (binding == id) ? 0 : binding);
+            }
+            else
+            {
+                // Release the storage.
+                int target = gles.GL_RENDERBUFFER();
+                int binding = GLESState.getRenderbufferBinding();
+                gles.glBindRenderbuffer(target, id);
+                gles.glRenderbufferStorage(target, gles.GL_RGBA4(), 0, 0);
+                gles.glBindRenderbuffer(target, (binding == id) ? 0 : binding);
+            }
+
+            names[index][counts[index]++] = id;
+
+            return;
+        }
+
+        delete(gles, type, 1, new int[] { id });
+    }
+
+
+    private static void generate(GLObjectType type) throws GLESException
+    {
+        GLES gles = GLESFactory.getInstance();
+        int index = type.ordinal();
+
+        // The capacity is twice the batch size so that recycled
+        // names can be kept.
+        if (names[index] == null || names[index].length < batchSize * 2)
+        {
+            int[] array = new int[batchSize * 2];
+
+            if (names[index] != null)
+            {
+                System.arraycopy(names[index], 0, array, 0, counts[index]);
+            }
+
+            names[index] = array;
+        }
+
+        int count = Math.min(batchSize, names[index].length - counts[index]);
+
+        if (count == 0)
+        {
+            return;
+        }
+
+        int[] ids = names[index];
+        int offset = counts[index];
+
+        switch (type)
+        {
+            case BUFFER:
+                gles.glGenBuffers(count, ids, offset);
+                break;
+
+            case TEXTURE:
+                gles.glGenTextures(count, ids, offset);
+                break;
+
+            default:
+                gles.glGenRenderbuffers(count, ids, offset);
+                break;
+        }
+
+        // Check if valid names have been generated.
+        if (ids[offset] <= 0)
+        {
+            throw new GLESException(getGenName(type) + " failed.");
+        }
+
+        counts[index] += count;
+    }
+
+
+    private static void delete(GLES gles, GLObjectType type, int count, int[] ids)
+    {
+        switch (type)
+        {
+            case BUFFER:
+                gles.glDeleteBuffers(count, ids, 0);
+                break;
+
+            case TEXTURE:
+                gles.glDeleteTextures(count, ids, 0);
+                break;
+
+            default:
+                gles.glDeleteRenderbuffers(count, ids, 0);
+                break;
+        }
+    }
+
+
+    private static String getGenName(GLObjectType type)
+    {
+        switch (type)
+        {
+            case BUFFER:
+                return "glGenBuffers()";
+
+            case TEXTURE:
+                return "glGenTextures()";
+
+            default:
+                return "glGenRenderbuffers()";
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+/**
+ * Open-addressing hash table from variable names to indices, used by
+ * {@link Program} to look up uniforms and attributes without touching
+ * the driver and without allocating memory.
+ *
+ * <p>
+ * Linear probing is used. The capacity is a power of two and is kept
+ * at least twice the number of entries. Entries cannot be removed;
+ * a new table is built every time a program is linked.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+final class NameTable
+{
+    private String[] keys;
+    private int[] values;
+    private int size;
+
+
+    /**
+     * A constructor with the expected number of entries.
+     */
+    NameTable(int expectedSize)
+    {
+        int capacity = 4;
+
+        while (capacity < expectedSize * 2)
+        {
+            capacity <<= 1;
+        }
+
+        keys   = new String[capacity];
+        values = new int[capacity];
+    }
+
+
+    /**
+     * Get the number of entries.
+     */
+    int size()
+    {
+        return size;
+    }
+
+
+    /**
+     * Get the value associated with the name.
+     *
+     * @return
+     *         The value, or -1 if the name is not found.
+     */
+    int get(String name)
+    {
+        int mask = keys.length - 1;
+
+        // String caches its hash code, so this does not allocate.
+        for (int i = mix(name.hashCode()) & mask; ; i = (i + 1) & mask)
+        {
+            String key = keys[i];
+
+            if (key == null)
+            {
+                return -1;
+            }
+
+            if (key.equals(name))
+            {
+                return values[i];
+            }
+        }
+    }
+
+
+    /**
+     * Associate the value with the name. If the name already exists,
+     * the value is replaced.
+     */
+    void put(String name, int value)
+    {
+        if ((size + 1) * 2 > keys.length)
+        {
+            resize();
+        }
+
+        int mask = keys.length - 1;
+
+        for (int i = mix(name.hashCode()) & mask; ; i = (i + 1) & mask)
+        {
+            String key = keys[i];
+
+            if (key == null)
+            {
+                keys[i]   = name;
+                values[i] = value;
+                ++size;
+                return;
+            }
+
+            if (key.equals(name))
+            {
+                values[i] = value;
+                return;
+            }
+        }
+    }
+
+
+    private void resize()
+    {
+        String[] oldKeys   = keys;
+        int[]    oldValues = values;
+
+        keys   = new String[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        size   = 0;
+
+        for (int i = 0; i < oldKeys.length; ++i)
+        {
+            if (oldKeys[i] != null)
+            {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+
+    /**
+     * Spread the bits of a hash code so that names differing only
+     * in the last characters (e.g. "u_light0" and "u_light1") do
+     * not form a cluster.
+     */
+    private static int mix(int hash)
+    {
+        hash *= 0x9E3779B9;
+
+        return hash ^ (hash >>> 16);
+    }
+}
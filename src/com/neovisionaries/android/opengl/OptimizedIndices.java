@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+/**
+ * The result of {@link IndexOptimizer}.
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see IndexOptimizer
+ */
+public class OptimizedIndices
+{
+    private final int[] indices;
+    private final int[] remap;
+    private final int vertexCount;
+    private final float acmrBefore;
+    private final float acmrAfter;
+    private final float atvrBefore;
+    private final float atvrAfter;
+
+
+    OptimizedIndices(
+        int[] indices, int[] remap, int vertexCount,
+        float acmrBefore, float acmrAfter, float atvrBefore, float atvrAfter)
+    {
+        this.indices     = indices;
+        this.remap       = remap;
+        this.vertexCount = vertexCount;
+        this.acmrBefore  = acmrBefore;
+        this.acmrAfter   = acmrAfter;
+        this.atvrBefore  = atvrBefore;
+        this.atvrAfter   = atvrAfter;
+    }
+
+
+    /**
+     * Get the optimized indices. If vertices have been renumbered,
+     * the indices refer to the new vertex numbers.
+     *
+     * @return
+     *         The optimized indices.
+     */
+    public int[] getIndices()
+    {
+        return indices;
+    }
+
+
+    /**
+     * Get the table from old vertex numbers to new ones.
+     *
+     * @return
+     *         The table whose i-th element is the new number of the
+     *         i-th vertex, or null if vertices have not been renumbered.
+     */
+    public int[] getRemap()
+    {
+        return remap;
+    }
+
+
+    /**
+     * Check if vertices have been renumbered. If true, vertex data
+     * must be reordered by {@link #remap(float[], int)} before use.
+     *
+     * @return
+     *         True if vertices have been renumbered.
+     */
+    public boolean isRemapped()
+    {
+        return (remap != null);
+    }
+
+
+    /**
+     * Get the number of vertices.
+     *
+     * @return
+     *         The number of vertices.
+     */
+    public int getVertexCount()
+    {
+        return vertexCount;
+    }
+
+
+    /**
+     * Get the ACMR (average cache miss ratio) before the optimization.
+     *
+     * @return
+     *         The number of vertex cache misses per triangle.
+     */
+    public float getAcmrBefore()
+    {
+        return acmrBefore;
+    }
+
+
+    /**
+     * Get the ACMR (average cache miss ratio) after the optimization.
+     *
+     * @return
+     *         The number of vertex cache misses per triangle.
+     */
+    public float getAcmrAfter()
+    {
+        return acmrAfter;
+    }
+
+
+    /**
+     * Get the ATVR (average transform to vertex ratio) before the
+     * optimization.
+     *
+     * @return
+     *         The number of vertex cache misses per referenced vertex.
+     */
+    public float getAtvrBefore()
+    {
+        return atvrBefore;
+    }
+
+
+    /**
+     * Get the ATVR (average transform to vertex ratio) after the
+     * optimization.
+     *
+     * @return
+     *         The number of vertex cache misses per referenced vertex.
+     */
+    public float getAtvrAfter()
+    {
+        return atvrAfter;
+    }
+
+
+    /**
+     * Reorder vertex data according to the renumbering of vertices.
+     *
+     * @param vertices
+     *         Vertex data of the original order.
+     *
+     * @param stride
+     *         The number of floats per vertex.
+     *
+     * @return
+     *         A new array of the reordered vertex data. If vertices
+     *         have not been renumbered, a copy of the given array.
+     *
+     * @throws IllegalArgumentException
+     *         The vertex data is null, the stride is less than 1
+     *         or the length is not equal to vertexCount * stride.
+     */
+    public float[] remap(float[] vertices, int stride)
+    {
+        // Check the arguments.
+        if (vertices == null)
+        {
+            throw new IllegalArgumentException("vertices is null.");
+        }
+
+        if (stride < 1)
+        {
+            throw new IllegalArgumentException("stride must be greater than 0.");
+        }
+
+        if (vertices.length != vertexCount * stride)
+        {
+            throw new IllegalArgumentException("The length of vertices does not match vertexCount * stride.");
+        }
+
+        if (remap == null)
+        {
+            return vertices.clone();
+        }
+
+        float[] output = new float[vertices.length];
+
+        for (int v = 0; v < vertexCount; ++v)
+        {
+            System.arraycopy(vertices, v * stride, output, remap[v] * stride, stride);
+        }
+
+        return output;
+    }
+}
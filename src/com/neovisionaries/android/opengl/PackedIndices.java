@@ -0,0 +1,353 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.nio.Buffer;
+
+
+/**
+ * Indices packed by {@link IndexPacker}.
+ *
+ * <p>
+ * Packed indices consist of one or more parts. Indices of each
+ * part are relative to {@link #getBaseVertex(int) the base vertex}
+ * of the part. Unless the mesh has been split, there is only one
+ * part whose base vertex is 0.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see IndexPacker
+ * @see ElementDrawer#setIndices(PackedIndices)
+ */
+public class PackedIndices
+{
+    private final IndexType type;
+    private final Buffer[] parts;
+    private final int[] counts;
+    private final int[] baseVertices;
+    private final int[] vertexMap;
+    private final int vertexCount;
+    private ElementArrayBuffer[] buffers;
+
+
+    PackedIndices(IndexType type, Buffer[] parts, int[] counts, int[] baseVertices, int[] vertexMap, int vertexCount)
+    {
+        this.type         = type;
+        this.parts        = parts;
+        this.counts       = counts;
+        this.baseVertices = baseVertices;
+        this.vertexMap    = vertexMap;
+        this.vertexCount  = vertexCount;
+    }
+
+
+    /**
+     * Get the index type.
+     *
+     * @return
+     *         The index type.
+     */
+    public IndexType getIndexType()
+    {
+        return type;
+    }
+
+
+    /**
+     * Get the number of parts.
+     *
+     * @return
+     *         The number of parts.
+     */
+    public int getPartCount()
+    {
+        return parts.length;
+    }
+
+
+    /**
+     * Get the indices of the part.
+     *
+     * @param part
+     *         The index of the part.
+     *
+     * @return
+     *         The indices of the part. A direct buffer whose class
+     *         corresponds to {@link #getIndexType()}.
+     */
+    public Buffer getIndices(int part)
+    {
+        return parts[part];
+    }
+
+
+    /**
+     * Get the number of indices of the part.
+     *
+     * @param part
+     *         The index of the part.
+     *
+     * @return
+     *         The number of indices of the part.
+     */
+    public int getCount(int part)
+    {
+        return counts[part];
+    }
+
+
+    /**
+     * Get the base vertex of the part, that is, the number of the
+     * (remapped) vertex to which index 0 of the part refers.
+     *
+     * @param part
+     *         The index of the part.
+     *
+     * @return
+     *         The base vertex of the part.
+     */
+    public int getBaseVertex(int part)
+    {
+        return baseVertices[part];
+    }
+
+
+    /**
+     * Get the number of vertices after remapping.
+     *
+     * @return
+     *         The number of vertices.
+     */
+    public int getVertexCount()
+    {
+        return vertexCount;
+    }
+
+
+    /**
+     * Check if vertex data must be reordered by {@link #remap(float[],
+     * int)}. This is true if the mesh has been split.
+     *
+     * @return
+     *         True if vertex data must be reordered.
+     */
+    public boolean isVertexRemapRequired()
+    {
+        return (vertexMap != null);
+    }
+
+
+    /**
+     * Get the table from new vertex numbers to original ones.
+     *
+     * @return
+     *         The table whose i-th element is the original number
+     *         of the i-th vertex, or null if remapping is not required.
+     */
+    public int[] getVertexMap()
+    {
+        return vertexMap;
+    }
+
+
+    /**
+     * Reorder vertex data so that the vertices of each part occupy
+     * a contiguous range starting from its base vertex.
+     *
+     * @param vertices
+     *         Vertex data of the original order.
+     *
+     * @param stride
+     *         The number of floats per vertex.
+     *
+     * @return
+     *         A new array of the reordered vertex data. If remapping
+     *         is not required, the given array itself.
+     *
+     * @throws IllegalArgumentException
+     *         The vertex data is null or the stride is less than 1.
+     */
+    public float[] remap(float[] vertices, int stride)
+    {
+        // Check the arguments.
+        if (vertices == null)
+        {
+            throw new IllegalArgumentException("vertices is null.");
+        }
+
+        if (stride < 1)
+        {
+            throw new IllegalArgumentException("stride must be greater than 0.");
+        }
+
+        if (vertexMap == null)
+        {
+            return vertices;
+        }
+
+        float[] output = new float[vertexCount * stride];
+
+        for (int v = 0; v < vertexCount; ++v)
+        {
+            System.arraycopy(vertices, vertexMap[v] * stride, output, v * stride, stride);
+        }
+
+        return output;
+    }
+
+
+    /**
+     * Get the total size of the indices in bytes.
+     *
+     * @return
+     *         The total size of the indices in bytes.
+     */
+    public int getSizeInBytes()
+    {
+        int total = 0;
+
+        for (int i = 0; i < counts.length; ++i)
+        {
+            total += counts[i];
+        }
+
+        return total * type.getSizeInBytes();
+    }
+
+
+    /**
+     * Upload the indices of each part to a new element array buffer.
+     * After this method returns, {@link ElementDrawer} uses the
+     * element array buffers instead of the client-side buffers.
+     *
+     * <p>
+     * Note that element array buffers should not be used in Android
+     * 2.2 (API Level 8). See {@link ElementDrawer} for details.
+     * </p>
+     *
+     * @param usage
+     *         Usage of the data.
+     *
+     * @return
+     *         This object.
+     *
+     * @throws IllegalArgumentException
+     *         The argument is null.
+     *
+     * @throws IllegalStateException
+     *         The indices have already been uploaded.
+     *
+     * @throws GLESException
+     *         glGenBuffers() failed.
+     */
+    public PackedIndices upload(VertexBufferUsage usage) throws GLESException
+    {
+        if (usage == null)
+        {
+            throw new IllegalArgumentException("usage is null.");
+        }
+
+        if (buffers != null)
+        {
+            throw new IllegalStateException("The indices have already been uploaded.");
+        }
+
+        ElementArrayBuffer[] newBuffers = new ElementArrayBuffer[parts.length];
+        boolean succeeded = false;
+
+        try
+        {
+            for (int i = 0; i < parts.length; ++i)
+            {
+                newBuffers[i] = new ElementArrayBuffer();
+                newBuffers[i].setData(parts[i], usage);
+            }
+
+            succeeded = true;
+        }
+        finally
+        {
+            if (succeeded == false)
+            {
+                // Do not leak the buffers created so far.
+                for (int i = 0; i < newBuffers.length && newBuffers[i] != null; ++i)
+                {
+                    newBuffers[i].delete();
+                }
+            }
+        }
+
+        this.buffers = newBuffers;
+
+        return this;
+    }
+
+
+    /**
+     * Check if the indices have been uploaded to element array buffers.
+     *
+     * @return
+     *         True if the indices have been uploaded.
+     */
+    public boolean isUploaded()
+    {
+        return (buffers != null);
+    }
+
+
+    /**
+     * Get the element array buffer of the part.
+     *
+     * @param part
+     *         The index of the part.
+     *
+     * @return
+     *         The element array buffer of the part, or null if the
+     *         indices have not been uploaded.
+     */
+    public ElementArrayBuffer getBuffer(int part)
+    {
+        return (buffers == null) ? null : buffers[part];
+    }
+
+
+    /**
+     * Delete the element array buffers created by {@link
+     * #upload(VertexBufferUsage)}. After this method returns,
+     * {@link ElementDrawer} uses the client-side buffers again.
+     *
+     * @return
+     *         This object.
+     */
+    public PackedIndices delete()
+    {
+        if (buffers == null)
+        {
+            return this;
+        }
+
+        for (int i = 0; i < buffers.length; ++i)
+        {
+            buffers[i].delete();
+        }
+
+        buffers = null;
+
+        return this;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * Helper which splits rows into ranges and processes them in
+ * parallel on an executor, used by the CPU-side image processors
+ * ({@link Etc1Encoder}, {@link MipmapGenerator}, {@link
+ * PixelConverter} and {@link CubeMapLoader}).
+ *
+ * <p>
+ * The calling thread processes the first range and then waits for
+ * the others. If any range fails, the first failure is rethrown on
+ * the calling thread after all the ranges have finished, so that
+ * callers never return with rows which were not processed.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+final class ParallelRows
+{
+    private ParallelRows()
+    {
+    }
+
+
+    /**
+     * Process rows [0, count) split into ranges.
+     *
+     * @param executor
+     *         An executor. If null, all the rows are processed on
+     *         the calling thread.
+     *
+     * @param taskCount
+     *         The maximum number of ranges.
+     *
+     * @param count
+     *         The number of rows.
+     *
+     * @param task
+     *         The task which processes a range.
+     *
+     * @throws RuntimeException
+     *         Rethrown from a range which failed.
+     *
+     * @throws Error
+     *         Rethrown from a range which failed.
+     */
+    static void run(ExecutorService executor, int taskCount, int count, final RowRangeTask task)
+    {
+        int tasks = (executor == null) ? 1 : Math.min(taskCount, count);
+
+        if (tasks <= 1)
+        {
+            task.run(0, count);
+            return;
+        }
+
+        final CountDownLatch latch = new CountDownLatch(tasks - 1);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+        // Submit all the ranges but the first one.
+        for (int i = 1; i < tasks; ++i)
+        {
+            final int first = count * i / tasks;
+            final int last  = count * (i + 1) / tasks;
+
+            Runnable runnable = new Runnable() {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        task.run(first, last);
+                    }
+                    catch (Throwable t)
+                    {
+                        failure.compareAndSet(null, t);
+                    }
+                    finally
+                    {
+                        latch.countDown();
+                    }
+                }
+            };
+
+            try
+            {
+                executor.execute(runnable);
+            }
+            catch (RejectedExecutionException e)
+            {
+                // E.g. the executor has been shut down.
+                runnable.run();
+            }
+        }
+
+        // The first range on the calling thread.
+        try
+        {
+            task.run(0, count / tasks);
+        }
+        catch (Throwable t)
+        {
+            failure.compareAndSet(null, t);
+        }
+
+        // Wait for the others even on failure, because they are
+        // still writing into the caller's buffers.
+        awaitUninterruptibly(latch);
+
+        rethrow(failure.get());
+    }
+
+
+    private static void rethrow(Throwable t)
+    {
+        if (t == null)
+        {
+            return;
+        }
+
+        if (t instanceof RuntimeException)
+        {
+            throw (RuntimeException)t;
+        }
+
+        if (t instanceof Error)
+        {
+            throw (Error)t;
+        }
+
+        // Tasks cannot throw checked exceptions, but just in case.
+        throw new RuntimeException(t);
+    }
+
+
+    private static void awaitUninterruptibly(CountDownLatch latch)
+    {
+        boolean interrupted = false;
+
+        while (true)
+        {
+            try
+            {
+                latch.await();
+                break;
+            }
+            catch (InterruptedException e)
+            {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
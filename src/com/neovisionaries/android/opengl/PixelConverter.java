@@ -0,0 +1,661 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.concurrent.ExecutorService;
+
+
+/**
+ * Converter of RGBA 8888 pixels into other {@link PixelFormat}s,
+ * e.g. into 16-bit formats to halve texture memory.
+ *
+ * <pre style="background: lightgray;">
+ * <span style="color: darkgreen;">// <b>E X A M P L E</b></span>
+ *
+ * {@link PixelConverter} converter = new {@link PixelConverter}()
+ *     .{@link #setExecutor(ExecutorService) setExecutor}(executor);
+ *
+ * <span style="color: darkgreen;">// Convert RGBA 8888 pixels into RGB 565 with ordered dithering.</span>
+ * ByteBuffer pixels565 = converter.{@link #convert(ByteBuffer, int, int, PixelFormat)
+ * convert}(pixels, width, height, {@link PixelFormat#RGB_565});
+ *
+ * <span style="color: darkgreen;">// Upload the result.</span>
+ * texture.{@link Texture2D#loadImage(ByteBuffer, int, int, PixelFormat)
+ * loadImage}(pixels565, width, height, {@link PixelFormat#RGB_565});
+ * </pre>
+ *
+ * <p>
+ * The source is either a ByteBuffer of R, G, B and A bytes (the
+ * layout of {@link PixelFormat#RGBA_8888}) or an IntBuffer of ARGB
+ * ints (the layout of Bitmap.getPixels()). Rows are tightly packed.
+ * The 16-bit formats are written in the native byte order as
+ * OpenGL ES expects. For {@link PixelFormat#RGB_565}, {@link
+ * PixelFormat#RGBA_4444} and {@link PixelFormat#RGBA_5551}, a 4x4
+ * ordered (Bayer) dither is applied unless {@link
+ * #setDithering(boolean) disabled}, which hides banding in
+ * gradients. Luminance is computed with the Rec. 601 weights.
+ * </p>
+ *
+ * <p>
+ * Inner loops process four pixels per iteration with table
+ * lookups, and if an executor is set, rows are split into {@link
+ * #setTaskCount(int) tasks} and converted in parallel; the calling
+ * thread converts one of the tasks and waits for the others.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class PixelConverter
+{
+    /**
+     * 4x4 Bayer matrix with values from 0 to 15.
+     */
+    private static final int[] BAYER = {
+         0,  8,  2, 10,
+        12,  4, 14,  6,
+         3, 11,  1,  9,
+        15,  7, 13,  5
+    };
+
+
+    /**
+     * Quantization tables indexed by (bayer * 256 + value) for 4, 5
+     * and 6 bits, with and without dithering (bayer = 0).
+     */
+    private static final byte[] QUANTIZE4 = createTable(4);
+    private static final byte[] QUANTIZE5 = createTable(5);
+    private static final byte[] QUANTIZE6 = createTable(6);
+
+
+    private boolean dithering = true;
+    private ExecutorService executor;
+    private int taskCount = Runtime.getRuntime().availableProcessors();
+
+
+    private static byte[] createTable(int bits)
+    {
+        int max = (1 << bits) - 1;
+        byte[] table = new byte[16 * 256];
+
+        for (int b = 0; b < 16; ++b)
+        {
+            for (int v = 0; v < 256; ++v)
+            {
+                // Scale to [0, max] and add a threshold from (0, 1).
+                int q = (int)(v * max / 255.0 + (b + 0.5) / 16.0);
+
+                table[b * 256 + v] = (byte)Math.min(q, max);
+            }
+        }
+
+        return table;
+    }
+
+
+    /**
+     * Check if ordered dithering is enabled.
+     *
+     * @return
+     *         True if ordered dithering is enabled.
+     */
+    public boolean isDithering()
+    {
+        return dithering;
+    }
+
+
+    /**
+     * Enable or disable ordered dithering for the 16-bit formats.
+     * Enabled by default. When disabled, values are rounded to the
+     * nearest.
+     *
+     * @param dithering
+     *         True to enable ordered dithering.
+     *
+     * @return
+     *         This PixelConverter object.
+     */
+    public PixelConverter setDithering(boolean dithering)
+    {
+        this.dithering = dithering;
+
+        return this;
+    }
+
+
+    /**
+     * Get the executor used for parallel conversion.
+     *
+     * @return
+     *         The executor. May be null.
+     */
+    public ExecutorService getExecutor()
+    {
+        return executor;
+    }
+
+
+    /**
+     * Set an executor used for parallel conversion.
+     *
+     * @param executor
+     *         An executor. null to convert on the calling thread only.
+     *
+     * @return
+     *         This PixelConverter object.
+     */
+    public PixelConverter setExecutor(ExecutorService executor)
+    {
+        this.executor = executor;
+
+        return this;
+    }
+
+
+    /**
+     * Get the number of tasks into which an image is split when an
+     * executor is set.
+     *
+     * @return
+     *         The number of tasks.
+     */
+    public int getTaskCount()
+    {
+        return taskCount;
+    }
+
+
+    /**
+     * Set the number of tasks into which an image is split when an
+     * executor is set. The default value is the number of available
+     * processors.
+     *
+     * @param taskCount
+     *         The number of tasks.
+     *
+     * @return
+     *         This PixelConverter object.
+     *
+     * @throws IllegalArgumentException
+     *         The argument is less than 1.
+     */
+    public PixelConverter setTaskCount(int taskCount)
+    {
+        if (taskCount < 1)
+        {
+            throw new IllegalArgumentException("taskCount must be greater than 0.");
+        }
+
+        this.taskCount = taskCount;
+
+        return this;
+    }
+
+
+    /**
+     * Convert RGBA 8888 pixels into a newly allocated direct buffer.
+     *
+     * @param source
+     *         R, G, B and A bytes from the current position of the
+     *         buffer. The position is not changed.
+     *
+     * @param width
+     *         The width of the image.
+     *
+     * @param height
+     *         The height of the image.
+     *
+     * @param format
+     *         The target format.
+     *
+     * @return
+     *         A direct buffer which holds the converted pixels.
+     *
+     * @throws IllegalArgumentException
+     *         An argument is null or out of range, or the source
+     *         is too small.
+     */
+    public ByteBuffer convert(ByteBuffer source, int width, int height, PixelFormat format)
+    {
+        ByteBuffer output = allocate(width, height, format);
+
+        convert(source, width, height, format, output);
+
+        return output;
+    }
+
+
+    /**
+     * Convert RGBA 8888 pixels.
+     *
+     * @param source
+     *         R, G, B and A bytes from the current position of the
+     *         buffer. The position is not changed.
+     *
+     * @param width
+     *         The width of the image.
+     *
+     * @param height
+     *         The height of the image.
+     *
+     * @param format
+     *         The target format.
+     *
+     * @param output
+     *         A buffer into which the converted pixels are written
+     *         from its current position. The position is not changed.
+     *
+     * @throws IllegalArgumentException
+     *         An argument is null or out of range, or a buffer is
+     *         too small.
+     */
+    public void convert(ByteBuffer source, int width, int height, PixelFormat format, ByteBuffer output)
+    {
+        if (source == null)
+        {
+            throw new IllegalArgumentException("source is null.");
+        }
+
+        checkArguments(source.remaining() / 4, width, height, format, output);
+
+        // getInt() of a big-endian buffer returns 0xRRGGBBAA.
+        ByteBuffer src = source.slice().order(ByteOrder.BIG_ENDIAN);
+
+        run(src, null, width, height, format, output.slice().order(ByteOrder.nativeOrder()));
+    }
+
+
+    /**
+     * Convert ARGB int pixels into a newly allocated direct buffer.
+     *
+     * @param source
+     *         ARGB ints (0xAARRGGBB) from the current position of the
+     *         buffer. The position is not changed.
+     *
+     * @param width
+     *         The width of the image.
+     *
+     * @param height
+     *         The height of the image.
+     *
+     * @param format
+     *         The target format.
+     *
+     * @return
+     *         A direct buffer which holds the converted pixels.
+     *
+     * @throws IllegalArgumentException
+     *         An argument is null or out of range, or the source
+     *         is too small.
+     */
+    public ByteBuffer convert(IntBuffer source, int width, int height, PixelFormat format)
+    {
+        ByteBuffer output = allocate(width, height, format);
+
+        convert(source, width, height, format, output);
+
+        return output;
+    }
+
+
+    /**
+     * Convert ARGB int pixels.
+     *
+     * @param source
+     *         ARGB ints (0xAARRGGBB) from the current position of the
+     *         buffer. The position is not changed.
+     *
+     * @param width
+     *         The width of the image.
+     *
+     * @param height
+     *         The height of the image.
+     *
+     * @param format
+     *         The target format.
+     *
+     * @param output
+     *         A buffer into which the converted pixels are written
+     *         from its current position. The position is not changed.
+     *
+     * @throws IllegalArgumentException
+     *         An argument is null or out of range, or a buffer is
+     *         too small.
+     */
+    public void convert(IntBuffer source, int width, int height, PixelFormat format, ByteBuffer output)
+    {
+        if (source == null)
+        {
+            throw new IllegalArgumentException("source is null.");
+        }
+
+        checkArguments(source.remaining(), width, height, format, output);
+
+        run(null, source.slice(), width, height, format, output.slice().order(ByteOrder.nativeOrder()));
+    }
+
+
+    private static ByteBuffer allocate(int width, int height, PixelFormat format)
+    {
+        if (format == null)
+        {
+            throw new IllegalArgumentException("format is null.");
+        }
+
+        if (width <= 0 || height <= 0)
+        {
+            throw new IllegalArgumentException("Bad size.");
+        }
+
+        return ByteBuffer.allocateDirect((int)format.getImageBytes(width, height));
+    }
+
+
+    private static void checkArguments(int sourcePixels, int width, int height, PixelFormat format, ByteBuffer output)
+    {
+        if (format == null || output == null)
+        {
+            throw new IllegalArgumentException("format or output is null.");
+        }
+
+        if (width <= 0 || height <= 0)
+        {
+            throw new IllegalArgumentException("Bad size.");
+        }
+
+        if (sourcePixels < (long)width * height)
+        {
+            throw new IllegalArgumentException("source is too small.");
+        }
+
+        if (output.remaining() < format.getImageBytes(width, height))
+        {
+            throw new IllegalArgumentException("output is too small.");
+        }
+    }
+
+
+    private void run(
+        final ByteBuffer bytes, final IntBuffer ints, final int width, final int height,
+        final PixelFormat format, final ByteBuffer output)
+    {
+        ParallelRows.run(executor, taskCount, height, new RowRangeTask() {
+            @Override
+            public void run(int first, int last)
+            {
+                convertRows(bytes, ints, width, format, output, first, last);
+            }
+        });
+    }
+
+
+    /**
+     * Convert rows [firstRow, lastRow). Only absolute get/put are
+     * used, so tasks can share the buffers.
+     */
+    private void convertRows(
+        ByteBuffer bytes, IntBuffer ints, int width, PixelFormat format,
+        ByteBuffer output, int firstRow, int lastRow)
+    {
+        int[] rgba = new int[width];
+
+        for (int y = firstRow; y < lastRow; ++y)
+        {
+            readRow(bytes, ints, y * width, rgba);
+
+            int offset = y * width * format.getBytesPerPixel();
+
+            switch (format)
+            {
+                case RGB_565:
+                    write565(rgba, y, output, offset);
+                    break;
+
+                case RGBA_4444:
+                    write4444(rgba, y, output, offset);
+                    break;
+
+                case RGBA_5551:
+                    write5551(rgba, y, output, offset);
+                    break;
+
+                default:
+                    writeBytes(rgba, format, output, offset);
+                    break;
+            }
+        }
+    }
+
+
+    /**
+     * Read a row as 0xRRGGBBAA ints.
+     */
+    private static void readRow(ByteBuffer bytes, IntBuffer ints, int index, int[] rgba)
+    {
+        int width = rgba.length;
+
+        if (bytes != null)
+        {
+            int offset = index * 4;
+
+            for (int x = 0; x < width; ++x)
+            {
+                rgba[x] = bytes.getInt(offset + x * 4);
+            }
+        }
+        else
+        {
+            for (int x = 0; x < width; ++x)
+            {
+                int argb = ints.get(index + x);
+
+                rgba[x] = (argb << 8) | (argb >>> 24);
+            }
+        }
+    }
+
+
+    /**
+     * Get the offsets into the quantization tables (bayer * 256) for
+     * the four columns of the dither matrix at the row.
+     */
+    private int[] getThresholds(int y)
+    {
+        int[] thresholds = new int[4];
+
+        for (int i = 0; i < 4; ++i)
+        {
+            // Without dithering, the threshold 7.5 / 16 rounds to the nearest.
+            thresholds[i] = (dithering ? BAYER[(y & 3) * 4 + i] : 7) * 256;
+        }
+
+        return thresholds;
+    }
+
+
+    private void write565(int[] rgba, int y, ByteBuffer output, int offset)
+    {
+        int[] t = getThresholds(y);
+        int width = rgba.length;
+        int x = 0;
+
+        // Four pixels per iteration, one per column of the dither matrix.
+        for (; x + 4 <= width; x += 4)
+        {
+            output.putShort(offset + x * 2,     pack565(rgba[x],     t[0]));
+            output.putShort(offset + x * 2 + 2, pack565(rgba[x + 1], t[1]));
+            output.putShort(offset + x * 2 + 4, pack565(rgba[x + 2], t[2]));
+            output.putShort(offset + x * 2 + 6, pack565(rgba[x + 3], t[3]));
+        }
+
+        for (; x < width; ++x)
+        {
+            output.putShort(offset + x * 2, pack565(rgba[x], t[x & 3]));
+        }
+    }
+
+
+    private static short pack565(int rgba, int t)
+    {
+        int r = QUANTIZE5[t + (rgba >>> 24)];
+        int g = QUANTIZE6[t + ((rgba >>> 16) & 0xFF)];
+        int b = QUANTIZE5[t + ((rgba >>> 8) & 0xFF)];
+
+        return (short)((r << 11) | (g << 5) | b);
+    }
+
+
+    private void write4444(int[] rgba, int y, ByteBuffer output, int offset)
+    {
+        int[] t = getThresholds(y);
+        int width = rgba.length;
+        int x = 0;
+
+        for (; x + 4 <= width; x += 4)
+        {
+            output.putShort(offset + x * 2,     pack4444(rgba[x],     t[0]));
+            output.putShort(offset + x * 2 + 2, pack4444(rgba[x + 1], t[1]));
+            output.putShort(offset + x * 2 + 4, pack4444(rgba[x + 2], t[2]));
+            output.putShort(offset + x * 2 + 6, pack4444(rgba[x + 3], t[3]));
+        }
+
+        for (; x < width; ++x)
+        {
+            output.putShort(offset + x * 2, pack4444(rgba[x], t[x & 3]));
+        }
+    }
+
+
+    private static short pack4444(int rgba, int t)
+    {
+        int r = QUANTIZE4[t + (rgba >>> 24)];
+        int g = QUANTIZE4[t + ((rgba >>> 16) & 0xFF)];
+        int b = QUANTIZE4[t + ((rgba >>> 8) & 0xFF)];
+        int a = QUANTIZE4[t + (rgba & 0xFF)];
+
+        return (short)((r << 12) | (g << 8) | (b << 4) | a);
+    }
+
+
+    private void write5551(int[] rgba, int y, ByteBuffer output, int offset)
+    {
+        int[] t = getThresholds(y);
+        int width = rgba.length;
+        int x = 0;
+
+        for (; x + 4 <= width; x += 4)
+        {
+            output.putShort(offset + x * 2,     pack5551(rgba[x],     t[0]));
+            output.putShort(offset + x * 2 + 2, pack5551(rgba[x + 1], t[1]));
+            output.putShort(offset + x * 2 + 4, pack5551(rgba[x + 2], t[2]));
+            output.putShort(offset + x * 2 + 6, pack5551(rgba[x + 3], t[3]));
+        }
+
+        for (; x < width; ++x)
+        {
+            output.putShort(offset + x * 2, pack5551(rgba[x], t[x & 3]));
+        }
+    }
+
+
+    private static short pack5551(int rgba, int t)
+    {
+        int r = QUANTIZE5[t + (rgba >>> 24)];
+        int g = QUANTIZE5[t + ((rgba >>> 16) & 0xFF)];
+        int b = QUANTIZE5[t + ((rgba >>> 8) & 0xFF)];
+
+        // 1-bit alpha is a threshold, not dithered.
+        int a = ((rgba & 0xFF) < 128) ? 0 : 1;
+
+        return (short)((r << 11) | (g << 6) | (b << 1) | a);
+    }
+
+
+    private static void writeBytes(int[] rgba, PixelFormat format, ByteBuffer output, int offset)
+    {
+        int width = rgba.length;
+
+        switch (format)
+        {
+            case RGBA_8888:
+                for (int x = 0; x < width; ++x)
+                {
+                    int v = rgba[x];
+                    int o = offset + x * 4;
+
+                    output.put(o,     (byte)(v >>> 24));
+                    output.put(o + 1, (byte)(v >>> 16));
+                    output.put(o + 2, (byte)(v >>> 8));
+                    output.put(o + 3, (byte)v);
+                }
+                break;
+
+            case RGB_888:
+                for (int x = 0; x < width; ++x)
+                {
+                    int v = rgba[x];
+                    int o = offset + x * 3;
+
+                    output.put(o,     (byte)(v >>> 24));
+                    output.put(o + 1, (byte)(v >>> 16));
+                    output.put(o + 2, (byte)(v >>> 8));
+                }
+                break;
+
+            case LUMINANCE_ALPHA:
+                for (int x = 0; x < width; ++x)
+                {
+                    output.put(offset + x * 2,     (byte)luminance(rgba[x]));
+                    output.put(offset + x * 2 + 1, (byte)rgba[x]);
+                }
+                break;
+
+            case LUMINANCE:
+                for (int x = 0; x < width; ++x)
+                {
+                    output.put(offset + x, (byte)luminance(rgba[x]));
+                }
+                break;
+
+            case ALPHA:
+                for (int x = 0; x < width; ++x)
+                {
+                    output.put(offset + x, (byte)rgba[x]);
+                }
+                break;
+
+            default:
+                throw new IllegalArgumentException("Unsupported format: " + format);
+        }
+    }
+
+
+    /**
+     * Rec. 601 luma in fixed point: (77 R + 150 G + 29 B) / 256.
+     */
+    private static int luminance(int rgba)
+    {
+        int r = rgba >>> 24;
+        int g = (rgba >>> 16) & 0xFF;
+        int b = (rgba >>> 8) & 0xFF;
+
+        return (77 * r + 150 * g + 29 * b + 128) >> 8;
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+/**
+ * Pairs of format and type of uncompressed pixel data given to
+ * glTexImage2D() and glTexSubImage2D().
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see Texture2D#loadImage(java.nio.ByteBuffer, int, int, PixelFormat, int)
+ * @see <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glTexImage2D.xml">glTexImage2D</a>
+ */
+public enum PixelFormat
+{
+    /**
+     * GL_RGBA / GL_UNSIGNED_BYTE. 4 bytes per pixel.
+     */
+    RGBA_8888(GLESFactory.getInstance().GL_RGBA(), GLESFactory.getInstance().GL_UNSIGNED_BYTE(), 4),
+
+
+    /**
+     * GL_RGB / GL_UNSIGNED_BYTE. 3 bytes per pixel.
+     */
+    RGB_888(GLESFactory.getInstance().GL_RGB(), GLESFactory.getInstance().GL_UNSIGNED_BYTE(), 3),
+
+
+    /**
+     * GL_RGB / GL_UNSIGNED_SHORT_5_6_5. 2 bytes per pixel.
+     */
+    RGB_565(GLESFactory.getInstance().GL_RGB(), GLESFactory.getInstance().GL_UNSIGNED_SHORT_5_6_5(), 2),
+
+
+    /**
+     * GL_RGBA / GL_UNSIGNED_SHORT_4_4_4_4. 2 bytes per pixel.
+     */
+    RGBA_4444(GLESFactory.getInstance().GL_RGBA(), GLESFactory.getInstance().GL_UNSIGNED_SHORT_4_4_4_4(), 2),
+
+
+    /**
+     * GL_RGBA / GL_UNSIGNED_SHORT_5_5_5_1. 2 bytes per pixel.
+     */
+    RGBA_5551(GLESFactory.getInstance().GL_RGBA(), GLESFactory.getInstance().GL_UNSIGNED_SHORT_5_5_5_1(), 2),
+
+
+    /**
+     * GL_LUMINANCE_ALPHA / GL_UNSIGNED_BYTE. 2 bytes per pixel.
+     */
+    LUMINANCE_ALPHA(GLESFactory.getInstance().GL_LUMINANCE_ALPHA(), GLESFactory.getInstance().GL_UNSIGNED_BYTE(), 2),
+
+
+    /**
+     * GL_LUMINANCE / GL_UNSIGNED_BYTE. 1 byte per pixel.
+     */
+    LUMINANCE(GLESFactory.getInstance().GL_LUMINANCE(), GLESFactory.getInstance().GL_UNSIGNED_BYTE(), 1),
+
+
+    /**
+     * GL_ALPHA / GL_UNSIGNED_BYTE. 1 byte per pixel.
+     */
+    ALPHA(GLESFactory.getInstance().GL_ALPHA(), GLESFactory.getInstance().GL_UNSIGNED_BYTE(), 1)
+    ;
+
+
+    /**
+     * The format, e.g. GL_RGBA. Also used as the internal format
+     * because OpenGL ES 2.0 requires them to be the same.
+     */
+    private final int format;
+
+
+    /**
+     * The type, e.g. GL_UNSIGNED_BYTE.
+     */
+    private final int type;
+
+
+    /**
+     * The number of bytes per pixel.
+     */
+    private final int bytesPerPixel;
+
+
+    private PixelFormat(int format, int type, int bytesPerPixel)
+    {
+        this.format        = format;
+        this.type          = type;
+        this.bytesPerPixel = bytesPerPixel;
+    }
+
+
+    /**
+     * Get the format, e.g. GL_RGBA.
+     *
+     * @return
+     *         The format.
+     */
+    public int getFormat()
+    {
+        return format;
+    }
+
+
+    /**
+     * Get the type, e.g. GL_UNSIGNED_BYTE.
+     *
+     * @return
+     *         The type.
+     */
+    public int getType()
+    {
+        return type;
+    }
+
+
+    /**
+     * Get the number of bytes per pixel.
+     *
+     * @return
+     *         The number of bytes per pixel.
+     */
+    public int getBytesPerPixel()
+    {
+        return bytesPerPixel;
+    }
+
+
+    /**
+     * Get the number of bytes of an image with tightly packed rows.
+     *
+     * @param width
+     *         The width of the image.
+     *
+     * @param height
+     *         The height of the image.
+     *
+     * @return
+     *         The number of bytes.
+     */
+    public long getImageBytes(int width, int height)
+    {
+        return (long)width * height * bytesPerPixel;
+    }
+
+
+    /**
+     * Get the largest GL_UNPACK_ALIGNMENT (8, 4, 2 or 1) with which
+     * rows of the given width are tightly packed.
+     *
+     * @param width
+     *         The width of the image.
+     *
+     * @return
+     *         The alignment.
+     */
+    public int getUnpackAlignment(int width)
+    {
+        int rowBytes = width * bytesPerPixel;
+
+        for (int alignment = 8; 1 < alignment; alignment /= 2)
+        {
+            if (rowBytes % alignment == 0)
+            {
+                return alignment;
+            }
+        }
+
+        return 1;
+    }
+}
@@ -16,6 +16,8 @@
 package com.neovisionaries.android.opengl;
 
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -23,6 +25,7 @@ import java.util.Map;
 import static com.neovisionaries.android.opengl.ProgramState.NEEDS_LINKING;
 import static com.neovisionaries.android.opengl.ProgramState.DELETED;
 import static com.neovisionaries.android.opengl.ProgramState.LINKED;
+import static com.neovisionaries.android.opengl.ProgramState.LINKING;
 
 
 /**
@@ -104,12 +107,55 @@ public class Program
     private ProgramState state = NEEDS_LINKING;
 
 
+    /**
+     * The phantom reference used by {@link LeakTracker}.
+     * Null if leak tracking was disabled on creation.
+     */
+    private TrackedObject tracked;
+
+
     /**
      * Attached shaders.
      */
     private Map<Integer, Shader<?>> shaderMap = new HashMap<Integer, Shader<?>>();
 
 
+    /**
+     * Program used by {@link #useOrFallback()} while linking.
+     */
+    private Program fallback;
+
+
+    /**
+     * True if linking submitted by {@link #useOrFallback()} has
+     * failed. Cleared when shaders are attached or detached.
+     */
+    private boolean linkFailed;
+
+
+    /**
+     * Active uniforms enumerated by glGetActiveUniform() on link.
+     * The table maps names to indices of {@link #uniforms}.
+     */
+    private NameTable uniformTable;
+    private Uniform[] uniforms;
+
+
+    /**
+     * Sampler handles, created eagerly for sampler uniforms and
+     * lazily for others. Indices are the same as {@link #uniforms}.
+     */
+    private Sampler[] samplers;
+
+
+    /**
+     * Active attributes enumerated by glGetActiveAttrib() on link.
+     * The table maps names to indices of {@link #attributes}.
+     */
+    private NameTable attributeTable;
+    private Attribute[] attributes;
+
+
     /**
      * A constructor. After this constructor returns, the state
      * of this instance is {@link ProgramState#NEEDS_LINKING
@@ -139,6 +185,8 @@ public class Program
             throw new GLESException("glCreateProgram() failed.");
         }
 
+        tracked = LeakTracker.track(this, GLObjectType.PROGRAM, id, null);
+
         // For each shader given to this constructor.
         for (Shader<?> shader : shaders)
         {
@@ -224,11 +272,18 @@ public class Program
         // Not keep track of shaders any more.
         shaderMap = null;
 
+        // Drop the reflection cache.
+        clearReflection();
+
         // Delete this program.
         getGLES().glDeleteProgram(id);
 
         // This program was deleted.
         state = DELETED;
+
+        // Stop tracking leaks.
+        LeakTracker.untrack(tracked);
+        tracked = null;
     }
 
 
@@ -306,6 +361,7 @@ public class Program
 
         // This program needs linking.
         state = NEEDS_LINKING;
+        linkFailed = false;
 
         // Notify the shader that it was attached to this program.
         shader.onAttached(this);
@@ -381,6 +437,7 @@ public class Program
 
         // This program needs linking.
         state = NEEDS_LINKING;
+        linkFailed = false;
 
         // Notify the shader that it was detached from this program.
         shader.onDetached(this);
@@ -395,6 +452,20 @@ public class Program
      * returns without any exception, the state of this program is
      * {@link ProgramState#LINKED LINKED}.
      *
+     * <p>
+     * If the current state is {@link ProgramState#LINKING LINKING},
+     * this method waits for the linking submitted by {@link
+     * #linkAsync()} and checks its result.
+     * </p>
+     *
+     * <p>
+     * After linking, active uniforms and attributes are enumerated
+     * once by glGetActiveUniform() and glGetActiveAttrib(), so that
+     * {@link #getUniform(String)}, {@link #getSampler(String)} and
+     * {@link #getAttribute(String)} can return cached instances
+     * without calling the driver.
+     * </p>
+     *
      * @return
      *         This Program object.
      *
@@ -410,6 +481,8 @@ public class Program
      *         glLinkProgram() or glCompileShader() failed.
      *
      * @see <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glLinkProgram.xml">glLinkProgram</a>
+     * @see <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glGetActiveUniform.xml">glGetActiveUniform</a>
+     * @see <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glGetActiveAttrib.xml">glGetActiveAttrib</a>
      */
     public Program link() throws GLESException
     {
@@ -424,20 +497,38 @@ public class Program
                 throw new IllegalStateException("Program has already been deleted.");
         }
 
-        // Make sure that all shaders are compiled.
+        if (state != LINKING)
+        {
+            // Make sure that all shaders are compiled.
+            for (Shader<?> shader : shaderMap.values())
+            {
+                // Compile the shader. If the shader has already been
+                // compiled, compile() does nothing. Note that compile()
+                // may throw an exception.
+                shader.compile();
+            }
+
+            // Link the attached shaders.
+            getGLES().glLinkProgram(id);
+        }
+
+        // Check if the shaders have been linked successfully.
+        boolean linked = getLinkStatus();
+
+        if (linked == false)
+        {
+            // Linking needs to be retried after the cause is fixed.
+            state = NEEDS_LINKING;
+        }
+
+        // Check the results of compileAsync(), if any. This reports
+        // a compile error, if any, rather than a link error.
         for (Shader<?> shader : shaderMap.values())
         {
-            // Compile the shader. If the shader has already been
-            // compiled, compile() does nothing. Note that compile()
-            // may throw an exception.
             shader.compile();
         }
 
-        // Link the attached shaders.
-        getGLES().glLinkProgram(id);
-
-        // Check if the shaders have been linked successfully.
-        if (getLinkStatus() == false)
+        if (linked == false)
         {
             // Failed to link the shaders.
             throw new GLESException("glLinkProgram() failed: " + getLog());
@@ -446,10 +537,535 @@ public class Program
         // Linked successfully.
         state = LINKED;
 
+        // Enumerate active uniforms and attributes.
+        reflect();
+
+        return this;
+    }
+
+
+    /**
+     * Submit compiling of attached shaders and linking to the driver
+     * without waiting for the results. If the current state of this
+     * program is {@link ProgramState#LINKED LINKED} or {@link
+     * ProgramState#LINKING LINKING}, nothing is executed. Otherwise,
+     * the state of this program becomes {@link ProgramState#LINKING
+     * LINKING}.
+     *
+     * <pre style="background: lightgray;">
+     * <span style="color: darkgreen;">// <b>E X A M P L E</b></span>
+     *
+     * <span style="color: darkgreen;">// At level load, submit all the programs up front.</span>
+     * for ({@link Program} program : programs) {
+     *     program.{@link #linkAsync() linkAsync}();
+     * }
+     *
+     * <span style="color: darkgreen;">// In onDrawFrame(), draw with a simple program until</span>
+     * <span style="color: darkgreen;">// the real one becomes ready.</span>
+     * program.{@link #setFallback(Program) setFallback}(simpleProgram);
+     * {@link Program} active = program.{@link #useOrFallback() useOrFallback}();
+     * </pre>
+     *
+     * <p>
+     * Querying GL_LINK_STATUS right after glLinkProgram() forces the
+     * driver to finish compiling and linking synchronously. The
+     * results of this method are checked by {@link #poll()} later,
+     * and if {@link Extension#KHR_parallel_shader_compile} is
+     * supported, {@link #poll()} does not block.
+     * </p>
+     *
+     * @return
+     *         This Program object.
+     *
+     * @throws IllegalStateException
+     *         This program has already been deleted, or no source
+     *         is set to an attached shader.
+     *
+     * @see AsyncProgramLinker
+     * @see <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glLinkProgram.xml">glLinkProgram</a>
+     */
+    public Program linkAsync()
+    {
+        switch (state)
+        {
+            case LINKED:
+            case LINKING:
+                // Already linked or submitted.
+                return this;
+
+            case DELETED:
+                // Already deleted.
+                throw new IllegalStateException("Program has already been deleted.");
+        }
+
+        // Submit compiling of the attached shaders.
+        for (Shader<?> shader : shaderMap.values())
+        {
+            shader.compileAsync();
+        }
+
+        // Submit linking.
+        getGLES().glLinkProgram(id);
+
+        // The result will be checked later.
+        state = LINKING;
+
+        return this;
+    }
+
+
+    /**
+     * Check whether the linking submitted by {@link #linkAsync()}
+     * has finished, and if so, finish it by {@link #link()}.
+     *
+     * <p>
+     * If {@link Extension#KHR_parallel_shader_compile} is supported,
+     * GL_COMPLETION_STATUS_KHR is queried and this method does not
+     * block. Otherwise, the check is just deferred until this method
+     * is called, so it may block if the driver has not finished yet.
+     * </p>
+     *
+     * @return
+     *         True if this program has been linked. False if linking
+     *         is still in progress or has not been submitted.
+     *
+     * @throws IllegalStateException
+     *         This program has already been deleted.
+     *
+     * @throws GLESException
+     *         Compiling or linking failed. The state of this program
+     *         becomes {@link ProgramState#NEEDS_LINKING NEEDS_LINKING}.
+     */
+    public boolean poll() throws GLESException
+    {
+        switch (state)
+        {
+            case LINKED:
+                return true;
+
+            case NEEDS_LINKING:
+                return false;
+
+            case DELETED:
+                // Already deleted.
+                throw new IllegalStateException("Program has already been deleted.");
+        }
+
+        if (isLinkFinished() == false)
+        {
+            // Still in progress.
+            return false;
+        }
+
+        // Check the results.
+        link();
+
+        return true;
+    }
+
+
+    /**
+     * Check if the driver reports that linking has finished.
+     */
+    private boolean isLinkFinished()
+    {
+        if (Extension.KHR_parallel_shader_compile.isSupported() == false)
+        {
+            // No way to know it without blocking.
+            return true;
+        }
+
+        GLES gles = getGLES();
+
+        int[] status = new int[1];
+
+        gles.glGetProgramiv(id, gles.GL_COMPLETION_STATUS_KHR(), status, 0);
+
+        return (status[0] == gles.GL_TRUE());
+    }
+
+
+    /**
+     * Check if this program has been linked and is ready to use.
+     *
+     * @return
+     *         True if the state of this program is {@link
+     *         ProgramState#LINKED LINKED}.
+     */
+    public boolean isReady()
+    {
+        return (state == LINKED);
+    }
+
+
+    /**
+     * Get the program used by {@link #useOrFallback()} while
+     * this program is being linked.
+     *
+     * @return
+     *         The fallback program. May be null.
+     */
+    public Program getFallback()
+    {
+        return fallback;
+    }
+
+
+    /**
+     * Set a program used by {@link #useOrFallback()} while this
+     * program is being linked, typically a simple program which
+     * has been linked already.
+     *
+     * @param fallback
+     *         A fallback program. Null to remove the fallback.
+     *
+     * @return
+     *         This Program object.
+     *
+     * @throws IllegalArgumentException
+     *         This program itself is given.
+     */
+    public Program setFallback(Program fallback)
+    {
+        // Check the argument.
+        if (fallback == this)
+        {
+            throw new IllegalArgumentException("A program cannot be its own fallback.");
+        }
+
+        this.fallback = fallback;
+
         return this;
     }
 
 
+    /**
+     * Use this program if it is ready, or the fallback program
+     * otherwise.
+     *
+     * <p>
+     * If a fallback program is set and this program has not been
+     * linked yet, linking is submitted by {@link #linkAsync()} and
+     * the fallback program is used. The result is checked by {@link
+     * #poll()} from the next call on, never in the call which
+     * submitted linking, so that the driver can link in the
+     * background in the meantime (as {@link AsyncProgramLinker}
+     * does). While linking is in progress, the fallback program is
+     * used. If no fallback program is set, this method behaves as
+     * {@link #use()}.
+     * </p>
+     *
+     * <p>
+     * If linking fails, the exception is thrown once, and the
+     * fallback program is used from then on without linking again
+     * until a shader is attached or detached.
+     * </p>
+     *
+     * @return
+     *         The program actually used. Uniforms must be set to
+     *         this program.
+     *
+     * @throws IllegalStateException
+     *         This program has already been deleted.
+     *
+     * @throws GLESException
+     *         Linking of this program or the fallback program failed.
+     */
+    public Program useOrFallback() throws GLESException
+    {
+        if (fallback == null || state == LINKED)
+        {
+            return use();
+        }
+
+        if (linkFailed)
+        {
+            // Do not relink every frame.
+            return fallback.use();
+        }
+
+        if (state != LINKING)
+        {
+            // Submit linking. The result is checked by the next call.
+            linkAsync();
+
+            return fallback.use();
+        }
+
+        boolean linked;
+
+        try
+        {
+            linked = poll();
+        }
+        catch (GLESException e)
+        {
+            // Remember the failure and report it only once.
+            linkFailed = true;
+            throw e;
+        }
+
+        if (linked == false)
+        {
+            // Not ready yet.
+            return fallback.use();
+        }
+
+        return use();
+    }
+
+
+    /**
+     * Get the binary of this linked program.
+     *
+     * @return
+     *         The binary, which can be given to {@link
+     *         #setBinary(ProgramBinary)} later, possibly in another
+     *         process on the same device and driver.
+     *
+     * @throws IllegalStateException
+     *         This program has not been linked.
+     *
+     * @throws UnsupportedOperationException
+     *         The {@link GLES} implementation does not support
+     *         glGetProgramBinary().
+     *
+     * @see Extension#OES_get_program_binary
+     * @see ProgramBinaryCache
+     */
+    public ProgramBinary getBinary()
+    {
+        if (state != LINKED)
+        {
+            throw new IllegalStateException("Program is not linked.");
+        }
+
+        GLES gles = getGLES();
+
+        int[] length = new int[1];
+        int[] format = new int[1];
+
+        // The length of the binary.
+        gles.glGetProgramiv(id, gles.GL_PROGRAM_BINARY_LENGTH_OES(), length, 0);
+
+        ByteBuffer data = ByteBuffer.allocateDirect(length[0]).order(ByteOrder.nativeOrder());
+
+        gles.glGetProgramBinary(id, length[0], length, 0, format, 0, data);
+
+        data.limit(length[0]);
+
+        return new ProgramBinary(format[0], data);
+    }
+
+
+    /**
+     * Load a binary obtained by {@link #getBinary()} instead of
+     * compiling and linking shaders. If the binary is accepted, the
+     * state of this program becomes {@link ProgramState#LINKED
+     * LINKED}. Drivers may reject binaries, e.g. after a driver
+     * update, so the caller must be ready to fall back to compiling
+     * from the source.
+     *
+     * @param binary
+     *         A program binary.
+     *
+     * @return
+     *         True if the binary was accepted. False if it was
+     *         rejected, in which case the state of this program is
+     *         {@link ProgramState#NEEDS_LINKING NEEDS_LINKING}.
+     *
+     * @throws IllegalArgumentException
+     *         The given argument is null.
+     *
+     * @throws IllegalStateException
+     *         This program has already been deleted.
+     *
+     * @throws UnsupportedOperationException
+     *         The {@link GLES} implementation does not support
+     *         glProgramBinary().
+     *
+     * @see Extension#OES_get_program_binary
+     */
+    public boolean setBinary(ProgramBinary binary)
+    {
+        // Check the argument.
+        if (binary == null)
+        {
+            throw new IllegalArgumentException("binary is null.");
+        }
+
+        if (state == DELETED)
+        {
+            throw new IllegalStateException("Program has already been deleted.");
+        }
+
+        getGLES().glProgramBinary(id, binary.getFormat(), binary.getData(), binary.getLength());
+
+        // A rejected binary results in a link failure.
+        if (getLinkStatus() == false)
+        {
+            state = NEEDS_LINKING;
+            return false;
+        }
+
+        state = LINKED;
+
+        // Enumerate active uniforms and attributes.
+        reflect();
+
+        return true;
+    }
+
+
+    /**
+     * Build the cache of active uniforms and attributes.
+     */
+    private void reflect()
+    {
+        GLES gles = getGLES();
+
+        int[] params = new int[1];
+        int[] size   = new int[1];
+        int[] type   = new int[1];
+
+        // The number of active uniforms.
+        gles.glGetProgramiv(id, gles.GL_ACTIVE_UNIFORMS(), params, 0);
+        int count = params[0];
+
+        uniformTable = new NameTable(count);
+        uniforms     = new Uniform[count];
+        samplers     = new Sampler[count];
+
+        for (int i = 0; i < count; ++i)
+        {
+            String name  = gles.glGetActiveUniform(id, i, size, 0, type, 0);
+            int location = gles.glGetUniformLocation(id, name);
+
+            if (location == -1)
+            {
+                // Not accessible by a location.
+                continue;
+            }
+
+            UniformType uniformType = UniformType.getByType(type[0]);
+
+            uniforms[i] = new Uniform(location, uniformType, size[0]);
+
+            if (uniformType != null && uniformType.isSampler())
+            {
+                samplers[i] = new Sampler(location, uniformType);
+            }
+
+            putName(uniformTable, name, i);
+        }
+
+        // The number of active attributes.
+        gles.glGetProgramiv(id, gles.GL_ACTIVE_ATTRIBUTES(), params, 0);
+        count = params[0];
+
+        attributeTable = new NameTable(count);
+        attributes     = new Attribute[count];
+
+        for (int i = 0; i < count; ++i)
+        {
+            String name  = gles.glGetActiveAttrib(id, i, size, 0, type, 0);
+            int location = gles.glGetAttribLocation(id, name);
+
+            if (location == -1)
+            {
+                // Built-in attributes such as gl_VertexID.
+                continue;
+            }
+
+            attributes[i] = new Attribute(location);
+
+            putName(attributeTable, name, i);
+        }
+    }
+
+
+    /**
+     * Put a name reported by glGetActive*() into the table. Names
+     * of arrays are reported as "name[0]", so "name" is put, too.
+     */
+    private static void putName(NameTable table, String name, int index)
+    {
+        table.put(name, index);
+
+        if (name.endsWith("[0]"))
+        {
+            table.put(name.substring(0, name.length() - 3), index);
+        }
+    }
+
+
+    /**
+     * Get the attributes enumerated on link. Elements are null for
+     * attributes which have no location.
+     *
+     * @return
+     *         The attributes, or null if this program has not been linked.
+     */
+    Attribute[] getActiveAttributes()
+    {
+        return (state == LINKED) ? attributes : null;
+    }
+
+
+    private void clearReflection()
+    {
+        uniformTable   = null;
+        uniforms       = null;
+        samplers       = null;
+        attributeTable = null;
+        attributes     = null;
+    }
+
+
+    /**
+     * Find the index of a uniform in the reflection cache.
+     *
+     * @return
+     *         The index of the uniform, or -1 if not found or the
+     *         cache is not available.
+     */
+    private int findUniformIndex(String name)
+    {
+        if (state != LINKED || uniformTable == null || name == null)
+        {
+            return -1;
+        }
+
+        return uniformTable.get(name);
+    }
+
+
+    /**
+     * Find a uniform in the reflection cache. The driver is not called.
+     *
+     * @return
+     *         A cached Uniform instance, or null if not found or this
+     *         program has not been linked.
+     */
+    Uniform findUniform(String name)
+    {
+        int index = findUniformIndex(name);
+
+        return (index < 0) ? null : uniforms[index];
+    }
+
+
+    /**
+     * Check if a uniform which is not in the reflection cache should
+     * be looked up by glGetUniformLocation(). Only elements of arrays
+     * other than the first one (e.g. "lights[1]") are not cached.
+     */
+    private boolean needsLocationLookup(String name)
+    {
+        return (state != LINKED || uniformTable == null || name.indexOf('[') >= 0);
+    }
+
+
     /**
      * Check the linking status.
      *
@@ -527,6 +1143,14 @@ public class Program
     /**
      * Get a Uniform object.
      *
+     * <p>
+     * If this program has been linked, a cached instance built by
+     * {@link #link()} is returned without calling the driver or
+     * allocating memory. Otherwise, or if the name designates an
+     * array element other than the first one (e.g. "lights[1]"),
+     * a new instance is created by glGetUniformLocation().
+     * </p>
+     *
      * @param name
      *         A name of a uniform variable.
      *
@@ -541,6 +1165,24 @@ public class Program
      */
     public Uniform getUniform(String name) throws GLESException
     {
+        // Check the argument.
+        if (name == null)
+        {
+            throw new IllegalArgumentException("name is null.");
+        }
+
+        int index = findUniformIndex(name);
+
+        if (0 <= index)
+        {
+            return uniforms[index];
+        }
+
+        if (needsLocationLookup(name) == false)
+        {
+            throw new GLESException("No such a uniform variable having the name: " + name);
+        }
+
         return new Uniform(this, name);
     }
 
@@ -562,6 +1204,31 @@ public class Program
      */
     public Sampler getSampler(String name) throws GLESException
     {
+        // Check the argument.
+        if (name == null)
+        {
+            throw new IllegalArgumentException("name is null.");
+        }
+
+        int index = findUniformIndex(name);
+
+        if (0 <= index)
+        {
+            if (samplers[index] == null)
+            {
+                // Not declared as a sampler, but allowed as before.
+                Uniform uniform = uniforms[index];
+                samplers[index] = new Sampler(uniform.getLocation(), uniform.getType());
+            }
+
+            return samplers[index];
+        }
+
+        if (needsLocationLookup(name) == false)
+        {
+            throw new GLESException("No such a uniform variable having the name: " + name);
+        }
+
         return new Sampler(this, name);
     }
 
@@ -589,12 +1256,18 @@ public class Program
 
         // This program needs linking.
         state = NEEDS_LINKING;
+        linkFailed = false;
     }
 
 
     /**
      * Get an attribute.
      *
+     * <p>
+     * If this program has been linked, a cached instance built by
+     * {@link #link()} is returned without calling the driver.
+     * </p>
+     *
      * @param attributeName
      *         Name of an attribute variable in this program.
      *
@@ -623,6 +1296,13 @@ public class Program
             throw new IllegalStateException("Program has already been deleted.");
         }
 
+        if (state == LINKED && attributeTable != null)
+        {
+            int index = attributeTable.get(attributeName);
+
+            return (index < 0) ? null : attributes[index];
+        }
+
         int location = getGLES().glGetAttribLocation(id, attributeName);
 
         if (location == -1)
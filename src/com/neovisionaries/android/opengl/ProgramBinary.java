@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Binary of a linked program obtained by glGetProgramBinaryOES().
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see Program#getBinary()
+ * @see Program#setBinary(ProgramBinary)
+ * @see ProgramBinaryCache
+ */
+public class ProgramBinary
+{
+    private final int format;
+    private final ByteBuffer data;
+
+
+    /**
+     * A constructor.
+     *
+     * @param format
+     *         The implementation-specific binary format.
+     *
+     * @param data
+     *         The binary. The bytes between the position and the
+     *         limit are used.
+     *
+     * @throws IllegalArgumentException
+     *         The given data is null.
+     */
+    public ProgramBinary(int format, ByteBuffer data)
+    {
+        // Check the argument.
+        if (data == null)
+        {
+            throw new IllegalArgumentException("data is null.");
+        }
+
+        this.format = format;
+        this.data   = data;
+    }
+
+
+    /**
+     * Get the implementation-specific binary format.
+     *
+     * @return
+     *         The binary format.
+     */
+    public int getFormat()
+    {
+        return format;
+    }
+
+
+    /**
+     * Get the binary.
+     *
+     * @return
+     *         The binary.
+     */
+    public ByteBuffer getData()
+    {
+        return data;
+    }
+
+
+    /**
+     * Get the length of the binary in bytes.
+     *
+     * @return
+     *         The number of bytes between the position and the limit
+     *         of the data.
+     */
+    public int getLength()
+    {
+        return data.remaining();
+    }
+}
@@ -0,0 +1,519 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+
+/**
+ * On-disk cache of program binaries, which lets later launches skip
+ * compiling and linking shaders.
+ *
+ * <pre style="background: lightgray;">
+ * <span style="color: darkgreen;">// <b>E X A M P L E</b></span>
+ *
+ * <span style="color: darkgreen;">// Use a directory private to the application.</span>
+ * {@link ProgramBinaryCache} cache = new {@link #ProgramBinaryCache(File)
+ * ProgramBinaryCache}(new File(context.getCacheDir(), <span style="color: brown;">"programs"</span>));
+ *
+ * <span style="color: darkgreen;">// Load the binary if cached. Otherwise, compile and link</span>
+ * <span style="color: darkgreen;">// the sources and save the binary for the next launch.</span>
+ * {@link Program} program = cache.{@link #getProgram(String, String) getProgram}(vertexSource, fragmentSource);
+ * </pre>
+ *
+ * <p>
+ * The key of a cache entry is the hash of the shader sources,
+ * GL_RENDERER and GL_VERSION, so a driver update invalidates the
+ * entries. Binaries are read and written through memory-mapped files.
+ * If the driver rejects a binary, the entry is deleted and the program
+ * is compiled from the sources.
+ * </p>
+ *
+ * <p>
+ * If the context is older than OpenGL ES 3.0, {@link
+ * Extension#OES_get_program_binary} is not supported, or the
+ * {@link GLES} implementation does not support the entry points
+ * (see {@link com.neovisionaries.android.opengl.impl.GLESImpl20_18
+ * GLESImpl20_18}), programs are always compiled from the sources.
+ * All the methods must be called on the GL thread.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see Program#getBinary()
+ * @see Program#setBinary(ProgramBinary)
+ */
+public class ProgramBinaryCache
+{
+    /**
+     * "PGBN" at the beginning of cache files.
+     */
+    private static final int MAGIC = 0x5047424E;
+
+
+    /**
+     * Magic, binary format and binary length.
+     */
+    private static final int HEADER_SIZE = 12;
+
+
+    private static final String EXTENSION = ".bin";
+
+
+    private final File directory;
+    private Boolean supported;
+    private String driver;
+    private int hitCount;
+    private int missCount;
+    private int rejectedCount;
+
+
+    /**
+     * A constructor with a cache directory.
+     *
+     * @param directory
+     *         A directory to store program binaries. It is created
+     *         when the first binary is saved.
+     *
+     * @throws IllegalArgumentException
+     *         The given argument is null.
+     */
+    public ProgramBinaryCache(File directory)
+    {
+        // Check the argument.
+        if (directory == null)
+        {
+            throw new IllegalArgumentException("directory is null.");
+        }
+
+        this.directory = directory;
+    }
+
+
+    /**
+     * Get the cache directory.
+     *
+     * @return
+     *         The cache directory.
+     */
+    public File getDirectory()
+    {
+        return directory;
+    }
+
+
+    /**
+     * Check if program binaries can be used on the current context.
+     *
+     * @return
+     *         True if the context is OpenGL ES 3.0 or later, {@link
+     *         Extension#OES_get_program_binary} is supported with at
+     *         least one binary format and the {@link GLES}
+     *         implementation supports the entry points.
+     */
+    public boolean isSupported()
+    {
+        if (supported == null)
+        {
+            boolean found = false;
+
+            // The GLES implementation calls the core glGetProgramBinary()
+            // and glProgramBinary() of OpenGL ES 3.0, which must not be
+            // called on an OpenGL ES 2.0 context.
+            if (isES3OrLater() && Extension.OES_get_program_binary.isSupported())
+            {
+                GLES gles = GLESFactory.getInstance();
+                int[] count = new int[1];
+
+                gles.glGetIntegerv(gles.GL_NUM_PROGRAM_BINARY_FORMATS_OES(), count, 0);
+
+                found = (0 < count[0]);
+            }
+
+            supported = (found ? Boolean.TRUE : Boolean.FALSE);
+        }
+
+        return supported.booleanValue();
+    }
+
+
+    /**
+     * Check if GL_VERSION of the current context, which has the form
+     * "OpenGL ES N.M ...", indicates OpenGL ES 3.0 or later.
+     */
+    private static boolean isES3OrLater()
+    {
+        String prefix  = "OpenGL ES ";
+        String version = GLESState.getVersion();
+
+        if (version == null || version.startsWith(prefix) == false || version.length() <= prefix.length())
+        {
+            return false;
+        }
+
+        return (3 <= Character.digit(version.charAt(prefix.length()), 10));
+    }
+
+
+    /**
+     * Get a linked program. If a binary for the sources is cached
+     * and accepted by the driver, it is loaded. Otherwise, the sources
+     * are compiled and linked, and the binary is saved.
+     *
+     * @param vertexSource
+     *         The final source of a vertex shader.
+     *
+     * @param fragmentSource
+     *         The final source of a fragment shader.
+     *
+     * @return
+     *         A linked program. The caller is responsible for deleting it.
+     *
+     * @throws IllegalArgumentException
+     *         Either or both of the arguments are null.
+     *
+     * @throws GLESException
+     *         Creating, compiling or linking failed.
+     */
+    public Program getProgram(String vertexSource, String fragmentSource) throws GLESException
+    {
+        // Check the arguments.
+        if (vertexSource == null || fragmentSource == null)
+        {
+            throw new IllegalArgumentException("Shader source is null.");
+        }
+
+        File file = null;
+
+        if (isSupported())
+        {
+            file = getFile(vertexSource, fragmentSource);
+
+            Program program = load(file);
+
+            if (program != null)
+            {
+                ++hitCount;
+                return program;
+            }
+        }
+
+        ++missCount;
+
+        // The shaders are deleted together with the program.
+        Program program = new Program(
+            new VertexShader(vertexSource).setAutoDeleted(true),
+            new FragmentShader(fragmentSource).setAutoDeleted(true));
+
+        try
+        {
+            program.link();
+        }
+        catch (GLESException e)
+        {
+            program.delete();
+            throw e;
+        }
+
+        if (file != null && isSupported())
+        {
+            save(program, file);
+        }
+
+        return program;
+    }
+
+
+    /**
+     * Get a linked program for the sources processed by the
+     * preprocessor.
+     *
+     * @param preprocessor
+     *         A preprocessor applied to both sources.
+     *
+     * @param vertexSource
+     *         The source of a vertex shader before preprocessing.
+     *
+     * @param fragmentSource
+     *         The source of a fragment shader before preprocessing.
+     *
+     * @return
+     *         A linked program. The caller is responsible for deleting it.
+     *
+     * @throws IllegalArgumentException
+     *         Any of the arguments is null.
+     *
+     * @throws IOException
+     *         Failed to load an included file.
+     *
+     * @throws GLESException
+     *         Creating, compiling or linking failed.
+     */
+    public Program getProgram(ShaderPreprocessor preprocessor, String vertexSource, String fragmentSource) throws IOException, GLESException
+    {
+        // Check the argument.
+        if (preprocessor == null)
+        {
+            throw new IllegalArgumentException("preprocessor is null.");
+        }
+
+        return getProgram(preprocessor.process(vertexSource), preprocessor.process(fragmentSource));
+    }
+
+
+    /**
+     * Get the number of programs loaded from binaries.
+     *
+     * @return
+     *         The number of cache hits.
+     */
+    public int getHitCount()
+    {
+        return hitCount;
+    }
+
+
+    /**
+     * Get the number of programs compiled from sources.
+     *
+     * @return
+     *         The number of cache misses, including rejected binaries.
+     */
+    public int getMissCount()
+    {
+        return missCount;
+    }
+
+
+    /**
+     * Get the number of binaries rejected by the driver.
+     *
+     * @return
+     *         The number of rejected binaries.
+     */
+    public int getRejectedCount()
+    {
+        return rejectedCount;
+    }
+
+
+    /**
+     * Delete all the cached binaries.
+     */
+    public void clear()
+    {
+        File[] files = directory.listFiles();
+
+        if (files == null)
+        {
+            return;
+        }
+
+        for (File file : files)
+        {
+            if (file.getName().endsWith(EXTENSION))
+            {
+                file.delete();
+            }
+        }
+    }
+
+
+    /**
+     * Get the cache file for the sources on the current driver.
+     */
+    private File getFile(String vertexSource, String fragmentSource)
+    {
+        if (driver == null)
+        {
+            driver = GLESState.getRenderer() + "\0" + GLESState.getVersion();
+        }
+
+        long hash = ShaderPreprocessor.hash(vertexSource + "\0" + fragmentSource + "\0" + driver);
+
+        return new File(directory, String.format("%016x", hash) + EXTENSION);
+    }
+
+
+    /**
+     * Load a program from the cache file.
+     *
+     * @return
+     *         A linked program, or null if the file does not exist,
+     *         is broken or is rejected by the driver.
+     */
+    private Program load(File file) throws GLESException
+    {
+        if (file.isFile() == false)
+        {
+            return null;
+        }
+
+        RandomAccessFile raf = null;
+        Program program = null;
+
+        try
+        {
+            raf = new RandomAccessFile(file, "r");
+
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+
+            if (size < HEADER_SIZE || Integer.MAX_VALUE < size)
+            {
+                throw new IOException("Broken cache file.");
+            }
+
+            // The mapping stays valid after the channel is closed.
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            int magic  = buffer.getInt();
+            int format = buffer.getInt();
+            int length = buffer.getInt();
+
+            if (magic != MAGIC || length != size - HEADER_SIZE)
+            {
+                throw new IOException("Broken cache file.");
+            }
+
+            program = new Program();
+
+            if (program.setBinary(new ProgramBinary(format, buffer.slice())))
+            {
+                return program;
+            }
+
+            // Rejected by the driver, e.g. after a driver update.
+            ++rejectedCount;
+        }
+        catch (IOException e)
+        {
+            // Broken. Recompile.
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // The GLES implementation does not support glProgramBinary().
+            supported = Boolean.FALSE;
+        }
+        finally
+        {
+            close(raf);
+        }
+
+        if (program != null)
+        {
+            program.delete();
+        }
+
+        file.delete();
+
+        return null;
+    }
+
+
+    /**
+     * Save the binary of a linked program into the cache file.
+     * Failures are ignored because the cache is optional.
+     */
+    private void save(Program program, File file)
+    {
+        ProgramBinary binary;
+
+        try
+        {
+            binary = program.getBinary();
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // The GLES implementation does not support glGetProgramBinary().
+            supported = Boolean.FALSE;
+            return;
+        }
+
+        if (binary.getFormat() == 0 || binary.getLength() == 0)
+        {
+            // The driver did not return a usable binary.
+            return;
+        }
+
+        directory.mkdirs();
+
+        // Write into a temporary file first so that a crash does
+        // not leave a broken cache file.
+        File temp = new File(directory, file.getName() + ".tmp");
+        RandomAccessFile raf = null;
+        boolean written = false;
+
+        try
+        {
+            raf = new RandomAccessFile(temp, "rw");
+
+            MappedByteBuffer buffer = raf.getChannel().map(
+                FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + binary.getLength());
+
+            buffer.putInt(MAGIC);
+            buffer.putInt(binary.getFormat());
+            buffer.putInt(binary.getLength());
+            buffer.put(binary.getData().duplicate());
+            buffer.force();
+
+            written = true;
+        }
+        catch (IOException e)
+        {
+            // Ignore.
+        }
+        finally
+        {
+            close(raf);
+        }
+
+        if (written)
+        {
+            // renameTo() may fail if the destination exists.
+            file.delete();
+            written = temp.renameTo(file);
+        }
+
+        if (written == false)
+        {
+            temp.delete();
+        }
+    }
+
+
+    private static void close(RandomAccessFile raf)
+    {
+        if (raf == null)
+        {
+            return;
+        }
+
+        try
+        {
+            raf.close();
+        }
+        catch (IOException e)
+        {
+            // Ignore.
+        }
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.io.File;
+import java.io.IOException;
+
+
+/**
+ * Description of a program to be created by {@link ShaderWarmUp}:
+ * where to read the shader sources from and how to preprocess them.
+ * Sources are read on a background thread.
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see ShaderWarmUp#add(ProgramDescriptor)
+ */
+public class ProgramDescriptor
+{
+    private final String vertexSource;
+    private final String fragmentSource;
+    private final File vertexFile;
+    private final File fragmentFile;
+    private final ShaderSourceLoader loader;
+    private final String vertexName;
+    private final String fragmentName;
+    private ShaderPreprocessor preprocessor;
+    private Object tag;
+
+
+    /**
+     * Sources after loading and preprocessing, set on a background thread.
+     */
+    private volatile String loadedVertexSource;
+    private volatile String loadedFragmentSource;
+    private volatile Exception loadError;
+
+
+    /**
+     * The program created on the GL thread.
+     */
+    private Program program;
+
+
+    /**
+     * A constructor with shader sources.
+     *
+     * @param vertexSource
+     *         The source of a vertex shader.
+     *
+     * @param fragmentSource
+     *         The source of a fragment shader.
+     *
+     * @throws IllegalArgumentException
+     *         Either or both of the arguments are null.
+     */
+    public ProgramDescriptor(String vertexSource, String fragmentSource)
+    {
+        this(vertexSource, fragmentSource, null, null, null, null, null);
+
+        // Check the arguments.
+        if (vertexSource == null || fragmentSource == null)
+        {
+            throw new IllegalArgumentException("Shader source is null.");
+        }
+    }
+
+
+    /**
+     * A constructor with shader source files.
+     *
+     * @param vertexFile
+     *         A file whose content is the source of a vertex shader.
+     *
+     * @param fragmentFile
+     *         A file whose content is the source of a fragment shader.
+     *
+     * @throws IllegalArgumentException
+     *         Either or both of the arguments are null.
+     */
+    public ProgramDescriptor(File vertexFile, File fragmentFile)
+    {
+        this(null, null, vertexFile, fragmentFile, null, null, null);
+
+        // Check the arguments.
+        if (vertexFile == null || fragmentFile == null)
+        {
+            throw new IllegalArgumentException("Shader source file is null.");
+        }
+    }
+
+
+    /**
+     * A constructor with a loader and names of shader sources.
+     *
+     * @param loader
+     *         A loader of shader sources.
+     *
+     * @param vertexName
+     *         The name of the source of a vertex shader.
+     *
+     * @param fragmentName
+     *         The name of the source of a fragment shader.
+     *
+     * @throws IllegalArgumentException
+     *         Any of the arguments is null.
+     */
+    public ProgramDescriptor(ShaderSourceLoader loader, String vertexName, String fragmentName)
+    {
+        this(null, null, null, null, loader, vertexName, fragmentName);
+
+        // Check the arguments.
+        if (loader == null || vertexName == null || fragmentName == null)
+        {
+            throw new IllegalArgumentException("Loader or name is null.");
+        }
+    }
+
+
+    private ProgramDescriptor(
+        String vertexSource, String fragmentSource, File vertexFile, File fragmentFile,
+        ShaderSourceLoader loader, String vertexName, String fragmentName)
+    {
+        this.vertexSource   = vertexSource;
+        this.fragmentSource = fragmentSource;
+        this.vertexFile     = vertexFile;
+        this.fragmentFile   = fragmentFile;
+        this.loader         = loader;
+        this.vertexName     = vertexName;
+        this.fragmentName   = fragmentName;
+    }
+
+
+    /**
+     * Get the preprocessor applied to the shader sources.
+     *
+     * @return
+     *         The preprocessor. May be null.
+     */
+    public ShaderPreprocessor getPreprocessor()
+    {
+        return preprocessor;
+    }
+
+
+    /**
+     * Set a preprocessor applied to the shader sources. Note that
+     * the preprocessor is used on a background thread, so it must
+     * not be modified after {@link ShaderWarmUp#start()}.
+     *
+     * @param preprocessor
+     *         A preprocessor. May be null.
+     *
+     * @return
+     *         This ProgramDescriptor object.
+     */
+    public ProgramDescriptor setPreprocessor(ShaderPreprocessor preprocessor)
+    {
+        this.preprocessor = preprocessor;
+
+        return this;
+    }
+
+
+    /**
+     * Get the application-defined object associated with this descriptor.
+     *
+     * @return
+     *         The tag. May be null.
+     */
+    public Object getTag()
+    {
+        return tag;
+    }
+
+
+    /**
+     * Associate an application-defined object with this descriptor,
+     * e.g. a material which will use the program.
+     *
+     * @param tag
+     *         A tag. May be null.
+     *
+     * @return
+     *         This ProgramDescriptor object.
+     */
+    public ProgramDescriptor setTag(Object tag)
+    {
+        this.tag = tag;
+
+        return this;
+    }
+
+
+    /**
+     * Get the program created by {@link ShaderWarmUp}.
+     *
+     * @return
+     *         The program, or null if it has not been created yet
+     *         or creating it failed.
+     */
+    public Program getProgram()
+    {
+        return program;
+    }
+
+
+    void setProgram(Program program)
+    {
+        this.program = program;
+    }
+
+
+    /**
+     * Read and preprocess the shader sources. Called on a background thread.
+     */
+    void load()
+    {
+        try
+        {
+            String vs = read(vertexSource, vertexFile, vertexName);
+            String fs = read(fragmentSource, fragmentFile, fragmentName);
+
+            if (preprocessor != null)
+            {
+                vs = preprocessor.process(vs);
+                fs = preprocessor.process(fs);
+            }
+
+            loadedFragmentSource = fs;
+
+            // Written last because isLoaded() checks this.
+            loadedVertexSource = vs;
+        }
+        catch (Exception e)
+        {
+            loadError = e;
+        }
+    }
+
+
+    private String read(String source, File file, String name) throws IOException
+    {
+        if (source != null)
+        {
+            return source;
+        }
+
+        if (file != null)
+        {
+            return GLESHelper.toString(file);
+        }
+
+        String loaded = loader.load(name);
+
+        if (loaded == null)
+        {
+            throw new IOException("Failed to load '" + name + "'.");
+        }
+
+        return loaded;
+    }
+
+
+    boolean isLoaded()
+    {
+        return (loadedVertexSource != null || loadError != null);
+    }
+
+
+    String getLoadedVertexSource()
+    {
+        return loadedVertexSource;
+    }
+
+
+    String getLoadedFragmentSource()
+    {
+        return loadedFragmentSource;
+    }
+
+
+    Exception getLoadError()
+    {
+        return loadError;
+    }
+}
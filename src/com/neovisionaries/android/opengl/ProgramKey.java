@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+/**
+ * Key of a program in {@link ShaderCache}, which is the pair of the
+ * hashes of a vertex shader source and a fragment shader source.
+ *
+ * @author Takahiko Kawasaki
+ */
+final class ProgramKey
+{
+    private final long vertexHash;
+    private final long fragmentHash;
+
+
+    ProgramKey(long vertexHash, long fragmentHash)
+    {
+        this.vertexHash   = vertexHash;
+        this.fragmentHash = fragmentHash;
+    }
+
+
+    @Override
+    public boolean equals(Object object)
+    {
+        if (this == object)
+        {
+            return true;
+        }
+
+        if ((object instanceof ProgramKey) == false)
+        {
+            return false;
+        }
+
+        ProgramKey other = (ProgramKey)object;
+
+        return vertexHash == other.vertexHash && fragmentHash == other.fragmentHash;
+    }
+
+
+    @Override
+    public int hashCode()
+    {
+        long hash = vertexHash * 31 + fragmentHash;
+
+        return (int)(hash ^ (hash >>> 32));
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+/**
+ * Listener notified by {@link AsyncProgramLinker} when linking of
+ * a program submitted by {@link Program#linkAsync()} has finished.
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see AsyncProgramLinker#setListener(ProgramLinkListener)
+ */
+public interface ProgramLinkListener
+{
+    /**
+     * Called on the GL thread when a program has been linked.
+     *
+     * @param program
+     *         The linked program.
+     */
+    void onLinked(Program program);
+
+
+    /**
+     * Called on the GL thread when compiling or linking of
+     * a program failed.
+     *
+     * @param program
+     *         The program. Its state is {@link ProgramState#NEEDS_LINKING
+     *         NEEDS_LINKING}.
+     *
+     * @param exception
+     *         The exception which describes the error.
+     */
+    void onLinkFailed(Program program, GLESException exception);
+}
@@ -33,6 +33,16 @@ public enum ProgramState
     NEEDS_LINKING,
 
 
+    /**
+     * Linking has been submitted to the driver but its result has
+     * not been checked yet.
+     *
+     * @see Program#linkAsync()
+     * @see Program#poll()
+     */
+    LINKING,
+
+
     /**
      * The program has been linked successfully.
      *
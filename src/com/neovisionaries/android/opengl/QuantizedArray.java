@@ -0,0 +1,313 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.nio.Buffer;
+
+
+/**
+ * Vertex attribute data encoded by {@link VertexQuantizer}.
+ *
+ * <p>
+ * The original value of each component can be restored by
+ * <code>value * scale + bias</code> where <code>value</code> is the
+ * value the GL passes to the vertex shader (i.e. after normalization).
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see VertexQuantizer
+ */
+public class QuantizedArray
+{
+    /**
+     * The encoded data.
+     */
+    private final Buffer data;
+
+
+    /**
+     * The encoding.
+     */
+    private final AttrEncoding encoding;
+
+
+    /**
+     * The number of components per vertex.
+     */
+    private final AttrDataSize size;
+
+
+    /**
+     * The number of vertices.
+     */
+    private final int vertexCount;
+
+
+    /**
+     * Per-component scale for dequantization.
+     */
+    private final float[] scale;
+
+
+    /**
+     * Per-component bias for dequantization.
+     */
+    private final float[] bias;
+
+
+    QuantizedArray(Buffer data, AttrEncoding encoding, AttrDataSize size, int vertexCount, float[] scale, float[] bias)
+    {
+        this.data        = data;
+        this.encoding    = encoding;
+        this.size        = size;
+        this.vertexCount = vertexCount;
+        this.scale       = scale;
+        this.bias        = bias;
+    }
+
+
+    /**
+     * Get the encoded data. The returned buffer is a direct buffer
+     * in the native byte order.
+     *
+     * @return
+     *         The encoded data.
+     */
+    public Buffer getData()
+    {
+        return data;
+    }
+
+
+    /**
+     * Get the encoding.
+     *
+     * @return
+     *         The encoding.
+     */
+    public AttrEncoding getEncoding()
+    {
+        return encoding;
+    }
+
+
+    /**
+     * Get the number of components per vertex.
+     *
+     * @return
+     *         The number of components per vertex.
+     */
+    public AttrDataSize getSize()
+    {
+        return size;
+    }
+
+
+    /**
+     * Get the data type to pass to glVertexAttribPointer().
+     *
+     * @return
+     *         The data type.
+     */
+    public AttrDataType getType()
+    {
+        return encoding.getDataType();
+    }
+
+
+    /**
+     * Get the value of 'normalized' to pass to glVertexAttribPointer().
+     *
+     * @return
+     *         True if the data must be normalized by the GL.
+     */
+    public boolean isNormalized()
+    {
+        return encoding.isNormalized();
+    }
+
+
+    /**
+     * Get the number of vertices.
+     *
+     * @return
+     *         The number of vertices.
+     */
+    public int getVertexCount()
+    {
+        return vertexCount;
+    }
+
+
+    /**
+     * Get the size of the encoded data in bytes.
+     *
+     * @return
+     *         The size of the encoded data in bytes.
+     */
+    public int getSizeInBytes()
+    {
+        return data.capacity() * GLESHelper.getElementSizeInBytes(data);
+    }
+
+
+    /**
+     * Get the per-component scale for dequantization.
+     *
+     * @return
+     *         A copy of the scale. The length is equal to the
+     *         number of components per vertex.
+     */
+    public float[] getScale()
+    {
+        return scale.clone();
+    }
+
+
+    /**
+     * Get the per-component bias for dequantization.
+     *
+     * @return
+     *         A copy of the bias. The length is equal to the
+     *         number of components per vertex.
+     */
+    public float[] getBias()
+    {
+        return bias.clone();
+    }
+
+
+    /**
+     * Set the encoded data to the attribute as a client-side array.
+     *
+     * @param attribute
+     *         An attribute.
+     *
+     * @return
+     *         This object.
+     *
+     * @throws IllegalArgumentException
+     *         The given argument is null.
+     */
+    public QuantizedArray setArray(Attribute attribute)
+    {
+        if (attribute == null)
+        {
+            throw new IllegalArgumentException("attribute is null.");
+        }
+
+        attribute.setArray(data, size, getType(), isNormalized(), 0);
+
+        return this;
+    }
+
+
+    /**
+     * Upload the encoded data to the array buffer.
+     *
+     * @param buffer
+     *         An array buffer.
+     *
+     * @param usage
+     *         Usage of the data.
+     *
+     * @return
+     *         This object.
+     *
+     * @throws IllegalArgumentException
+     *         An argument is null.
+     */
+    public QuantizedArray upload(ArrayBuffer buffer, VertexBufferUsage usage)
+    {
+        if (buffer == null)
+        {
+            throw new IllegalArgumentException("buffer is null.");
+        }
+
+        buffer.setData(data, usage);
+
+        return this;
+    }
+
+
+    /**
+     * Set the array buffer, to which the encoded data has been
+     * uploaded by {@link #upload(ArrayBuffer, VertexBufferUsage)},
+     * to the attribute.
+     *
+     * @param attribute
+     *         An attribute.
+     *
+     * @param buffer
+     *         An array buffer holding the encoded data.
+     *
+     * @return
+     *         This object.
+     *
+     * @throws IllegalArgumentException
+     *         An argument is null.
+     */
+    public QuantizedArray setArray(Attribute attribute, ArrayBuffer buffer)
+    {
+        if (attribute == null)
+        {
+            throw new IllegalArgumentException("attribute is null.");
+        }
+
+        if (buffer == null)
+        {
+            throw new IllegalArgumentException("buffer is null.");
+        }
+
+        attribute.setArray(buffer, size, getType(), isNormalized(), 0, 0);
+
+        return this;
+    }
+
+
+    /**
+     * Set the dequantization parameters to the uniforms. The type
+     * of the uniforms must be float, vec2, vec3 or vec4 depending
+     * on the number of components per vertex.
+     *
+     * @param scaleUniform
+     *         A uniform to which the scale is set. If null is
+     *         given, the scale is not set.
+     *
+     * @param biasUniform
+     *         A uniform to which the bias is set. If null is
+     *         given, the bias is not set.
+     *
+     * @return
+     *         This object.
+     */
+    public QuantizedArray setScaleAndBias(Uniform scaleUniform, Uniform biasUniform)
+    {
+        if (scaleUniform != null)
+        {
+            scaleUniform.set(scale);
+        }
+
+        if (biasUniform != null)
+        {
+            biasUniform.set(bias);
+        }
+
+        return this;
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+/**
+ * Packer of rectangles into a fixed-size area, using the skyline
+ * bottom-left algorithm.
+ *
+ * <pre style="background: lightgray;">
+ * <span style="color: darkgreen;">// <b>E X A M P L E</b></span>
+ *
+ * {@link RectanglePacker} packer = new {@link #RectanglePacker(int, int) RectanglePacker}(1024, 1024);
+ * int[] position = new int[2];
+ *
+ * if (packer.{@link #insert(int, int, int[]) insert}(width, height, position))
+ * {
+ *     <span style="color: darkgreen;">// Placed at (position[0], position[1]).</span>
+ * }
+ * </pre>
+ *
+ * <p>
+ * The skyline is kept as a list of horizontal segments, so an
+ * insertion costs O(n) where n is the number of segments, which is
+ * usually much smaller than the number of rectangles. Rectangles
+ * are never rotated.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see TextureAtlas
+ */
+public class RectanglePacker
+{
+    private final int width;
+    private final int height;
+
+
+    /**
+     * Segments of the skyline, sorted by X.
+     */
+    private int[] xs = new int[16];
+    private int[] ys = new int[16];
+    private int[] ws = new int[16];
+    private int count;
+
+
+    private long usedArea;
+    private int rectangleCount;
+
+
+    /**
+     * A constructor.
+     *
+     * @param width
+     *         The width of the area.
+     *
+     * @param height
+     *         The height of the area.
+     *
+     * @throws IllegalArgumentException
+     *         The width or the height is less than 1.
+     */
+    public RectanglePacker(int width, int height)
+    {
+        if (width <= 0 || height <= 0)
+        {
+            throw new IllegalArgumentException("Bad size.");
+        }
+
+        this.width  = width;
+        this.height = height;
+
+        clear();
+    }
+
+
+    /**
+     * Get the width of the area.
+     *
+     * @return
+     *         The width.
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+
+    /**
+     * Get the height of the area.
+     *
+     * @return
+     *         The height.
+     */
+    public int getHeight()
+    {
+        return height;
+    }
+
+
+    /**
+     * Get the number of rectangles inserted.
+     *
+     * @return
+     *         The number of rectangles.
+     */
+    public int getRectangleCount()
+    {
+        return rectangleCount;
+    }
+
+
+    /**
+     * Get the total area of the rectangles inserted.
+     *
+     * @return
+     *         The used area.
+     */
+    public long getUsedArea()
+    {
+        return usedArea;
+    }
+
+
+    /**
+     * Get the ratio of the used area to the whole area.
+     *
+     * @return
+     *         The fill ratio, from 0.0 to 1.0.
+     */
+    public float getFillRatio()
+    {
+        return (float)((double)usedArea / ((long)width * height));
+    }
+
+
+    /**
+     * Remove all the rectangles.
+     */
+    public void clear()
+    {
+        xs[0] = 0;
+        ys[0] = 0;
+        ws[0] = width;
+        count = 1;
+
+        usedArea       = 0;
+        rectangleCount = 0;
+    }
+
+
+    /**
+     * Insert a rectangle.
+     *
+     * @param rectWidth
+     *         The width of the rectangle.
+     *
+     * @param rectHeight
+     *         The height of the rectangle.
+     *
+     * @param position
+     *         An array into which the position (x, y) of the placed
+     *         rectangle is written. Its length must be 2 or more.
+     *
+     * @return
+     *         True if the rectangle has been placed, false if there
+     *         is no room.
+     *
+     * @throws IllegalArgumentException
+     *         The width or the height is less than 1, or the position
+     *         array is null or too short.
+     */
+    public boolean insert(int rectWidth, int rectHeight, int[] position)
+    {
+        // Check the arguments.
+        if (rectWidth <= 0 || rectHeight <= 0)
+        {
+            throw new IllegalArgumentException("Bad size.");
+        }
+
+        if (position == null || position.length < 2)
+        {
+            throw new IllegalArgumentException("position is null or too short.");
+        }
+
+        int bestIndex  = -1;
+        int bestTop    = Integer.MAX_VALUE;
+        int bestWidth  = Integer.MAX_VALUE;
+        int bestY      = 0;
+
+        for (int i = 0; i < count; ++i)
+        {
+            int y = fit(i, rectWidth, rectHeight);
+
+            if (y < 0)
+            {
+                continue;
+            }
+
+            // Bottom-left: the lowest top edge, then the narrowest segment.
+            int top = y + rectHeight;
+
+            if (top < bestTop || (top == bestTop && ws[i] < bestWidth))
+            {
+                bestIndex = i;
+                bestTop   = top;
+                bestWidth = ws[i];
+                bestY     = y;
+            }
+        }
+
+        if (bestIndex < 0)
+        {
+            return false;
+        }
+
+        position[0] = xs[bestIndex];
+        position[1] = bestY;
+
+        addSegment(bestIndex, xs[bestIndex], bestTop, rectWidth);
+
+        usedArea += (long)rectWidth * rectHeight;
+        ++rectangleCount;
+
+        return true;
+    }
+
+
+    /**
+     * Get the Y position at which a rectangle can be placed at the
+     * left edge of the segment.
+     *
+     * @return
+     *         The Y position, or -1 if the rectangle does not fit.
+     */
+    private int fit(int index, int rectWidth, int rectHeight)
+    {
+        if (width < xs[index] + rectWidth)
+        {
+            return -1;
+        }
+
+        int remaining = rectWidth;
+        int y = 0;
+
+        for (int i = index; 0 < remaining; ++i)
+        {
+            y = Math.max(y, ys[i]);
+
+            if (height < y + rectHeight)
+            {
+                return -1;
+            }
+
+            remaining -= ws[i];
+        }
+
+        return y;
+    }
+
+
+    /**
+     * Insert a new segment at the index and shrink or remove the
+     * segments covered by it.
+     */
+    private void addSegment(int index, int x, int y, int segmentWidth)
+    {
+        ensureCapacity(count + 1);
+
+        System.arraycopy(xs, index, xs, index + 1, count - index);
+        System.arraycopy(ys, index, ys, index + 1, count - index);
+        System.arraycopy(ws, index, ws, index + 1, count - index);
+
+        xs[index] = x;
+        ys[index] = y;
+        ws[index] = segmentWidth;
+        ++count;
+
+        int right = x + segmentWidth;
+
+        // Shrink or remove the segments under the new one.
+        while (index + 1 < count && xs[index + 1] < right)
+        {
+            int next = index + 1;
+            int overlap = right - xs[next];
+
+            if (overlap < ws[next])
+            {
+                xs[next] += overlap;
+                ws[next] -= overlap;
+                break;
+            }
+
+            remove(next);
+        }
+
+        // Merge adjacent segments of the same height.
+        for (int i = Math.max(index - 1, 0); i + 1 < count && i <= index; )
+        {
+            if (ys[i] == ys[i + 1])
+            {
+                ws[i] += ws[i + 1];
+                remove(i + 1);
+                --index;
+            }
+            else
+            {
+                ++i;
+            }
+        }
+    }
+
+
+    private void remove(int index)
+    {
+        System.arraycopy(xs, index + 1, xs, index, count - index - 1);
+        System.arraycopy(ys, index + 1, ys, index, count - index - 1);
+        System.arraycopy(ws, index + 1, ws, index, count - index - 1);
+        --count;
+    }
+
+
+    private void ensureCapacity(int capacity)
+    {
+        if (capacity <= xs.length)
+        {
+            return;
+        }
+
+        int length = Math.max(capacity, xs.length * 2);
+
+        xs = copyOf(xs, length);
+        ys = copyOf(ys, length);
+        ws = copyOf(ws, length);
+    }
+
+
+    private static int[] copyOf(int[] array, int length)
+    {
+        int[] copy = new int[length];
+
+        System.arraycopy(array, 0, copy, 0, array.length);
+
+        return copy;
+    }
+}
@@ -39,9 +39,23 @@ public class RenderBuffer
     private RenderBufferState state = CREATED;
 
 
+    /**
+     * The estimated size of the storage allocated by glRenderbufferStorage().
+     */
+    private long allocatedBytes;
+
+
+    /**
+     * The phantom reference used by {@link LeakTracker}.
+     * Null if leak tracking was disabled on creation.
+     */
+    private TrackedObject tracked;
+
+
     /**
      * A constructor. A render buffer object is assigned internally by
-     * glGenRenderbuffers(). If this constructor returns without any
+     * glGenRenderbuffers() (in a batch via {@link NamePool}). If
+     * this constructor returns without any
      * exception, the state of this instance is {@link
      * RenderBufferState#CREATED}.
      *
@@ -52,23 +66,19 @@ public class RenderBuffer
      */
     public RenderBuffer() throws GLESException
     {
-        // Render buffer IDs assigned by glGenRenderbuffers().
-        int[] ids = new int[] { 0 };
-
-        // Create a render buffer object.
-        getGLES().glGenRenderbuffers(1, ids, 0);
-
-        // Check if a valid render buffer object has been created.
-        if (ids[0] <= 0)
-        {
-            // Failed to create a buffer object.
-            throw new GLESException("glGenRenderbuffers() failed.");
-        }
+        // Get a render buffer name generated by glGenRenderbuffers()
+        // in advance. NamePool.obtain() throws GLESException if
+        // glGenRenderbuffers() failed.
+        int name = NamePool.obtain(GLObjectType.RENDERBUFFER);
 
         // A render buffer object was created successfully.
 
         // ID of the render buffer object.
-        id = ids[0];
+        id = name;
+
+        ResourceRegistry.register(ResourceCategory.RENDER_BUFFER);
+
+        tracked = LeakTracker.track(this, GLObjectType.RENDERBUFFER, id, ResourceCategory.RENDER_BUFFER);
     }
 
 
@@ -141,6 +151,21 @@ public class RenderBuffer
     }
 
 
+    /**
+     * Get the estimated size of the storage of this render buffer.
+     *
+     * @return
+     *         The size in bytes, or 0 if the format has not been set
+     *         or this render buffer has been deleted.
+     *
+     * @see ResourceRegistry
+     */
+    public long getAllocatedBytes()
+    {
+        return allocatedBytes;
+    }
+
+
     /**
      * Bind this render buffer using glBindRenderbuffer().
      *
@@ -205,18 +230,63 @@ public class RenderBuffer
             return this;
         }
 
-        int[] ids = new int[] { id };
-
-        // Delete the render buffer object.
-        getGLES().glDeleteRenderbuffers(1, ids, 0);
+        // Delete the render buffer object, or release its storage
+        // and return the name to the pool if recycling is enabled.
+        NamePool.release(GLObjectType.RENDERBUFFER, id);
 
         // The buffer object was deleted.
         state = DELETED;
 
+        release();
+
         return this;
     }
 
 
+    /**
+     * Mark this render buffer as deleted and let {@link LeakTracker}
+     * delete the render buffer object on the GL thread at the next
+     * frame boundary. Unlike {@link #delete()}, this method can be
+     * called on any thread. After this method returns, the state of
+     * this instance is {@link RenderBufferState#DELETED}.
+     *
+     * @return
+     *         This RenderBuffer object.
+     *
+     * @see LeakTracker#deleteLater(GLObjectType, int)
+     */
+    public RenderBuffer deleteLater()
+    {
+        // Check the current state of this instance.
+        if (state == DELETED)
+        {
+            return this;
+        }
+
+        // The render buffer object will be deleted on the GL thread.
+        state = DELETED;
+
+        release();
+
+        LeakTracker.deleteLater(GLObjectType.RENDERBUFFER, id);
+
+        return this;
+    }
+
+
+    /**
+     * Release the storage from the accounting and stop tracking.
+     */
+    private void release()
+    {
+        allocatedBytes = ResourceRegistry.update(ResourceCategory.RENDER_BUFFER, allocatedBytes, 0);
+        ResourceRegistry.unregister(ResourceCategory.RENDER_BUFFER);
+
+        LeakTracker.untrack(tracked);
+        tracked = null;
+    }
+
+
     /**
      * Set format, width and height of this render buffer using
      * glRenderbufferStorage().
@@ -293,6 +363,16 @@ public class RenderBuffer
         // Set the format, width and height of the render buffer.
         getGLES().glRenderbufferStorage(getGLES().GL_RENDERBUFFER(), format.getFormat(), width, height);
 
+        // The old storage (if any) is replaced by the new one.
+        renderBuffer.allocatedBytes = ResourceRegistry.update(
+            ResourceCategory.RENDER_BUFFER, renderBuffer.allocatedBytes,
+            (long)width * height * format.getBytesPerPixel());
+
+        if (renderBuffer.tracked != null)
+        {
+            renderBuffer.tracked.allocatedBytes = renderBuffer.allocatedBytes;
+        }
+
         return renderBuffer;
     }
 
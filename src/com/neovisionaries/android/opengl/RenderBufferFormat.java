@@ -28,31 +28,31 @@ public enum RenderBufferFormat
     /**
      * GL_RGB565.
      */
-    RGB565(GLESFactory.getInstance().GL_RGB565()),
+    RGB565(GLESFactory.getInstance().GL_RGB565(), 2),
 
 
     /**
      * GL_RGBA4.
      */
-    RGBA4(GLESFactory.getInstance().GL_RGBA4()),
+    RGBA4(GLESFactory.getInstance().GL_RGBA4(), 2),
 
 
     /**
      * GL_RGB5_A1.
      */
-    RGB5_A1(GLESFactory.getInstance().GL_RGB5_A1()),
+    RGB5_A1(GLESFactory.getInstance().GL_RGB5_A1(), 2),
 
 
     /**
      * GL_DEPTH_COMPONENT16.
      */
-    DEPTH_COMPONENT16(GLESFactory.getInstance().GL_DEPTH_COMPONENT16()),
+    DEPTH_COMPONENT16(GLESFactory.getInstance().GL_DEPTH_COMPONENT16(), 2),
 
 
     /**
      * GL_STENCIL_INDEX8.
      */
-    STENCIL_INDEX8(GLESFactory.getInstance().GL_STENCIL_INDEX8())
+    STENCIL_INDEX8(GLESFactory.getInstance().GL_STENCIL_INDEX8(), 1)
     ;
 
 
@@ -62,15 +62,25 @@ public enum RenderBufferFormat
     private final int format;
 
 
+    /**
+     * The number of bytes per pixel.
+     */
+    private final int bytesPerPixel;
+
+
     /**
      * A constructor with a format.
      *
      * @param format
      *         An integer representing a format.
+     *
+     * @param bytesPerPixel
+     *         The number of bytes per pixel.
      */
-    private RenderBufferFormat(int format)
+    private RenderBufferFormat(int format, int bytesPerPixel)
     {
-        this.format = format;
+        this.format        = format;
+        this.bytesPerPixel = bytesPerPixel;
     }
 
 
@@ -84,4 +94,16 @@ public enum RenderBufferFormat
     {
         return format;
     }
+
+
+    /**
+     * Get the number of bytes per pixel.
+     *
+     * @return
+     *         The number of bytes per pixel.
+     */
+    public int getBytesPerPixel()
+    {
+        return bytesPerPixel;
+    }
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+/**
+ * Categories of GPU resources tracked by {@link ResourceRegistry}.
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see ResourceRegistry
+ */
+public enum ResourceCategory
+{
+    /**
+     * Array buffers ({@link ArrayBuffer}).
+     */
+    VERTEX_BUFFER,
+
+
+    /**
+     * Element array buffers ({@link ElementArrayBuffer}).
+     */
+    INDEX_BUFFER,
+
+
+    /**
+     * Textures ({@link Texture2D} and {@link TextureCubeMap}),
+     * including mipmap chains and cube faces.
+     */
+    TEXTURE,
+
+
+    /**
+     * Render buffers ({@link RenderBuffer}).
+     */
+    RENDER_BUFFER
+    ;
+
+
+    /**
+     * Get the category of the vertex buffer type.
+     *
+     * @param type
+     *         A vertex buffer type.
+     *
+     * @return
+     *         {@link #VERTEX_BUFFER} or {@link #INDEX_BUFFER}.
+     */
+    static ResourceCategory of(VertexBufferType type)
+    {
+        return (type == VertexBufferType.ELEMENT_ARRAY) ? INDEX_BUFFER : VERTEX_BUFFER;
+    }
+}
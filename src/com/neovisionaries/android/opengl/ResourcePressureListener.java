@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+/**
+ * Listener notified by {@link ResourceRegistry} when an allocation
+ * leaves a category (or the total) over its budget.
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see ResourceRegistry#addPressureListener(ResourcePressureListener)
+ */
+public interface ResourcePressureListener
+{
+    /**
+     * Called when an allocation leaves the category over its budget.
+     * This method is called on the thread which made the allocation,
+     * that is, usually the GL thread, so GL resources can be released
+     * here.
+     *
+     * @param category
+     *         The category over its budget, or null if the total of
+     *         all the categories is over {@link
+     *         ResourceRegistry#setTotalBudget(long) the total budget}.
+     *
+     * @param bytes
+     *         The current number of bytes of the category (or the total).
+     *
+     * @param budget
+     *         The budget of the category (or the total).
+     */
+    void onPressure(ResourceCategory category, long bytes, long budget);
+}
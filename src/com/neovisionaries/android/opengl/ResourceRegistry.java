@@ -0,0 +1,390 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+
+/**
+ * Registry of estimated GPU memory held by resources.
+ *
+ * <p>
+ * {@link VertexBuffer#setData(java.nio.Buffer, int, VertexBufferUsage)
+ * VertexBuffer.setData()}, {@link Texture2D#loadImage(android.graphics.Bitmap)
+ * Texture.loadImage()}, {@link Texture#generateMipmap()
+ * Texture.generateMipmap()} and {@link RenderBuffer#setFormat(RenderBufferFormat,
+ * int, int) RenderBuffer.setFormat()} report the sizes of the storage
+ * they allocate, and the delete() methods release them. The sizes
+ * are estimates computed from dimensions and formats; drivers may
+ * add padding and alignment.
+ * </p>
+ *
+ * <pre style="background: lightgray;">
+ * <span style="color: darkgreen;">// Limit textures to 64 MB and evict on pressure.</span>
+ * ResourceRegistry.{@link #setBudget(ResourceCategory, long) setBudget}({@link
+ * ResourceCategory#TEXTURE}, 64 * 1024 * 1024);
+ * ResourceRegistry.{@link #addPressureListener(ResourcePressureListener)
+ * addPressureListener}(listener);
+ *
+ * <span style="color: darkgreen;">// Once per frame.</span>
+ * summary.{@link ResourceSummary#update() update}();
+ * </pre>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see ResourceCategory
+ * @see ResourceSummary
+ */
+public final class ResourceRegistry
+{
+    private static final int CATEGORY_COUNT = ResourceCategory.values().length;
+
+
+    /**
+     * Lock to guard the counters below.
+     */
+    private static final Object lock = new Object();
+
+
+    private static final long[] bytes  = new long[CATEGORY_COUNT];
+    private static final long[] peaks  = new long[CATEGORY_COUNT];
+    private static final int[]  counts = new int[CATEGORY_COUNT];
+    private static final long[] budgets = new long[CATEGORY_COUNT];
+    private static long totalBytes;
+    private static long totalBudget;
+
+
+    private static final CopyOnWriteArrayList<ResourcePressureListener> listeners
+        = new CopyOnWriteArrayList<ResourcePressureListener>();
+
+
+    private ResourceRegistry()
+    {
+    }
+
+
+    /**
+     * Get the estimated number of bytes held by the category.
+     *
+     * @param category
+     *         A resource category.
+     *
+     * @return
+     *         The estimated number of bytes.
+     */
+    public static long getBytes(ResourceCategory category)
+    {
+        synchronized (lock)
+        {
+            return bytes[category.ordinal()];
+        }
+    }
+
+
+    /**
+     * Get the peak of the estimated number of bytes held by the
+     * category since the last call of {@link #resetPeaks()}.
+     *
+     * @param category
+     *         A resource category.
+     *
+     * @return
+     *         The peak number of bytes.
+     */
+    public static long getPeakBytes(ResourceCategory category)
+    {
+        synchronized (lock)
+        {
+            return peaks[category.ordinal()];
+        }
+    }
+
+
+    /**
+     * Get the estimated number of bytes held by all the categories.
+     *
+     * @return
+     *         The estimated number of bytes.
+     */
+    public static long getTotalBytes()
+    {
+        synchronized (lock)
+        {
+            return totalBytes;
+        }
+    }
+
+
+    /**
+     * Get the number of live (created but not deleted) resources
+     * of the category.
+     *
+     * @param category
+     *         A resource category.
+     *
+     * @return
+     *         The number of live resources.
+     */
+    public static int getCount(ResourceCategory category)
+    {
+        synchronized (lock)
+        {
+            return counts[category.ordinal()];
+        }
+    }
+
+
+    /**
+     * Get the budget of the category.
+     *
+     * @param category
+     *         A resource category.
+     *
+     * @return
+     *         The budget in bytes. 0 means unlimited.
+     */
+    public static long getBudget(ResourceCategory category)
+    {
+        synchronized (lock)
+        {
+            return budgets[category.ordinal()];
+        }
+    }
+
+
+    /**
+     * Set the budget of the category. When an allocation leaves
+     * the category over the budget, the registered {@link
+     * ResourcePressureListener}s are notified.
+     *
+     * @param category
+     *         A resource category.
+     *
+     * @param budget
+     *         The budget in bytes. 0 means unlimited.
+     *
+     * @throws IllegalArgumentException
+     *         The category is null or the budget is negative.
+     */
+    public static void setBudget(ResourceCategory category, long budget)
+    {
+        if (category == null)
+        {
+            throw new IllegalArgumentException("category is null.");
+        }
+
+        if (budget < 0)
+        {
+            throw new IllegalArgumentException("budget is negative.");
+        }
+
+        synchronized (lock)
+        {
+            budgets[category.ordinal()] = budget;
+        }
+    }
+
+
+    /**
+     * Get the budget of the total of all the categories.
+     *
+     * @return
+     *         The budget in bytes. 0 means unlimited.
+     */
+    public static long getTotalBudget()
+    {
+        synchronized (lock)
+        {
+            return totalBudget;
+        }
+    }
+
+
+    /**
+     * Set the budget of the total of all the categories.
+     *
+     * @param budget
+     *         The budget in bytes. 0 means unlimited.
+     *
+     * @throws IllegalArgumentException
+     *         The budget is negative.
+     */
+    public static void setTotalBudget(long budget)
+    {
+        if (budget < 0)
+        {
+            throw new IllegalArgumentException("budget is negative.");
+        }
+
+        synchronized (lock)
+        {
+            totalBudget = budget;
+        }
+    }
+
+
+    /**
+     * Add a listener notified when an allocation exceeds a budget.
+     *
+     * @param listener
+     *         A listener. If null is given, nothing is done.
+     */
+    public static void addPressureListener(ResourcePressureListener listener)
+    {
+        if (listener != null)
+        {
+            listeners.addIfAbsent(listener);
+        }
+    }
+
+
+    /**
+     * Remove a listener.
+     *
+     * @param listener
+     *         A listener to remove.
+     */
+    public static void removePressureListener(ResourcePressureListener listener)
+    {
+        listeners.remove(listener);
+    }
+
+
+    /**
+     * Reset the peaks to the current values.
+     */
+    public static void resetPeaks()
+    {
+        synchronized (lock)
+        {
+            System.arraycopy(bytes, 0, peaks, 0, CATEGORY_COUNT);
+        }
+    }
+
+
+    /**
+     * Copy the current values into the arrays. This method does
+     * not allocate any object.
+     */
+    static long snapshot(long[] bytesOut, int[] countsOut)
+    {
+        synchronized (lock)
+        {
+            System.arraycopy(bytes,  0, bytesOut,  0, CATEGORY_COUNT);
+            System.arraycopy(counts, 0, countsOut, 0, CATEGORY_COUNT);
+
+            return totalBytes;
+        }
+    }
+
+
+    /**
+     * Record the creation of a resource.
+     */
+    static void register(ResourceCategory category)
+    {
+        synchronized (lock)
+        {
+            ++counts[category.ordinal()];
+        }
+    }
+
+
+    /**
+     * Record the deletion of a resource. The storage of the resource
+     * must have been released by {@link #update(ResourceCategory,
+     * long, long) update}(category, bytes, 0) beforehand.
+     */
+    static void unregister(ResourceCategory category)
+    {
+        synchronized (lock)
+        {
+            --counts[category.ordinal()];
+        }
+    }
+
+
+    /**
+     * Record the change of the storage size of a resource.
+     *
+     * @param category
+     *         The category of the resource.
+     *
+     * @param oldBytes
+     *         The size of the storage which the resource held.
+     *
+     * @param newBytes
+     *         The size of the storage which the resource holds now.
+     *
+     * @return
+     *         newBytes.
+     */
+    static long update(ResourceCategory category, long oldBytes, long newBytes)
+    {
+        long delta = newBytes - oldBytes;
+
+        if (delta == 0)
+        {
+            return newBytes;
+        }
+
+        int index = category.ordinal();
+        long categoryBytes, categoryBudget, total, budget;
+
+        synchronized (lock)
+        {
+            bytes[index] += delta;
+            totalBytes   += delta;
+
+            if (peaks[index] < bytes[index])
+            {
+                peaks[index] = bytes[index];
+            }
+
+            categoryBytes  = bytes[index];
+            categoryBudget = budgets[index];
+            total          = totalBytes;
+            budget         = totalBudget;
+        }
+
+        // Notify the listeners outside the lock so that they
+        // can release resources.
+        if (delta > 0 && listeners.isEmpty() == false)
+        {
+            if (0 < categoryBudget && categoryBudget < categoryBytes)
+            {
+                firePressure(category, categoryBytes, categoryBudget);
+            }
+
+            if (0 < budget && budget < total)
+            {
+                firePressure(null, total, budget);
+            }
+        }
+
+        return newBytes;
+    }
+
+
+    private static void firePressure(ResourceCategory category, long bytes, long budget)
+    {
+        for (ResourcePressureListener listener : listeners)
+        {
+            listener.onPressure(category, bytes, budget);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+/**
+ * A reusable snapshot of {@link ResourceRegistry}.
+ *
+ * <p>
+ * {@link #update()} copies the current values of the registry into
+ * this object without allocating any object, so it can be called
+ * every frame. The differences from the previous snapshot are kept
+ * so that growth (e.g. a leak or a regression) can be spotted.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see ResourceRegistry
+ */
+public class ResourceSummary
+{
+    private static final int CATEGORY_COUNT = ResourceCategory.values().length;
+
+
+    private final long[] bytes         = new long[CATEGORY_COUNT];
+    private final long[] previousBytes = new long[CATEGORY_COUNT];
+    private final int[]  counts        = new int[CATEGORY_COUNT];
+    private long totalBytes;
+    private long previousTotalBytes;
+
+
+    /**
+     * Copy the current values of {@link ResourceRegistry} into
+     * this object.
+     *
+     * @return
+     *         This object.
+     */
+    public ResourceSummary update()
+    {
+        System.arraycopy(bytes, 0, previousBytes, 0, CATEGORY_COUNT);
+        previousTotalBytes = totalBytes;
+
+        totalBytes = ResourceRegistry.snapshot(bytes, counts);
+
+        return this;
+    }
+
+
+    /**
+     * Get the estimated number of bytes of the category.
+     *
+     * @param category
+     *         A resource category.
+     *
+     * @return
+     *         The estimated number of bytes at the last update.
+     */
+    public long getBytes(ResourceCategory category)
+    {
+        return bytes[category.ordinal()];
+    }
+
+
+    /**
+     * Get the difference of the estimated number of bytes of the
+     * category between the last two updates.
+     *
+     * @param category
+     *         A resource category.
+     *
+     * @return
+     *         The difference in bytes.
+     */
+    public long getDelta(ResourceCategory category)
+    {
+        int index = category.ordinal();
+
+        return bytes[index] - previousBytes[index];
+    }
+
+
+    /**
+     * Get the number of live resources of the category.
+     *
+     * @param category
+     *         A resource category.
+     *
+     * @return
+     *         The number of live resources at the last update.
+     */
+    public int getCount(ResourceCategory category)
+    {
+        return counts[category.ordinal()];
+    }
+
+
+    /**
+     * Get the estimated number of bytes of all the categories.
+     *
+     * @return
+     *         The estimated number of bytes at the last update.
+     */
+    public long getTotalBytes()
+    {
+        return totalBytes;
+    }
+
+
+    /**
+     * Get the difference of the total between the last two updates.
+     *
+     * @return
+     *         The difference in bytes.
+     */
+    public long getTotalDelta()
+    {
+        return totalBytes - previousTotalBytes;
+    }
+
+
+    /**
+     * Get a string representation of this summary, for example,
+     * <code>"total=1234KB(+16KB) VERTEX_BUFFER=512KB/12 ..."</code>.
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder();
+
+        builder.append("total=").append(totalBytes / 1024).append("KB(")
+               .append(getTotalDelta() < 0 ? "" : "+").append(getTotalDelta() / 1024).append("KB)");
+
+        for (ResourceCategory category : ResourceCategory.values())
+        {
+            builder.append(' ').append(category).append('=')
+                   .append(getBytes(category) / 1024).append("KB/").append(getCount(category));
+        }
+
+        return builder.toString();
+    }
+}
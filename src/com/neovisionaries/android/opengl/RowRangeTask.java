@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+/**
+ * Task which processes a range of rows, run by {@link ParallelRows}.
+ *
+ * @author Takahiko Kawasaki
+ */
+interface RowRangeTask
+{
+    /**
+     * Process rows [first, last). Called concurrently for disjoint
+     * ranges, so implementations must not share mutable state other
+     * than disjoint parts of buffers accessed by absolute get/put.
+     *
+     * @param first
+     *         The first row.
+     *
+     * @param last
+     *         The row after the last row.
+     */
+    void run(int first, int last);
+}
@@ -45,9 +45,21 @@ public class Sampler
     private final int location;
 
 
+    /**
+     * GLSL type of this uniform sampler variable. Null if unknown.
+     */
+    private final UniformType type;
+
+
     /**
      * A constructor.
      *
+     * <p>
+     * {@link Program#getSampler(String)} should be used instead
+     * because it returns a cached instance without calling
+     * glGetUniformLocation() once the program has been linked.
+     * </p>
+     *
      * @param program
      * @param name
      *
@@ -76,6 +88,22 @@ public class Sampler
             // No uniform having the name.
             throw new GLESException("No such a uniform variable having the name: " + name);
         }
+
+        // Copy the type reported by glGetActiveUniform(), if any.
+        Uniform reflected = program.findUniform(name);
+
+        type = (reflected != null) ? reflected.getType() : null;
+    }
+
+
+    /**
+     * A constructor used by {@link Program} to build its cache
+     * from the results of glGetActiveUniform().
+     */
+    Sampler(int location, UniformType type)
+    {
+        this.location = location;
+        this.type     = type;
     }
 
 
@@ -92,6 +120,21 @@ public class Sampler
     }
 
 
+    /**
+     * Get the GLSL type of this uniform sampler variable.
+     *
+     * @return
+     *         {@link UniformType#SAMPLER_2D SAMPLER_2D}, {@link
+     *         UniformType#SAMPLER_CUBE SAMPLER_CUBE}, or null if
+     *         this instance was created for a program that had not
+     *         been linked.
+     */
+    public UniformType getType()
+    {
+        return type;
+    }
+
+
     /**
      * Set a texture to this uniform sampler variable.
      *
@@ -101,6 +144,12 @@ public class Sampler
      * getUnit()}).
      * </p>
      *
+     * <p>
+     * If {@link TextureUnitManager} is enabled, the texture is bound
+     * by {@link Texture#bind()} first (no GL call if it is still
+     * bound), and the unit assigned by the manager is set.
+     * </p>
+     *
      * @param texture
      *         A texture to set to this uniform sampler variable.
      *
@@ -110,6 +159,10 @@ public class Sampler
      * @throws IllegalArgumentException
      *         The argumenet is null.
      *
+     * @throws IllegalStateException
+     *         {@link TextureUnitManager} is enabled and the texture
+     *         has already been deleted.
+     *
      * @see <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glUniform.xml">glUniform1i</a>
      */
     public Sampler set(Texture<?> texture)
@@ -119,6 +172,12 @@ public class Sampler
             throw new IllegalArgumentException();
         }
 
+        if (TextureUnitManager.isEnabled())
+        {
+            // Make the texture resident in a unit.
+            texture.bind();
+        }
+
         // Set the number of the texture unit to the
         // uniform sampler variable.
         GLESFactory.getInstance().glUniform1i(location, texture.getUnit());
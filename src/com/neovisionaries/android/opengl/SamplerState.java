@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+/**
+ * Immutable set of texture parameters (min filter, mag filter and
+ * wrap modes) which can be applied to a texture in one call.
+ *
+ * <pre style="background: lightgray;">
+ * <span style="color: darkgreen;">// <b>E X A M P L E</b></span>
+ *
+ * <span style="color: darkgreen;">// Create once, e.g. per material.</span>
+ * {@link SamplerState} state = new {@link #SamplerState(MinFilter, MagFilter, WrapMode, WrapMode)
+ * SamplerState}({@link MinFilter#LINEAR_MIPMAP_LINEAR}, {@link MagFilter#LINEAR},
+ *         {@link WrapMode#CLAMP_TO_EDGE}, {@link WrapMode#CLAMP_TO_EDGE});
+ *
+ * <span style="color: darkgreen;">// Apply every frame. Usually no GL call is made.</span>
+ * texture.{@link Texture#setSamplerState(SamplerState) setSamplerState}(state);
+ * </pre>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see Texture#setSamplerState(SamplerState)
+ */
+public final class SamplerState
+{
+    /**
+     * The initial texture parameters defined by OpenGL ES:
+     * GL_NEAREST_MIPMAP_LINEAR, GL_LINEAR, GL_REPEAT and GL_REPEAT.
+     */
+    public static final SamplerState DEFAULT = new SamplerState(
+        MinFilter.NEAREST_MIPMAP_LINEAR, MagFilter.LINEAR, WrapMode.REPEAT, WrapMode.REPEAT);
+
+
+    private final MinFilter minFilter;
+    private final MagFilter magFilter;
+    private final WrapMode wrapS;
+    private final WrapMode wrapT;
+
+
+    /**
+     * A constructor.
+     *
+     * @param minFilter
+     *         A min filter.
+     *
+     * @param magFilter
+     *         A mag filter.
+     *
+     * @param wrapS
+     *         A wrap mode for S coordinates.
+     *
+     * @param wrapT
+     *         A wrap mode for T coordinates.
+     *
+     * @throws IllegalArgumentException
+     *         Any of the arguments is null.
+     */
+    public SamplerState(MinFilter minFilter, MagFilter magFilter, WrapMode wrapS, WrapMode wrapT)
+    {
+        // Check the arguments.
+        if (minFilter == null || magFilter == null || wrapS == null || wrapT == null)
+        {
+            throw new IllegalArgumentException();
+        }
+
+        this.minFilter = minFilter;
+        this.magFilter = magFilter;
+        this.wrapS     = wrapS;
+        this.wrapT     = wrapT;
+    }
+
+
+    /**
+     * Get the min filter.
+     *
+     * @return
+     *         The min filter.
+     */
+    public MinFilter getMinFilter()
+    {
+        return minFilter;
+    }
+
+
+    /**
+     * Get the mag filter.
+     *
+     * @return
+     *         The mag filter.
+     */
+    public MagFilter getMagFilter()
+    {
+        return magFilter;
+    }
+
+
+    /**
+     * Get the wrap mode for S coordinates.
+     *
+     * @return
+     *         The wrap mode.
+     */
+    public WrapMode getWrapS()
+    {
+        return wrapS;
+    }
+
+
+    /**
+     * Get the wrap mode for T coordinates.
+     *
+     * @return
+     *         The wrap mode.
+     */
+    public WrapMode getWrapT()
+    {
+        return wrapT;
+    }
+
+
+    /**
+     * Get a sampler state which is the same as this one except the
+     * min filter.
+     *
+     * @param filter
+     *         A min filter.
+     *
+     * @return
+     *         A sampler state.
+     */
+    public SamplerState withMinFilter(MinFilter filter)
+    {
+        return new SamplerState(filter, magFilter, wrapS, wrapT);
+    }
+
+
+    /**
+     * Get a sampler state which is the same as this one except the
+     * mag filter.
+     *
+     * @param filter
+     *         A mag filter.
+     *
+     * @return
+     *         A sampler state.
+     */
+    public SamplerState withMagFilter(MagFilter filter)
+    {
+        return new SamplerState(minFilter, filter, wrapS, wrapT);
+    }
+
+
+    /**
+     * Get a sampler state which is the same as this one except the
+     * wrap modes.
+     *
+     * @param s
+     *         A wrap mode for S coordinates.
+     *
+     * @param t
+     *         A wrap mode for T coordinates.
+     *
+     * @return
+     *         A sampler state.
+     */
+    public SamplerState withWrap(WrapMode s, WrapMode t)
+    {
+        return new SamplerState(minFilter, magFilter, s, t);
+    }
+
+
+    @Override
+    public boolean equals(Object object)
+    {
+        if (this == object)
+        {
+            return true;
+        }
+
+        if ((object instanceof SamplerState) == false)
+        {
+            return false;
+        }
+
+        SamplerState other = (SamplerState)object;
+
+        return minFilter == other.minFilter && magFilter == other.magFilter &&
+               wrapS == other.wrapS && wrapT == other.wrapT;
+    }
+
+
+    @Override
+    public int hashCode()
+    {
+        return ((minFilter.ordinal() * 31 + magFilter.ordinal()) * 31 + wrapS.ordinal()) * 31 + wrapT.ordinal();
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "SamplerState(" + minFilter + ", " + magFilter + ", " + wrapS + ", " + wrapT + ")";
+    }
+}
@@ -22,6 +22,7 @@ import java.io.InputStream;
 import java.util.LinkedList;
 import java.util.List;
 import static com.neovisionaries.android.opengl.ShaderState.COMPILED;
+import static com.neovisionaries.android.opengl.ShaderState.COMPILING;
 import static com.neovisionaries.android.opengl.ShaderState.CREATED;
 import static com.neovisionaries.android.opengl.ShaderState.DELETED;
 import static com.neovisionaries.android.opengl.ShaderState.SOURCE_SET;
@@ -70,6 +71,13 @@ public abstract class Shader<TShader extends Shader<TShader>>
     private ShaderState state = CREATED;
 
 
+    /**
+     * The phantom reference used by {@link LeakTracker}.
+     * Null if leak tracking was disabled on creation.
+     */
+    private TrackedObject tracked;
+
+
     /**
      * Auto deletion when detached.
      */
@@ -117,6 +125,8 @@ public abstract class Shader<TShader extends Shader<TShader>>
             // Failed to create a shader.
             throw new GLESException("glCreateShader() failed.");
         }
+
+        tracked = LeakTracker.track(this, GLObjectType.SHADER, id, null);
     }
 
 
@@ -309,6 +319,10 @@ public abstract class Shader<TShader extends Shader<TShader>>
         // This shader was deleted.
         state = DELETED;
 
+        // Stop tracking leaks.
+        LeakTracker.untrack(tracked);
+        tracked = null;
+
         // For each program that this shader is attached to.
         for (Program program : programList)
         {
@@ -438,9 +452,12 @@ public abstract class Shader<TShader extends Shader<TShader>>
     /**
      * Compile the source code given by {@link #setSource(String)}.
      * If the current state of this shader is {@link
-     * ShaderState#COMPILED COMPILED}, nothing is executed.
-     * If this method returns without any exception, the state of
-     * this instance is {@link ShaderState#COMPILED}.
+     * ShaderState#COMPILED COMPILED}, nothing is executed. If the
+     * current state is {@link ShaderState#COMPILING COMPILING},
+     * this method waits for the compilation submitted by {@link
+     * #compileAsync()} and checks its result. If this method returns
+     * without any exception, the state of this instance is {@link
+     * ShaderState#COMPILED}.
      *
      * @return
      *         This Shader object.
@@ -472,12 +489,18 @@ public abstract class Shader<TShader extends Shader<TShader>>
                 throw new IllegalStateException("Shader has already been deleted.");
         }
 
-        // Compile the source code.
-        getGLES().glCompileShader(id);
+        if (state != COMPILING)
+        {
+            // Compile the source code.
+            getGLES().glCompileShader(id);
+        }
 
         // Check if the source code has been compiled successfully.
         if (getCompileStatus() == false)
         {
+            // The source needs to be fixed by setSource().
+            state = SOURCE_SET;
+
             // Failed to compile the shader source.
             throw new GLESException("glCompileShader() failed: " + getLog());
         }
@@ -489,6 +512,93 @@ public abstract class Shader<TShader extends Shader<TShader>>
     }
 
 
+    /**
+     * Submit the source code to the compiler without waiting for
+     * the result. If the current state of this shader is {@link
+     * ShaderState#COMPILED COMPILED} or {@link ShaderState#COMPILING
+     * COMPILING}, nothing is executed. Otherwise, the state of this
+     * instance becomes {@link ShaderState#COMPILING COMPILING} and
+     * the result is checked later by {@link #compile()}.
+     *
+     * <p>
+     * Querying GL_COMPILE_STATUS right after glCompileShader() forces
+     * the driver to finish compiling synchronously. Submitting many
+     * shaders first and checking their results later lets drivers
+     * compile them in parallel.
+     * </p>
+     *
+     * @return
+     *         This Shader object.
+     *
+     * @throws IllegalStateException
+     *         No shader source is set, or this shader has already
+     *         been deleted.
+     *
+     * @see #isCompileFinished()
+     * @see <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glCompileShader.xml">glCompileShader</a>
+     */
+    @SuppressWarnings("unchecked")
+    public TShader compileAsync()
+    {
+        switch (state)
+        {
+            case CREATED:
+                // Shader source is not set.
+                throw new IllegalStateException("Shader source is not set.");
+
+            case COMPILING:
+            case COMPILED:
+                // Already submitted or compiled.
+                return (TShader)this;
+
+            case DELETED:
+                // Already deleted.
+                throw new IllegalStateException("Shader has already been deleted.");
+        }
+
+        // Compile the source code.
+        getGLES().glCompileShader(id);
+
+        // The result will be checked later.
+        state = COMPILING;
+
+        return (TShader)this;
+    }
+
+
+    /**
+     * Check if the compilation submitted by {@link #compileAsync()}
+     * has finished, that is, if {@link #compile()} can be called
+     * without blocking.
+     *
+     * <p>
+     * If {@link Extension#KHR_parallel_shader_compile} is supported,
+     * GL_COMPLETION_STATUS_KHR is queried. Otherwise, true is always
+     * returned because there is no way to know it.
+     * </p>
+     *
+     * @return
+     *         True if the compilation has finished or the state of
+     *         this shader is not {@link ShaderState#COMPILING
+     *         COMPILING}.
+     */
+    public boolean isCompileFinished()
+    {
+        if (state != COMPILING || Extension.KHR_parallel_shader_compile.isSupported() == false)
+        {
+            return true;
+        }
+
+        GLES gles = getGLES();
+
+        int[] status = new int[1];
+
+        gles.glGetShaderiv(id, gles.GL_COMPLETION_STATUS_KHR(), status, 0);
+
+        return (status[0] == gles.GL_TRUE());
+    }
+
+
     /**
      * Check the compilation status.
      *
@@ -0,0 +1,325 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Cache of compiled shaders and linked programs keyed by the hashes
+ * of their final sources, so that identical shader variants are
+ * compiled and linked only once per GL context no matter how many
+ * materials request them.
+ *
+ * <pre style="background: lightgray;">
+ * <span style="color: darkgreen;">// <b>E X A M P L E</b></span>
+ *
+ * <span style="color: darkgreen;">// Create a cache once.</span>
+ * {@link ShaderCache} cache = new {@link ShaderCache}();
+ *
+ * <span style="color: darkgreen;">// Get a program for a material. If another material has</span>
+ * <span style="color: darkgreen;">// requested the same variant, the same program is returned.</span>
+ * {@link ShaderPreprocessor} preprocessor = new {@link ShaderPreprocessor#ShaderPreprocessor(ShaderSourceLoader)
+ * ShaderPreprocessor}(loader).{@link ShaderPreprocessor#define(String) define}(<span style="color: brown;">"USE_FOG"</span>);
+ * {@link Program} program = cache.{@link #getProgram(ShaderPreprocessor, String, String)
+ * getProgram}(preprocessor, vertexSource, fragmentSource);
+ *
+ * <span style="color: darkgreen;">// In onSurfaceCreated(), forget the objects of the lost context.</span>
+ * cache.{@link #invalidate() invalidate}();
+ * </pre>
+ *
+ * <p>
+ * Shaders and programs returned from this cache are shared, so they
+ * must not be deleted by callers. Use {@link #clear()} to delete all
+ * of them. All the methods must be called on the GL thread.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see ShaderPreprocessor
+ */
+public class ShaderCache
+{
+    /**
+     * Compiled vertex shaders keyed by the hashes of their sources.
+     */
+    private final Map<Long, VertexShader> vertexShaders = new HashMap<Long, VertexShader>();
+
+
+    /**
+     * Compiled fragment shaders keyed by the hashes of their sources.
+     */
+    private final Map<Long, FragmentShader> fragmentShaders = new HashMap<Long, FragmentShader>();
+
+
+    /**
+     * Linked programs keyed by the pairs of the hashes of their sources.
+     */
+    private final Map<ProgramKey, Program> programs = new HashMap<ProgramKey, Program>();
+
+
+    /**
+     * Get a compiled vertex shader. If no vertex shader having the
+     * same source is cached, a new one is created and compiled.
+     *
+     * @param source
+     *         The final source of a vertex shader.
+     *
+     * @return
+     *         A compiled vertex shader.
+     *
+     * @throws IllegalArgumentException
+     *         The given source is null.
+     *
+     * @throws GLESException
+     *         glCreateShader() or glCompileShader() failed.
+     */
+    public VertexShader getVertexShader(String source) throws GLESException
+    {
+        return getVertexShader(source, ShaderPreprocessor.hash(source));
+    }
+
+
+    private VertexShader getVertexShader(String source, long hash) throws GLESException
+    {
+        Long key = Long.valueOf(hash);
+        VertexShader shader = vertexShaders.get(key);
+
+        if (shader == null || shader.getState() == ShaderState.DELETED)
+        {
+            shader = compile(new VertexShader(source));
+            vertexShaders.put(key, shader);
+        }
+
+        return shader;
+    }
+
+
+    /**
+     * Get a compiled fragment shader. If no fragment shader having
+     * the same source is cached, a new one is created and compiled.
+     *
+     * @param source
+     *         The final source of a fragment shader.
+     *
+     * @return
+     *         A compiled fragment shader.
+     *
+     * @throws IllegalArgumentException
+     *         The given source is null.
+     *
+     * @throws GLESException
+     *         glCreateShader() or glCompileShader() failed.
+     */
+    public FragmentShader getFragmentShader(String source) throws GLESException
+    {
+        return getFragmentShader(source, ShaderPreprocessor.hash(source));
+    }
+
+
+    private FragmentShader getFragmentShader(String source, long hash) throws GLESException
+    {
+        Long key = Long.valueOf(hash);
+        FragmentShader shader = fragmentShaders.get(key);
+
+        if (shader == null || shader.getState() == ShaderState.DELETED)
+        {
+            shader = compile(new FragmentShader(source));
+            fragmentShaders.put(key, shader);
+        }
+
+        return shader;
+    }
+
+
+    /**
+     * Compile a new shader. The shader is deleted if compilation fails.
+     */
+    private static <TShader extends Shader<TShader>> TShader compile(TShader shader) throws GLESException
+    {
+        try
+        {
+            return shader.compile();
+        }
+        catch (GLESException e)
+        {
+            shader.delete();
+            throw e;
+        }
+    }
+
+
+    /**
+     * Get a linked program. If no program having the same pair of
+     * sources is cached, a new one is created with the cached shaders
+     * and linked.
+     *
+     * @param vertexSource
+     *         The final source of a vertex shader.
+     *
+     * @param fragmentSource
+     *         The final source of a fragment shader.
+     *
+     * @return
+     *         A linked program.
+     *
+     * @throws IllegalArgumentException
+     *         Either or both of the arguments are null.
+     *
+     * @throws GLESException
+     *         Compiling or linking failed.
+     */
+    public Program getProgram(String vertexSource, String fragmentSource) throws GLESException
+    {
+        long vertexHash   = ShaderPreprocessor.hash(vertexSource);
+        long fragmentHash = ShaderPreprocessor.hash(fragmentSource);
+        ProgramKey key    = new ProgramKey(vertexHash, fragmentHash);
+
+        Program program = programs.get(key);
+
+        if (program != null && program.getState() == ProgramState.LINKED)
+        {
+            return program;
+        }
+
+        if (program != null)
+        {
+            // Deleted or detached by someone.
+            program.delete();
+        }
+
+        program = new Program(
+            getVertexShader(vertexSource, vertexHash),
+            getFragmentShader(fragmentSource, fragmentHash));
+
+        try
+        {
+            program.link();
+        }
+        catch (GLESException e)
+        {
+            program.delete();
+            throw e;
+        }
+
+        programs.put(key, program);
+
+        return program;
+    }
+
+
+    /**
+     * Get a linked program for the sources processed by the
+     * preprocessor.
+     *
+     * @param preprocessor
+     *         A preprocessor applied to both sources.
+     *
+     * @param vertexSource
+     *         The source of a vertex shader before preprocessing.
+     *
+     * @param fragmentSource
+     *         The source of a fragment shader before preprocessing.
+     *
+     * @return
+     *         A linked program.
+     *
+     * @throws IllegalArgumentException
+     *         Any of the arguments is null.
+     *
+     * @throws IOException
+     *         Failed to load an included file.
+     *
+     * @throws GLESException
+     *         Compiling or linking failed.
+     *
+     * @see ShaderPreprocessor#process(String)
+     */
+    public Program getProgram(ShaderPreprocessor preprocessor, String vertexSource, String fragmentSource) throws IOException, GLESException
+    {
+        // Check the argument.
+        if (preprocessor == null)
+        {
+            throw new IllegalArgumentException("preprocessor is null.");
+        }
+
+        return getProgram(preprocessor.process(vertexSource), preprocessor.process(fragmentSource));
+    }
+
+
+    /**
+     * Get the number of cached shaders.
+     *
+     * @return
+     *         The number of cached vertex and fragment shaders.
+     */
+    public int getShaderCount()
+    {
+        return vertexShaders.size() + fragmentShaders.size();
+    }
+
+
+    /**
+     * Get the number of cached programs.
+     *
+     * @return
+     *         The number of cached programs.
+     */
+    public int getProgramCount()
+    {
+        return programs.size();
+    }
+
+
+    /**
+     * Delete all the cached programs and shaders.
+     */
+    public void clear()
+    {
+        for (Program program : programs.values())
+        {
+            program.delete();
+        }
+
+        for (VertexShader shader : vertexShaders.values())
+        {
+            shader.delete();
+        }
+
+        for (FragmentShader shader : fragmentShaders.values())
+        {
+            shader.delete();
+        }
+
+        invalidate();
+    }
+
+
+    /**
+     * Forget all the cached programs and shaders without deleting
+     * them. Call this method when a new GL context has been created
+     * because the objects of the old context have been lost.
+     */
+    public void invalidate()
+    {
+        programs.clear();
+        vertexShaders.clear();
+        fragmentShaders.clear();
+    }
+}
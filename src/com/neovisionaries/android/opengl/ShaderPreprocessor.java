@@ -0,0 +1,447 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+
+/**
+ * Preprocessor of shader sources, which resolves {@code #include}
+ * directives and injects {@code #define} directives so that shader
+ * permutations (with or without fog, skinning, N lights, ...) can
+ * be generated from one source.
+ *
+ * <pre style="background: lightgray;">
+ * <span style="color: darkgreen;">// <b>E X A M P L E</b></span>
+ *
+ * <span style="color: darkgreen;">// Create a preprocessor with a loader of included files.</span>
+ * {@link ShaderPreprocessor} preprocessor = new {@link #ShaderPreprocessor(ShaderSourceLoader)
+ * ShaderPreprocessor}(loader)
+ *     .{@link #define(String) define}(<span style="color: brown;">"USE_FOG"</span>)
+ *     .{@link #define(String, String) define}(<span style="color: brown;">"NUM_LIGHTS"</span>, <span style="color: brown;">"4"</span>);
+ *
+ * <span style="color: darkgreen;">// Generate the final source.</span>
+ * String source = preprocessor.{@link #process(String) process}(<span style="color: brown;">"..."</span>);
+ * </pre>
+ *
+ * <p>
+ * Defines are inserted after the {@code #version} directive, if any,
+ * because it must be the first line of a shader. Defines are sorted
+ * by name, so the same set of defines always generates the same
+ * source regardless of the order in which they were given.
+ * </p>
+ *
+ * <p>
+ * {@code #include "name"} (or {@code #include <name>}) is replaced
+ * with the source returned from the {@link ShaderSourceLoader}.
+ * Each file is included at most once per {@link #process(String)}
+ * call, so included files need no include guards, and recursive
+ * inclusion is harmless.
+ * </p>
+ *
+ * <p>
+ * If a {@link ShaderMinifier} is {@link #setMinifier(ShaderMinifier)
+ * set}, the final source is minified.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see ShaderCache
+ */
+public class ShaderPreprocessor
+{
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME        = 0x100000001b3L;
+
+
+    private final ShaderSourceLoader loader;
+    private final Map<String, String> defines = new TreeMap<String, String>();
+    private ShaderMinifier minifier;
+
+
+    /**
+     * A constructor without a loader. {@code #include} directives
+     * cannot be used.
+     */
+    public ShaderPreprocessor()
+    {
+        this(null);
+    }
+
+
+    /**
+     * A constructor with a loader of included files.
+     *
+     * @param loader
+     *         A loader of files referenced by {@code #include}
+     *         directives. May be null.
+     */
+    public ShaderPreprocessor(ShaderSourceLoader loader)
+    {
+        this.loader = loader;
+    }
+
+
+    /**
+     * Define a macro without a value. This method is an alias of
+     * {@link #define(String, String) define}(name, "").
+     *
+     * @param name
+     *         The name of a macro.
+     *
+     * @return
+     *         This ShaderPreprocessor object.
+     *
+     * @throws IllegalArgumentException
+     *         The given name is null or empty.
+     */
+    public ShaderPreprocessor define(String name)
+    {
+        return define(name, "");
+    }
+
+
+    /**
+     * Define a macro.
+     *
+     * @param name
+     *         The name of a macro.
+     *
+     * @param value
+     *         The value of the macro. Null is treated as "".
+     *
+     * @return
+     *         This ShaderPreprocessor object.
+     *
+     * @throws IllegalArgumentException
+     *         The given name is null or empty.
+     */
+    public ShaderPreprocessor define(String name, String value)
+    {
+        // Check the argument.
+        if (name == null || name.length() == 0)
+        {
+            throw new IllegalArgumentException("name is null or empty.");
+        }
+
+        defines.put(name, (value == null) ? "" : value);
+
+        return this;
+    }
+
+
+    /**
+     * Define a macro with an integer value.
+     *
+     * @param name
+     *         The name of a macro.
+     *
+     * @param value
+     *         The value of the macro.
+     *
+     * @return
+     *         This ShaderPreprocessor object.
+     *
+     * @throws IllegalArgumentException
+     *         The given name is null or empty.
+     */
+    public ShaderPreprocessor define(String name, int value)
+    {
+        return define(name, String.valueOf(value));
+    }
+
+
+    /**
+     * Remove a macro definition.
+     *
+     * @param name
+     *         The name of a macro.
+     *
+     * @return
+     *         This ShaderPreprocessor object.
+     */
+    public ShaderPreprocessor undefine(String name)
+    {
+        defines.remove(name);
+
+        return this;
+    }
+
+
+    /**
+     * Remove all the macro definitions.
+     *
+     * @return
+     *         This ShaderPreprocessor object.
+     */
+    public ShaderPreprocessor clearDefines()
+    {
+        defines.clear();
+
+        return this;
+    }
+
+
+    /**
+     * Check if a macro is defined.
+     *
+     * @param name
+     *         The name of a macro.
+     *
+     * @return
+     *         True if the macro is defined.
+     */
+    public boolean isDefined(String name)
+    {
+        return defines.containsKey(name);
+    }
+
+
+    /**
+     * Get the minifier applied to the final source.
+     *
+     * @return
+     *         The minifier. May be null.
+     */
+    public ShaderMinifier getMinifier()
+    {
+        return minifier;
+    }
+
+
+    /**
+     * Set a minifier applied to the final source.
+     *
+     * @param minifier
+     *         A minifier. null to disable minification.
+     *
+     * @return
+     *         This ShaderPreprocessor object.
+     */
+    public ShaderPreprocessor setMinifier(ShaderMinifier minifier)
+    {
+        this.minifier = minifier;
+
+        return this;
+    }
+
+
+    /**
+     * Generate the final source by resolving {@code #include}
+     * directives and injecting the defines. If a minifier is
+     * set, the source is minified.
+     *
+     * @param source
+     *         A shader source.
+     *
+     * @return
+     *         The final shader source.
+     *
+     * @throws IllegalArgumentException
+     *         The given source is null.
+     *
+     * @throws IOException
+     *         Failed to load an included file, or an {@code #include}
+     *         directive is used without a loader.
+     */
+    public String process(String source) throws IOException
+    {
+        // Check the argument.
+        if (source == null)
+        {
+            throw new IllegalArgumentException("source is null.");
+        }
+
+        StringBuilder builder = new StringBuilder(source.length() + defines.size() * 32);
+        String[] lines = source.split("\r?\n", -1);
+        int start = 0;
+
+        // Skip leading blank lines to find #version.
+        while (start < lines.length && lines[start].trim().length() == 0)
+        {
+            ++start;
+        }
+
+        if (start < lines.length && lines[start].trim().startsWith("#version"))
+        {
+            builder.append(lines[start]).append('\n');
+            ++start;
+        }
+        else
+        {
+            start = 0;
+        }
+
+        // Inject the defines.
+        for (Map.Entry<String, String> entry : defines.entrySet())
+        {
+            builder.append("#define ").append(entry.getKey());
+
+            if (entry.getValue().length() != 0)
+            {
+                builder.append(' ').append(entry.getValue());
+            }
+
+            builder.append('\n');
+        }
+
+        // The rest with #include resolved.
+        append(builder, lines, start, new HashSet<String>());
+
+        if (minifier != null)
+        {
+            return minifier.minify(builder.toString());
+        }
+
+        return builder.toString();
+    }
+
+
+    private void append(StringBuilder builder, String[] lines, int start, Set<String> included) throws IOException
+    {
+        for (int i = start; i < lines.length; ++i)
+        {
+            String line = lines[i];
+            String name = getIncludedName(line);
+
+            if (name == null)
+            {
+                builder.append(line);
+
+                // No extra newline after the last line.
+                if (i != lines.length - 1)
+                {
+                    builder.append('\n');
+                }
+
+                continue;
+            }
+
+            if (included.add(name) == false)
+            {
+                // Already included.
+                continue;
+            }
+
+            if (loader == null)
+            {
+                throw new IOException("No loader is set to include '" + name + "'.");
+            }
+
+            String source = loader.load(name);
+
+            if (source == null)
+            {
+                throw new IOException("Failed to load '" + name + "'.");
+            }
+
+            append(builder, source.split("\r?\n", -1), 0, included);
+            builder.append('\n');
+        }
+    }
+
+
+    /**
+     * Get the name in an {@code #include} directive.
+     *
+     * @return
+     *         The name, or null if the line is not an {@code #include}
+     *         directive.
+     */
+    private static String getIncludedName(String line)
+    {
+        String trimmed = line.trim();
+
+        if (trimmed.startsWith("#") == false)
+        {
+            return null;
+        }
+
+        // "#  include" is allowed.
+        trimmed = trimmed.substring(1).trim();
+
+        if (trimmed.startsWith("include") == false)
+        {
+            return null;
+        }
+
+        trimmed = trimmed.substring(7).trim();
+
+        if (trimmed.length() < 2)
+        {
+            return null;
+        }
+
+        char open  = trimmed.charAt(0);
+        char close = (open == '<') ? '>' : '"';
+
+        if (open != '"' && open != '<')
+        {
+            return null;
+        }
+
+        int end = trimmed.indexOf(close, 1);
+
+        if (end < 0)
+        {
+            return null;
+        }
+
+        return trimmed.substring(1, end);
+    }
+
+
+    /**
+     * Compute the 64-bit FNV-1a hash of a shader source. Two
+     * sources having the same hash are regarded as the same by
+     * {@link ShaderCache}.
+     *
+     * @param source
+     *         A shader source.
+     *
+     * @return
+     *         The hash value.
+     *
+     * @throws IllegalArgumentException
+     *         The given source is null.
+     */
+    public static long hash(String source)
+    {
+        // Check the argument.
+        if (source == null)
+        {
+            throw new IllegalArgumentException("source is null.");
+        }
+
+        long hash = FNV_OFFSET_BASIS;
+
+        for (int i = 0; i < source.length(); ++i)
+        {
+            char ch = source.charAt(i);
+
+            // Both bytes of the UTF-16 code unit.
+            hash = (hash ^ (ch & 0xFF)) * FNV_PRIME;
+            hash = (hash ^ (ch >>> 8))  * FNV_PRIME;
+        }
+
+        return hash;
+    }
+}
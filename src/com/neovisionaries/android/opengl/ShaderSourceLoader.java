@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.io.IOException;
+
+
+/**
+ * Loader of shader sources referenced by {@code #include} directives.
+ *
+ * <pre style="background: lightgray;">
+ * <span style="color: darkgreen;">// <b>E X A M P L E</b></span>
+ *
+ * <span style="color: darkgreen;">// Load included files from the assets.</span>
+ * final AssetManager assets = context.getAssets();
+ *
+ * {@link ShaderSourceLoader} loader = new {@link ShaderSourceLoader}() {
+ *     public String {@link #load(String) load}(String name) throws IOException {
+ *         return {@link GLESHelper}.{@link GLESHelper#toString(java.io.InputStream, boolean)
+ *         toString}(assets.open(<span style="color: brown;">"shaders/"</span> + name), true);
+ *     }
+ * };
+ * </pre>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see ShaderPreprocessor#ShaderPreprocessor(ShaderSourceLoader)
+ */
+public interface ShaderSourceLoader
+{
+    /**
+     * Load a shader source.
+     *
+     * @param name
+     *         The name written in the {@code #include} directive.
+     *
+     * @return
+     *         The shader source.
+     *
+     * @throws IOException
+     *         Failed to load the shader source.
+     */
+    String load(String name) throws IOException;
+}
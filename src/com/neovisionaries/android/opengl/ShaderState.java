@@ -40,6 +40,15 @@ public enum ShaderState
     SOURCE_SET,
 
 
+    /**
+     * Compiling has been submitted to the driver but its result
+     * has not been checked yet.
+     *
+     * @see Shader#compileAsync()
+     */
+    COMPILING,
+
+
     /**
      * The shader source has been compiled successfully.
      * 
@@ -0,0 +1,515 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+/**
+ * Scheduler which creates programs ahead of their first use so that
+ * the first frame using each of them does not stall.
+ *
+ * <pre style="background: lightgray;">
+ * <span style="color: darkgreen;">// <b>E X A M P L E</b></span>
+ *
+ * <span style="color: darkgreen;">// In onSurfaceCreated().</span>
+ * warmUp = new {@link ShaderWarmUp}()
+ *     .{@link #add(ProgramDescriptor) add}(new {@link ProgramDescriptor#ProgramDescriptor(java.io.File, java.io.File)
+ *     ProgramDescriptor}(vertexFile1, fragmentFile1))
+ *     .{@link #add(ProgramDescriptor) add}(new {@link ProgramDescriptor#ProgramDescriptor(java.io.File, java.io.File)
+ *     ProgramDescriptor}(vertexFile2, fragmentFile2))
+ *     .{@link #setBudgetMillis(float) setBudgetMillis}(4)
+ *     .{@link #start() start}();
+ *
+ * <span style="color: darkgreen;">// In onDrawFrame().</span>
+ * if (warmUp.{@link #isFinished() isFinished}() == false) {
+ *     warmUp.{@link #onFrame() onFrame}();
+ *     drawLoadingScreen(warmUp.{@link #getProgress() getProgress}());
+ * }
+ * </pre>
+ *
+ * <p>
+ * Shader sources are read (and preprocessed) on a background thread.
+ * On the GL thread, {@link #onFrame()} submits compiling and linking
+ * by {@link Program#linkAsync()}, polls the results, and finally
+ * makes a tiny dummy draw with each linked program because some
+ * drivers defer part of the compilation until the first draw. The
+ * GL thread work per frame stops when the time budget runs out.
+ * </p>
+ *
+ * <p>
+ * The dummy draw is a degenerate triangle drawn with all the active
+ * attributes set to constant values, so it produces no fragments.
+ * Note that it leaves the vertex attribute arrays of the active
+ * attributes disabled and no program in use.
+ * </p>
+ *
+ * <p>
+ * If {@link Extension#KHR_parallel_shader_compile} is not supported,
+ * checking a result may block until the driver finishes, so a single
+ * check may exceed the budget.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see ProgramDescriptor
+ * @see WarmUpListener
+ */
+public class ShaderWarmUp
+{
+    /**
+     * The default time budget per frame in milliseconds.
+     */
+    public static final float DEFAULT_BUDGET_MILLIS = 4.0f;
+
+
+    private final List<ProgramDescriptor> descriptors = new ArrayList<ProgramDescriptor>();
+    private final List<ProgramDescriptor> linking = new ArrayList<ProgramDescriptor>();
+    private ExecutorService executor;
+    private boolean ownExecutor;
+    private long budgetNanos = (long)(DEFAULT_BUDGET_MILLIS * 1000000);
+    private WarmUpListener listener;
+    private boolean started;
+    private int nextIndex;
+    private int completed;
+
+
+    /**
+     * Add a descriptor of a program to warm up.
+     *
+     * @param descriptor
+     *         A descriptor of a program.
+     *
+     * @return
+     *         This ShaderWarmUp object.
+     *
+     * @throws IllegalArgumentException
+     *         The given argument is null.
+     *
+     * @throws IllegalStateException
+     *         {@link #start()} has already been called.
+     */
+    public ShaderWarmUp add(ProgramDescriptor descriptor)
+    {
+        // Check the argument.
+        if (descriptor == null)
+        {
+            throw new IllegalArgumentException("descriptor is null.");
+        }
+
+        if (started)
+        {
+            throw new IllegalStateException("Warm-up has already been started.");
+        }
+
+        descriptors.add(descriptor);
+
+        return this;
+    }
+
+
+    /**
+     * Add descriptors of programs to warm up.
+     *
+     * @param descriptors
+     *         Descriptors of programs.
+     *
+     * @return
+     *         This ShaderWarmUp object.
+     *
+     * @throws IllegalArgumentException
+     *         The given list or an element of it is null.
+     *
+     * @throws IllegalStateException
+     *         {@link #start()} has already been called.
+     */
+    public ShaderWarmUp add(List<ProgramDescriptor> descriptors)
+    {
+        // Check the argument.
+        if (descriptors == null)
+        {
+            throw new IllegalArgumentException("descriptors is null.");
+        }
+
+        for (ProgramDescriptor descriptor : descriptors)
+        {
+            add(descriptor);
+        }
+
+        return this;
+    }
+
+
+    /**
+     * Get the time budget of the GL thread work per frame.
+     *
+     * @return
+     *         The time budget in milliseconds.
+     */
+    public float getBudgetMillis()
+    {
+        return budgetNanos / 1000000.0f;
+    }
+
+
+    /**
+     * Set the time budget of the GL thread work per frame. The
+     * default value is {@link #DEFAULT_BUDGET_MILLIS}. At least one
+     * step is executed per frame regardless of the budget.
+     *
+     * @param millis
+     *         The time budget in milliseconds.
+     *
+     * @return
+     *         This ShaderWarmUp object.
+     *
+     * @throws IllegalArgumentException
+     *         The given value is negative.
+     */
+    public ShaderWarmUp setBudgetMillis(float millis)
+    {
+        if (millis < 0)
+        {
+            throw new IllegalArgumentException("millis is negative.");
+        }
+
+        budgetNanos = (long)(millis * 1000000);
+
+        return this;
+    }
+
+
+    /**
+     * Set an executor used to read shader sources. If no executor
+     * is set, a single thread is created by {@link #start()} and
+     * shut down when reading finishes.
+     *
+     * @param executor
+     *         An executor. May be null.
+     *
+     * @return
+     *         This ShaderWarmUp object.
+     */
+    public ShaderWarmUp setExecutor(ExecutorService executor)
+    {
+        this.executor = executor;
+
+        return this;
+    }
+
+
+    /**
+     * Get the listener notified of the progress.
+     *
+     * @return
+     *         The listener. May be null.
+     */
+    public WarmUpListener getListener()
+    {
+        return listener;
+    }
+
+
+    /**
+     * Set a listener notified of the progress.
+     *
+     * @param listener
+     *         A listener. May be null.
+     *
+     * @return
+     *         This ShaderWarmUp object.
+     */
+    public ShaderWarmUp setListener(WarmUpListener listener)
+    {
+        this.listener = listener;
+
+        return this;
+    }
+
+
+    /**
+     * Start reading shader sources on a background thread.
+     * This method can be called on any thread.
+     *
+     * @return
+     *         This ShaderWarmUp object.
+     *
+     * @throws IllegalStateException
+     *         This method has already been called.
+     */
+    public ShaderWarmUp start()
+    {
+        if (started)
+        {
+            throw new IllegalStateException("Warm-up has already been started.");
+        }
+
+        started = true;
+
+        if (executor == null)
+        {
+            executor    = Executors.newSingleThreadExecutor();
+            ownExecutor = true;
+        }
+
+        // Copy to be safe from modification.
+        final ProgramDescriptor[] array = descriptors.toArray(new ProgramDescriptor[descriptors.size()]);
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run()
+            {
+                // In order, because onFrame() consumes them in order.
+                for (ProgramDescriptor descriptor : array)
+                {
+                    descriptor.load();
+                }
+            }
+        });
+
+        if (ownExecutor)
+        {
+            // The thread terminates after reading.
+            executor.shutdown();
+        }
+
+        return this;
+    }
+
+
+    /**
+     * Execute the GL thread work within the time budget.
+     * This method must be called on the GL thread, typically
+     * at the beginning of onDrawFrame().
+     *
+     * @return
+     *         True if all the programs have been warmed up.
+     *
+     * @throws IllegalStateException
+     *         {@link #start()} has not been called.
+     */
+    public boolean onFrame()
+    {
+        if (started == false)
+        {
+            throw new IllegalStateException("Warm-up has not been started.");
+        }
+
+        long deadline = System.nanoTime() + budgetNanos;
+        boolean first = true;
+
+        // Check the programs submitted in the previous frames.
+        for (int i = 0; i < linking.size(); )
+        {
+            if (first == false && deadline <= System.nanoTime())
+            {
+                return isFinished();
+            }
+
+            first = false;
+
+            ProgramDescriptor descriptor = linking.get(i);
+
+            try
+            {
+                if (descriptor.getProgram().poll() == false)
+                {
+                    // Still in progress.
+                    ++i;
+                    continue;
+                }
+
+                linking.remove(i);
+                draw(descriptor.getProgram());
+                complete();
+            }
+            catch (GLESException e)
+            {
+                linking.remove(i);
+                fail(descriptor, e);
+            }
+        }
+
+        // Submit the programs whose sources have been read.
+        while (nextIndex < descriptors.size())
+        {
+            if (first == false && deadline <= System.nanoTime())
+            {
+                break;
+            }
+
+            ProgramDescriptor descriptor = descriptors.get(nextIndex);
+
+            if (descriptor.isLoaded() == false)
+            {
+                // Not read yet.
+                break;
+            }
+
+            first = false;
+            ++nextIndex;
+
+            if (descriptor.getLoadError() != null)
+            {
+                fail(descriptor, descriptor.getLoadError());
+                continue;
+            }
+
+            try
+            {
+                descriptor.setProgram(submit(descriptor));
+                linking.add(descriptor);
+            }
+            catch (GLESException e)
+            {
+                fail(descriptor, e);
+            }
+        }
+
+        return isFinished();
+    }
+
+
+    /**
+     * Create a program and submit compiling and linking.
+     */
+    private static Program submit(ProgramDescriptor descriptor) throws GLESException
+    {
+        // The shaders are deleted together with the program.
+        Program program = new Program(
+            new VertexShader(descriptor.getLoadedVertexSource()).setAutoDeleted(true),
+            new FragmentShader(descriptor.getLoadedFragmentSource()).setAutoDeleted(true));
+
+        return program.linkAsync();
+    }
+
+
+    /**
+     * Make a dummy draw which produces no fragments.
+     */
+    private static void draw(Program program) throws GLESException
+    {
+        program.use();
+
+        Attribute[] attributes = program.getActiveAttributes();
+
+        if (attributes != null)
+        {
+            for (Attribute attribute : attributes)
+            {
+                if (attribute != null)
+                {
+                    // Disables the array and sets a constant value.
+                    attribute.set(0.0f, 0.0f, 0.0f, 1.0f);
+                }
+            }
+        }
+
+        // All the three vertices are the same, so the triangle is degenerate.
+        GLES gles = GLESFactory.getInstance();
+        gles.glDrawArrays(gles.GL_TRIANGLES(), 0, 3);
+
+        Program.unuse();
+    }
+
+
+    private void complete()
+    {
+        ++completed;
+
+        if (listener != null)
+        {
+            listener.onProgress(completed, descriptors.size());
+        }
+    }
+
+
+    private void fail(ProgramDescriptor descriptor, Exception exception)
+    {
+        Program program = descriptor.getProgram();
+
+        if (program != null)
+        {
+            program.delete();
+            descriptor.setProgram(null);
+        }
+
+        if (listener != null)
+        {
+            listener.onError(descriptor, exception);
+        }
+
+        complete();
+    }
+
+
+    /**
+     * Check if all the programs have been warmed up (or failed).
+     *
+     * @return
+     *         True if all the programs have been completed.
+     */
+    public boolean isFinished()
+    {
+        return (completed == descriptors.size());
+    }
+
+
+    /**
+     * Get the number of programs completed so far, including
+     * failed ones.
+     *
+     * @return
+     *         The number of completed programs.
+     */
+    public int getCompletedCount()
+    {
+        return completed;
+    }
+
+
+    /**
+     * Get the total number of programs.
+     *
+     * @return
+     *         The total number of programs.
+     */
+    public int getTotalCount()
+    {
+        return descriptors.size();
+    }
+
+
+    /**
+     * Get the progress.
+     *
+     * @return
+     *         The progress between 0.0 and 1.0.
+     */
+    public float getProgress()
+    {
+        if (descriptors.size() == 0)
+        {
+            return 1.0f;
+        }
+
+        return (float)completed / descriptors.size();
+    }
+}
@@ -18,6 +18,7 @@ package com.neovisionaries.android.opengl;
 
 import static com.neovisionaries.android.opengl.TextureState.CREATED;
 import static com.neovisionaries.android.opengl.TextureState.DELETED;
+import java.nio.ByteBuffer;
 import android.graphics.Bitmap;
 import android.opengl.GLUtils;
 
@@ -61,9 +62,63 @@ public abstract class Texture<TTexture extends Texture<TTexture>>
     private int nativeTextureUnit;
 
 
+    /**
+     * True if the texture unit has been set by {@link #setUnit(int)}.
+     * Otherwise, {@link TextureUnitManager} assigns units.
+     */
+    private boolean unitAssigned;
+
+
+    /**
+     * The maximum number of mipmap levels tracked for accounting.
+     */
+    private static final int MAX_LEVELS = 16;
+
+
+    /**
+     * Estimated sizes of the images of each face and each level.
+     * The index is (face * MAX_LEVELS + level).
+     */
+    private final long[] imageBytes;
+
+
+    /**
+     * Width, height and size of the level 0 image of each face.
+     * These are used to estimate the sizes of generated mipmaps.
+     */
+    private final int[] baseWidths;
+    private final int[] baseHeights;
+    private final long[] baseBytes;
+
+
+    /**
+     * The estimated size of the storage of this texture.
+     */
+    private long allocatedBytes;
+
+
+    /**
+     * Shadows of the texture parameters, initialized with the
+     * initial values defined by OpenGL ES. These are used to skip
+     * redundant glTexParameteri() calls.
+     */
+    private MinFilter minFilter = MinFilter.NEAREST_MIPMAP_LINEAR;
+    private MagFilter magFilter = MagFilter.LINEAR;
+    private WrapMode wrapS = WrapMode.REPEAT;
+    private WrapMode wrapT = WrapMode.REPEAT;
+
+
+    /**
+     * The phantom reference used by {@link LeakTracker}.
+     * Null if leak tracking was disabled on creation.
+     */
+    private TrackedObject tracked;
+
+
     /**
      * A constructor with a texture type. A texture object is
-     * assigned internally by glGenTextures(). If this constructor
+     * assigned internally by glGenTextures() (in a batch via
+     * {@link NamePool}). If this constructor
      * returns without any exception, the state of this instance
      * is {@link TextureState#CREATED}.
      *
@@ -87,17 +142,10 @@ public abstract class Texture<TTexture extends Texture<TTexture>>
             throw new IllegalArgumentException();
         }
 
-        // Texture IDs assigned by glGenTextures().
-        int[] ids = new int[1];
-
-        // Create a Texture object.
-        getGLES().glGenTextures(type.getType(), ids, 0);
-
-        // Check if a valid texture object hasbeen created.
-        if (ids[0] <= 0)
-        {
-            throw new GLESException("glGenTextures() failed.");
-        }
+        // Get a texture name generated by glGenTextures() in advance.
+        // NamePool.obtain() throws GLESException if glGenTextures()
+        // failed.
+        int name = NamePool.obtain(GLObjectType.TEXTURE);
 
         // A texture object was created successfully.
 
@@ -105,7 +153,19 @@ public abstract class Texture<TTexture extends Texture<TTexture>>
         this.type = type;
 
         // ID of the texture object.
-        this.id = ids[0];
+        this.id = name;
+
+        // A cube map texture has 6 faces.
+        int faces = (type == TextureType.CUBE_MAP) ? 6 : 1;
+
+        this.imageBytes  = new long[faces * MAX_LEVELS];
+        this.baseWidths  = new int[faces];
+        this.baseHeights = new int[faces];
+        this.baseBytes   = new long[faces];
+
+        ResourceRegistry.register(ResourceCategory.TEXTURE);
+
+        tracked = LeakTracker.track(this, GLObjectType.TEXTURE, id, ResourceCategory.TEXTURE);
     }
 
 
@@ -166,10 +226,17 @@ public abstract class Texture<TTexture extends Texture<TTexture>>
      * Set the texture unit that this texture should be bound to.
      * The default value before this method is called is 0.
      *
+     * <p>
+     * If {@link TextureUnitManager} is enabled, a texture whose unit
+     * has not been set by this method is bound to a unit assigned by
+     * the manager. The unit set by this method is never assigned to
+     * such textures.
+     * </p>
+     *
      * @param textureUnit
      *         A texture unit number. 0 means GL_TEXTURE0.
      *         The range of the number is from 0 to ({@link
-     *         GLESState#getMaxTextureImageUnits()} - 1).
+     *         TextureUnitManager#getMaxUnits()} - 1).
      *
      * @return
      *         This Texture object.
@@ -181,21 +248,45 @@ public abstract class Texture<TTexture extends Texture<TTexture>>
      *      value of GL_MAX_TEXTURE_IMAGE_UNITS.
      * </ul>
      *
-     * @see GLESState#getMaxTextureImageUnits()
+     * @see TextureUnitManager#getMaxUnits()
      * @see <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glBindTexture.xml">glBindTexture</a>
      */
     @SuppressWarnings("unchecked")
     public TTexture setUnit(int textureUnit)
     {
-        if (textureUnit < 0 || GLESState.getMaxTextureImageUnits() <= textureUnit)
+        // The number of units is queried only once.
+        if (textureUnit < 0 || TextureUnitManager.getMaxUnits() <= textureUnit)
         {
             throw new IllegalArgumentException("Texture unit is out of range.");
         }
 
+        assignUnit(textureUnit);
+
+        unitAssigned = true;
+
+        TextureUnitManager.pin(textureUnit);
+
+        return (TTexture)this;
+    }
+
+
+    /**
+     * Set the texture unit without marking it as set by {@link
+     * #setUnit(int)}. Called by {@link TextureUnitManager}.
+     */
+    void assignUnit(int textureUnit)
+    {
         this.textureUnit = textureUnit;
         this.nativeTextureUnit = convertToNativeTextureUnit(textureUnit);
+    }
 
-        return (TTexture)this;
+
+    /**
+     * Check if the texture unit has been set by {@link #setUnit(int)}.
+     */
+    boolean isUnitAssigned()
+    {
+        return unitAssigned;
     }
 
 
@@ -241,6 +332,12 @@ public abstract class Texture<TTexture extends Texture<TTexture>>
      * is called before glBindTexture().
      * </p>
      *
+     * <p>
+     * If {@link TextureUnitManager} is enabled, the manager binds
+     * this texture. glBindTexture() is not called if this texture
+     * is still bound to its unit.
+     * </p>
+     *
      * @return
      *         This Texture object.
      *
@@ -259,6 +356,13 @@ public abstract class Texture<TTexture extends Texture<TTexture>>
             throw new IllegalStateException("Texture has already been deleted.");
         }
 
+        if (TextureUnitManager.isEnabled())
+        {
+            TextureUnitManager.bind(this);
+
+            return (TTexture)this;
+        }
+
         if (GLESState.getActiveTexture() != nativeTextureUnit)
         {
             // The current active texture unit is different from
@@ -305,10 +409,71 @@ public abstract class Texture<TTexture extends Texture<TTexture>>
         // The texture object was deleted.
         state = DELETED;
 
+        if (TextureUnitManager.isEnabled())
+        {
+            TextureUnitManager.onDeleted(this);
+        }
+
+        release();
+
+        return (TTexture)this;
+    }
+
+
+    /**
+     * Mark this texture as deleted and let {@link LeakTracker}
+     * delete the texture object on the GL thread at the next
+     * frame boundary. Unlike {@link #delete()}, this method can
+     * be called on any thread. After this method returns, the
+     * state of this instance is {@link TextureState#DELETED}.
+     * The unit assigned by {@link TextureUnitManager} is freed at
+     * the same frame boundary.
+     *
+     * @return
+     *         This Texture object.
+     *
+     * @see LeakTracker#deleteLater(GLObjectType, int)
+     */
+    @SuppressWarnings("unchecked")
+    public TTexture deleteLater()
+    {
+        // Check the current state of this instance.
+        if (state == DELETED)
+        {
+            // This texture has already been deleted.
+            return (TTexture)this;
+        }
+
+        // The texture object will be deleted on the GL thread.
+        state = DELETED;
+
+        if (TextureUnitManager.isEnabled())
+        {
+            // The unit is freed on the GL thread, too.
+            TextureUnitManager.onDeletedLater(this);
+        }
+
+        release();
+
+        LeakTracker.deleteLater(GLObjectType.TEXTURE, id);
+
         return (TTexture)this;
     }
 
 
+    /**
+     * Release the storage from the accounting and stop tracking.
+     */
+    private void release()
+    {
+        allocatedBytes = ResourceRegistry.update(ResourceCategory.TEXTURE, allocatedBytes, 0);
+        ResourceRegistry.unregister(ResourceCategory.TEXTURE);
+
+        LeakTracker.untrack(tracked);
+        tracked = null;
+    }
+
+
     /**
      * Check if this texture is bound.
      *
@@ -331,18 +496,61 @@ public abstract class Texture<TTexture extends Texture<TTexture>>
 
 
     /**
-     * Calls glTexParameteri(textureType, parameterId, parameterValue).
-     *
-     * @param parameterId
-     * @param parameterValue
+     * Set the texture parameters which differ from the current
+     * ones. If all of them are the same, neither {@link #isBound()}
+     * nor glTexParameteri() is called. Otherwise, {@link #bind()} is
+     * called if this texture is not bound, and then glTexParameteri()
+     * is called once per changed parameter.
      *
      * @return
      *         This Texture object.
      */
     @SuppressWarnings("unchecked")
-    private TTexture setParameter(int parameterId, int parameterValue)
+    private TTexture setParameters(MinFilter newMinFilter, MagFilter newMagFilter, WrapMode newWrapS, WrapMode newWrapT)
     {
-        getGLES().glTexParameteri(type.getType(), parameterId, parameterValue);
+        if (state == DELETED)
+        {
+            throw new IllegalStateException("Texture has already been deleted.");
+        }
+
+        if (newMinFilter == minFilter && newMagFilter == magFilter &&
+            newWrapS == wrapS && newWrapT == wrapT)
+        {
+            // Nothing has changed.
+            return (TTexture)this;
+        }
+
+        if (isBound() == false)
+        {
+            bind();
+        }
+
+        GLES gles = getGLES();
+        int target = type.getType();
+
+        if (newMinFilter != minFilter)
+        {
+            gles.glTexParameteri(target, gles.GL_TEXTURE_MIN_FILTER(), newMinFilter.getFilter());
+            minFilter = newMinFilter;
+        }
+
+        if (newMagFilter != magFilter)
+        {
+            gles.glTexParameteri(target, gles.GL_TEXTURE_MAG_FILTER(), newMagFilter.getFilter());
+            magFilter = newMagFilter;
+        }
+
+        if (newWrapS != wrapS)
+        {
+            gles.glTexParameteri(target, gles.GL_TEXTURE_WRAP_S(), newWrapS.getMode());
+            wrapS = newWrapS;
+        }
+
+        if (newWrapT != wrapT)
+        {
+            gles.glTexParameteri(target, gles.GL_TEXTURE_WRAP_T(), newWrapT.getMode());
+            wrapT = newWrapT;
+        }
 
         return (TTexture)this;
     }
@@ -358,6 +566,11 @@ public abstract class Texture<TTexture extends Texture<TTexture>>
      * MagFilter#getFilter() getFilter()}) is called.
      * </p>
      *
+     * <p>
+     * If the mag filter is already set, nothing is done. This texture
+     * remembers its parameters, so no GL call is made in the case.
+     * </p>
+     *
      * @param filter
      *         A mag filter.
      *
@@ -379,17 +592,7 @@ public abstract class Texture<TTexture extends Texture<TTexture>>
             throw new IllegalArgumentException();
         }
 
-        if (state == DELETED)
-        {
-            throw new IllegalStateException("Texture has already been deleted.");
-        }
-
-        if (isBound() == false)
-        {
-            bind();
-        }
-
-        return setParameter(getGLES().GL_TEXTURE_MAG_FILTER(), filter.getFilter());
+        return setParameters(minFilter, filter, wrapS, wrapT);
     }
 
 
@@ -403,6 +606,11 @@ public abstract class Texture<TTexture extends Texture<TTexture>>
      * MinFilter#getFilter() getFilter()}) is called.
      * </p>
      *
+     * <p>
+     * If the min filter is already set, nothing is done. This texture
+     * remembers its parameters, so no GL call is made in the case.
+     * </p>
+     *
      * @param filter
      *         A min filter.
      *
@@ -424,17 +632,7 @@ public abstract class Texture<TTexture extends Texture<TTexture>>
             throw new IllegalArgumentException();
         }
 
-        if (state == DELETED)
-        {
-            throw new IllegalStateException("Texture has already been deleted.");
-        }
-
-        if (isBound() == false)
-        {
-            bind();
-        }
-
-        return setParameter(getGLES().GL_TEXTURE_MIN_FILTER(), filter.getFilter());
+        return setParameters(filter, magFilter, wrapS, wrapT);
     }
 
 
@@ -448,6 +646,11 @@ public abstract class Texture<TTexture extends Texture<TTexture>>
      * WrapMode#getMode() getMode()}) is called.
      * </p>
      *
+     * <p>
+     * If the wrap mode is already set, nothing is done. This texture
+     * remembers its parameters, so no GL call is made in the case.
+     * </p>
+     *
      * @param mode
      *         A wrap mode.
      *
@@ -469,17 +672,7 @@ public abstract class Texture<TTexture extends Texture<TTexture>>
             throw new IllegalArgumentException();
         }
 
-        if (state == DELETED)
-        {
-            throw new IllegalStateException("Texture has already been deleted.");
-        }
-
-        if (isBound() == false)
-        {
-            bind();
-        }
-
-        return setParameter(getGLES().GL_TEXTURE_WRAP_S(), mode.getMode());
+        return setParameters(minFilter, magFilter, mode, wrapT);
     }
 
 
@@ -493,6 +686,11 @@ public abstract class Texture<TTexture extends Texture<TTexture>>
      * WrapMode#getMode() getMode()}) is called.
      * </p>
      *
+     * <p>
+     * If the wrap mode is already set, nothing is done. This texture
+     * remembers its parameters, so no GL call is made in the case.
+     * </p>
+     *
      * @param mode
      *         A wrap mode.
      *
@@ -514,17 +712,101 @@ public abstract class Texture<TTexture extends Texture<TTexture>>
             throw new IllegalArgumentException();
         }
 
-        if (state == DELETED)
-        {
-            throw new IllegalStateException("Texture has already been deleted.");
-        }
+        return setParameters(minFilter, magFilter, wrapS, mode);
+    }
 
-        if (isBound() == false)
+
+    /**
+     * Get the min filter.
+     *
+     * @return
+     *         The min filter last set by this library, or the initial
+     *         value GL_NEAREST_MIPMAP_LINEAR.
+     */
+    public MinFilter getMinFilter()
+    {
+        return minFilter;
+    }
+
+
+    /**
+     * Get the mag filter.
+     *
+     * @return
+     *         The mag filter last set by this library, or the initial
+     *         value GL_LINEAR.
+     */
+    public MagFilter getMagFilter()
+    {
+        return magFilter;
+    }
+
+
+    /**
+     * Get the wrap mode for S coordinates.
+     *
+     * @return
+     *         The wrap mode last set by this library, or the initial
+     *         value GL_REPEAT.
+     */
+    public WrapMode getWrapS()
+    {
+        return wrapS;
+    }
+
+
+    /**
+     * Get the wrap mode for T coordinates.
+     *
+     * @return
+     *         The wrap mode last set by this library, or the initial
+     *         value GL_REPEAT.
+     */
+    public WrapMode getWrapT()
+    {
+        return wrapT;
+    }
+
+
+    /**
+     * Get the current texture parameters as a sampler state.
+     *
+     * @return
+     *         A sampler state.
+     */
+    public SamplerState getSamplerState()
+    {
+        return new SamplerState(minFilter, magFilter, wrapS, wrapT);
+    }
+
+
+    /**
+     * Set the min filter, the mag filter and the wrap modes at once.
+     * Only parameters which differ from the current ones are set,
+     * so this method makes at most four glTexParameteri() calls and
+     * none if the state is already applied.
+     *
+     * @param samplerState
+     *         A sampler state.
+     *
+     * @return
+     *         This Texture object.
+     *
+     * @throws IllegalArgumentException
+     *         'samplerState' is null.
+     *
+     * @throws IllegalStateException
+     *         This texture has already been deleted.
+     */
+    public TTexture setSamplerState(SamplerState samplerState)
+    {
+        if (samplerState == null)
         {
-            bind();
+            throw new IllegalArgumentException();
         }
 
-        return setParameter(getGLES().GL_TEXTURE_WRAP_T(), mode.getMode());
+        return setParameters(samplerState.getMinFilter(), samplerState.getMagFilter(),
+                samplerState.getWrapS(), samplerState.getWrapT());
     }
 
 
@@ -561,10 +843,302 @@ public abstract class Texture<TTexture extends Texture<TTexture>>
 
         GLUtils.texImage2D(target, level, bitmap, 0);
 
+        int width  = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        recordImage(target, level, width, height, (long)width * height * getBytesPerPixel(bitmap));
+
+        return (TTexture)this;
+    }
+
+
+    /**
+     * Calls {@link #bind()} if this texture is not bound yet and
+     * then calls glTexImage2D() with the pixels in the buffer.
+     * The rows must be tightly packed. The position of the buffer
+     * is not changed.
+     *
+     * @param target
+     * @param pixels
+     * @param width
+     * @param height
+     * @param format
+     * @param level
+     *
+     * @return
+     *         This Texture object.
+     */
+    @SuppressWarnings("unchecked")
+    TTexture loadImage(int target, ByteBuffer pixels, int width, int height, PixelFormat format, int level)
+    {
+        checkPixels(pixels, width, height, format, level);
+
+        if (isBound() == false)
+        {
+            bind();
+        }
+
+        GLES gles = getGLES();
+        int alignment = setUnpackAlignment(gles, format, width);
+
+        gles.glTexImage2D(target, level, format.getFormat(), width, height, 0,
+                format.getFormat(), format.getType(), pixels);
+
+        restoreUnpackAlignment(gles, alignment);
+
+        recordImage(target, level, width, height, format.getImageBytes(width, height));
+
+        return (TTexture)this;
+    }
+
+
+    /**
+     * Calls {@link #bind()} if this texture is not bound yet and
+     * then calls glTexImage2D() with null pixels to allocate the
+     * storage without specifying its content.
+     *
+     * @param target
+     * @param width
+     * @param height
+     * @param format
+     * @param level
+     *
+     * @return
+     *         This Texture object.
+     */
+    @SuppressWarnings("unchecked")
+    TTexture allocateImage(int target, int width, int height, PixelFormat format, int level)
+    {
+        // Check the arguments.
+        if (format == null)
+        {
+            throw new IllegalArgumentException("format is null.");
+        }
+
+        if (width <= 0 || height <= 0 || level < 0)
+        {
+            throw new IllegalArgumentException("Bad size or level.");
+        }
+
+        if (state == DELETED)
+        {
+            throw new IllegalStateException("Texture has already been deleted.");
+        }
+
+        if (isBound() == false)
+        {
+            bind();
+        }
+
+        getGLES().glTexImage2D(target, level, format.getFormat(), width, height, 0,
+                format.getFormat(), format.getType(), null);
+
+        recordImage(target, level, width, height, format.getImageBytes(width, height));
+
+        return (TTexture)this;
+    }
+
+
+    /**
+     * Calls {@link #bind()} if this texture is not bound yet and
+     * then calls glTexSubImage2D() with the pixels in the buffer.
+     * The rows must be tightly packed. The position of the buffer
+     * is not changed.
+     *
+     * @param target
+     * @param pixels
+     * @param x
+     * @param y
+     * @param width
+     * @param height
+     * @param format
+     * @param level
+     *
+     * @return
+     *         This Texture object.
+     */
+    @SuppressWarnings("unchecked")
+    TTexture loadSubImage(int target, ByteBuffer pixels, int x, int y, int width, int height, PixelFormat format, int level)
+    {
+        checkPixels(pixels, width, height, format, level);
+
+        if (x < 0 || y < 0)
+        {
+            throw new IllegalArgumentException("x and y must not be negative.");
+        }
+
+        if (isBound() == false)
+        {
+            bind();
+        }
+
+        GLES gles = getGLES();
+        int alignment = setUnpackAlignment(gles, format, width);
+
+        gles.glTexSubImage2D(target, level, x, y, width, height,
+                format.getFormat(), format.getType(), pixels);
+
+        restoreUnpackAlignment(gles, alignment);
+
+        return (TTexture)this;
+    }
+
+
+    /**
+     * Calls {@link #bind()} if this texture is not bound yet and
+     * then calls glCompressedTexImage2D() with the data in the buffer.
+     * The position of the buffer is not changed.
+     *
+     * @param target
+     * @param data
+     * @param width
+     * @param height
+     * @param format
+     * @param level
+     *
+     * @return
+     *         This Texture object.
+     */
+    @SuppressWarnings("unchecked")
+    TTexture loadCompressedImage(int target, ByteBuffer data, int width, int height, CompressedFormat format, int level)
+    {
+        int imageSize = checkCompressedData(data, width, height, format, level);
+
+        if (isBound() == false)
+        {
+            bind();
+        }
+
+        getGLES().glCompressedTexImage2D(target, level, format.getInternalFormat(),
+                width, height, 0, imageSize, data);
+
+        recordImage(target, level, width, height, imageSize);
+
         return (TTexture)this;
     }
 
 
+    /**
+     * Calls {@link #bind()} if this texture is not bound yet and
+     * then calls glCompressedTexSubImage2D() with the data in the
+     * buffer. The position of the buffer is not changed.
+     *
+     * @param target
+     * @param data
+     * @param x
+     * @param y
+     * @param width
+     * @param height
+     * @param format
+     * @param level
+     *
+     * @return
+     *         This Texture object.
+     */
+    @SuppressWarnings("unchecked")
+    TTexture loadCompressedSubImage(int target, ByteBuffer data, int x, int y, int width, int height, CompressedFormat format, int level)
+    {
+        int imageSize = checkCompressedData(data, width, height, format, level);
+
+        if (x < 0 || y < 0)
+        {
+            throw new IllegalArgumentException("x and y must not be negative.");
+        }
+
+        if (isBound() == false)
+        {
+            bind();
+        }
+
+        getGLES().glCompressedTexSubImage2D(target, level, x, y, width, height,
+                format.getInternalFormat(), imageSize, data);
+
+        return (TTexture)this;
+    }
+
+
+    private int checkCompressedData(ByteBuffer data, int width, int height, CompressedFormat format, int level)
+    {
+        // Check the arguments.
+        if (data == null || format == null)
+        {
+            throw new IllegalArgumentException("data or format is null.");
+        }
+
+        if (width <= 0 || height <= 0 || level < 0)
+        {
+            throw new IllegalArgumentException("Bad size or level.");
+        }
+
+        int imageSize = format.getImageSize(width, height);
+
+        if (data.remaining() < imageSize)
+        {
+            throw new IllegalArgumentException("data is too small.");
+        }
+
+        if (state == DELETED)
+        {
+            throw new IllegalStateException("Texture has already been deleted.");
+        }
+
+        return imageSize;
+    }
+
+
+    private void checkPixels(ByteBuffer pixels, int width, int height, PixelFormat format, int level)
+    {
+        // Check the arguments.
+        if (pixels == null || format == null)
+        {
+            throw new IllegalArgumentException("pixels or format is null.");
+        }
+
+        if (width <= 0 || height <= 0 || level < 0)
+        {
+            throw new IllegalArgumentException("Bad size or level.");
+        }
+
+        if (pixels.remaining() < format.getImageBytes(width, height))
+        {
+            throw new IllegalArgumentException("pixels is too small.");
+        }
+
+        if (state == DELETED)
+        {
+            throw new IllegalStateException("Texture has already been deleted.");
+        }
+    }
+
+
+    /**
+     * Change GL_UNPACK_ALIGNMENT from the default value (4) if rows
+     * of the width are not 4-byte aligned.
+     *
+     * @return
+     *         The alignment set, or 4 if not changed.
+     */
+    private static int setUnpackAlignment(GLES gles, PixelFormat format, int width)
+    {
+        int alignment = Math.min(format.getUnpackAlignment(width), 4);
+
+        if (alignment != 4)
+        {
+            gles.glPixelStorei(gles.GL_UNPACK_ALIGNMENT(), alignment);
+        }
+
+        return alignment;
+    }
+
+
+    private static void restoreUnpackAlignment(GLES gles, int alignment)
+    {
+        if (alignment != 4)
+        {
+            gles.glPixelStorei(gles.GL_UNPACK_ALIGNMENT(), 4);
+        }
+    }
+
+
     /**
      * Generate mipmaps.
      *
@@ -597,6 +1171,145 @@ public abstract class Texture<TTexture extends Texture<TTexture>>
 
         getGLES().glGenerateMipmap(type.getType());
 
+        recordMipmaps();
+
         return (TTexture)this;
     }
+
+
+    /**
+     * Get the estimated size of the storage of this texture,
+     * including all the mipmap levels and cube faces.
+     *
+     * @return
+     *         The size in bytes, or 0 if no image has been loaded
+     *         or this texture has been deleted.
+     *
+     * @see ResourceRegistry
+     */
+    public long getAllocatedBytes()
+    {
+        return allocatedBytes;
+    }
+
+
+    /**
+     * Record the size of an image specified for the target and
+     * the level, and update the accounting.
+     *
+     * @param target
+     *         GL_TEXTURE_2D or one of GL_TEXTURE_CUBE_MAP_{POSITIVE|NEGATIVE}_{X|Y|Z}.
+     */
+    void recordImage(int target, int level, int width, int height, long bytes)
+    {
+        if (MAX_LEVELS <= level)
+        {
+            return;
+        }
+
+        int face = getFaceIndex(target);
+
+        imageBytes[face * MAX_LEVELS + level] = bytes;
+
+        if (level == 0)
+        {
+            baseWidths[face]  = width;
+            baseHeights[face] = height;
+            baseBytes[face]   = bytes;
+        }
+
+        updateAllocatedBytes();
+    }
+
+
+    /**
+     * Record the sizes of the mipmap levels generated from the
+     * level 0 image of each face, and update the accounting.
+     */
+    private void recordMipmaps()
+    {
+        for (int face = 0; face < baseWidths.length; ++face)
+        {
+            int width  = baseWidths[face];
+            int height = baseHeights[face];
+
+            if (width == 0 || height == 0)
+            {
+                continue;
+            }
+
+            double bytesPerPixel = (double)baseBytes[face] / ((long)width * height);
+
+            for (int level = 1; level < MAX_LEVELS; ++level)
+            {
+                if (width == 1 && height == 1)
+                {
+                    // Clear levels which no longer exist.
+                    imageBytes[face * MAX_LEVELS + level] = 0;
+                    continue;
+                }
+
+                width  = Math.max(1, width  / 2);
+                height = Math.max(1, height / 2);
+
+                imageBytes[face * MAX_LEVELS + level] = (long)Math.ceil(width * height * bytesPerPixel);
+            }
+        }
+
+        updateAllocatedBytes();
+    }
+
+
+    private void updateAllocatedBytes()
+    {
+        long total = 0;
+
+        for (int i = 0; i < imageBytes.length; ++i)
+        {
+            total += imageBytes[i];
+        }
+
+        allocatedBytes = ResourceRegistry.update(ResourceCategory.TEXTURE, allocatedBytes, total);
+
+        if (tracked != null)
+        {
+            tracked.allocatedBytes = allocatedBytes;
+        }
+    }
+
+
+    private int getFaceIndex(int target)
+    {
+        if (type == TextureType.CUBE_MAP)
+        {
+            // GL_TEXTURE_CUBE_MAP_POSITIVE_X to NEGATIVE_Z are consecutive.
+            return target - getGLES().GL_TEXTURE_CUBE_MAP_POSITIVE_X();
+        }
+
+        return 0;
+    }
+
+
+    private static int getBytesPerPixel(Bitmap bitmap)
+    {
+        Bitmap.Config config = bitmap.getConfig();
+
+        if (config == null)
+        {
+            return 4;
+        }
+
+        switch (config)
+        {
+            case ALPHA_8:
+                return 1;
+
+            case RGB_565:
+            case ARGB_4444:
+                return 2;
+
+            default:
+                return 4;
+        }
+    }
 }
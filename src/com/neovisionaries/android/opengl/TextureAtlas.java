@@ -0,0 +1,452 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Texture atlas, which packs many small images into a few large
+ * {@link Texture2D} pages so that sprites sharing a page can be
+ * drawn without rebinding textures.
+ *
+ * <pre style="background: lightgray;">
+ * <span style="color: darkgreen;">// <b>E X A M P L E</b></span>
+ *
+ * {@link TextureAtlas} atlas = new {@link #TextureAtlas(int, int, PixelFormat)
+ * TextureAtlas}(1024, 1024, {@link PixelFormat#RGBA_8888})
+ *     .{@link #setPadding(int) setPadding}(1)
+ *     .{@link #setExtrusion(int) setExtrusion}(1);
+ *
+ * <span style="color: darkgreen;">// Images can be added at any time, even after drawing.</span>
+ * {@link AtlasRegion} icon = atlas.{@link #add(String, ByteBuffer, int, int)
+ * add}(<span style="color: brown;">"icon"</span>, pixels, 32, 32);
+ *
+ * <span style="color: darkgreen;">// Draw with the page texture and the UV rectangle.</span>
+ * icon.{@link AtlasRegion#getTexture() getTexture}().{@link Texture#bind() bind}();
+ * float u0 = icon.{@link AtlasRegion#getU0() getU0}(), v0 = icon.{@link AtlasRegion#getV0() getV0}();
+ * </pre>
+ *
+ * <p>
+ * Each page is packed by a {@link RectanglePacker}. An image is
+ * uploaded into its page by glTexSubImage2D(), so adding an image
+ * does not touch the other images. When no page has room, a new
+ * page is created.
+ * </p>
+ *
+ * <p>
+ * Bilinear filtering reads texels next to the edges of an image.
+ * Extrusion repeats the edge pixels outward, and padding leaves
+ * a gap between the extruded images, so that neighbouring images
+ * do not bleed into each other. The UV rectangles of the regions
+ * exclude both. Pages are created with GL_LINEAR filters and
+ * GL_CLAMP_TO_EDGE wrap modes and have no mipmaps.
+ * </p>
+ *
+ * <p>
+ * Methods must be called on the GL thread.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see AtlasRegion
+ * @see RectanglePacker
+ */
+public class TextureAtlas
+{
+    private final int pageWidth;
+    private final int pageHeight;
+    private final PixelFormat format;
+    private int padding;
+    private int extrusion;
+
+
+    private final List<Texture2D> pages = new ArrayList<Texture2D>();
+    private final List<RectanglePacker> packers = new ArrayList<RectanglePacker>();
+    private final Map<String, AtlasRegion> regions = new HashMap<String, AtlasRegion>();
+
+
+    /**
+     * Work area for extruded images.
+     */
+    private ByteBuffer work;
+
+
+    /**
+     * A constructor. No page is created until an image is added.
+     *
+     * @param pageWidth
+     *         The width of a page.
+     *
+     * @param pageHeight
+     *         The height of a page.
+     *
+     * @param format
+     *         The format of the pages and the images.
+     *
+     * @throws IllegalArgumentException
+     *         The size is less than 1 or the format is null.
+     */
+    public TextureAtlas(int pageWidth, int pageHeight, PixelFormat format)
+    {
+        // Check the arguments.
+        if (pageWidth <= 0 || pageHeight <= 0)
+        {
+            throw new IllegalArgumentException("Bad size.");
+        }
+
+        if (format == null)
+        {
+            throw new IllegalArgumentException("format is null.");
+        }
+
+        this.pageWidth  = pageWidth;
+        this.pageHeight = pageHeight;
+        this.format     = format;
+    }
+
+
+    /**
+     * Get the number of pixels left between images.
+     *
+     * @return
+     *         The padding.
+     */
+    public int getPadding()
+    {
+        return padding;
+    }
+
+
+    /**
+     * Set the number of pixels left between images. 0 by default.
+     * This affects images added afterwards.
+     *
+     * @param padding
+     *         The padding.
+     *
+     * @return
+     *         This TextureAtlas object.
+     *
+     * @throws IllegalArgumentException
+     *         The argument is negative.
+     */
+    public TextureAtlas setPadding(int padding)
+    {
+        if (padding < 0)
+        {
+            throw new IllegalArgumentException("padding is negative.");
+        }
+
+        this.padding = padding;
+
+        return this;
+    }
+
+
+    /**
+     * Get the number of pixels by which edges of images are extruded.
+     *
+     * @return
+     *         The extrusion.
+     */
+    public int getExtrusion()
+    {
+        return extrusion;
+    }
+
+
+    /**
+     * Set the number of pixels by which edges of images are extruded.
+     * 0 by default. This affects images added afterwards.
+     *
+     * @param extrusion
+     *         The extrusion.
+     *
+     * @return
+     *         This TextureAtlas object.
+     *
+     * @throws IllegalArgumentException
+     *         The argument is negative.
+     */
+    public TextureAtlas setExtrusion(int extrusion)
+    {
+        if (extrusion < 0)
+        {
+            throw new IllegalArgumentException("extrusion is negative.");
+        }
+
+        this.extrusion = extrusion;
+
+        return this;
+    }
+
+
+    /**
+     * Add an image.
+     *
+     * @param name
+     *         A name of the image, unique in this atlas.
+     *
+     * @param pixels
+     *         Pixels of the image, in the format of this atlas with
+     *         tightly packed rows, from the current position of the
+     *         buffer. The position is not changed.
+     *
+     * @param width
+     *         The width of the image.
+     *
+     * @param height
+     *         The height of the image.
+     *
+     * @return
+     *         The region of the image.
+     *
+     * @throws IllegalArgumentException
+     *         An argument is null or out of range, the name is already
+     *         used, the buffer is too small, or the image (with padding
+     *         and extrusion) is larger than a page.
+     *
+     * @throws GLESException
+     *         Failed to create a new page.
+     */
+    public AtlasRegion add(String name, ByteBuffer pixels, int width, int height) throws GLESException
+    {
+        // Check the arguments.
+        if (name == null || pixels == null)
+        {
+            throw new IllegalArgumentException("name or pixels is null.");
+        }
+
+        if (regions.containsKey(name))
+        {
+            throw new IllegalArgumentException("Already added: " + name);
+        }
+
+        if (width <= 0 || height <= 0 || pixels.remaining() < format.getImageBytes(width, height))
+        {
+            throw new IllegalArgumentException("Bad size.");
+        }
+
+        int outerWidth  = width  + extrusion * 2;
+        int outerHeight = height + extrusion * 2;
+        int reservedWidth  = outerWidth  + padding;
+        int reservedHeight = outerHeight + padding;
+
+        if (pageWidth < outerWidth || pageHeight < outerHeight)
+        {
+            throw new IllegalArgumentException("The image is larger than a page: " + name);
+        }
+
+        // Trailing padding is not needed at the right and bottom edges.
+        reservedWidth  = Math.min(reservedWidth,  pageWidth);
+        reservedHeight = Math.min(reservedHeight, pageHeight);
+
+        int[] position = new int[2];
+        int page = findPage(reservedWidth, reservedHeight, position);
+
+        if (page < 0)
+        {
+            page = createPage();
+            packers.get(page).insert(reservedWidth, reservedHeight, position);
+        }
+
+        Texture2D texture = pages.get(page);
+        ByteBuffer image = (extrusion == 0) ? pixels : extrude(pixels, width, height);
+
+        texture.loadSubImage(image, position[0], position[1], outerWidth, outerHeight, format, 0);
+
+        AtlasRegion region = new AtlasRegion(name, page, texture,
+            position[0] + extrusion, position[1] + extrusion, width, height, pageWidth, pageHeight);
+
+        regions.put(name, region);
+
+        return region;
+    }
+
+
+    /**
+     * Get the region of an image.
+     *
+     * @param name
+     *         The name of the image.
+     *
+     * @return
+     *         The region, or null if not found.
+     */
+    public AtlasRegion get(String name)
+    {
+        return regions.get(name);
+    }
+
+
+    /**
+     * Get the number of images.
+     *
+     * @return
+     *         The number of images.
+     */
+    public int getRegionCount()
+    {
+        return regions.size();
+    }
+
+
+    /**
+     * Get the number of pages.
+     *
+     * @return
+     *         The number of pages.
+     */
+    public int getPageCount()
+    {
+        return pages.size();
+    }
+
+
+    /**
+     * Get the texture of a page.
+     *
+     * @param index
+     *         The index of a page.
+     *
+     * @return
+     *         The texture.
+     */
+    public Texture2D getPage(int index)
+    {
+        return pages.get(index);
+    }
+
+
+    /**
+     * Get the ratio of the area used by images (including padding
+     * and extrusion) to the area of all the pages.
+     *
+     * @return
+     *         The fill ratio, from 0.0 to 1.0. 0.0 if there is no page.
+     */
+    public float getFillRatio()
+    {
+        if (packers.isEmpty())
+        {
+            return 0;
+        }
+
+        long used = 0;
+
+        for (RectanglePacker packer : packers)
+        {
+            used += packer.getUsedArea();
+        }
+
+        return (float)((double)used / ((long)pageWidth * pageHeight * packers.size()));
+    }
+
+
+    /**
+     * Delete all the pages and forget all the images.
+     */
+    public void delete()
+    {
+        for (Texture2D page : pages)
+        {
+            page.delete();
+        }
+
+        pages.clear();
+        packers.clear();
+        regions.clear();
+        work = null;
+    }
+
+
+    private int findPage(int width, int height, int[] position)
+    {
+        for (int i = 0; i < packers.size(); ++i)
+        {
+            if (packers.get(i).insert(width, height, position))
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+
+    private int createPage() throws GLESException
+    {
+        Texture2D texture = new Texture2D()
+            .setMinFilter(MinFilter.LINEAR)
+            .setMagFilter(MagFilter.LINEAR)
+            .setWrapS(WrapMode.CLAMP_TO_EDGE)
+            .setWrapT(WrapMode.CLAMP_TO_EDGE)
+            .allocateImage(pageWidth, pageHeight, format, 0);
+
+        pages.add(texture);
+        packers.add(new RectanglePacker(pageWidth, pageHeight));
+
+        return pages.size() - 1;
+    }
+
+
+    /**
+     * Copy an image into the work area with its edges repeated
+     * by the extrusion.
+     */
+    private ByteBuffer extrude(ByteBuffer pixels, int width, int height)
+    {
+        int bytesPerPixel = format.getBytesPerPixel();
+        int outerWidth  = width  + extrusion * 2;
+        int outerHeight = height + extrusion * 2;
+        int size = outerWidth * outerHeight * bytesPerPixel;
+
+        if (work == null || work.capacity() < size)
+        {
+            work = ByteBuffer.allocateDirect(size);
+        }
+
+        int base = pixels.position();
+
+        work.clear();
+
+        for (int y = 0; y < outerHeight; ++y)
+        {
+            int sourceY = Math.min(Math.max(y - extrusion, 0), height - 1);
+
+            for (int x = 0; x < outerWidth; ++x)
+            {
+                int sourceX = Math.min(Math.max(x - extrusion, 0), width - 1);
+                int index = base + (sourceY * width + sourceX) * bytesPerPixel;
+
+                for (int i = 0; i < bytesPerPixel; ++i)
+                {
+                    work.put(pixels.get(index + i));
+                }
+            }
+        }
+
+        work.flip();
+
+        return work;
+    }
+}
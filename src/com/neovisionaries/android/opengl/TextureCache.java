@@ -0,0 +1,693 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+
+/**
+ * Streaming cache of textures keyed by asset IDs, which loads
+ * textures on demand and evicts least-recently-used ones when the
+ * estimated memory exceeds a budget.
+ *
+ * <pre style="background: lightgray;">
+ * <span style="color: darkgreen;">// <b>E X A M P L E</b></span>
+ *
+ * <span style="color: darkgreen;">// Create a cache with a 64 MB budget once.</span>
+ * {@link TextureCache} cache = new {@link TextureCache#TextureCache(TextureLoader, long)
+ * TextureCache}(loader, 64 * 1024 * 1024)
+ *     .{@link #setPlaceholder(Texture2D) setPlaceholder}(gray);
+ *
+ * <span style="color: darkgreen;">// In onDrawFrame(), load requested textures and evict.</span>
+ * cache.{@link #update() update}();
+ *
+ * <span style="color: darkgreen;">// For each object to draw. The texture may be a low-resolution</span>
+ * <span style="color: darkgreen;">// version or the placeholder until the full one is loaded.</span>
+ * {@link Texture2D} texture = cache.{@link #get(String, float) get}(<span style="color: brown;">"rock_01"</span>, screenArea);
+ * </pre>
+ *
+ * <p>
+ * {@link #get(String, float)} never loads a texture; it only records
+ * the request. {@link #update()} loads at most {@link
+ * #setLoadsPerFrame(int) a number of} requested textures per frame,
+ * the ones with the largest on-screen sizes first, and then deletes
+ * full textures in the least-recently-used order until the memory
+ * held by the cache fits in the budget. If it still does not fit,
+ * low-resolution versions are deleted in the same order, too.
+ * Textures requested in the last frame are never evicted. Assets
+ * which hold no texture and were not requested in the last frame
+ * are forgotten, except ones whose loads failed.
+ * </p>
+ *
+ * <p>
+ * Textures returned from this cache are owned by it, so they must
+ * not be deleted by callers, and they must not be kept across
+ * frames because they may be evicted. All the methods must be
+ * called on the GL thread.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see TextureLoader
+ */
+public class TextureCache
+{
+    /**
+     * The default number of loads per frame.
+     */
+    public static final int DEFAULT_LOADS_PER_FRAME = 2;
+
+
+    private static final Comparator<TextureCacheEntry> PRIORITY_ORDER = new Comparator<TextureCacheEntry>() {
+        @Override
+        public int compare(TextureCacheEntry entry1, TextureCacheEntry entry2)
+        {
+            return Float.compare(entry2.priority, entry1.priority);
+        }
+    };
+
+
+    private final TextureLoader loader;
+
+
+    /**
+     * Entries in the access order, that is, the least-recently-used
+     * entry first.
+     */
+    private final LinkedHashMap<String, TextureCacheEntry> entries =
+        new LinkedHashMap<String, TextureCacheEntry>(16, 0.75f, true);
+
+
+    private final List<TextureCacheEntry> pendingEntries = new ArrayList<TextureCacheEntry>();
+    private Texture2D placeholder;
+    private long budget;
+    private int loadsPerFrame = DEFAULT_LOADS_PER_FRAME;
+    private long frame;
+    private long bytes;
+    private int hitCount;
+    private int missCount;
+    private int loadCount;
+    private int evictionCount;
+
+
+    /**
+     * A constructor.
+     *
+     * @param loader
+     *         A texture loader.
+     *
+     * @param budget
+     *         The budget in bytes.
+     *
+     * @throws IllegalArgumentException
+     *         The loader is null or the budget is negative.
+     */
+    public TextureCache(TextureLoader loader, long budget)
+    {
+        if (loader == null)
+        {
+            throw new IllegalArgumentException("loader is null.");
+        }
+
+        this.loader = loader;
+
+        setBudget(budget);
+    }
+
+
+    /**
+     * Get the budget.
+     *
+     * @return
+     *         The budget in bytes.
+     */
+    public long getBudget()
+    {
+        return budget;
+    }
+
+
+    /**
+     * Set the budget. The new budget is applied by the next {@link
+     * #update()}.
+     *
+     * @param budget
+     *         The budget in bytes.
+     *
+     * @return
+     *         This TextureCache object.
+     *
+     * @throws IllegalArgumentException
+     *         The budget is negative.
+     */
+    public TextureCache setBudget(long budget)
+    {
+        if (budget < 0)
+        {
+            throw new IllegalArgumentException("budget is negative.");
+        }
+
+        this.budget = budget;
+
+        return this;
+    }
+
+
+    /**
+     * Get the texture served when neither the full texture nor a
+     * low-resolution version is resident.
+     *
+     * @return
+     *         The placeholder. May be null.
+     */
+    public Texture2D getPlaceholder()
+    {
+        return placeholder;
+    }
+
+
+    /**
+     * Set a texture served when neither the full texture nor a
+     * low-resolution version is resident. The placeholder is not
+     * owned by this cache.
+     *
+     * @param placeholder
+     *         A texture. May be null.
+     *
+     * @return
+     *         This TextureCache object.
+     */
+    public TextureCache setPlaceholder(Texture2D placeholder)
+    {
+        this.placeholder = placeholder;
+
+        return this;
+    }
+
+
+    /**
+     * Get the maximum number of loads per {@link #update()}.
+     *
+     * @return
+     *         The maximum number of loads per frame.
+     */
+    public int getLoadsPerFrame()
+    {
+        return loadsPerFrame;
+    }
+
+
+    /**
+     * Set the maximum number of loads per {@link #update()}. Loading
+     * a low-resolution version counts as a load. The default value
+     * is {@link #DEFAULT_LOADS_PER_FRAME}.
+     *
+     * @param count
+     *         The maximum number of loads per frame.
+     *
+     * @return
+     *         This TextureCache object.
+     *
+     * @throws IllegalArgumentException
+     *         The argument is less than 1.
+     */
+    public TextureCache setLoadsPerFrame(int count)
+    {
+        if (count < 1)
+        {
+            throw new IllegalArgumentException("count must be greater than 0.");
+        }
+
+        this.loadsPerFrame = count;
+
+        return this;
+    }
+
+
+    /**
+     * Get the texture of an asset. Same as {@link #get(String, float)
+     * get}(id, 0).
+     *
+     * @param id
+     *         The asset ID.
+     *
+     * @return
+     *         The texture to draw with. May be null if no placeholder
+     *         is set.
+     */
+    public Texture2D get(String id)
+    {
+        return get(id, 0);
+    }
+
+
+    /**
+     * Get the texture of an asset. If the full texture is not
+     * resident, it is requested to be loaded by {@link #update()},
+     * and a low-resolution version or {@link #setPlaceholder(Texture2D)
+     * the placeholder} is returned.
+     *
+     * @param id
+     *         The asset ID.
+     *
+     * @param screenSize
+     *         The on-screen size of the object drawn with the texture,
+     *         e.g. the projected area in pixels. Requests with larger
+     *         sizes are loaded first.
+     *
+     * @return
+     *         The texture to draw with. May be null if no placeholder
+     *         is set.
+     *
+     * @throws IllegalArgumentException
+     *         The ID is null.
+     */
+    public Texture2D get(String id, float screenSize)
+    {
+        if (id == null)
+        {
+            throw new IllegalArgumentException("id is null.");
+        }
+
+        TextureCacheEntry entry = entries.get(id);
+
+        if (entry == null)
+        {
+            entry = new TextureCacheEntry(id);
+            entries.put(id, entry);
+        }
+
+        entry.lastUsedFrame = frame;
+
+        if (entry.texture != null)
+        {
+            ++hitCount;
+            return entry.texture;
+        }
+
+        ++missCount;
+
+        if (entry.failed == false)
+        {
+            entry.priority = Math.max(entry.priority, screenSize);
+
+            if (entry.pending == false)
+            {
+                entry.pending = true;
+                pendingEntries.add(entry);
+            }
+        }
+
+        return (entry.lowResolution != null) ? entry.lowResolution : placeholder;
+    }
+
+
+    /**
+     * Check if the full texture of an asset is resident.
+     *
+     * @param id
+     *         The asset ID.
+     *
+     * @return
+     *         True if the full texture is resident.
+     */
+    public boolean isResident(String id)
+    {
+        // Not entries.get(), which would change the access order.
+        for (TextureCacheEntry entry : entries.values())
+        {
+            if (entry.id.equals(id))
+            {
+                return entry.texture != null;
+            }
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Load requested textures and evict least-recently-used ones.
+     * Call this method once per frame, before {@link #get(String,
+     * float)} calls of the frame.
+     *
+     * @throws GLESException
+     *         The loader failed. The asset is not requested again
+     *         until it is {@link #remove(String) removed}.
+     */
+    public void update() throws GLESException
+    {
+        try
+        {
+            load();
+        }
+        finally
+        {
+            evict();
+
+            ++frame;
+        }
+    }
+
+
+    private void load() throws GLESException
+    {
+        // Forget requests which were not repeated in the last frame.
+        for (Iterator<TextureCacheEntry> it = pendingEntries.iterator(); it.hasNext(); )
+        {
+            TextureCacheEntry entry = it.next();
+
+            if (entry.lastUsedFrame != frame || entry.texture != null || entry.failed)
+            {
+                entry.pending  = false;
+                entry.priority = 0;
+                it.remove();
+            }
+        }
+
+        Collections.sort(pendingEntries, PRIORITY_ORDER);
+
+        // One step per entry, in descending order of priority.
+        int loads = 0;
+
+        for (Iterator<TextureCacheEntry> it = pendingEntries.iterator(); it.hasNext() && loads < loadsPerFrame; )
+        {
+            TextureCacheEntry entry = it.next();
+
+            ++loads;
+            ++loadCount;
+
+            try
+            {
+                if (entry.lowResolutionLoaded == false)
+                {
+                    // The low-resolution version first, which is cheap.
+                    entry.lowResolutionLoaded = true;
+                    entry.lowResolution = loader.loadLowResolution(entry.id);
+                    continue;
+                }
+
+                entry.texture = loader.load(entry.id);
+
+                // A loader without a texture is treated as a failure.
+                entry.failed = (entry.texture == null);
+            }
+            catch (GLESException e)
+            {
+                entry.failed = true;
+                throw e;
+            }
+            finally
+            {
+                if (entry.texture != null || entry.failed)
+                {
+                    entry.pending  = false;
+                    entry.priority = 0;
+                    it.remove();
+                }
+            }
+        }
+
+        // Priorities are recomputed from the requests of the next frame.
+        for (TextureCacheEntry entry : pendingEntries)
+        {
+            entry.priority = 0;
+        }
+    }
+
+
+    private void evict()
+    {
+        bytes = computeBytes();
+
+        // Full textures, the least-recently-used entry first.
+        for (TextureCacheEntry entry : entries.values())
+        {
+            if (bytes <= budget)
+            {
+                break;
+            }
+
+            if (entry.texture == null || entry.lastUsedFrame == frame)
+            {
+                continue;
+            }
+
+            bytes -= entry.texture.getAllocatedBytes();
+            entry.texture.delete();
+            entry.texture = null;
+
+            ++evictionCount;
+        }
+
+        // Low-resolution versions in the same order, and entries
+        // which hold nothing. Entries not requested in the last frame
+        // are not pending because load() has dropped their requests.
+        for (Iterator<TextureCacheEntry> it = entries.values().iterator(); it.hasNext(); )
+        {
+            TextureCacheEntry entry = it.next();
+
+            if (entry.texture != null || entry.lastUsedFrame == frame)
+            {
+                continue;
+            }
+
+            if (entry.lowResolution != null)
+            {
+                if (bytes <= budget)
+                {
+                    continue;
+                }
+
+                bytes -= entry.lowResolution.getAllocatedBytes();
+                entry.lowResolution.delete();
+                entry.lowResolution = null;
+
+                // Load it again first when the asset is requested again.
+                entry.lowResolutionLoaded = false;
+
+                ++evictionCount;
+            }
+
+            // Failed assets are remembered so as not to be loaded again.
+            if (entry.failed == false)
+            {
+                it.remove();
+            }
+        }
+    }
+
+
+    private long computeBytes()
+    {
+        long total = 0;
+
+        for (TextureCacheEntry entry : entries.values())
+        {
+            total += entry.getBytes();
+        }
+
+        return total;
+    }
+
+
+    /**
+     * Delete the textures of an asset and forget it.
+     *
+     * @param id
+     *         The asset ID.
+     */
+    public void remove(String id)
+    {
+        TextureCacheEntry entry = entries.remove(id);
+
+        if (entry == null)
+        {
+            return;
+        }
+
+        if (entry.pending)
+        {
+            pendingEntries.remove(entry);
+        }
+
+        delete(entry);
+
+        bytes = computeBytes();
+    }
+
+
+    /**
+     * Delete all the textures owned by this cache.
+     */
+    public void clear()
+    {
+        for (TextureCacheEntry entry : entries.values())
+        {
+            delete(entry);
+        }
+
+        entries.clear();
+        pendingEntries.clear();
+        bytes = 0;
+    }
+
+
+    /**
+     * Forget all the textures without deleting them, because they
+     * belonged to a GL context which has been lost. Call this method
+     * in onSurfaceCreated(). Assets requested again are reloaded.
+     */
+    public void invalidate()
+    {
+        entries.clear();
+        pendingEntries.clear();
+        bytes = 0;
+    }
+
+
+    private static void delete(TextureCacheEntry entry)
+    {
+        if (entry.texture != null)
+        {
+            entry.texture.delete();
+            entry.texture = null;
+        }
+
+        if (entry.lowResolution != null)
+        {
+            entry.lowResolution.delete();
+            entry.lowResolution = null;
+            entry.lowResolutionLoaded = false;
+        }
+    }
+
+
+    /**
+     * Get the estimated number of bytes held by this cache as of
+     * the last {@link #update()}.
+     *
+     * @return
+     *         The estimated number of bytes.
+     */
+    public long getBytes()
+    {
+        return bytes;
+    }
+
+
+    /**
+     * Get the number of assets whose full textures are resident.
+     *
+     * @return
+     *         The number of resident textures.
+     */
+    public int getResidentCount()
+    {
+        int count = 0;
+
+        for (TextureCacheEntry entry : entries.values())
+        {
+            if (entry.texture != null)
+            {
+                ++count;
+            }
+        }
+
+        return count;
+    }
+
+
+    /**
+     * Get the number of requested assets waiting to be loaded.
+     *
+     * @return
+     *         The number of pending requests.
+     */
+    public int getPendingCount()
+    {
+        return pendingEntries.size();
+    }
+
+
+    /**
+     * Get the number of {@link #get(String, float)} calls which
+     * returned the full texture.
+     *
+     * @return
+     *         The number of hits.
+     */
+    public int getHitCount()
+    {
+        return hitCount;
+    }
+
+
+    /**
+     * Get the number of {@link #get(String, float)} calls which
+     * returned a low-resolution version or the placeholder.
+     *
+     * @return
+     *         The number of misses.
+     */
+    public int getMissCount()
+    {
+        return missCount;
+    }
+
+
+    /**
+     * Get the number of calls of the loader.
+     *
+     * @return
+     *         The number of loads.
+     */
+    public int getLoadCount()
+    {
+        return loadCount;
+    }
+
+
+    /**
+     * Get the number of textures evicted, including low-resolution
+     * versions.
+     *
+     * @return
+     *         The number of evictions.
+     */
+    public int getEvictionCount()
+    {
+        return evictionCount;
+    }
+
+
+    /**
+     * Reset the hit, miss, load and eviction counts to 0.
+     */
+    public void resetStatistics()
+    {
+        hitCount      = 0;
+        missCount     = 0;
+        loadCount     = 0;
+        evictionCount = 0;
+    }
+}
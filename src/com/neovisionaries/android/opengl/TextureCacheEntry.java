@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+/**
+ * An asset managed by {@link TextureCache}.
+ *
+ * @author Takahiko Kawasaki
+ */
+final class TextureCacheEntry
+{
+    final String id;
+
+
+    /**
+     * The full texture, or null if it is not resident.
+     */
+    Texture2D texture;
+
+
+    /**
+     * The low-resolution texture, or null.
+     */
+    Texture2D lowResolution;
+
+
+    boolean lowResolutionLoaded;
+    boolean failed;
+    boolean pending;
+
+
+    /**
+     * The frame in which the asset was requested last.
+     */
+    long lastUsedFrame;
+
+
+    /**
+     * The largest on-screen size with which the asset has been
+     * requested since the last {@link TextureCache#update()}.
+     */
+    float priority;
+
+
+    TextureCacheEntry(String id)
+    {
+        this.id = id;
+    }
+
+
+    long getBytes()
+    {
+        long bytes = 0;
+
+        if (texture != null)
+        {
+            bytes += texture.getAllocatedBytes();
+        }
+
+        if (lowResolution != null)
+        {
+            bytes += lowResolution.getAllocatedBytes();
+        }
+
+        return bytes;
+    }
+}
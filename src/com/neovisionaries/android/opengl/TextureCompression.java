@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Utility to choose the best compressed texture format supported by
+ * the device.
+ *
+ * <pre style="background: lightgray;">
+ * <span style="color: darkgreen;">// <b>E X A M P L E</b></span>
+ *
+ * <span style="color: darkgreen;">// An asset bundle has variants of the same texture:</span>
+ * <span style="color: darkgreen;">//   stone.astc.ktx, stone.dxt.ktx, stone.pvrtc.ktx, stone.etc1.pkm</span>
+ * {@link CompressedImage} image = {@link TextureCompression}.{@link
+ * #openBest(File, String) openBest}(bundleDir, <span style="color: brown;">"stone"</span>);
+ *
+ * if (image != null)
+ * {
+ *     texture.{@link Texture2D#loadCompressedImage(CompressedImage) loadCompressedImage}(image);
+ * }
+ * </pre>
+ *
+ * <p>
+ * The preference is the declaration order of {@link CompressedFormat}:
+ * ASTC, S3TC, PVRTC, ATC and then ETC1. Formats are judged from the
+ * headers of the files, not from their names. Extensions are checked
+ * with {@link Extension#isSupported()}, so methods of this class must
+ * be called after a GL context has been created.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see CompressedFormat
+ * @see CompressedImage
+ */
+public final class TextureCompression
+{
+    private TextureCompression()
+    {
+    }
+
+
+    /**
+     * Get the compressed formats supported by the device.
+     *
+     * @return
+     *         Supported formats in the order of preference.
+     */
+    public static List<CompressedFormat> getSupportedFormats()
+    {
+        List<CompressedFormat> list = new ArrayList<CompressedFormat>();
+
+        for (CompressedFormat format : CompressedFormat.values())
+        {
+            if (format.isSupported())
+            {
+                list.add(format);
+            }
+        }
+
+        return list;
+    }
+
+
+    /**
+     * Select the best supported format among candidates.
+     *
+     * @param candidates
+     *         Formats available. Null elements are ignored.
+     *
+     * @return
+     *         The most preferred supported format, or null if none
+     *         of the candidates is supported.
+     */
+    public static CompressedFormat select(CompressedFormat... candidates)
+    {
+        CompressedFormat best = null;
+
+        if (candidates == null)
+        {
+            return null;
+        }
+
+        for (CompressedFormat format : candidates)
+        {
+            if (format != null && isBetter(format, best))
+            {
+                best = format;
+            }
+        }
+
+        return best;
+    }
+
+
+    /**
+     * Select the file of the best supported format among candidates.
+     * Only the headers of the files are read.
+     *
+     * @param candidates
+     *         KTX or PKM files. Files which cannot be read or have an
+     *         unknown format are ignored.
+     *
+     * @return
+     *         The file of the most preferred supported format, or null
+     *         if none of the candidates is supported.
+     */
+    public static File selectFile(File... candidates)
+    {
+        File bestFile = null;
+        CompressedFormat best = null;
+
+        if (candidates == null)
+        {
+            return null;
+        }
+
+        for (File file : candidates)
+        {
+            CompressedFormat format = readFormat(file);
+
+            if (format != null && isBetter(format, best))
+            {
+                best     = format;
+                bestFile = file;
+            }
+        }
+
+        return bestFile;
+    }
+
+
+    /**
+     * Select the best variant of a texture in a directory. Variants
+     * are files whose names start with {@code baseName + "."} and end
+     * with {@code ".ktx"} or {@code ".pkm"}.
+     *
+     * @param directory
+     *         A directory of an asset bundle.
+     *
+     * @param baseName
+     *         The base name of the texture.
+     *
+     * @return
+     *         The file of the most preferred supported format, or null
+     *         if no variant is supported.
+     *
+     * @throws IllegalArgumentException
+     *         An argument is null.
+     */
+    public static File selectFile(File directory, String baseName)
+    {
+        // Check the arguments.
+        if (directory == null || baseName == null)
+        {
+            throw new IllegalArgumentException("directory or baseName is null.");
+        }
+
+        String[] names = directory.list();
+
+        if (names == null)
+        {
+            return null;
+        }
+
+        List<File> candidates = new ArrayList<File>();
+
+        for (String name : names)
+        {
+            if (name.startsWith(baseName + ".") && (name.endsWith(".ktx") || name.endsWith(".pkm")))
+            {
+                candidates.add(new File(directory, name));
+            }
+        }
+
+        return selectFile(candidates.toArray(new File[candidates.size()]));
+    }
+
+
+    /**
+     * Select the best variant of a texture in a directory by {@link
+     * #selectFile(File, String)} and open it by {@link
+     * CompressedImage#open(File)}.
+     *
+     * @param directory
+     *         A directory of an asset bundle.
+     *
+     * @param baseName
+     *         The base name of the texture.
+     *
+     * @return
+     *         The image, or null if no variant is supported.
+     *
+     * @throws IllegalArgumentException
+     *         An argument is null.
+     *
+     * @throws IOException
+     *         Failed to open the selected file.
+     */
+    public static CompressedImage openBest(File directory, String baseName) throws IOException
+    {
+        File file = selectFile(directory, baseName);
+
+        return (file == null) ? null : CompressedImage.open(file);
+    }
+
+
+    private static boolean isBetter(CompressedFormat format, CompressedFormat best)
+    {
+        if (best != null && best.ordinal() <= format.ordinal())
+        {
+            return false;
+        }
+
+        return format.isSupported();
+    }
+
+
+    private static CompressedFormat readFormat(File file)
+    {
+        if (file == null)
+        {
+            return null;
+        }
+
+        try
+        {
+            return CompressedImage.readFormat(file);
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+    }
+}
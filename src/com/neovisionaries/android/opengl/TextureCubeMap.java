@@ -16,6 +16,7 @@
 package com.neovisionaries.android.opengl;
 
 
+import java.nio.ByteBuffer;
 import android.graphics.Bitmap;
 
 
@@ -60,12 +61,22 @@ public class TextureCubeMap extends Texture<TextureCubeMap>
      * @return
      *         True if this cube map texture is bound.
      *
+     * <p>
+     * If {@link TextureUnitManager} is enabled, the state shadowed by
+     * the manager is checked instead, so no GL query is made.
+     * </p>
+     *
      * @see GLESState#getActiveTexture()
      * @see GLESState#getTextureBindingCubeMap()
      */
     @Override
     public boolean isBound()
     {
+        if (TextureUnitManager.isEnabled())
+        {
+            return TextureUnitManager.isBound(this);
+        }
+
         if (GLESState.getActiveTexture() == getNativeTextureUnit() &&
             GLESState.getTextureBindingCubeMap() == getId())
         {
@@ -75,7 +86,7 @@ public class TextureCubeMap extends Texture<TextureCubeMap>
         else
         {
             // This texture is not bound.
-            return true;
+            return false;
         }
     }
 
@@ -129,4 +140,325 @@ public class TextureCubeMap extends Texture<TextureCubeMap>
     {
         return loadImage(bitmap, 0, side);
     }
+
+
+    /**
+     * Load an image from a buffer of uncompressed pixels.
+     *
+     * <p>
+     * If this texture is not bound when this method is called,
+     * {@link #bind() bind()} is called first. Then, glTexImage2D()
+     * is called with the pixels. No {@code Bitmap} is involved, so
+     * the buffer can be a direct buffer written by a decoder or a
+     * memory-mapped file. The rows must be tightly packed;
+     * GL_UNPACK_ALIGNMENT is adjusted temporarily if needed.
+     * </p>
+     *
+     * @param pixels
+     *         Pixels from the current position of the buffer.
+     *         The position is not changed.
+     *
+     * @param width
+     *         The width of the image.
+     *
+     * @param height
+     *         The height of the image.
+     *
+     * @param format
+     *         The format of the pixels.
+     *
+     * @param level
+     *         Mipmap level.
+     *
+     * @param side
+     *         Cube side.
+     *
+     * @return
+     *         This Texture object.
+     *
+     * @throws IllegalArgumentException
+     *         An argument is null or out of range, or the buffer has
+     *         less than width * height * bytes-per-pixel bytes remaining.
+     *
+     * @throws IllegalStateException
+     *         This texture has already been deleted.
+     *
+     * @see <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glTexImage2D.xml">glTexImage2D</a>
+     */
+    public TextureCubeMap loadImage(ByteBuffer pixels, int width, int height, PixelFormat format, int level, CubeSide side)
+    {
+        if (side == null)
+        {
+            throw new IllegalArgumentException("side is null.");
+        }
+
+        return super.loadImage(side.getSide(), pixels, width, height, format, level);
+    }
+
+
+    /**
+     * This method is an alias of {@link #loadImage(ByteBuffer, int, int,
+     * PixelFormat, int, CubeSide) loadImage}(pixels, width, height, format, 0, side).
+     */
+    public TextureCubeMap loadImage(ByteBuffer pixels, int width, int height, PixelFormat format, CubeSide side)
+    {
+        return loadImage(pixels, width, height, format, 0, side);
+    }
+
+
+    /**
+     * Replace a part of an image with uncompressed pixels.
+     *
+     * <p>
+     * If this texture is not bound when this method is called,
+     * {@link #bind() bind()} is called first. Then, glTexSubImage2D()
+     * is called with the pixels.
+     * </p>
+     *
+     * @param pixels
+     *         Pixels from the current position of the buffer.
+     *         The position is not changed.
+     *
+     * @param x
+     *         The X offset in the image.
+     *
+     * @param y
+     *         The Y offset in the image.
+     *
+     * @param width
+     *         The width of the region.
+     *
+     * @param height
+     *         The height of the region.
+     *
+     * @param format
+     *         The format of the pixels, which must match the format
+     *         of the image.
+     *
+     * @param level
+     *         Mipmap level.
+     *
+     * @param side
+     *         Cube side.
+     *
+     * @return
+     *         This Texture object.
+     *
+     * @throws IllegalArgumentException
+     *         An argument is null or out of range, or the buffer has
+     *         less than width * height * bytes-per-pixel bytes remaining.
+     *
+     * @throws IllegalStateException
+     *         This texture has already been deleted.
+     *
+     * @see <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glTexSubImage2D.xml">glTexSubImage2D</a>
+     */
+    public TextureCubeMap loadSubImage(ByteBuffer pixels, int x, int y, int width, int height, PixelFormat format, int level, CubeSide side)
+    {
+        if (side == null)
+        {
+            throw new IllegalArgumentException("side is null.");
+        }
+
+        return super.loadSubImage(side.getSide(), pixels, x, y, width, height, format, level);
+    }
+
+
+    /**
+     * Load a compressed image.
+     *
+     * <p>
+     * If this texture is not bound when this method is called,
+     * {@link #bind() bind()} is called first. Then,
+     * glCompressedTexImage2D() is called with the data.
+     * </p>
+     *
+     * @param data
+     *         Compressed data from the current position of the buffer.
+     *         The position is not changed.
+     *
+     * @param width
+     *         The width of the image.
+     *
+     * @param height
+     *         The height of the image.
+     *
+     * @param format
+     *         The format of the data.
+     *
+     * @param level
+     *         Mipmap level.
+     *
+     * @param side
+     *         Cube side.
+     *
+     * @return
+     *         This Texture object.
+     *
+     * @throws IllegalArgumentException
+     *         An argument is null or out of range, or the buffer has
+     *         less bytes remaining than {@link CompressedFormat#getImageSize(int, int)
+     *         format.getImageSize}(width, height).
+     *
+     * @throws IllegalStateException
+     *         This texture has already been deleted.
+     *
+     * @see <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glCompressedTexImage2D.xml">glCompressedTexImage2D</a>
+     */
+    public TextureCubeMap loadCompressedImage(ByteBuffer data, int width, int height, CompressedFormat format, int level, CubeSide side)
+    {
+        if (side == null)
+        {
+            throw new IllegalArgumentException("side is null.");
+        }
+
+        return super.loadCompressedImage(side.getSide(), data, width, height, format, level);
+    }
+
+
+    /**
+     * Replace a part of a compressed image.
+     *
+     * <p>
+     * If this texture is not bound when this method is called,
+     * {@link #bind() bind()} is called first. Then,
+     * glCompressedTexSubImage2D() is called with the data. The
+     * region must be aligned to the blocks of the format.
+     * </p>
+     *
+     * @param data
+     *         Compressed data from the current position of the buffer.
+     *         The position is not changed.
+     *
+     * @param x
+     *         The X offset in the image.
+     *
+     * @param y
+     *         The Y offset in the image.
+     *
+     * @param width
+     *         The width of the region.
+     *
+     * @param height
+     *         The height of the region.
+     *
+     * @param format
+     *         The format of the data, which must match the format
+     *         of the image.
+     *
+     * @param level
+     *         Mipmap level.
+     *
+     * @param side
+     *         Cube side.
+     *
+     * @return
+     *         This Texture object.
+     *
+     * @throws IllegalArgumentException
+     *         An argument is null or out of range, or the buffer has
+     *         less bytes remaining than {@link CompressedFormat#getImageSize(int, int)
+     *         format.getImageSize}(width, height).
+     *
+     * @throws IllegalStateException
+     *         This texture has already been deleted.
+     *
+     * @see <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glCompressedTexSubImage2D.xml">glCompressedTexSubImage2D</a>
+     */
+    public TextureCubeMap loadCompressedSubImage(ByteBuffer data, int x, int y, int width, int height, CompressedFormat format, int level, CubeSide side)
+    {
+        if (side == null)
+        {
+            throw new IllegalArgumentException("side is null.");
+        }
+
+        return super.loadCompressedSubImage(side.getSide(), data, x, y, width, height, format, level);
+    }
+
+
+    /**
+     * Load all the mipmap levels of all the faces of a compressed image.
+     *
+     * @param image
+     *         A compressed image with 6 faces.
+     *
+     * @return
+     *         This Texture object.
+     *
+     * @throws IllegalArgumentException
+     *         The image is null or not a cube map.
+     *
+     * @throws IllegalStateException
+     *         This texture has already been deleted.
+     *
+     * @see CompressedImage
+     */
+    public TextureCubeMap loadCompressedImage(CompressedImage image)
+    {
+        if (image == null || image.getFaceCount() != 6)
+        {
+            throw new IllegalArgumentException("image is null or not a cube map.");
+        }
+
+        CubeSide[] sides = CubeSide.values();
+
+        for (int level = 0; level < image.getLevelCount(); ++level)
+        {
+            for (int face = 0; face < 6; ++face)
+            {
+                loadCompressedImage(image.getImage(level, face),
+                    image.getWidth(level), image.getHeight(level), image.getFormat(), level, sides[face]);
+            }
+        }
+
+        return this;
+    }
+
+
+    /**
+     * Allocate the storage of an image without specifying its content.
+     * The content is undefined until it is written by loadSubImage()
+     * or by rendering.
+     *
+     * <p>
+     * If this texture is not bound when this method is called,
+     * {@link #bind() bind()} is called first. Then, glTexImage2D()
+     * is called with null pixels.
+     * </p>
+     *
+     * @param width
+     *         The width of the image.
+     *
+     * @param height
+     *         The height of the image.
+     *
+     * @param format
+     *         The format of the image.
+     *
+     * @param level
+     *         Mipmap level.
+     *
+     * @param side
+     *         Cube side.
+     *
+     * @return
+     *         This Texture object.
+     *
+     * @throws IllegalArgumentException
+     *         An argument is null or out of range.
+     *
+     * @throws IllegalStateException
+     *         This texture has already been deleted.
+     *
+     * @see <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glTexImage2D.xml">glTexImage2D</a>
+     */
+    public TextureCubeMap allocateImage(int width, int height, PixelFormat format, int level, CubeSide side)
+    {
+        if (side == null)
+        {
+            throw new IllegalArgumentException("side is null.");
+        }
+
+        return super.allocateImage(side.getSide(), width, height, format, level);
+    }
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+/**
+ * Loader of textures used by {@link TextureCache}.
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see TextureCache#TextureCache(TextureLoader, long)
+ */
+public interface TextureLoader
+{
+    /**
+     * Load the full texture of an asset. Called on the GL thread.
+     *
+     * @param id
+     *         The asset ID.
+     *
+     * @return
+     *         The texture.
+     *
+     * @throws GLESException
+     *         The texture could not be created.
+     */
+    Texture2D load(String id) throws GLESException;
+
+
+    /**
+     * Load a low-resolution version of an asset (e.g. a small mip
+     * level), which is served until the full texture is loaded and
+     * after it has been evicted. Called on the GL thread.
+     *
+     * @param id
+     *         The asset ID.
+     *
+     * @return
+     *         The texture, or null if no low-resolution version is
+     *         available, in which case {@link
+     *         TextureCache#setPlaceholder(Texture2D) the placeholder}
+     *         is served.
+     *
+     * @throws GLESException
+     *         The texture could not be created.
+     */
+    Texture2D loadLowResolution(String id) throws GLESException;
+}
@@ -0,0 +1,434 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+
+/**
+ * Manager which assigns texture units to textures automatically and
+ * keeps track of the textures bound to each unit, so that textures
+ * which are still bound are not bound again.
+ *
+ * <pre style="background: lightgray;">
+ * <span style="color: darkgreen;">// <b>E X A M P L E</b></span>
+ *
+ * <span style="color: darkgreen;">// Once, e.g. in onSurfaceCreated().</span>
+ * {@link TextureUnitManager}.{@link #setEnabled(boolean) setEnabled}(true);
+ *
+ * <span style="color: darkgreen;">// Per draw. No need to call setUnit() or bind().</span>
+ * s_diffuse.{@link Sampler#set(Texture) set}(diffuseTexture);
+ * s_normal.{@link Sampler#set(Texture) set}(normalTexture);
+ * </pre>
+ *
+ * <p>
+ * While the manager is enabled, {@link Texture#bind()} asks it for
+ * a unit. If the texture is still bound to a unit, no glBindTexture()
+ * is made; at most glActiveTexture() is called to make the unit
+ * active. Otherwise, the texture is bound to the unit it was last
+ * assigned by {@link Texture#setUnit(int)}, or, if the unit has
+ * never been set, to the least-recently-used unit. {@link
+ * Sampler#set(Texture)} binds the texture in the same way and then
+ * sets the assigned unit to the sampler.
+ * </p>
+ *
+ * <p>
+ * Units set by {@link Texture#setUnit(int)} are reserved for such
+ * textures until a new context is created; units are never assigned
+ * automatically to other textures there, so explicit and automatic
+ * units can be mixed without two samplers sharing a unit.
+ * </p>
+ *
+ * <p>
+ * The manager shadows GL_ACTIVE_TEXTURE and the texture bindings,
+ * so textures must not be bound by direct GL calls while it is
+ * enabled. The state belongs to the current GL context and is
+ * cleared when a new context is created ({@link GLESRenderer}
+ * calls {@link #onContextCreated()}). All the methods must be
+ * called on the GL thread.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public final class TextureUnitManager
+{
+    private static boolean enabled;
+
+
+    /**
+     * The value of GL_MAX_TEXTURE_IMAGE_UNITS. 0 if not queried yet.
+     */
+    private static int maxUnits;
+
+
+    /**
+     * The shadow of GL_ACTIVE_TEXTURE as a unit number (starting from
+     * 0). -1 if unknown.
+     */
+    private static int activeUnit = -1;
+
+
+    /**
+     * Textures bound to each unit. Index 0 is GL_TEXTURE_2D and index
+     * 1 is GL_TEXTURE_CUBE_MAP.
+     */
+    private static Texture<?>[][] residents = new Texture<?>[2][0];
+
+
+    /**
+     * The clock value when each unit was used last.
+     */
+    private static long[] lastUsed = new long[0];
+    private static long clock;
+
+
+    /**
+     * Units reserved by {@link Texture#setUnit(int)}. Kept across
+     * {@link #setEnabled(boolean)} because the units of textures
+     * are set before or after the manager is enabled.
+     */
+    private static boolean[] pinned = new boolean[0];
+
+
+    /**
+     * Textures passed to {@link Texture#deleteLater()}, possibly on
+     * other threads. They are forgotten by {@link #drain()} on the
+     * GL thread.
+     */
+    private static final ConcurrentLinkedQueue<Texture<?>> deletedLater = new ConcurrentLinkedQueue<Texture<?>>();
+
+
+    private static int bindCount;
+    private static int hitCount;
+    private static int activeTextureCount;
+
+
+    private TextureUnitManager()
+    {
+    }
+
+
+    /**
+     * Check if the manager is enabled.
+     *
+     * @return
+     *         True if the manager is enabled.
+     */
+    public static boolean isEnabled()
+    {
+        return enabled;
+    }
+
+
+    /**
+     * Enable or disable the manager. Disabled by default. Changing
+     * the setting forgets the shadowed state.
+     *
+     * @param enabled
+     *         True to enable the manager.
+     */
+    public static void setEnabled(boolean enabled)
+    {
+        TextureUnitManager.enabled = enabled;
+
+        forget();
+    }
+
+
+    /**
+     * Get the number of texture units, that is, the value of
+     * GL_MAX_TEXTURE_IMAGE_UNITS. The value is queried only once
+     * per GL context.
+     *
+     * @return
+     *         The number of texture units.
+     */
+    public static int getMaxUnits()
+    {
+        if (maxUnits == 0)
+        {
+            maxUnits = GLESState.getMaxTextureImageUnits();
+        }
+
+        return maxUnits;
+    }
+
+
+    /**
+     * Get the number of glBindTexture() calls made by the manager.
+     *
+     * @return
+     *         The number of binds.
+     */
+    public static int getBindCount()
+    {
+        return bindCount;
+    }
+
+
+    /**
+     * Get the number of bind requests for textures which were still
+     * bound, that is, glBindTexture() calls saved.
+     *
+     * @return
+     *         The number of hits.
+     */
+    public static int getHitCount()
+    {
+        return hitCount;
+    }
+
+
+    /**
+     * Get the number of glActiveTexture() calls made by the manager.
+     *
+     * @return
+     *         The number of glActiveTexture() calls.
+     */
+    public static int getActiveTextureCount()
+    {
+        return activeTextureCount;
+    }
+
+
+    /**
+     * Reset the bind, hit and glActiveTexture() counts to 0.
+     */
+    public static void resetStatistics()
+    {
+        bindCount          = 0;
+        hitCount           = 0;
+        activeTextureCount = 0;
+    }
+
+
+    /**
+     * Forget the shadowed state because it belonged to a GL context
+     * which has been lost. {@link GLESRenderer} calls this method
+     * before onSurfaceCreated(GLES, EGLConfig).
+     */
+    public static void onContextCreated()
+    {
+        maxUnits = 0;
+        pinned   = new boolean[0];
+
+        forget();
+    }
+
+
+    private static void forget()
+    {
+        activeUnit = -1;
+        residents  = new Texture<?>[2][0];
+        lastUsed   = new long[0];
+
+        deletedLater.clear();
+    }
+
+
+    /**
+     * Bind a texture to a unit unless it is still bound, and make
+     * the unit active. Called by {@link Texture#bind()} when the
+     * manager is enabled.
+     *
+     * @return
+     *         The unit to which the texture is bound.
+     */
+    static int bind(Texture<?> texture)
+    {
+        ensureCapacity();
+
+        Texture<?>[] bound = residents[getTargetIndex(texture)];
+        int unit = texture.getUnit();
+
+        if (bound[unit] == texture)
+        {
+            // Still bound.
+            activate(unit);
+
+            ++hitCount;
+        }
+        else
+        {
+            if (texture.isUnitAssigned() == false)
+            {
+                // Evict the least-recently-used unit.
+                unit = findLeastRecentlyUsedUnit();
+                texture.assignUnit(unit);
+            }
+
+            activate(unit);
+            GLESFactory.getInstance().glBindTexture(texture.getType().getType(), texture.getId());
+            bound[unit] = texture;
+
+            ++bindCount;
+        }
+
+        lastUsed[unit] = ++clock;
+
+        return unit;
+    }
+
+
+    /**
+     * Reserve a unit for textures whose unit is set explicitly.
+     * Called by {@link Texture#setUnit(int)}.
+     */
+    static void pin(int unit)
+    {
+        if (pinned.length <= unit)
+        {
+            boolean[] newPinned = new boolean[getMaxUnits()];
+            System.arraycopy(pinned, 0, newPinned, 0, pinned.length);
+            pinned = newPinned;
+        }
+
+        if (pinned[unit])
+        {
+            return;
+        }
+
+        pinned[unit] = true;
+
+        // A texture assigned automatically to the unit must move
+        // to another unit at its next bind.
+        for (int i = 0; i < residents.length; ++i)
+        {
+            Texture<?>[] bound = residents[i];
+
+            if (unit < bound.length && bound[unit] != null && bound[unit].isUnitAssigned() == false)
+            {
+                bound[unit] = null;
+            }
+        }
+    }
+
+
+    /**
+     * Check if a texture is bound to its unit and the unit is active.
+     */
+    static boolean isBound(Texture<?> texture)
+    {
+        int unit = texture.getUnit();
+
+        return unit == activeUnit && unit < lastUsed.length &&
+               residents[getTargetIndex(texture)][unit] == texture;
+    }
+
+
+    /**
+     * Forget a deleted texture. Deleted textures are unbound by GL.
+     */
+    static void onDeleted(Texture<?> texture)
+    {
+        Texture<?>[] bound = residents[getTargetIndex(texture)];
+
+        for (int unit = 0; unit < bound.length; ++unit)
+        {
+            if (bound[unit] == texture)
+            {
+                bound[unit] = null;
+            }
+        }
+    }
+
+
+    /**
+     * Enqueue a texture deleted by {@link Texture#deleteLater()}.
+     * This method can be called on any thread.
+     */
+    static void onDeletedLater(Texture<?> texture)
+    {
+        deletedLater.offer(texture);
+    }
+
+
+    /**
+     * Forget textures enqueued by {@link #onDeletedLater(Texture)}.
+     * Called by {@link LeakTracker#drain()} on the GL thread.
+     */
+    static void drain()
+    {
+        Texture<?> texture;
+
+        while ((texture = deletedLater.poll()) != null)
+        {
+            onDeleted(texture);
+        }
+    }
+
+
+    private static void ensureCapacity()
+    {
+        if (lastUsed.length != 0)
+        {
+            return;
+        }
+
+        int count = getMaxUnits();
+
+        residents = new Texture<?>[2][count];
+        lastUsed  = new long[count];
+    }
+
+
+    private static int getTargetIndex(Texture<?> texture)
+    {
+        return (texture.getType() == TextureType.CUBE_MAP) ? 1 : 0;
+    }
+
+
+    private static int findLeastRecentlyUsedUnit()
+    {
+        int unit = -1;
+
+        for (int i = 0; i < lastUsed.length; ++i)
+        {
+            if (i < pinned.length && pinned[i])
+            {
+                // Reserved for textures whose unit is set explicitly.
+                continue;
+            }
+
+            if (unit < 0 || lastUsed[i] < lastUsed[unit])
+            {
+                unit = i;
+            }
+        }
+
+        if (unit < 0)
+        {
+            throw new IllegalStateException("All the texture units are reserved by setUnit().");
+        }
+
+        return unit;
+    }
+
+
+    private static void activate(int unit)
+    {
+        if (unit == activeUnit)
+        {
+            return;
+        }
+
+        GLESFactory.getInstance().glActiveTexture(GLESFactory.getInstance().GL_TEXTURE0() + unit);
+        activeUnit = unit;
+
+        ++activeTextureCount;
+    }
+}
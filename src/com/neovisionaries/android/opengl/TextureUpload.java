@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * An upload submitted to {@link TextureUploader}.
+ *
+ * <p>
+ * {@link #get()} blocks until the upload has finished, so it must not
+ * be called on the GL thread, which performs the upload. Use {@link
+ * TextureUploadListener} or {@link #isDone()} on the GL thread.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see TextureUploader#submit(Texture2D, ImageSource, TextureUploadListener)
+ */
+public class TextureUpload implements Future<Texture2D>
+{
+    static final int PENDING   = 0;
+    static final int UPLOADED  = 1;
+    static final int FAILED    = 2;
+    static final int CANCELLED = 3;
+
+
+    final Texture2D texture;
+    final ImageSource source;
+    final TextureUploadListener listener;
+    private final AtomicInteger state = new AtomicInteger(PENDING);
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+
+    /**
+     * Set by the worker thread before this upload is enqueued to
+     * the ready queue, and read by the GL thread after dequeuing.
+     */
+    ByteBuffer pixels;
+    PixelFormat format;
+    int width;
+    int height;
+    Exception exception;
+
+
+    /**
+     * The number of rows uploaded so far. Accessed only on the GL
+     * thread.
+     */
+    int uploadedRows;
+
+
+    TextureUpload(Texture2D texture, ImageSource source, TextureUploadListener listener)
+    {
+        this.texture  = texture;
+        this.source   = source;
+        this.listener = listener;
+    }
+
+
+    /**
+     * Get the texture to which the image is uploaded.
+     *
+     * @return
+     *         The texture.
+     */
+    public Texture2D getTexture()
+    {
+        return texture;
+    }
+
+
+    /**
+     * Get the ratio of the rows uploaded so far.
+     *
+     * @return
+     *         From 0.0 to 1.0.
+     */
+    public float getProgress()
+    {
+        if (state.get() == UPLOADED)
+        {
+            return 1.0f;
+        }
+
+        int h = height;
+
+        return (h == 0) ? 0.0f : (float)uploadedRows / h;
+    }
+
+
+    /**
+     * Cancel this upload. The image is neither decoded nor uploaded
+     * any more, but rows which have already been uploaded stay in
+     * the texture. This method can be called on any thread.
+     *
+     * @param mayInterruptIfRunning
+     *         Ignored. Decoding in progress is not interrupted, and
+     *         its result is discarded.
+     *
+     * @return
+     *         False if this upload has already finished.
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning)
+    {
+        return finish(CANCELLED);
+    }
+
+
+    @Override
+    public boolean isCancelled()
+    {
+        return state.get() == CANCELLED;
+    }
+
+
+    @Override
+    public boolean isDone()
+    {
+        return state.get() != PENDING;
+    }
+
+
+    @Override
+    public Texture2D get() throws InterruptedException, ExecutionException
+    {
+        latch.await();
+
+        return getResult();
+    }
+
+
+    @Override
+    public Texture2D get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException
+    {
+        if (latch.await(timeout, unit) == false)
+        {
+            throw new TimeoutException();
+        }
+
+        return getResult();
+    }
+
+
+    private Texture2D getResult() throws ExecutionException
+    {
+        switch (state.get())
+        {
+            case CANCELLED:
+                throw new CancellationException();
+
+            case FAILED:
+                throw new ExecutionException(exception);
+
+            default:
+                return texture;
+        }
+    }
+
+
+    /**
+     * Change the state from PENDING.
+     *
+     * @return
+     *         False if the state is not PENDING any more.
+     */
+    boolean finish(int newState)
+    {
+        if (state.compareAndSet(PENDING, newState) == false)
+        {
+            return false;
+        }
+
+        latch.countDown();
+
+        return true;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+/**
+ * Listener notified by {@link TextureUploader} when an upload has
+ * finished.
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see TextureUploader#submit(Texture2D, ImageSource, TextureUploadListener)
+ */
+public interface TextureUploadListener
+{
+    /**
+     * Called on the GL thread when the whole image has been uploaded.
+     *
+     * @param upload
+     *         The upload.
+     */
+    void onUploaded(TextureUpload upload);
+
+
+    /**
+     * Called on the GL thread when decoding or uploading failed.
+     *
+     * @param upload
+     *         The upload.
+     *
+     * @param exception
+     *         The exception which describes the error.
+     */
+    void onUploadFailed(TextureUpload upload, Exception exception);
+}
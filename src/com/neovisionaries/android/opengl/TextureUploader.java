@@ -0,0 +1,685 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import android.graphics.Bitmap;
+
+
+/**
+ * Pipeline which decodes images on worker threads and uploads them
+ * to textures on the GL thread in strips of rows, within a byte
+ * and/or time budget per frame, so that loading does not cause
+ * visible hitches.
+ *
+ * <pre style="background: lightgray;">
+ * <span style="color: darkgreen;">// <b>E X A M P L E</b></span>
+ *
+ * <span style="color: darkgreen;">// Create an uploader once.</span>
+ * {@link TextureUploader} uploader = new {@link TextureUploader#TextureUploader(ExecutorService)
+ * TextureUploader}(Executors.newFixedThreadPool(2))
+ *     .{@link #setByteBudget(int) setByteBudget}(512 * 1024)
+ *     .{@link #setTimeBudget(long, TimeUnit) setTimeBudget}(2, TimeUnit.MILLISECONDS);
+ *
+ * <span style="color: darkgreen;">// Request an upload on any thread.</span>
+ * {@link TextureUpload} upload = uploader.{@link #submit(Texture2D, ImageSource, TextureUploadListener)
+ * submit}(texture, source, listener);
+ *
+ * <span style="color: darkgreen;">// In onDrawFrame().</span>
+ * uploader.{@link #poll() poll}();
+ * </pre>
+ *
+ * <p>
+ * Decoded pixels are copied into direct buffers which are pooled
+ * and reused. When the decoded images waiting to be uploaded exceed
+ * {@link #setMaxQueuedBytes(long) the limit}, workers wait before
+ * decoding more images. Submitting an upload for a texture cancels
+ * the previous upload for the same texture which has not finished
+ * yet.
+ * </p>
+ *
+ * <p>
+ * Bitmaps of {@link android.graphics.Bitmap.Config#ARGB_8888
+ * ARGB_8888}, {@link android.graphics.Bitmap.Config#RGB_565 RGB_565}
+ * and {@link android.graphics.Bitmap.Config#ALPHA_8 ALPHA_8} are
+ * uploaded as they are. Bitmaps of other configurations are
+ * converted to ARGB_8888.
+ * </p>
+ *
+ * <p>
+ * {@link #poll()} must be called on the GL thread. The other methods
+ * can be called on any thread.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see TextureUpload
+ */
+public class TextureUploader
+{
+    /**
+     * The default number of bytes uploaded per {@link #poll()}.
+     */
+    public static final int DEFAULT_BYTE_BUDGET = 1024 * 1024;
+
+
+    /**
+     * The default maximum number of bytes of decoded images waiting
+     * to be uploaded.
+     */
+    public static final long DEFAULT_MAX_QUEUED_BYTES = 16 * 1024 * 1024;
+
+
+    /**
+     * The maximum number of free buffers kept in the pool.
+     */
+    private static final int MAX_POOLED_BUFFERS = 4;
+
+
+    private final ExecutorService executor;
+    private final ConcurrentLinkedQueue<TextureUpload> readyUploads = new ConcurrentLinkedQueue<TextureUpload>();
+    private final ConcurrentHashMap<Texture2D, TextureUpload> activeUploads = new ConcurrentHashMap<Texture2D, TextureUpload>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final List<ByteBuffer> bufferPool = new ArrayList<ByteBuffer>();
+    private final Object queueLock = new Object();
+    private volatile int byteBudget = DEFAULT_BYTE_BUDGET;
+    private volatile long timeBudget;
+    private volatile long maxQueuedBytes = DEFAULT_MAX_QUEUED_BYTES;
+
+
+    /**
+     * The number of bytes of decoded images waiting to be uploaded.
+     * Guarded by queueLock.
+     */
+    private long queuedBytes;
+
+
+    /**
+     * The upload in progress. Accessed only on the GL thread.
+     */
+    private TextureUpload currentUpload;
+
+
+    /**
+     * A constructor.
+     *
+     * @param executor
+     *         An executor on which images are decoded.
+     *
+     * @throws IllegalArgumentException
+     *         The executor is null.
+     */
+    public TextureUploader(ExecutorService executor)
+    {
+        if (executor == null)
+        {
+            throw new IllegalArgumentException("executor is null.");
+        }
+
+        this.executor = executor;
+    }
+
+
+    /**
+     * Get the maximum number of bytes uploaded per {@link #poll()}.
+     *
+     * @return
+     *         The byte budget. 0 means unlimited.
+     */
+    public int getByteBudget()
+    {
+        return byteBudget;
+    }
+
+
+    /**
+     * Set the maximum number of bytes uploaded per {@link #poll()}.
+     * At least one row is uploaded per call even if a row is larger
+     * than the budget. The default value is {@link #DEFAULT_BYTE_BUDGET}.
+     *
+     * @param budget
+     *         The byte budget. 0 means unlimited.
+     *
+     * @return
+     *         This TextureUploader object.
+     *
+     * @throws IllegalArgumentException
+     *         The budget is negative.
+     */
+    public TextureUploader setByteBudget(int budget)
+    {
+        if (budget < 0)
+        {
+            throw new IllegalArgumentException("budget is negative.");
+        }
+
+        this.byteBudget = budget;
+
+        return this;
+    }
+
+
+    /**
+     * Get the time budget of {@link #poll()}.
+     *
+     * @return
+     *         The time budget in nanoseconds. 0 means unlimited.
+     */
+    public long getTimeBudget()
+    {
+        return timeBudget;
+    }
+
+
+    /**
+     * Set the time budget of {@link #poll()}. No strip is started
+     * after the time has elapsed. Unlimited by default.
+     *
+     * @param time
+     *         The time budget. 0 means unlimited.
+     *
+     * @param unit
+     *         The unit of the time.
+     *
+     * @return
+     *         This TextureUploader object.
+     *
+     * @throws IllegalArgumentException
+     *         The time is negative or the unit is null.
+     */
+    public TextureUploader setTimeBudget(long time, TimeUnit unit)
+    {
+        if (time < 0 || unit == null)
+        {
+            throw new IllegalArgumentException("Bad time budget.");
+        }
+
+        this.timeBudget = unit.toNanos(time);
+
+        return this;
+    }
+
+
+    /**
+     * Get the maximum number of bytes of decoded images waiting to
+     * be uploaded.
+     *
+     * @return
+     *         The maximum number of queued bytes.
+     */
+    public long getMaxQueuedBytes()
+    {
+        return maxQueuedBytes;
+    }
+
+
+    /**
+     * Set the maximum number of bytes of decoded images waiting to
+     * be uploaded. Workers wait before decoding while the limit is
+     * reached. The default value is {@link #DEFAULT_MAX_QUEUED_BYTES}.
+     *
+     * @param max
+     *         The maximum number of queued bytes.
+     *
+     * @return
+     *         This TextureUploader object.
+     *
+     * @throws IllegalArgumentException
+     *         The argument is less than 1.
+     */
+    public TextureUploader setMaxQueuedBytes(long max)
+    {
+        if (max < 1)
+        {
+            throw new IllegalArgumentException("max must be greater than 0.");
+        }
+
+        synchronized (queueLock)
+        {
+            this.maxQueuedBytes = max;
+            queueLock.notifyAll();
+        }
+
+        return this;
+    }
+
+
+    /**
+     * Get the number of bytes of decoded images waiting to be uploaded.
+     *
+     * @return
+     *         The number of queued bytes.
+     */
+    public long getQueuedBytes()
+    {
+        synchronized (queueLock)
+        {
+            return queuedBytes;
+        }
+    }
+
+
+    /**
+     * Get the number of uploads which have been submitted but have
+     * not finished yet.
+     *
+     * @return
+     *         The number of pending uploads.
+     */
+    public int getPendingCount()
+    {
+        return pendingCount.get();
+    }
+
+
+    /**
+     * Submit an upload. The image is decoded on the executor, and
+     * uploaded to level 0 of the texture by {@link #poll()}. If an
+     * upload for the same texture has not finished yet, it is
+     * cancelled.
+     *
+     * @param texture
+     *         The texture to which the image is uploaded.
+     *
+     * @param source
+     *         The source of the image.
+     *
+     * @param listener
+     *         A listener notified on the GL thread. May be null.
+     *
+     * @return
+     *         The upload.
+     *
+     * @throws IllegalArgumentException
+     *         The texture or the source is null.
+     */
+    public TextureUpload submit(Texture2D texture, ImageSource source, TextureUploadListener listener)
+    {
+        // Check the arguments.
+        if (texture == null || source == null)
+        {
+            throw new IllegalArgumentException("texture or source is null.");
+        }
+
+        final TextureUpload upload = new TextureUpload(texture, source, listener);
+
+        // Cancel the stale upload.
+        TextureUpload previous = activeUploads.put(texture, upload);
+
+        if (previous != null)
+        {
+            previous.cancel(false);
+        }
+
+        pendingCount.incrementAndGet();
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run()
+            {
+                decode(upload);
+            }
+        });
+
+        return upload;
+    }
+
+
+    /**
+     * Cancel all the uploads which have not finished yet.
+     */
+    public void cancelAll()
+    {
+        for (TextureUpload upload : activeUploads.values())
+        {
+            upload.cancel(false);
+        }
+    }
+
+
+    /**
+     * Decode an image on a worker thread.
+     */
+    private void decode(TextureUpload upload)
+    {
+        try
+        {
+            if (upload.isCancelled() == false && waitForQueue(upload))
+            {
+                copyPixels(upload, upload.source.decode());
+            }
+        }
+        catch (Exception e)
+        {
+            upload.exception = e;
+        }
+
+        // Both decoded and failed uploads are handed to the GL thread.
+        readyUploads.offer(upload);
+    }
+
+
+    /**
+     * Wait while the queued bytes reach the limit. An image is
+     * always accepted when nothing is queued.
+     *
+     * @return
+     *         False if the upload was cancelled while waiting.
+     */
+    private boolean waitForQueue(TextureUpload upload) throws InterruptedException
+    {
+        synchronized (queueLock)
+        {
+            while (0 < queuedBytes && maxQueuedBytes <= queuedBytes)
+            {
+                if (upload.isCancelled())
+                {
+                    return false;
+                }
+
+                // Cancellation does not notify, so wake up periodically.
+                queueLock.wait(100);
+            }
+        }
+
+        return true;
+    }
+
+
+    private void copyPixels(TextureUpload upload, Bitmap bitmap)
+    {
+        if (bitmap == null)
+        {
+            throw new IllegalStateException("ImageSource.decode() returned null.");
+        }
+
+        PixelFormat format = getPixelFormat(bitmap.getConfig());
+
+        if (format == null)
+        {
+            Bitmap converted = bitmap.copy(Bitmap.Config.ARGB_8888, false);
+            bitmap.recycle();
+            bitmap = converted;
+            format = PixelFormat.RGBA_8888;
+        }
+
+        int width    = bitmap.getWidth();
+        int height   = bitmap.getHeight();
+        int rowBytes = bitmap.getRowBytes();
+        int packed   = width * format.getBytesPerPixel();
+        ByteBuffer pixels = obtainBuffer(rowBytes * height);
+
+        bitmap.copyPixelsToBuffer(pixels);
+        bitmap.recycle();
+
+        if (rowBytes != packed)
+        {
+            // Remove the padding at the end of each row.
+            for (int y = 1; y < height; ++y)
+            {
+                for (int x = 0; x < packed; ++x)
+                {
+                    pixels.put(y * packed + x, pixels.get(y * rowBytes + x));
+                }
+            }
+        }
+
+        pixels.position(0);
+        pixels.limit(packed * height);
+
+        upload.pixels = pixels;
+        upload.format = format;
+        upload.width  = width;
+        upload.height = height;
+
+        synchronized (queueLock)
+        {
+            queuedBytes += pixels.capacity();
+        }
+    }
+
+
+    private static PixelFormat getPixelFormat(Bitmap.Config config)
+    {
+        if (config == null)
+        {
+            return null;
+        }
+
+        switch (config)
+        {
+            case ARGB_8888:
+                return PixelFormat.RGBA_8888;
+
+            case RGB_565:
+                return PixelFormat.RGB_565;
+
+            case ALPHA_8:
+                return PixelFormat.ALPHA;
+
+            default:
+                return null;
+        }
+    }
+
+
+    /**
+     * Upload decoded images within the budgets and notify listeners
+     * of finished uploads. Call this method once per frame on the
+     * GL thread.
+     *
+     * @return
+     *         The number of uploads which have not finished yet.
+     */
+    public int poll()
+    {
+        long start = System.nanoTime();
+        long bytes = 0;
+        boolean uploaded = false;
+
+        while (true)
+        {
+            if (currentUpload == null)
+            {
+                currentUpload = readyUploads.poll();
+
+                if (currentUpload == null)
+                {
+                    break;
+                }
+            }
+
+            TextureUpload upload = currentUpload;
+
+            if (upload.isCancelled() || upload.exception != null || upload.pixels == null)
+            {
+                // Cancelled, or failed on the worker thread.
+                complete(upload, upload.exception);
+                continue;
+            }
+
+            // At least one strip per call.
+            if (uploaded && isOverBudget(start, bytes))
+            {
+                break;
+            }
+
+            try
+            {
+                bytes += uploadStrip(upload, bytes);
+            }
+            catch (RuntimeException e)
+            {
+                // E.g. the texture has been deleted.
+                complete(upload, e);
+                continue;
+            }
+
+            uploaded = true;
+
+            if (upload.uploadedRows == upload.height)
+            {
+                complete(upload, null);
+            }
+        }
+
+        return pendingCount.get();
+    }
+
+
+    private boolean isOverBudget(long start, long bytes)
+    {
+        if (0 < byteBudget && byteBudget <= bytes)
+        {
+            return true;
+        }
+
+        return 0 < timeBudget && timeBudget <= System.nanoTime() - start;
+    }
+
+
+    /**
+     * Upload the next strip of rows which fits in the rest of the
+     * byte budget.
+     *
+     * @return
+     *         The number of bytes uploaded.
+     */
+    private long uploadStrip(TextureUpload upload, long bytes)
+    {
+        Texture2D texture = upload.texture;
+        PixelFormat format = upload.format;
+        int rowBytes = (int)format.getImageBytes(upload.width, 1);
+        int rows = upload.height - upload.uploadedRows;
+
+        if (0 < byteBudget)
+        {
+            rows = (int)Math.max(1, Math.min(rows, (byteBudget - bytes) / rowBytes));
+        }
+
+        if (upload.uploadedRows == 0)
+        {
+            texture.allocateImage(upload.width, upload.height, format, 0);
+        }
+
+        ByteBuffer strip = upload.pixels.duplicate();
+        strip.position(upload.uploadedRows * rowBytes);
+
+        texture.loadSubImage(strip, 0, upload.uploadedRows, upload.width, rows, format, 0);
+
+        upload.uploadedRows += rows;
+
+        return (long)rows * rowBytes;
+    }
+
+
+    /**
+     * Finish an upload on the GL thread.
+     *
+     * @param exception
+     *         The error, or null if the upload succeeded or was
+     *         cancelled.
+     */
+    private void complete(TextureUpload upload, Exception exception)
+    {
+        if (upload == currentUpload)
+        {
+            currentUpload = null;
+        }
+
+        if (upload.pixels != null)
+        {
+            synchronized (queueLock)
+            {
+                queuedBytes -= upload.pixels.capacity();
+                queueLock.notifyAll();
+            }
+
+            releaseBuffer(upload.pixels);
+            upload.pixels = null;
+        }
+
+        activeUploads.remove(upload.texture, upload);
+        pendingCount.decrementAndGet();
+
+        if (exception != null)
+        {
+            upload.exception = exception;
+
+            if (upload.finish(TextureUpload.FAILED) && upload.listener != null)
+            {
+                upload.listener.onUploadFailed(upload, exception);
+            }
+        }
+        else if (upload.finish(TextureUpload.UPLOADED) && upload.listener != null)
+        {
+            upload.listener.onUploaded(upload);
+        }
+    }
+
+
+    /**
+     * Obtain the smallest pooled buffer which can hold the given
+     * number of bytes, or allocate a new one.
+     */
+    private ByteBuffer obtainBuffer(int size)
+    {
+        synchronized (bufferPool)
+        {
+            int best = -1;
+
+            for (int i = 0; i < bufferPool.size(); ++i)
+            {
+                int capacity = bufferPool.get(i).capacity();
+
+                if (size <= capacity && (best < 0 || capacity < bufferPool.get(best).capacity()))
+                {
+                    best = i;
+                }
+            }
+
+            if (0 <= best)
+            {
+                ByteBuffer buffer = bufferPool.remove(best);
+                buffer.clear();
+
+                return buffer;
+            }
+        }
+
+        return ByteBuffer.allocateDirect(size);
+    }
+
+
+    private void releaseBuffer(ByteBuffer buffer)
+    {
+        synchronized (bufferPool)
+        {
+            if (bufferPool.size() < MAX_POOLED_BUFFERS)
+            {
+                bufferPool.add(buffer);
+            }
+        }
+    }
+}
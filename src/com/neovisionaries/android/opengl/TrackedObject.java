@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+
+
+/**
+ * Phantom reference to a GL resource tracked by {@link LeakTracker}.
+ * It holds everything needed to delete the GL object after the
+ * resource has become unreachable.
+ *
+ * @author Takahiko Kawasaki
+ */
+final class TrackedObject extends PhantomReference<Object>
+{
+    final GLObjectType type;
+    final int id;
+    final int generation;
+    final ResourceCategory category;
+    final Throwable allocationTrace;
+
+
+    /**
+     * The storage size recorded in {@link ResourceRegistry}, which
+     * must be released when the resource is found leaked.
+     */
+    volatile long allocatedBytes;
+
+
+    TrackedObject(
+        Object resource, ReferenceQueue<Object> queue, GLObjectType type, int id,
+        int generation, ResourceCategory category, Throwable allocationTrace)
+    {
+        super(resource, queue);
+
+        this.type            = type;
+        this.id              = id;
+        this.generation      = generation;
+        this.category        = category;
+        this.allocationTrace = allocationTrace;
+    }
+}
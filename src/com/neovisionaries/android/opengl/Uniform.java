@@ -47,9 +47,27 @@ public class Uniform
     private final int location;
 
 
+    /**
+     * GLSL type of this uniform. Null if unknown.
+     */
+    private final UniformType type;
+
+
+    /**
+     * The number of array elements. 1 if this uniform is not an array.
+     */
+    private final int size;
+
+
     /**
      * A constructor.
      *
+     * <p>
+     * {@link Program#getUniform(String)} should be used instead
+     * because it returns a cached instance without calling
+     * glGetUniformLocation() once the program has been linked.
+     * </p>
+     *
      * @param program
      * @param name
      *
@@ -78,6 +96,24 @@ public class Uniform
             // No uniform having the name.
             throw new GLESException("No such a uniform variable having the name: " + name);
         }
+
+        // Copy the type reported by glGetActiveUniform(), if any.
+        Uniform reflected = program.findUniform(name);
+
+        type = (reflected != null) ? reflected.type : null;
+        size = (reflected != null) ? reflected.size : 1;
+    }
+
+
+    /**
+     * A constructor used by {@link Program} to build its cache
+     * from the results of glGetActiveUniform().
+     */
+    Uniform(int location, UniformType type, int size)
+    {
+        this.location = location;
+        this.type     = type;
+        this.size     = size;
     }
 
 
@@ -94,6 +130,37 @@ public class Uniform
     }
 
 
+    /**
+     * Get the GLSL type of this uniform.
+     *
+     * @return
+     *         The type reported by glGetActiveUniform(), or null if
+     *         this instance was created for a program that had not
+     *         been linked.
+     *
+     * @see <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glGetActiveUniform.xml">glGetActiveUniform</a>
+     */
+    public UniformType getType()
+    {
+        return type;
+    }
+
+
+    /**
+     * Get the number of array elements of this uniform.
+     *
+     * @return
+     *         The number of array elements. 1 if this uniform
+     *         is not an array.
+     *
+     * @see <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glGetActiveUniform.xml">glGetActiveUniform</a>
+     */
+    public int getSize()
+    {
+        return size;
+    }
+
+
     /**
      * Get the value of a uniform variable.
      *
@@ -0,0 +1,671 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.util.Arrays;
+
+
+/**
+ * A group of uniform variables whose values are kept in one flat
+ * float array and uploaded only when changed.
+ *
+ * <pre style="background: lightgray;">
+ * <span style="color: darkgreen;">// <b>E X A M P L E</b></span>
+ *
+ * <span style="color: darkgreen;">// Declare a block once after the program has been linked.</span>
+ * {@link UniformBlock} material = new {@link #UniformBlock(Program, String...)
+ * UniformBlock}(program,
+ *     <span style="color: brown;">"u_diffuse"</span>, <span style="color: brown;">"u_specular"</span>, <span style="color: brown;">"u_shininess"</span>, <span style="color: brown;">"u_lights"</span>);
+ *
+ * int diffuse   = material.{@link #indexOf(String) indexOf}(<span style="color: brown;">"u_diffuse"</span>);
+ * int shininess = material.{@link #indexOf(String) indexOf}(<span style="color: brown;">"u_shininess"</span>);
+ *
+ * <span style="color: darkgreen;">// Set values. Nothing is sent to the driver here, and</span>
+ * <span style="color: darkgreen;">// fields whose values do not change are not marked dirty.</span>
+ * material.{@link #set(int, float, float, float, float) set}(diffuse, 1.0f, 0.5f, 0.5f, 1.0f)
+ *         .{@link #set(int, float) set}(shininess, 32.0f);
+ *
+ * <span style="color: darkgreen;">// Upload the dirty fields at draw time.</span>
+ * program.{@link Program#use() use}();
+ * material.{@link #flush() flush}();
+ * </pre>
+ *
+ * <p>
+ * Each field is uploaded by one glUniform*v() call, so all the
+ * elements of an array (e.g. {@code uniform vec4 u_lights[8];}) are
+ * uploaded together. Values of int, bool and sampler uniforms are
+ * kept as floats and converted on upload.
+ * </p>
+ *
+ * <p>
+ * The uniform values live in the program object, so one block should
+ * be used per program. If the values in the program may have been
+ * changed by other means (e.g. {@link Uniform} or relinking), call
+ * {@link #invalidate()}.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see Program#getUniform(String)
+ */
+public class UniformBlock
+{
+    private final Program program;
+    private final String[] names;
+    private final Uniform[] uniforms;
+
+
+    /**
+     * Offsets of the fields in {@link #values}. The last element is
+     * the total length.
+     */
+    private final int[] offsets;
+    private final float[] values;
+
+
+    /**
+     * Dirty bits, one bit per field.
+     */
+    private final long[] dirty;
+    private boolean anyDirty;
+
+
+    /**
+     * Work area to convert values of int uniforms.
+     */
+    private int[] intValues;
+
+
+    /**
+     * A constructor. All the fields are dirty initially.
+     *
+     * @param program
+     *         A linked program.
+     *
+     * @param names
+     *         Names of uniform variables of the program. For an array,
+     *         the name without the index (e.g. "u_lights") can be used.
+     *
+     * @throws IllegalArgumentException
+     *         The program is null, names is null or contains null.
+     *
+     * @throws IllegalStateException
+     *         The program is not linked.
+     *
+     * @throws GLESException
+     *         The program has no such uniform, or the type of a uniform
+     *         is unknown.
+     */
+    public UniformBlock(Program program, String... names) throws GLESException
+    {
+        // Check the arguments.
+        if (program == null)
+        {
+            throw new IllegalArgumentException("program is null.");
+        }
+
+        if (names == null)
+        {
+            throw new IllegalArgumentException("names is null.");
+        }
+
+        if (program.getState() != ProgramState.LINKED)
+        {
+            throw new IllegalStateException("Program is not linked.");
+        }
+
+        int count = names.length;
+
+        this.program  = program;
+        this.names    = names.clone();
+        this.uniforms = new Uniform[count];
+        this.offsets  = new int[count + 1];
+
+        for (int i = 0; i < count; ++i)
+        {
+            if (names[i] == null)
+            {
+                throw new IllegalArgumentException("names[" + i + "] is null.");
+            }
+
+            Uniform uniform = program.getUniform(names[i]);
+
+            if (uniform.getType() == null)
+            {
+                throw new GLESException("The type of the uniform variable is unknown: " + names[i]);
+            }
+
+            uniforms[i] = uniform;
+            offsets[i + 1] = offsets[i] + uniform.getType().getComponents() * uniform.getSize();
+        }
+
+        values = new float[offsets[count]];
+        dirty  = new long[(count + 63) / 64];
+
+        invalidate();
+    }
+
+
+    /**
+     * Get the program.
+     *
+     * @return
+     *         The program given to the constructor.
+     */
+    public Program getProgram()
+    {
+        return program;
+    }
+
+
+    /**
+     * Get the number of fields.
+     *
+     * @return
+     *         The number of fields.
+     */
+    public int getFieldCount()
+    {
+        return uniforms.length;
+    }
+
+
+    /**
+     * Get the index of a field.
+     *
+     * @param name
+     *         A name given to the constructor.
+     *
+     * @return
+     *         The index of the field, or -1 if not found.
+     */
+    public int indexOf(String name)
+    {
+        for (int i = 0; i < names.length; ++i)
+        {
+            if (names[i].equals(name))
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+
+    /**
+     * Get the uniform of a field.
+     *
+     * @param field
+     *         The index of a field.
+     *
+     * @return
+     *         The uniform.
+     */
+    public Uniform getUniform(int field)
+    {
+        return uniforms[field];
+    }
+
+
+    /**
+     * Get the number of floats of a field, that is, the number of
+     * components of the type multiplied by the array size.
+     *
+     * @param field
+     *         The index of a field.
+     *
+     * @return
+     *         The number of floats.
+     */
+    public int getLength(int field)
+    {
+        return offsets[field + 1] - offsets[field];
+    }
+
+
+    /**
+     * Set a value of a float, int, bool or sampler field.
+     *
+     * @param field
+     *         The index of a field.
+     *
+     * @param x
+     *
+     * @return
+     *         This UniformBlock object.
+     */
+    public UniformBlock set(int field, float x)
+    {
+        int offset = offsets[field];
+
+        if (values[offset] != x)
+        {
+            values[offset] = x;
+            markDirty(field);
+        }
+
+        return this;
+    }
+
+
+    /**
+     * Set a value of a vec2 field, or the first components of a field.
+     *
+     * @param field
+     *         The index of a field.
+     *
+     * @param x
+     * @param y
+     *
+     * @return
+     *         This UniformBlock object.
+     */
+    public UniformBlock set(int field, float x, float y)
+    {
+        checkLength(field, 2);
+
+        int offset = offsets[field];
+
+        if (values[offset] != x || values[offset + 1] != y)
+        {
+            values[offset]     = x;
+            values[offset + 1] = y;
+            markDirty(field);
+        }
+
+        return this;
+    }
+
+
+    /**
+     * Set a value of a vec3 field, or the first components of a field.
+     *
+     * @param field
+     *         The index of a field.
+     *
+     * @param x
+     * @param y
+     * @param z
+     *
+     * @return
+     *         This UniformBlock object.
+     */
+    public UniformBlock set(int field, float x, float y, float z)
+    {
+        checkLength(field, 3);
+
+        int offset = offsets[field];
+
+        if (values[offset] != x || values[offset + 1] != y || values[offset + 2] != z)
+        {
+            values[offset]     = x;
+            values[offset + 1] = y;
+            values[offset + 2] = z;
+            markDirty(field);
+        }
+
+        return this;
+    }
+
+
+    /**
+     * Set a value of a vec4 field, or the first components of a field.
+     *
+     * @param field
+     *         The index of a field.
+     *
+     * @param x
+     * @param y
+     * @param z
+     * @param w
+     *
+     * @return
+     *         This UniformBlock object.
+     */
+    public UniformBlock set(int field, float x, float y, float z, float w)
+    {
+        checkLength(field, 4);
+
+        int offset = offsets[field];
+
+        if (values[offset] != x || values[offset + 1] != y || values[offset + 2] != z || values[offset + 3] != w)
+        {
+            values[offset]     = x;
+            values[offset + 1] = y;
+            values[offset + 2] = z;
+            values[offset + 3] = w;
+            markDirty(field);
+        }
+
+        return this;
+    }
+
+
+    /**
+     * Set all the values of a field, e.g. 16 floats for a mat4
+     * field and 32 floats for a vec4[8] field.
+     *
+     * @param field
+     *         The index of a field.
+     *
+     * @param source
+     *         Values to copy. {@link #getLength(int) getLength}(field)
+     *         floats are copied.
+     *
+     * @param sourceOffset
+     *         The position in the source from which values are copied.
+     *
+     * @return
+     *         This UniformBlock object.
+     *
+     * @throws IllegalArgumentException
+     *         The source is null or too short.
+     */
+    public UniformBlock set(int field, float[] source, int sourceOffset)
+    {
+        return set(field, 0, source, sourceOffset, getLength(field));
+    }
+
+
+    /**
+     * Set values of a field partially, e.g. one element of an array.
+     *
+     * @param field
+     *         The index of a field.
+     *
+     * @param fieldOffset
+     *         The position in the field at which values are written,
+     *         in floats. For example, the element 3 of a vec4 array
+     *         starts at 12.
+     *
+     * @param source
+     *         Values to copy.
+     *
+     * @param sourceOffset
+     *         The position in the source from which values are copied.
+     *
+     * @param count
+     *         The number of floats to copy.
+     *
+     * @return
+     *         This UniformBlock object.
+     *
+     * @throws IllegalArgumentException
+     *         The source is null, or the range is out of bounds.
+     */
+    public UniformBlock set(int field, int fieldOffset, float[] source, int sourceOffset, int count)
+    {
+        // Check the arguments.
+        if (source == null)
+        {
+            throw new IllegalArgumentException("source is null.");
+        }
+
+        if (fieldOffset < 0 || count < 0 || sourceOffset < 0 ||
+            getLength(field) < fieldOffset + count || source.length < sourceOffset + count)
+        {
+            throw new IllegalArgumentException("Out of bounds.");
+        }
+
+        int offset = offsets[field] + fieldOffset;
+        boolean changed = false;
+
+        for (int i = 0; i < count; ++i)
+        {
+            if (values[offset + i] != source[sourceOffset + i])
+            {
+                values[offset + i] = source[sourceOffset + i];
+                changed = true;
+            }
+        }
+
+        if (changed)
+        {
+            markDirty(field);
+        }
+
+        return this;
+    }
+
+
+    /**
+     * Get the values of a field.
+     *
+     * @param field
+     *         The index of a field.
+     *
+     * @param destination
+     *         An array to which {@link #getLength(int) getLength}(field)
+     *         floats are copied.
+     *
+     * @param destinationOffset
+     *         The position in the destination.
+     *
+     * @return
+     *         The destination.
+     */
+    public float[] get(int field, float[] destination, int destinationOffset)
+    {
+        System.arraycopy(values, offsets[field], destination, destinationOffset, getLength(field));
+
+        return destination;
+    }
+
+
+    /**
+     * Copy all the values from another block which has the same
+     * layout, e.g. to apply a material prepared in advance. Only
+     * fields whose values differ become dirty.
+     *
+     * @param other
+     *         A block created with uniforms of the same types and sizes.
+     *
+     * @return
+     *         This UniformBlock object.
+     *
+     * @throws IllegalArgumentException
+     *         The other block is null or has a different layout.
+     */
+    public UniformBlock copyFrom(UniformBlock other)
+    {
+        if (other == null || Arrays.equals(offsets, other.offsets) == false)
+        {
+            throw new IllegalArgumentException("The layout of the block is different.");
+        }
+
+        for (int field = 0; field < uniforms.length; ++field)
+        {
+            set(field, 0, other.values, other.offsets[field], getLength(field));
+        }
+
+        return this;
+    }
+
+
+    /**
+     * Check if a field is dirty.
+     *
+     * @param field
+     *         The index of a field.
+     *
+     * @return
+     *         True if the field will be uploaded by the next {@link #flush()}.
+     */
+    public boolean isDirty(int field)
+    {
+        return (dirty[field >> 6] & (1L << field)) != 0;
+    }
+
+
+    /**
+     * Mark all the fields dirty so that the next {@link #flush()}
+     * uploads all of them.
+     *
+     * @return
+     *         This UniformBlock object.
+     */
+    public UniformBlock invalidate()
+    {
+        for (int field = 0; field < uniforms.length; ++field)
+        {
+            markDirty(field);
+        }
+
+        return this;
+    }
+
+
+    /**
+     * Upload the dirty fields. The program must be in use.
+     *
+     * @return
+     *         The number of glUniform*() calls.
+     */
+    public int flush()
+    {
+        if (anyDirty == false)
+        {
+            return 0;
+        }
+
+        GLES gles = getGLES();
+        int calls = 0;
+
+        for (int i = 0; i < dirty.length; ++i)
+        {
+            long bits = dirty[i];
+
+            while (bits != 0)
+            {
+                int field = (i << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+
+                upload(gles, field);
+                ++calls;
+            }
+
+            dirty[i] = 0;
+        }
+
+        anyDirty = false;
+
+        return calls;
+    }
+
+
+    private void upload(GLES gles, int field)
+    {
+        Uniform uniform = uniforms[field];
+        int location = uniform.getLocation();
+        int count = uniform.getSize();
+        int offset = offsets[field];
+
+        switch (uniform.getType())
+        {
+            case FLOAT:
+                gles.glUniform1fv(location, count, values, offset);
+                break;
+
+            case FLOAT_VEC2:
+                gles.glUniform2fv(location, count, values, offset);
+                break;
+
+            case FLOAT_VEC3:
+                gles.glUniform3fv(location, count, values, offset);
+                break;
+
+            case FLOAT_VEC4:
+                gles.glUniform4fv(location, count, values, offset);
+                break;
+
+            case FLOAT_MAT2:
+                gles.glUniformMatrix2fv(location, count, false, values, offset);
+                break;
+
+            case FLOAT_MAT3:
+                gles.glUniformMatrix3fv(location, count, false, values, offset);
+                break;
+
+            case FLOAT_MAT4:
+                gles.glUniformMatrix4fv(location, count, false, values, offset);
+                break;
+
+            default:
+                uploadInt(gles, field, location, count, uniform.getType().getComponents());
+                break;
+        }
+    }
+
+
+    private void uploadInt(GLES gles, int field, int location, int count, int components)
+    {
+        int length = getLength(field);
+        int offset = offsets[field];
+
+        if (intValues == null || intValues.length < length)
+        {
+            intValues = new int[length];
+        }
+
+        for (int i = 0; i < length; ++i)
+        {
+            intValues[i] = (int)values[offset + i];
+        }
+
+        switch (components)
+        {
+            case 1:
+                gles.glUniform1iv(location, count, intValues, 0);
+                break;
+
+            case 2:
+                gles.glUniform2iv(location, count, intValues, 0);
+                break;
+
+            case 3:
+                gles.glUniform3iv(location, count, intValues, 0);
+                break;
+
+            default:
+                gles.glUniform4iv(location, count, intValues, 0);
+                break;
+        }
+    }
+
+
+    private void markDirty(int field)
+    {
+        dirty[field >> 6] |= (1L << field);
+        anyDirty = true;
+    }
+
+
+    private void checkLength(int field, int length)
+    {
+        if (getLength(field) < length)
+        {
+            throw new IllegalArgumentException("The field is too small.");
+        }
+    }
+
+
+    private static GLES getGLES()
+    {
+        return GLESFactory.getInstance();
+    }
+}
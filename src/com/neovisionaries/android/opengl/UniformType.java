@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+/**
+ * Types of uniform variables and attribute variables in OpenGL
+ * Shading Language, reported by glGetActiveUniform() and
+ * glGetActiveAttrib().
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see Uniform#getType()
+ * @see <a href="http://www.khronos.org/opengles/sdk/docs/man/xhtml/glGetActiveUniform.xml">glGetActiveUniform</a>
+ */
+public enum UniformType
+{
+    /**
+     * GL_FLOAT ({@code float}).
+     */
+    FLOAT(GLESFactory.getInstance().GL_FLOAT(), 1),
+
+
+    /**
+     * GL_FLOAT_VEC2 ({@code vec2}).
+     */
+    FLOAT_VEC2(GLESFactory.getInstance().GL_FLOAT_VEC2(), 2),
+
+
+    /**
+     * GL_FLOAT_VEC3 ({@code vec3}).
+     */
+    FLOAT_VEC3(GLESFactory.getInstance().GL_FLOAT_VEC3(), 3),
+
+
+    /**
+     * GL_FLOAT_VEC4 ({@code vec4}).
+     */
+    FLOAT_VEC4(GLESFactory.getInstance().GL_FLOAT_VEC4(), 4),
+
+
+    /**
+     * GL_INT ({@code int}).
+     */
+    INT(GLESFactory.getInstance().GL_INT(), 1),
+
+
+    /**
+     * GL_INT_VEC2 ({@code ivec2}).
+     */
+    INT_VEC2(GLESFactory.getInstance().GL_INT_VEC2(), 2),
+
+
+    /**
+     * GL_INT_VEC3 ({@code ivec3}).
+     */
+    INT_VEC3(GLESFactory.getInstance().GL_INT_VEC3(), 3),
+
+
+    /**
+     * GL_INT_VEC4 ({@code ivec4}).
+     */
+    INT_VEC4(GLESFactory.getInstance().GL_INT_VEC4(), 4),
+
+
+    /**
+     * GL_BOOL ({@code bool}).
+     */
+    BOOL(GLESFactory.getInstance().GL_BOOL(), 1),
+
+
+    /**
+     * GL_BOOL_VEC2 ({@code bvec2}).
+     */
+    BOOL_VEC2(GLESFactory.getInstance().GL_BOOL_VEC2(), 2),
+
+
+    /**
+     * GL_BOOL_VEC3 ({@code bvec3}).
+     */
+    BOOL_VEC3(GLESFactory.getInstance().GL_BOOL_VEC3(), 3),
+
+
+    /**
+     * GL_BOOL_VEC4 ({@code bvec4}).
+     */
+    BOOL_VEC4(GLESFactory.getInstance().GL_BOOL_VEC4(), 4),
+
+
+    /**
+     * GL_FLOAT_MAT2 ({@code mat2}).
+     */
+    FLOAT_MAT2(GLESFactory.getInstance().GL_FLOAT_MAT2(), 4),
+
+
+    /**
+     * GL_FLOAT_MAT3 ({@code mat3}).
+     */
+    FLOAT_MAT3(GLESFactory.getInstance().GL_FLOAT_MAT3(), 9),
+
+
+    /**
+     * GL_FLOAT_MAT4 ({@code mat4}).
+     */
+    FLOAT_MAT4(GLESFactory.getInstance().GL_FLOAT_MAT4(), 16),
+
+
+    /**
+     * GL_SAMPLER_2D ({@code sampler2D}).
+     */
+    SAMPLER_2D(GLESFactory.getInstance().GL_SAMPLER_2D(), 1),
+
+
+    /**
+     * GL_SAMPLER_CUBE ({@code samplerCube}).
+     */
+    SAMPLER_CUBE(GLESFactory.getInstance().GL_SAMPLER_CUBE(), 1)
+    ;
+
+
+    /**
+     * The integer representing this type.
+     */
+    private final int type;
+
+
+    /**
+     * The number of scalar components of this type.
+     */
+    private final int components;
+
+
+    private UniformType(int type, int components)
+    {
+        this.type       = type;
+        this.components = components;
+    }
+
+
+    /**
+     * Get the integer representing this type.
+     *
+     * @return
+     *         The integer representing this type.
+     */
+    public int getType()
+    {
+        return type;
+    }
+
+
+    /**
+     * Get the number of scalar components of this type.
+     * For example, 3 for {@link #FLOAT_VEC3} and 16 for
+     * {@link #FLOAT_MAT4}.
+     *
+     * @return
+     *         The number of scalar components.
+     */
+    public int getComponents()
+    {
+        return components;
+    }
+
+
+    /**
+     * Check if this type is a sampler type.
+     *
+     * @return
+     *         True if this type is {@link #SAMPLER_2D} or
+     *         {@link #SAMPLER_CUBE}.
+     */
+    public boolean isSampler()
+    {
+        return (this == SAMPLER_2D || this == SAMPLER_CUBE);
+    }
+
+
+    /**
+     * Get the UniformType instance corresponding to the integer
+     * representing a type.
+     *
+     * @param type
+     *         An integer representing a type, such as a value
+     *         reported by glGetActiveUniform().
+     *
+     * @return
+     *         The corresponding UniformType instance, or null if
+     *         the type is not recognized.
+     */
+    public static UniformType getByType(int type)
+    {
+        for (UniformType value : values())
+        {
+            if (value.type == type)
+            {
+                return value;
+            }
+        }
+
+        return null;
+    }
+}
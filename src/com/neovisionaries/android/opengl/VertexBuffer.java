@@ -71,9 +71,24 @@ public abstract class VertexBuffer<TVertexBuffer extends VertexBuffer<TVertexBuf
     private Class<? extends Buffer> dataBufferClass;
 
 
+    /**
+     * The estimated size of the storage allocated by the last call
+     * of a setData() method.
+     */
+    private long allocatedBytes;
+
+
+    /**
+     * The phantom reference used by {@link LeakTracker}.
+     * Null if leak tracking was disabled on creation.
+     */
+    private TrackedObject tracked;
+
+
     /**
      * A constructor with a vertex buffer type. A buffer object
-     * is assigned internally by glGenBuffers(). If this
+     * is assigned internally by glGenBuffers() (in a batch via
+     * {@link NamePool}). If this
      * constructor returns without any exception, the state of
      * this instance is {@link VertexBufferState#CREATED}.
      *
@@ -98,18 +113,10 @@ public abstract class VertexBuffer<TVertexBuffer extends VertexBuffer<TVertexBuf
             throw new IllegalArgumentException("Vertex buffer type is null.");
         }
 
-        // Buffer IDs assigned by glGenBuffers().
-        int[] ids = new int[] { 0 };
-
-        // Create a buffer object.
-        getGLES().glGenBuffers(type.getType(), ids, 0);
-
-        // Check if a valid buffer object has been created.
-        if (ids[0] <= 0)
-        {
-            // Failed to create a buffer object.
-            throw new GLESException("glGenBuffers() failed.");
-        }
+        // Get a buffer name generated by glGenBuffers() in advance.
+        // NamePool.obtain() throws GLESException if glGenBuffers()
+        // failed.
+        int name = NamePool.obtain(GLObjectType.BUFFER);
 
         // A buffer object was created successfully.
 
@@ -117,7 +124,11 @@ public abstract class VertexBuffer<TVertexBuffer extends VertexBuffer<TVertexBuf
         this.type = type;
 
         // ID of the buffer object.
-        id = ids[0];
+        id = name;
+
+        ResourceRegistry.register(ResourceCategory.of(type));
+
+        tracked = LeakTracker.track(this, GLObjectType.BUFFER, id, ResourceCategory.of(type));
     }
 
 
@@ -159,6 +170,22 @@ public abstract class VertexBuffer<TVertexBuffer extends VertexBuffer<TVertexBuf
     }
 
 
+    /**
+     * Get the estimated size of the storage of this vertex buffer.
+     *
+     * @return
+     *         The size in bytes given to glBufferData() last time,
+     *         or 0 if no data has been set or this vertex buffer
+     *         has been deleted.
+     *
+     * @see ResourceRegistry
+     */
+    public long getAllocatedBytes()
+    {
+        return allocatedBytes;
+    }
+
+
     /**
      * Bind this vertex buffer using glBindBuffer().
      *
@@ -208,18 +235,65 @@ public abstract class VertexBuffer<TVertexBuffer extends VertexBuffer<TVertexBuf
         }
 
 
-        int[] ids = new int[] { id };
-
-        // Delete the buffer object.
-        getGLES().glDeleteBuffers(1, ids, 0);
+        // Delete the buffer object, or release its storage and
+        // return the name to the pool if recycling is enabled.
+        NamePool.release(GLObjectType.BUFFER, id);
 
         // The buffer object was deleted.
         state = DELETED;
 
+        release();
+
         return (TVertexBuffer)this;
     }
 
 
+    /**
+     * Mark this vertex buffer as deleted and let {@link LeakTracker}
+     * delete the buffer object on the GL thread at the next frame
+     * boundary. Unlike {@link #delete()}, this method can be called
+     * on any thread. After this method returns, the state of this
+     * instance is {@link VertexBufferState#DELETED}.
+     *
+     * @return
+     *         This VertexBuffer object.
+     *
+     * @see LeakTracker#deleteLater(GLObjectType, int)
+     */
+    @SuppressWarnings("unchecked")
+    public TVertexBuffer deleteLater()
+    {
+        // Check the current state of this instance.
+        if (state == DELETED)
+        {
+            // This vertex buffer has already been deleted.
+            return (TVertexBuffer)this;
+        }
+
+        // The buffer object will be deleted on the GL thread.
+        state = DELETED;
+
+        release();
+
+        LeakTracker.deleteLater(GLObjectType.BUFFER, id);
+
+        return (TVertexBuffer)this;
+    }
+
+
+    /**
+     * Release the storage from the accounting and stop tracking.
+     */
+    private void release()
+    {
+        allocatedBytes = ResourceRegistry.update(ResourceCategory.of(type), allocatedBytes, 0);
+        ResourceRegistry.unregister(ResourceCategory.of(type));
+
+        LeakTracker.untrack(tracked);
+        tracked = null;
+    }
+
+
     /**
      * Set data to this vertex buffer.
      *
@@ -283,6 +357,14 @@ public abstract class VertexBuffer<TVertexBuffer extends VertexBuffer<TVertexBuf
 
         getGLES().glBufferData(type.getType(), count * unit, data, usage.getUsage());
 
+        // The old storage (if any) is replaced by the new one.
+        allocatedBytes = ResourceRegistry.update(ResourceCategory.of(type), allocatedBytes, (long)count * unit);
+
+        if (tracked != null)
+        {
+            tracked.allocatedBytes = allocatedBytes;
+        }
+
         // Remember the class of the given data for getDataBufferClass().
         dataBufferClass = data.getClass();
 
@@ -0,0 +1,657 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+
+/**
+ * Encoder to convert float vertex attribute data into compact
+ * formats (half float, normalized 16-bit / 8-bit integers and
+ * packed 10-10-10-2 integers).
+ *
+ * <p>
+ * When bounds computation is enabled (default) for a normalized
+ * encoding, the encoder computes per-component bounds of the
+ * input data and maps them onto the full range of the encoding.
+ * The original values can be restored in a vertex shader by
+ * <code>value * scale + bias</code>, where <code>scale</code>
+ * and <code>bias</code> are available from the resultant
+ * {@link QuantizedArray}.
+ * </p>
+ *
+ * <pre style="background: lightgray;">
+ * <span style="color: darkgreen;">// Encode positions into normalized shorts.</span>
+ * {@link QuantizedArray} positions = new VertexQuantizer({@link AttrEncoding#SNORM16})
+ *     .{@link #encode(float[], AttrDataSize) encode}(vertices, {@link AttrDataSize#THREE});
+ *
+ * <span style="color: darkgreen;">// Set the array and the dequantization parameters.</span>
+ * positions.{@link QuantizedArray#setArray(Attribute) setArray}(program.getAttribute(<span style="color: brown;">"a_Position"</span>));
+ * positions.{@link QuantizedArray#setScaleAndBias(Uniform, Uniform)
+ * setScaleAndBias}(program.getUniform(<span style="color: brown;">"u_Scale"</span>), program.getUniform(<span style="color: brown;">"u_Bias"</span>));
+ * </pre>
+ *
+ * <p>
+ * If an executor is set by {@link #setExecutor(ExecutorService)},
+ * meshes having more vertices than the parallel threshold are
+ * encoded by multiple tasks, each of which handles a contiguous
+ * range of vertices.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see AttrEncoding
+ * @see QuantizedArray
+ */
+public class VertexQuantizer
+{
+    /**
+     * The default number of vertices above which encoding is
+     * performed in parallel.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 16384;
+
+
+    /**
+     * The encoding.
+     */
+    private final AttrEncoding encoding;
+
+
+    /**
+     * True to compute bounds of input data for normalized encodings.
+     */
+    private boolean boundsComputed = true;
+
+
+    /**
+     * Executor used to encode large meshes in parallel.
+     */
+    private ExecutorService executor;
+
+
+    /**
+     * The number of vertices above which encoding is performed
+     * in parallel.
+     */
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+
+    /**
+     * A constructor with an encoding.
+     *
+     * @param encoding
+     *         Encoding of output data.
+     *
+     * @throws IllegalArgumentException
+     *         The given argument is null.
+     */
+    public VertexQuantizer(AttrEncoding encoding)
+    {
+        if (encoding == null)
+        {
+            throw new IllegalArgumentException("encoding is null.");
+        }
+
+        this.encoding = encoding;
+    }
+
+
+    /**
+     * Get the encoding.
+     *
+     * @return
+     *         The encoding.
+     */
+    public AttrEncoding getEncoding()
+    {
+        return encoding;
+    }
+
+
+    /**
+     * Check if bounds of input data are computed.
+     *
+     * @return
+     *         True if bounds of input data are computed.
+     */
+    public boolean isBoundsComputed()
+    {
+        return boundsComputed;
+    }
+
+
+    /**
+     * Set whether to compute bounds of input data.
+     *
+     * <p>
+     * If true (default), input data of normalized encodings are
+     * mapped onto the full range of the encoding by per-component
+     * scale and bias. If false, input data must already be in the
+     * range of the encoding ([-1, 1] for signed ones and [0, 1] for
+     * unsigned ones), e.g. unit normals and colors; values out of
+     * the range are clamped. This setting has no effect on {@link
+     * AttrEncoding#HALF_FLOAT HALF_FLOAT}.
+     * </p>
+     *
+     * @param computed
+     *         True to compute bounds of input data.
+     *
+     * @return
+     *         This object.
+     */
+    public VertexQuantizer setBoundsComputed(boolean computed)
+    {
+        this.boundsComputed = computed;
+
+        return this;
+    }
+
+
+    /**
+     * Get the executor used to encode large meshes in parallel.
+     *
+     * @return
+     *         The executor. May be null.
+     */
+    public ExecutorService getExecutor()
+    {
+        return executor;
+    }
+
+
+    /**
+     * Set an executor used to encode large meshes in parallel.
+     *
+     * @param executor
+     *         An executor. If null is given, encoding is always
+     *         performed on the calling thread.
+     *
+     * @return
+     *         This object.
+     */
+    public VertexQuantizer setExecutor(ExecutorService executor)
+    {
+        this.executor = executor;
+
+        return this;
+    }
+
+
+    /**
+     * Get the number of vertices above which encoding is performed
+     * in parallel.
+     *
+     * @return
+     *         The parallel threshold.
+     */
+    public int getParallelThreshold()
+    {
+        return parallelThreshold;
+    }
+
+
+    /**
+     * Set the number of vertices above which encoding is performed
+     * in parallel. The default value is {@link
+     * #DEFAULT_PARALLEL_THRESHOLD}.
+     *
+     * @param threshold
+     *         The parallel threshold.
+     *
+     * @return
+     *         This object.
+     *
+     * @throws IllegalArgumentException
+     *         The given threshold is less than 1.
+     */
+    public VertexQuantizer setParallelThreshold(int threshold)
+    {
+        if (threshold < 1)
+        {
+            throw new IllegalArgumentException("threshold must be greater than 0.");
+        }
+
+        this.parallelThreshold = threshold;
+
+        return this;
+    }
+
+
+    /**
+     * Encode vertex attribute data.
+     *
+     * @param values
+     *         Vertex attribute data. The length must be a multiple
+     *         of the number of components.
+     *
+     * @param size
+     *         The number of components per vertex. For the packed
+     *         10-10-10-2 encodings, it must be {@link AttrDataSize#THREE
+     *         THREE} or {@link AttrDataSize#FOUR FOUR}.
+     *
+     * @return
+     *         Encoded data.
+     *
+     * @throws IllegalArgumentException
+     *         An argument is null, the length of values is not a
+     *         multiple of the number of components, or the size is
+     *         not supported by the encoding.
+     */
+    public QuantizedArray encode(float[] values, AttrDataSize size)
+    {
+        if (values == null)
+        {
+            throw new IllegalArgumentException("values is null.");
+        }
+
+        return encode(FloatBuffer.wrap(values), size);
+    }
+
+
+    /**
+     * Encode vertex attribute data. Data between the current position
+     * and the limit of the given buffer are encoded. The position of
+     * the buffer is not changed.
+     *
+     * @param values
+     *         Vertex attribute data. The number of remaining elements
+     *         must be a multiple of the number of components.
+     *
+     * @param size
+     *         The number of components per vertex. For the packed
+     *         10-10-10-2 encodings, it must be {@link AttrDataSize#THREE
+     *         THREE} or {@link AttrDataSize#FOUR FOUR}.
+     *
+     * @return
+     *         Encoded data.
+     *
+     * @throws IllegalArgumentException
+     *         An argument is null, the number of remaining elements
+     *         is not a multiple of the number of components, or the
+     *         size is not supported by the encoding.
+     */
+    public QuantizedArray encode(FloatBuffer values, AttrDataSize size)
+    {
+        // Check the arguments.
+        if (values == null)
+        {
+            throw new IllegalArgumentException("values is null.");
+        }
+
+        if (size == null)
+        {
+            throw new IllegalArgumentException("size is null.");
+        }
+
+        final int components = size.getSize();
+
+        if (values.remaining() % components != 0)
+        {
+            throw new IllegalArgumentException("The number of values is not a multiple of the size.");
+        }
+
+        if (encoding.isPacked() && components < 3)
+        {
+            throw new IllegalArgumentException(encoding + " requires THREE or FOUR as the size.");
+        }
+
+        // Work on a duplicate so that the position of the given
+        // buffer is not affected.
+        final FloatBuffer input = values.duplicate();
+        final int vertexCount   = input.remaining() / components;
+
+        // Compute the scale and the bias for each component.
+        float[] scale = new float[components];
+        float[] bias  = new float[components];
+        computeScaleAndBias(input, vertexCount, components, scale, bias);
+
+        // Allocate the output buffer.
+        Buffer output = allocate(vertexCount, components);
+
+        // Encode.
+        if (executor == null || vertexCount <= parallelThreshold)
+        {
+            encodeRange(input, output, components, scale, bias, 0, vertexCount);
+        }
+        else
+        {
+            encodeInParallel(input, output, components, scale, bias, vertexCount);
+        }
+
+        return new QuantizedArray(output, encoding, size, vertexCount, scale, bias);
+    }
+
+
+    private void computeScaleAndBias(FloatBuffer input, int vertexCount, int components, float[] scale, float[] bias)
+    {
+        // Identity for encodings which don't need bounds.
+        for (int i = 0; i < components; ++i)
+        {
+            scale[i] = 1.0f;
+            bias[i]  = 0.0f;
+        }
+
+        if (boundsComputed == false || encoding.isNormalized() == false || vertexCount == 0)
+        {
+            return;
+        }
+
+        float[] min = new float[components];
+        float[] max = new float[components];
+        int base    = input.position();
+
+        for (int i = 0; i < components; ++i)
+        {
+            min[i] = Float.POSITIVE_INFINITY;
+            max[i] = Float.NEGATIVE_INFINITY;
+        }
+
+        for (int v = 0, index = base; v < vertexCount; ++v)
+        {
+            for (int i = 0; i < components; ++i, ++index)
+            {
+                float value = input.get(index);
+
+                if (value < min[i])
+                {
+                    min[i] = value;
+                }
+
+                if (max[i] < value)
+                {
+                    max[i] = value;
+                }
+            }
+        }
+
+        for (int i = 0; i < components; ++i)
+        {
+            float extent = max[i] - min[i];
+
+            if (encoding.isSigned())
+            {
+                // [min, max] -> [-1, 1]
+                scale[i] = extent * 0.5f;
+                bias[i]  = (min[i] + max[i]) * 0.5f;
+            }
+            else
+            {
+                // [min, max] -> [0, 1]
+                scale[i] = extent;
+                bias[i]  = min[i];
+            }
+
+            // All the values of the component are identical.
+            if (scale[i] == 0.0f)
+            {
+                scale[i] = 1.0f;
+            }
+        }
+    }
+
+
+    private Buffer allocate(int vertexCount, int components)
+    {
+        switch (encoding)
+        {
+            case HALF_FLOAT:
+            case SNORM16:
+            case UNORM16:
+                return BufferCreator.createShortBuffer(vertexCount * components);
+
+            case SNORM8:
+            case UNORM8:
+                return BufferCreator.createByteBuffer(vertexCount * components);
+
+            default:
+                return BufferCreator.createIntBuffer(vertexCount);
+        }
+    }
+
+
+    private void encodeInParallel(
+        final FloatBuffer input, final Buffer output, final int components,
+        final float[] scale, final float[] bias, int vertexCount)
+    {
+        // Split the vertices into chunks of about the threshold size.
+        int chunks    = (vertexCount + parallelThreshold - 1) / parallelThreshold;
+        int chunkSize = (vertexCount + chunks - 1) / chunks;
+
+        List<Future<Void>> futures = new ArrayList<Future<Void>>(chunks);
+
+        for (int start = 0; start < vertexCount; start += chunkSize)
+        {
+            final int from = start;
+            final int to   = Math.min(start + chunkSize, vertexCount);
+
+            futures.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call()
+                {
+                    // Each task writes to a disjoint range by
+                    // absolute get/put, so no synchronization
+                    // is needed.
+                    encodeRange(input, output, components, scale, bias, from, to);
+                    return null;
+                }
+            }));
+        }
+
+        for (Future<Void> future : futures)
+        {
+            try
+            {
+                future.get();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while encoding vertices.", e);
+            }
+            catch (ExecutionException e)
+            {
+                throw new IllegalStateException("Failed to encode vertices.", e.getCause());
+            }
+        }
+    }
+
+
+    private void encodeRange(
+        FloatBuffer input, Buffer output, int components,
+        float[] scale, float[] bias, int from, int to)
+    {
+        int base = input.position();
+
+        switch (encoding)
+        {
+            case HALF_FLOAT:
+                encodeHalfFloat((ShortBuffer)output, input, base, components, from, to);
+                break;
+
+            case SNORM16:
+            case UNORM16:
+                encodeShort((ShortBuffer)output, input, base, components, scale, bias, from, to);
+                break;
+
+            case SNORM8:
+            case UNORM8:
+                encodeByte((ByteBuffer)output, input, base, components, scale, bias, from, to);
+                break;
+
+            default:
+                encodePacked((IntBuffer)output, input, base, components, scale, bias, from, to);
+                break;
+        }
+    }
+
+
+    private static void encodeHalfFloat(
+        ShortBuffer output, FloatBuffer input, int base, int components, int from, int to)
+    {
+        for (int i = from * components, end = to * components; i < end; ++i)
+        {
+            output.put(i, toHalfFloat(input.get(base + i)));
+        }
+    }
+
+
+    private void encodeShort(
+        ShortBuffer output, FloatBuffer input, int base, int components,
+        float[] scale, float[] bias, int from, int to)
+    {
+        boolean signed = encoding.isSigned();
+
+        for (int v = from, i = from * components; v < to; ++v)
+        {
+            for (int c = 0; c < components; ++c, ++i)
+            {
+                float value = (input.get(base + i) - bias[c]) / scale[c];
+                output.put(i, (short)toNormalized(value, 16, signed));
+            }
+        }
+    }
+
+
+    private void encodeByte(
+        ByteBuffer output, FloatBuffer input, int base, int components,
+        float[] scale, float[] bias, int from, int to)
+    {
+        boolean signed = encoding.isSigned();
+
+        for (int v = from, i = from * components; v < to; ++v)
+        {
+            for (int c = 0; c < components; ++c, ++i)
+            {
+                float value = (input.get(base + i) - bias[c]) / scale[c];
+                output.put(i, (byte)toNormalized(value, 8, signed));
+            }
+        }
+    }
+
+
+    private void encodePacked(
+        IntBuffer output, FloatBuffer input, int base, int components,
+        float[] scale, float[] bias, int from, int to)
+    {
+        boolean signed = encoding.isSigned();
+
+        for (int v = from; v < to; ++v)
+        {
+            int index  = base + v * components;
+            int packed = 0;
+
+            // The first component occupies the most significant bits.
+            for (int c = 0; c < 3; ++c)
+            {
+                float value = (input.get(index + c) - bias[c]) / scale[c];
+                packed |= (toNormalized(value, 10, signed) & 0x3FF) << (22 - c * 10);
+            }
+
+            if (components == 4)
+            {
+                float value = (input.get(index + 3) - bias[3]) / scale[3];
+                packed |= (toNormalized(value, 2, signed) & 0x3);
+            }
+
+            output.put(v, packed);
+        }
+    }
+
+
+    /**
+     * Convert a value in [-1, 1] (signed) or [0, 1] (unsigned) into
+     * a normalized integer of the given number of bits, following
+     * the conversion rules of OpenGL ES 2.0, that is, <code>f =
+     * (2c + 1) / (2<sup>b</sup> - 1)</code> for signed integers and
+     * <code>f = c / (2<sup>b</sup> - 1)</code> for unsigned ones.
+     */
+    static int toNormalized(float value, int bits, boolean signed)
+    {
+        int max = (1 << bits) - 1;
+
+        if (signed)
+        {
+            int c = Math.round((value * max - 1.0f) * 0.5f);
+            int limit = 1 << (bits - 1);
+
+            return Math.max(-limit, Math.min(limit - 1, c));
+        }
+        else
+        {
+            int c = Math.round(value * max);
+
+            return Math.max(0, Math.min(max, c));
+        }
+    }
+
+
+    /**
+     * Convert a 32-bit float into a 16-bit float (IEEE 754 binary16).
+     * Values too large are converted into infinity and values too
+     * small into (signed) zero.
+     */
+    static short toHalfFloat(float value)
+    {
+        int bits = Float.floatToRawIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int abs  = bits & 0x7FFFFFFF;
+
+        // NaN
+        if (0x7F800000 < abs)
+        {
+            return (short)(sign | 0x7E00);
+        }
+
+        // Add the rounding bias.
+        int rounded = abs + 0x1000;
+
+        // Overflow or infinity.
+        if (0x477FFFFF < rounded)
+        {
+            return (short)(sign | 0x7C00);
+        }
+
+        // Normalized half float.
+        if (0x387FFFFF < rounded)
+        {
+            return (short)(sign | ((rounded - 0x38000000) >>> 13));
+        }
+
+        // Too small even for a denormalized half float.
+        if (rounded < 0x33000000)
+        {
+            return (short)sign;
+        }
+
+        // Denormalized half float.
+        int exponent = abs >>> 23;
+        int mantissa = (abs & 0x007FFFFF) | 0x00800000;
+
+        return (short)(sign | ((mantissa + (0x00800000 >>> (exponent - 102))) >>> (126 - exponent)));
+    }
+}
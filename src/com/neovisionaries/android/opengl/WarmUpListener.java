@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl;
+
+
+/**
+ * Listener notified of the progress of {@link ShaderWarmUp}.
+ * Methods are called on the GL thread.
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see ShaderWarmUp#setListener(WarmUpListener)
+ */
+public interface WarmUpListener
+{
+    /**
+     * Called when a program has been warmed up or has failed.
+     *
+     * @param completed
+     *         The number of programs completed so far, including
+     *         failed ones.
+     *
+     * @param total
+     *         The total number of programs.
+     */
+    void onProgress(int completed, int total);
+
+
+    /**
+     * Called when reading, compiling or linking of a program failed.
+     *
+     * @param descriptor
+     *         The descriptor of the program.
+     *
+     * @param exception
+     *         The cause.
+     */
+    void onError(ProgramDescriptor descriptor, Exception exception);
+}
@@ -117,6 +117,20 @@ public class GLESImpl11 extends GLESImplBase
     }
 
 
+    @Override
+    public void glCompressedTexImage2D(int target, int level, int internalFormat, int width, int height, int border, int imageSize, Buffer data)
+    {
+        GLES11.glCompressedTexImage2D(target, level, internalFormat, width, height, border, imageSize, data);
+    }
+
+
+    @Override
+    public void glCompressedTexSubImage2D(int target, int level, int xOffset, int yOffset, int width, int height, int format, int imageSize, Buffer data)
+    {
+        GLES11.glCompressedTexSubImage2D(target, level, xOffset, yOffset, width, height, format, imageSize, data);
+    }
+
+
     @Override
     public void glDeleteBuffers(int count, int[] vertexBufferIds, int offset)
     {
@@ -188,16 +202,16 @@ public class GLESImpl11 extends GLESImplBase
 
 
     @Override
-    public void glGenBuffers(int vertexBufferType, int[] vertexBufferIds, int offset)
+    public void glGenBuffers(int count, int[] vertexBufferIds, int offset)
     {
-        GLES11.glGenBuffers(vertexBufferType, vertexBufferIds, offset);
+        GLES11.glGenBuffers(count, vertexBufferIds, offset);
     }
 
 
     @Override
-    public void glGenTextures(int textureType, int[] textureIds, int offset)
+    public void glGenTextures(int count, int[] textureIds, int offset)
     {
-        GLES11.glGenTextures(textureType, textureIds, offset);
+        GLES11.glGenTextures(count, textureIds, offset);
     }
 
 
@@ -264,6 +278,13 @@ public class GLESImpl11 extends GLESImplBase
     }
 
 
+    @Override
+    public void glPixelStorei(int parameterId, int parameterValue)
+    {
+        GLES11.glPixelStorei(parameterId, parameterValue);
+    }
+
+
     @Override
     public void glStencilFunc(int comparisonOperator, int referenceValue, int mask)
     {
@@ -285,6 +306,13 @@ public class GLESImpl11 extends GLESImplBase
     }
 
 
+    @Override
+    public void glTexImage2D(int target, int level, int internalFormat, int width, int height, int border, int format, int type, Buffer pixels)
+    {
+        GLES11.glTexImage2D(target, level, internalFormat, width, height, border, format, type, pixels);
+    }
+
+
     @Override
     public void glTexParameteri(int textureType, int parameterId, int parameterValue)
     {
@@ -292,6 +320,13 @@ public class GLESImpl11 extends GLESImplBase
     }
 
 
+    @Override
+    public void glTexSubImage2D(int target, int level, int xOffset, int yOffset, int width, int height, int format, int type, Buffer pixels)
+    {
+        GLES11.glTexSubImage2D(target, level, xOffset, yOffset, width, height, format, type, pixels);
+    }
+
+
     @Override
     public void glViewport(int x, int y, int width, int height)
     {
@@ -192,6 +192,20 @@ public class GLESImpl20 extends GLESImplBase
     }
 
 
+    @Override
+    public void glCompressedTexImage2D(int target, int level, int internalFormat, int width, int height, int border, int imageSize, Buffer data)
+    {
+        GLES20.glCompressedTexImage2D(target, level, internalFormat, width, height, border, imageSize, data);
+    }
+
+
+    @Override
+    public void glCompressedTexSubImage2D(int target, int level, int xOffset, int yOffset, int width, int height, int format, int imageSize, Buffer data)
+    {
+        GLES20.glCompressedTexSubImage2D(target, level, xOffset, yOffset, width, height, format, imageSize, data);
+    }
+
+
     @Override
     public int glCreateProgram()
     {
@@ -312,9 +326,9 @@ public class GLESImpl20 extends GLESImplBase
 
 
     @Override
-    public void glGenBuffers(int vertexBufferType, int[] vertexBufferIds, int offset)
+    public void glGenBuffers(int count, int[] vertexBufferIds, int offset)
     {
-        GLES20.glGenBuffers(vertexBufferType, vertexBufferIds, offset);
+        GLES20.glGenBuffers(count, vertexBufferIds, offset);
     }
 
 
@@ -333,9 +347,41 @@ public class GLESImpl20 extends GLESImplBase
 
 
     @Override
-    public void glGenTextures(int textureType, int[] textureIds, int offset)
+    public void glGenTextures(int count, int[] textureIds, int offset)
     {
-        GLES20.glGenTextures(textureType, textureIds, offset);
+        GLES20.glGenTextures(count, textureIds, offset);
+    }
+
+
+    @Override
+    public String glGetActiveAttrib(int programId, int index, int[] size, int sizeOffset, int[] type, int typeOffset)
+    {
+        // The maximum length of attribute names including the null terminator.
+        int[] params = new int[1];
+        GLES20.glGetProgramiv(programId, GL_ACTIVE_ATTRIBUTE_MAX_LENGTH(), params, 0);
+
+        byte[] name = new byte[Math.max(params[0], 1)];
+        int[] length = new int[1];
+
+        GLES20.glGetActiveAttrib(programId, index, name.length, length, 0, size, sizeOffset, type, typeOffset, name, 0);
+
+        return new String(name, 0, length[0]);
+    }
+
+
+    @Override
+    public String glGetActiveUniform(int programId, int index, int[] size, int sizeOffset, int[] type, int typeOffset)
+    {
+        // The maximum length of uniform names including the null terminator.
+        int[] params = new int[1];
+        GLES20.glGetProgramiv(programId, GL_ACTIVE_UNIFORM_MAX_LENGTH(), params, 0);
+
+        byte[] name = new byte[Math.max(params[0], 1)];
+        int[] length = new int[1];
+
+        GLES20.glGetActiveUniform(programId, index, name.length, length, 0, size, sizeOffset, type, typeOffset, name, 0);
+
+        return new String(name, 0, length[0]);
     }
 
 
@@ -479,6 +525,13 @@ public class GLESImpl20 extends GLESImplBase
     }
 
 
+    @Override
+    public void glPixelStorei(int parameterId, int parameterValue)
+    {
+        GLES20.glPixelStorei(parameterId, parameterValue);
+    }
+
+
     @Override
     public void glReleaseShaderCompiler()
     {
@@ -542,6 +595,13 @@ public class GLESImpl20 extends GLESImplBase
     }
 
 
+    @Override
+    public void glTexImage2D(int target, int level, int internalFormat, int width, int height, int border, int format, int type, Buffer pixels)
+    {
+        GLES20.glTexImage2D(target, level, internalFormat, width, height, border, format, type, pixels);
+    }
+
+
     @Override
     public void glTexParameteri(int textureType, int parameterId, int parameterValue)
     {
@@ -549,6 +609,13 @@ public class GLESImpl20 extends GLESImplBase
     }
 
 
+    @Override
+    public void glTexSubImage2D(int target, int level, int xOffset, int yOffset, int width, int height, int format, int type, Buffer pixels)
+    {
+        GLES20.glTexSubImage2D(target, level, xOffset, yOffset, width, height, format, type, pixels);
+    }
+
+
     @Override
     public void glUniform1f(int uniformLocation, float x)
     {
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.opengl.impl;
+
+
+import java.nio.Buffer;
+import com.neovisionaries.android.opengl.GLES;
+import android.opengl.GLES30;
+
+
+/**
+ * An implementation of {@link GLES} interface for OpenGL ES 2.0
+ * (for Android 4.3 and newer).
+ *
+ * <p>
+ * <a href="http://developer.android.com/reference/android/opengl/GLES20.html"
+ * >android.opengl.GLES20</a> has no binding for the entry points of
+ * OES_get_program_binary. Since Android 4.3 (API Level 18), <a href=
+ * "http://developer.android.com/reference/android/opengl/GLES30.html"
+ * >android.opengl.GLES30</a> has glGetProgramBinary() and
+ * glProgramBinary(), which have the same semantics and the same enum
+ * values as the OES versions. This class extends {@link GLESImpl20_9}
+ * to implement them.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see <a href="http://developer.android.com/reference/android/opengl/GLES30.html">android.opengl.GLES30</a>
+ */
+public class GLESImpl20_18 extends GLESImpl20_9
+{
+    @Override
+    public void glGetProgramBinary(int programId, int bufferSize, int[] length, int lengthOffset, int[] binaryFormat, int binaryFormatOffset, Buffer binary)
+    {
+        GLES30.glGetProgramBinary(programId, bufferSize, length, lengthOffset, binaryFormat, binaryFormatOffset, binary);
+    }
+
+
+    @Override
+    public void glProgramBinary(int programId, int binaryFormat, Buffer binary, int length)
+    {
+        GLES30.glProgramBinary(programId, binaryFormat, binary, length);
+    }
+}
@@ -151,6 +151,27 @@ public abstract class GLESImplBase implements GLES
     }
 
 
+    @Override
+    public int GL_ATC_RGBA_EXPLICIT_ALPHA_AMD()
+    {
+        return 0x00008c93;
+    }
+
+
+    @Override
+    public int GL_ATC_RGBA_INTERPOLATED_ALPHA_AMD()
+    {
+        return 0x000087ee;
+    }
+
+
+    @Override
+    public int GL_ATC_RGB_AMD()
+    {
+        return 0x00008c92;
+    }
+
+
     @Override
     public int GL_ATTACHED_SHADERS()
     {
@@ -459,6 +480,167 @@ public abstract class GLESImplBase implements GLES
     }
 
 
+    @Override
+    public int GL_COMPLETION_STATUS_KHR()
+    {
+        return 0x000091b1;
+    }
+
+
+    @Override
+    public int GL_COMPRESSED_RGBA_ASTC_4x4_KHR()
+    {
+        return 0x000093b0;
+    }
+
+
+    @Override
+    public int GL_COMPRESSED_RGBA_ASTC_5x4_KHR()
+    {
+        return 0x000093b1;
+    }
+
+
+    @Override
+    public int GL_COMPRESSED_RGBA_ASTC_5x5_KHR()
+    {
+        return 0x000093b2;
+    }
+
+
+    @Override
+    public int GL_COMPRESSED_RGBA_ASTC_6x5_KHR()
+    {
+        return 0x000093b3;
+    }
+
+
+    @Override
+    public int GL_COMPRESSED_RGBA_ASTC_6x6_KHR()
+    {
+        return 0x000093b4;
+    }
+
+
+    @Override
+    public int GL_COMPRESSED_RGBA_ASTC_8x5_KHR()
+    {
+        return 0x000093b5;
+    }
+
+
+    @Override
+    public int GL_COMPRESSED_RGBA_ASTC_8x6_KHR()
+    {
+        return 0x000093b6;
+    }
+
+
+    @Override
+    public int GL_COMPRESSED_RGBA_ASTC_8x8_KHR()
+    {
+        return 0x000093b7;
+    }
+
+
+    @Override
+    public int GL_COMPRESSED_RGBA_ASTC_10x5_KHR()
+    {
+        return 0x000093b8;
+    }
+
+
+    @Override
+    public int GL_COMPRESSED_RGBA_ASTC_10x6_KHR()
+    {
+        return 0x000093b9;
+    }
+
+
+    @Override
+    public int GL_COMPRESSED_RGBA_ASTC_10x8_KHR()
+    {
+        return 0x000093ba;
+    }
+
+
+    @Override
+    public int GL_COMPRESSED_RGBA_ASTC_10x10_KHR()
+    {
+        return 0x000093bb;
+    }
+
+
+    @Override
+    public int GL_COMPRESSED_RGBA_ASTC_12x10_KHR()
+    {
+        return 0x000093bc;
+    }
+
+
+    @Override
+    public int GL_COMPRESSED_RGBA_ASTC_12x12_KHR()
+    {
+        return 0x000093bd;
+    }
+
+
+    @Override
+    public int GL_COMPRESSED_RGBA_PVRTC_2BPPV1_IMG()
+    {
+        return 0x00008c03;
+    }
+
+
+    @Override
+    public int GL_COMPRESSED_RGBA_PVRTC_4BPPV1_IMG()
+    {
+        return 0x00008c02;
+    }
+
+
+    @Override
+    public int GL_COMPRESSED_RGBA_S3TC_DXT1_EXT()
+    {
+        return 0x000083f1;
+    }
+
+
+    @Override
+    public int GL_COMPRESSED_RGBA_S3TC_DXT3_EXT()
+    {
+        return 0x000083f2;
+    }
+
+
+    @Override
+    public int GL_COMPRESSED_RGBA_S3TC_DXT5_EXT()
+    {
+        return 0x000083f3;
+    }
+
+
+    @Override
+    public int GL_COMPRESSED_RGB_PVRTC_2BPPV1_IMG()
+    {
+        return 0x00008c01;
+    }
+
+
+    @Override
+    public int GL_COMPRESSED_RGB_PVRTC_4BPPV1_IMG()
+    {
+        return 0x00008c00;
+    }
+
+
+    @Override
+    public int GL_COMPRESSED_RGB_S3TC_DXT1_EXT()
+    {
+        return 0x000083f0;
+    }
+
+
     @Override
     public int GL_COMPRESSED_TEXTURE_FORMATS()
     {
@@ -711,6 +893,13 @@ public abstract class GLESImplBase implements GLES
     }
 
 
+    @Override
+    public int GL_ETC1_RGB8_OES()
+    {
+        return 0x00008d64;
+    }
+
+
     @Override
     public int GL_EXTENSIONS()
     {
@@ -949,6 +1138,13 @@ public abstract class GLESImplBase implements GLES
     }
 
 
+    @Override
+    public int GL_HALF_FLOAT_OES()
+    {
+        return 0x00008d61;
+    }
+
+
     @Override
     public int GL_HIGH_FLOAT()
     {
@@ -1012,6 +1208,13 @@ public abstract class GLESImplBase implements GLES
     }
 
 
+    @Override
+    public int GL_INT_10_10_10_2_OES()
+    {
+        return 0x00008df7;
+    }
+
+
     @Override
     public int GL_INT_VEC2()
     {
@@ -1397,6 +1600,13 @@ public abstract class GLESImplBase implements GLES
     }
 
 
+    @Override
+    public int GL_NUM_PROGRAM_BINARY_FORMATS_OES()
+    {
+        return 0x000087fe;
+    }
+
+
     @Override
     public int GL_NUM_SHADER_BINARY_FORMATS()
     {
@@ -1628,6 +1838,20 @@ public abstract class GLESImplBase implements GLES
     }
 
 
+    @Override
+    public int GL_PROGRAM_BINARY_FORMATS_OES()
+    {
+        return 0x000087ff;
+    }
+
+
+    @Override
+    public int GL_PROGRAM_BINARY_LENGTH_OES()
+    {
+        return 0x00008741;
+    }
+
+
     @Override
     public int GL_PROJECTION_MATRIX()
     {
@@ -2587,6 +2811,13 @@ public abstract class GLESImplBase implements GLES
     }
 
 
+    @Override
+    public int GL_UNSIGNED_INT_10_10_10_2_OES()
+    {
+        return 0x00008df6;
+    }
+
+
     @Override
     public int GL_UNSIGNED_SHORT()
     {
@@ -2881,6 +3112,20 @@ public abstract class GLESImplBase implements GLES
     }
 
 
+    @Override
+    public void glCompressedTexImage2D(int target, int level, int internalFormat, int width, int height, int border, int imageSize, Buffer data)
+    {
+        unsupported("glCompressedTexImage2D");
+    }
+
+
+    @Override
+    public void glCompressedTexSubImage2D(int target, int level, int xOffset, int yOffset, int width, int height, int format, int imageSize, Buffer data)
+    {
+        unsupported("glCompressedTexSubImage2D");
+    }
+
+
     @Override
     public int glCreateProgram()
     {
@@ -3012,7 +3257,7 @@ public abstract class GLESImplBase implements GLES
 
 
     @Override
-    public void glGenBuffers(int vertexBufferType, int[] vertexBufferIds, int offset)
+    public void glGenBuffers(int count, int[] vertexBufferIds, int offset)
     {
         unsupported("glGenBuffers");
     }
@@ -3033,12 +3278,30 @@ public abstract class GLESImplBase implements GLES
 
 
     @Override
-    public void glGenTextures(int textureType, int[] textureIds, int offset)
+    public void glGenTextures(int count, int[] textureIds, int offset)
     {
         unsupported("glGenTextures");
     }
 
 
+    @Override
+    public String glGetActiveAttrib(int programId, int index, int[] size, int sizeOffset, int[] type, int typeOffset)
+    {
+        unsupported("glGetActiveAttrib");
+
+        return null;
+    }
+
+
+    @Override
+    public String glGetActiveUniform(int programId, int index, int[] size, int sizeOffset, int[] type, int typeOffset)
+    {
+        unsupported("glGetActiveUniform");
+
+        return null;
+    }
+
+
     @Override
     public int glGetAttribLocation(int programId, String attributeName)
     {
@@ -3099,6 +3362,13 @@ public abstract class GLESImplBase implements GLES
     }
 
 
+    @Override
+    public void glGetProgramBinary(int programId, int bufferSize, int[] length, int lengthOffset, int[] binaryFormat, int binaryFormatOffset, Buffer binary)
+    {
+        unsupported("glGetProgramBinary");
+    }
+
+
     @Override
     public String glGetProgramInfoLog(int programId)
     {
@@ -3193,6 +3463,20 @@ public abstract class GLESImplBase implements GLES
     }
 
 
+    @Override
+    public void glPixelStorei(int parameterId, int parameterValue)
+    {
+        unsupported("glPixelStorei");
+    }
+
+
+    @Override
+    public void glProgramBinary(int programId, int binaryFormat, Buffer binary, int length)
+    {
+        unsupported("glProgramBinary");
+    }
+
+
     @Override
     public void glReleaseShaderCompiler()
     {
@@ -3256,6 +3540,13 @@ public abstract class GLESImplBase implements GLES
     }
 
 
+    @Override
+    public void glTexImage2D(int target, int level, int internalFormat, int width, int height, int border, int format, int type, Buffer pixels)
+    {
+        unsupported("glTexImage2D");
+    }
+
+
     @Override
     public void glTexParameteri(int textureType, int parameterId, int parameterValue)
     {
@@ -3263,6 +3554,13 @@ public abstract class GLESImplBase implements GLES
     }
 
 
+    @Override
+    public void glTexSubImage2D(int target, int level, int xOffset, int yOffset, int width, int height, int format, int type, Buffer pixels)
+    {
+        unsupported("glTexSubImage2D");
+    }
+
+
     @Override
     public void glUniform1f(int uniformLocation, float x)
     {